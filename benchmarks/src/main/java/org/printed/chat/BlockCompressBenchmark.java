@@ -0,0 +1,67 @@
+package org.printed.chat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresión BC1/BC3 de {@link BlockCompressor} sobre una imagen de 256x256
+ * con degradados y ruido, como la que hace {@link AssetPacker} por cada nivel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockCompressBenchmark {
+
+    private static final int SIZE = 256;
+
+    private final BlockCompressor compressor = new BlockCompressor();
+    private ByteBuffer rgba;
+    private ByteBuffer bc1;
+    private ByteBuffer bc3;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        rgba = ByteBuffer.allocate(SIZE * SIZE * 4);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                int offset = (y * SIZE + x) * 4;
+                rgba.put(offset, (byte) (x + random.nextInt(16)));
+                rgba.put(offset + 1, (byte) (y + random.nextInt(16)));
+                rgba.put(offset + 2, (byte) ((x ^ y) + random.nextInt(16)));
+                rgba.put(offset + 3, (byte) (x < SIZE / 2 ? 255 : y));
+            }
+        }
+        bc1 = ByteBuffer.allocate(BlockCompressor.levelBytes(BlockCompressor.BC1, SIZE, SIZE));
+        bc3 = ByteBuffer.allocate(BlockCompressor.levelBytes(BlockCompressor.BC3, SIZE, SIZE));
+    }
+
+    @Benchmark
+    public ByteBuffer encodeBC1() {
+        bc1.clear();
+        compressor.encode(BlockCompressor.BC1, rgba, SIZE, SIZE, bc1);
+        return bc1;
+    }
+
+    @Benchmark
+    public ByteBuffer encodeBC3() {
+        bc3.clear();
+        compressor.encode(BlockCompressor.BC3, rgba, SIZE, SIZE, bc3);
+        return bc3;
+    }
+}
\ No newline at end of file
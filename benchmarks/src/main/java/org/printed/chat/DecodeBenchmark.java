@@ -0,0 +1,54 @@
+package org.printed.chat;
+
+import org.lwjgl.BufferUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodificación PNG -> RGBA con stb_image, como hace el pool de
+ * {@link TextureDecodePipeline}. La imagen es robot.png de los recursos del juego.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+
+    private final StbImageDecoder decoder = new StbImageDecoder();
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream in = DecodeBenchmark.class.getResourceAsStream("/robot.png")) {
+            if (in == null) {
+                throw new IllegalStateException("No se encuentra robot.png en el classpath");
+            }
+            byte[] bytes = in.readAllBytes();
+            encoded = BufferUtils.createByteBuffer(bytes.length);
+            encoded.put(bytes).flip();
+        }
+    }
+
+    @Benchmark
+    public int decode() throws IOException {
+        DecodedImage image = decoder.decode("robot.png", encoded);
+        int size = image.getByteSize();
+        image.free();
+        return size;
+    }
+}
\ No newline at end of file
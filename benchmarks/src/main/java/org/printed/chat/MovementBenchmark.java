@@ -0,0 +1,101 @@
+package org.printed.chat;
+
+import org.lwjgl.glfw.GLFW;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Un tick de entrada a movimiento: eventos de teclado encolados, la foto de
+ * entrada del paso, la velocidad del jugador y la integración de todas las
+ * entidades del mundo; frente al mismo tick con un objeto por entidad, como
+ * era Player antes de {@link EntityWorld}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovementBenchmark {
+
+    private static final float STEP = 1.0f / 60.0f;
+    private static final int[] KEYS = {GLFW.GLFW_KEY_W, GLFW.GLFW_KEY_D, GLFW.GLFW_KEY_S, GLFW.GLFW_KEY_A};
+
+    @Param({"1", "10000", "100000"})
+    public int entities;
+
+    private EntityWorld world;
+    private Input input;
+    private Player player;
+    private HeadlessRunner.ObjectEntity[] objects;
+    private int tick = 0;
+
+    @Setup
+    public void setup() {
+        world = new EntityWorld(entities);
+        input = new Input();
+        Player.bindDefaultKeys(input.getActions());
+        player = new Player(world, 0);
+        Random random = new Random(5);
+        for (int i = 1; i < entities; i++) {
+            long entity = world.create(random.nextFloat(), random.nextFloat(), 0.02f, 0.02f, 0);
+            world.setVelocity(world.indexOf(entity), random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+        }
+
+        // Como en --bench-entities: objetos intercalados con basura y barajados, que no queden contiguos
+        objects = new HeadlessRunner.ObjectEntity[entities];
+        List<float[]> garbage = new ArrayList<>();
+        for (int i = 0; i < entities; i++) {
+            HeadlessRunner.ObjectEntity entity = new HeadlessRunner.ObjectEntity();
+            entity.x = random.nextFloat();
+            entity.y = random.nextFloat();
+            entity.velocityX = random.nextFloat() - 0.5f;
+            entity.velocityY = random.nextFloat() - 0.5f;
+            objects[i] = entity;
+            garbage.add(new float[random.nextInt(16)]);
+        }
+        garbage.clear();
+        Collections.shuffle(Arrays.asList(objects), random);
+    }
+
+    @Benchmark
+    public float tick() {
+        pressNextKey();
+        player.update(input.tick(), STEP);
+        MovementSystem.integrate(world, STEP);
+        return player.getX();
+    }
+
+    @Benchmark
+    public float objectPerEntity() {
+        pressNextKey();
+        player.update(input.tick(), STEP);
+        for (HeadlessRunner.ObjectEntity entity : objects) {
+            entity.update(STEP);
+        }
+        return objects[0].x;
+    }
+
+    // Cada tick suelta una tecla y pulsa la siguiente, como un jugador girando
+    private void pressNextKey() {
+        int key = tick++ & (KEYS.length - 1);
+        input.onKey(KEYS[(key + KEYS.length - 1) & (KEYS.length - 1)], GLFW.GLFW_RELEASE);
+        input.onKey(KEYS[key], GLFW.GLFW_PRESS);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package org.printed.chat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Un paso de {@link ParticleSystem} con el pool lleno: emisión de las que
+ * mueren, integración y swap-remove.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParticleBenchmark {
+
+    private static final float STEP = 1.0f / 60.0f;
+
+    @Param({"10000", "1000000"})
+    public int particles;
+
+    private ParticleSystem system;
+
+    @Setup
+    public void setup() {
+        system = new ParticleSystem(TextureHandle.ready("particle", 1), particles);
+        system.setGravity(0.0f, -0.5f);
+        system.setDrag(0.2f);
+        ParticleEmitter emitter = system.addEmitter(new ParticleEmitter(0.0f, 0.0f, particles / 2.0f)
+                .setLife(1.0f, 3.0f).setSpeed(0.1f, 1.0f));
+        system.burst(emitter, particles);
+    }
+
+    @Benchmark
+    public int update() {
+        system.update(STEP);
+        return system.size();
+    }
+}
\ No newline at end of file
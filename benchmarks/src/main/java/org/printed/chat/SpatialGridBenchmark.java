@@ -0,0 +1,76 @@
+package org.printed.chat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fase amplia de colisiones: parejas solapadas con {@link SpatialHashGrid}
+ * (actualizar la rejilla incluido) frente a la comparación O(n²).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialGridBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int entities;
+
+    private EntityWorld world;
+    private SpatialHashGrid grid;
+    private long checksum = 0;
+
+    @Setup
+    public void setup() {
+        // Misma densidad que --bench-grid
+        float side = (float) Math.sqrt(entities) * 0.05f;
+        world = new EntityWorld(entities);
+        Random random = new Random(7);
+        for (int i = 0; i < entities; i++) {
+            world.create(random.nextFloat() * side, random.nextFloat() * side,
+                    0.01f + random.nextFloat() * 0.02f, 0.01f + random.nextFloat() * 0.02f, 0);
+        }
+        grid = new SpatialHashGrid(0.04f, entities);
+        grid.update(world);
+    }
+
+    @Benchmark
+    public int grid() {
+        grid.update(world);
+        return grid.forEachPair((a, b) -> checksum += a ^ b);
+    }
+
+    @Benchmark
+    public int bruteForce() {
+        int pairs = 0;
+        for (int a = 0, n = world.size(); a < n; a++) {
+            float ax = world.posX[a];
+            float ay = world.posY[a];
+            float aw = world.width[a] * 0.5f;
+            float ah = world.height[a] * 0.5f;
+            for (int b = a + 1; b < n; b++) {
+                float bw = world.width[b] * 0.5f;
+                float bh = world.height[b] * 0.5f;
+                if (ax - aw <= world.posX[b] + bw && ax + aw >= world.posX[b] - bw
+                        && ay - ah <= world.posY[b] + bh && ay + ah >= world.posY[b] - bh) {
+                    pairs++;
+                }
+            }
+        }
+        return pairs;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package org.printed.chat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relleno del buffer de instancias de {@link SpriteBatch} para N sprites. El
+ * backend de grabación no copia las instancias, así que se mide sólo el lado
+ * del batch: escritura en el FloatBuffer y flushes. Las llamadas grabadas se
+ * vacían en cada invocación para que la lista no crezca entre iteraciones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpriteBatchBenchmark {
+
+    private static final int TEXTURES = 4;
+
+    @Param({"1000", "10000", "100000"})
+    public int sprites;
+
+    private RecordingRenderBackend backend;
+    private SpriteBatch batch;
+    private float[] x;
+    private float[] y;
+
+    @Setup
+    public void setup() {
+        backend = new RecordingRenderBackend(false);
+        batch = new SpriteBatch(backend, 4096);
+        Random random = new Random(3);
+        x = new float[sprites];
+        y = new float[sprites];
+        for (int i = 0; i < sprites; i++) {
+            x[i] = random.nextFloat() * 2.0f - 1.0f;
+            y[i] = random.nextFloat() * 2.0f - 1.0f;
+        }
+    }
+
+    @Benchmark
+    public long singleTexture() {
+        backend.clear();
+        batch.begin();
+        for (int i = 0; i < sprites; i++) {
+            batch.draw(1, x[i], y[i], 0.05f, 0.05f);
+        }
+        batch.end();
+        return batch.getStats().getTotalSprites();
+    }
+
+    // Cambia de textura cada 64 sprites, como un nivel sin atlas
+    @Benchmark
+    public long textureRuns() {
+        backend.clear();
+        batch.begin();
+        for (int i = 0; i < sprites; i++) {
+            batch.draw(1 + (i >> 6) % TEXTURES, x[i], y[i], 0.05f, 0.05f);
+        }
+        batch.end();
+        return batch.getStats().getTotalSprites();
+    }
+}
\ No newline at end of file
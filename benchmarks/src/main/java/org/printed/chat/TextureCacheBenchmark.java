@@ -0,0 +1,60 @@
+package org.printed.chat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsquedas en {@link TextureCache}: acierto con su release y fallo. No hace
+ * falta GL, los ids de textura son inventados.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextureCacheBenchmark {
+
+    @Param({"16", "1024"})
+    public int textures;
+
+    private TextureCache cache;
+    private String[] names;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        cache = new TextureCache(Long.MAX_VALUE);
+        names = new String[textures];
+        for (int i = 0; i < textures; i++) {
+            names[i] = "textura-" + i + ".png";
+            cache.putIfAbsent(names[i], new TextureHandle(names[i], 0));
+            cache.setResident(names[i], i + 1, 64, 64, true);
+        }
+    }
+
+    @Benchmark
+    public int hit() {
+        String name = names[next];
+        next = next + 1 == names.length ? 0 : next + 1;
+        TextureHandle handle = cache.acquire(name);
+        cache.release(handle);
+        return handle.getTextureId();
+    }
+
+    @Benchmark
+    public TextureHandle miss() {
+        return cache.acquire("no-existe.png");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+package org.printed.chat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matemática de cámara y transformaciones: la matriz de vista y proyección de
+ * {@link Camera2D}, el seguimiento suavizado y la transformación de vértices
+ * con una matriz 4x4 completa y con la forma escala + desplazamiento que usan
+ * los backends.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+
+    private static final int POINTS = 4096;
+
+    private final float[] matrix = new float[16];
+    private final float[] points = new float[POINTS * 2];
+    private final float[] out = new float[POINTS * 2];
+    private EntityWorld world;
+    private Camera2D camera;
+    private float time = 0.0f;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(11);
+        for (int i = 0; i < points.length; i++) {
+            points[i] = random.nextFloat() * 20.0f - 10.0f;
+        }
+        world = new EntityWorld(16);
+        long target = world.create(0.0f, 0.0f, 0.2f, 0.3f, 0);
+        world.setVelocity(world.indexOf(target), 0.6f, 0.3f);
+        camera = new Camera2D();
+        camera.follow(world, target);
+        Camera2D.viewProjection(3.0f, -2.0f, 4.0f, 3.0f, matrix);
+    }
+
+    @Benchmark
+    public float[] viewProjection() {
+        time += 0.001f;
+        Camera2D.viewProjection(time, -time, 4.0f, 3.0f, matrix);
+        return matrix;
+    }
+
+    @Benchmark
+    public float cameraFollow() {
+        MovementSystem.integrate(world, 1.0f / 60.0f);
+        camera.update(1.0f / 60.0f);
+        return camera.getX();
+    }
+
+    @Benchmark
+    public float[] transformFull() {
+        float[] m = matrix;
+        for (int i = 0; i < points.length; i += 2) {
+            float px = points[i];
+            float py = points[i + 1];
+            out[i] = m[0] * px + m[4] * py + m[12];
+            out[i + 1] = m[1] * px + m[5] * py + m[13];
+        }
+        return out;
+    }
+
+    @Benchmark
+    public float[] transformScaleOffset() {
+        float scaleX = matrix[0];
+        float scaleY = matrix[5];
+        float offsetX = matrix[12];
+        float offsetY = matrix[13];
+        for (int i = 0; i < points.length; i += 2) {
+            out[i] = points[i] * scaleX + offsetX;
+            out[i + 1] = points[i + 1] * scaleY + offsetY;
+        }
+        return out;
+    }
+}
\ No newline at end of file
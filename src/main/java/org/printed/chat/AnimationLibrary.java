@@ -0,0 +1,148 @@
+package org.printed.chat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Clips de animación sobre hojas de sprites y máquinas de estados idle/walk
+ * que los usan. Todo se guarda en arrays planos: los frames de todos los clips
+ * van seguidos (rectángulo UV y duración) y cada clip es un tramo de ellos, así
+ * que {@link AnimationSystem} y el render sólo manejan índices de frame.
+ */
+public class AnimationLibrary {
+
+    public static final int IDLE = 0;
+    public static final int WALK = 1;
+    static final int STATES = 2;
+
+    // Frames de todos los clips: u0, v0, u1, v1 y duración en segundos
+    float[] frameUVs = new float[64];
+    float[] frameDurations = new float[16];
+    private int frameCount = 0;
+
+    // Clips: tramo de frames y si vuelve a empezar
+    int[] clipFirst = new int[8];
+    int[] clipLength = new int[8];
+    boolean[] clipLoop = new boolean[8];
+    private final List<String> clipNames = new ArrayList<>();
+
+    // Máquinas de estados: clip de cada estado y velocidad² a partir de la que se camina
+    int[] animatorClips = new int[8 * STATES];
+    float[] animatorWalkSpeedSq = new float[8];
+    private int animatorCount = 0;
+
+    /**
+     * Añade un clip con un rectángulo UV (u0, v0, u1, v1) y una duración por
+     * frame. Devuelve su número.
+     */
+    public int addClip(String name, float[] uvRects, float[] durations, boolean loop) {
+        int frames = durations.length;
+        if (frames == 0 || uvRects.length != frames * 4) {
+            throw new IllegalArgumentException("El clip " + name + " necesita 4 coordenadas UV por frame");
+        }
+        for (float duration : durations) {
+            if (!(duration > 0.0f)) {
+                throw new IllegalArgumentException("Duración de frame no válida en " + name + ": " + duration);
+            }
+        }
+
+        if (frameCount + frames > frameDurations.length) {
+            int capacity = Math.max(frameCount + frames, frameDurations.length * 2);
+            frameDurations = Arrays.copyOf(frameDurations, capacity);
+            frameUVs = Arrays.copyOf(frameUVs, capacity * 4);
+        }
+        System.arraycopy(uvRects, 0, frameUVs, frameCount * 4, uvRects.length);
+        System.arraycopy(durations, 0, frameDurations, frameCount, frames);
+
+        int clip = clipNames.size();
+        if (clip == clipFirst.length) {
+            clipFirst = Arrays.copyOf(clipFirst, clip * 2);
+            clipLength = Arrays.copyOf(clipLength, clip * 2);
+            clipLoop = Arrays.copyOf(clipLoop, clip * 2);
+        }
+        clipFirst[clip] = frameCount;
+        clipLength[clip] = frames;
+        clipLoop[clip] = loop;
+        clipNames.add(name);
+        frameCount += frames;
+        return clip;
+    }
+
+    /**
+     * Clip de "count" celdas seguidas (por filas) de una hoja de columns x rows
+     * celdas iguales, empezando en la celda "first", todas con la misma duración.
+     */
+    public int addGridClip(String name, int columns, int rows, int first, int count, float frameSeconds,
+                           boolean loop) {
+        if (columns <= 0 || rows <= 0 || first < 0 || count <= 0 || first + count > columns * rows) {
+            throw new IllegalArgumentException("Celdas fuera de la hoja en " + name + ": " + first + "+" + count
+                    + " de " + columns + "x" + rows);
+        }
+        float[] uvs = new float[count * 4];
+        float[] durations = new float[count];
+        float cellU = 1.0f / columns;
+        float cellV = 1.0f / rows;
+        for (int i = 0; i < count; i++) {
+            int cell = first + i;
+            float u = (cell % columns) * cellU;
+            float v = (cell / columns) * cellV;
+            uvs[i * 4] = u;
+            uvs[i * 4 + 1] = v;
+            uvs[i * 4 + 2] = u + cellU;
+            uvs[i * 4 + 3] = v + cellV;
+            durations[i] = frameSeconds;
+        }
+        return addClip(name, uvs, durations, loop);
+    }
+
+    /**
+     * Máquina de estados idle/walk: camina mientras la velocidad de la entidad
+     * supera "walkSpeed" y vuelve a idle en cuanto baja. Devuelve el número que
+     * se pasa a {@link EntityWorld#setAnimator(int, int)}.
+     */
+    public int addAnimator(int idleClip, int walkClip, float walkSpeed) {
+        checkClip(idleClip);
+        checkClip(walkClip);
+        int id = animatorCount++;
+        if (id == animatorWalkSpeedSq.length) {
+            animatorWalkSpeedSq = Arrays.copyOf(animatorWalkSpeedSq, id * 2);
+            animatorClips = Arrays.copyOf(animatorClips, id * 2 * STATES);
+        }
+        animatorClips[id * STATES + IDLE] = idleClip;
+        animatorClips[id * STATES + WALK] = walkClip;
+        animatorWalkSpeedSq[id] = walkSpeed * walkSpeed;
+        return id;
+    }
+
+    private void checkClip(int clip) {
+        if (clip < 0 || clip >= clipNames.size()) {
+            throw new IllegalArgumentException("Clip no definido: " + clip);
+        }
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public int getClipCount() {
+        return clipNames.size();
+    }
+
+    public int getAnimatorCount() {
+        return animatorCount;
+    }
+
+    public String getClipName(int clip) {
+        return clipNames.get(clip);
+    }
+
+    // Primer frame global del clip
+    public int getClipFirstFrame(int clip) {
+        return clipFirst[clip];
+    }
+
+    public int getAnimatorClip(int animator, int state) {
+        return animatorClips[animator * STATES + state];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+package org.printed.chat;
+
+/**
+ * Avanza las animaciones de las entidades con máquina de estados: elige idle o
+ * walk según la velocidad, acumula el tiempo y pasa de frame. El resultado es
+ * sólo un índice de frame por entidad; el render lo convierte en el rectángulo
+ * UV de la instancia, así que animar no toca ningún buffer de vértices.
+ */
+public final class AnimationSystem implements EntitySystem {
+
+    private final AnimationLibrary library;
+
+    public AnimationSystem(AnimationLibrary library) {
+        this.library = library;
+    }
+
+    @Override
+    public String getName() {
+        return "animation";
+    }
+
+    @Override
+    public int reads() {
+        return EntityWorld.VELOCITY | EntityWorld.ANIMATION;
+    }
+
+    @Override
+    public int writes() {
+        return EntityWorld.ANIMATION;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return true;
+    }
+
+    @Override
+    public void update(EntityWorld world, float deltaTime, int from, int to) {
+        advance(library, world, deltaTime, from, to);
+    }
+
+    public static void advance(AnimationLibrary library, EntityWorld world, float deltaTime, int from, int to) {
+        int[] animator = world.animator;
+        int[] animState = world.animState;
+        float[] animTime = world.animTime;
+        int[] frame = world.frame;
+        float[] velX = world.velX;
+        float[] velY = world.velY;
+        int[] animatorClips = library.animatorClips;
+        float[] walkSpeedSq = library.animatorWalkSpeedSq;
+        int[] clipFirst = library.clipFirst;
+        int[] clipLength = library.clipLength;
+        boolean[] clipLoop = library.clipLoop;
+        float[] durations = library.frameDurations;
+
+        for (int i = from; i < to; i++) {
+            int a = animator[i];
+            if (a < 0) {
+                continue;
+            }
+            float vx = velX[i];
+            float vy = velY[i];
+            int state = vx * vx + vy * vy > walkSpeedSq[a] ? AnimationLibrary.WALK : AnimationLibrary.IDLE;
+            int clip = animatorClips[a * AnimationLibrary.STATES + state];
+            int first = clipFirst[clip];
+
+            int f;
+            float t;
+            if (state != animState[i]) {
+                // Cambio de estado: el clip nuevo empieza desde su primer frame
+                animState[i] = state;
+                f = first;
+                t = 0.0f;
+            } else {
+                f = frame[i];
+                t = animTime[i] + deltaTime;
+                int last = first + clipLength[clip] - 1;
+                while (t >= durations[f]) {
+                    if (f < last) {
+                        t -= durations[f];
+                        f++;
+                    } else if (clipLoop[clip]) {
+                        t -= durations[f];
+                        f = first;
+                    } else {
+                        // Sin bucle: se queda en el último frame
+                        t = 0.0f;
+                        break;
+                    }
+                }
+            }
+            frame[i] = f;
+            animTime[i] = t;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,219 @@
+package org.printed.chat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Paquete de recursos generado por {@link AssetPacker}: texturas ya
+ * decodificadas a RGBA (con sus niveles de mipmap si se generaron) y fuentes de
+ * shaders, todo en un archivo con índice. Se abre proyectándolo en memoria y
+ * cada nivel es una vista del mapeo, así que se sube a GL sin decodificar ni
+ * copiar nada y las páginas las gestiona el sistema operativo.
+ * <p>
+ * Formato (little-endian): "ABND", versión, número de entradas y posición del
+ * índice (long), relleno hasta {@link #HEADER_BYTES}, los datos alineados a 16
+ * bytes y al final el índice. Cada entrada del índice: tipo (byte), nombre
+ * (longitud en short y UTF-8), ancho, alto, formato de {@link BlockCompressor},
+ * número de niveles y, por nivel, posición y longitud (long).
+ */
+public class AssetBundle implements Closeable {
+
+    public static final String DEFAULT_NAME = "assets.bundle";
+
+    static final int MAGIC = 0x444E4241; // "ABND"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 32;
+    static final int ALIGNMENT = 16;
+    static final byte TEXTURE = 1;
+    static final byte TEXT = 2;
+
+    // Textura empaquetada: el nivel 0 es la imagen completa y cada uno mide la mitad que el anterior
+    public static final class Texture {
+        private final String name;
+        private final int width;
+        private final int height;
+        private final int format;
+        private final ByteBuffer[] levels;
+
+        Texture(String name, int width, int height, int format, ByteBuffer[] levels) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+            this.format = format;
+            this.levels = levels;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        // BlockCompressor.RGBA, BC1 o BC3
+        public int getFormat() {
+            return format;
+        }
+
+        public int getLevelCount() {
+            return levels.length;
+        }
+
+        // Píxeles RGBA o bloques comprimidos del nivel, como vista del archivo mapeado
+        public ByteBuffer getLevel(int level) {
+            return levels[level].duplicate();
+        }
+
+        public int getLevelWidth(int level) {
+            return Math.max(1, width >> level);
+        }
+
+        public int getLevelHeight(int level) {
+            return Math.max(1, height >> level);
+        }
+
+        public long getByteSize() {
+            long bytes = 0;
+            for (ByteBuffer level : levels) {
+                bytes += level.remaining();
+            }
+            return bytes;
+        }
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer mapped;
+    private final Map<String, Texture> textures = new HashMap<>();
+    private final Map<String, ByteBuffer> texts = new HashMap<>();
+
+    private AssetBundle(Path path, FileChannel channel, ByteBuffer mapped) {
+        this.path = path;
+        this.channel = channel;
+        this.mapped = mapped;
+    }
+
+    public static AssetBundle open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Paquete demasiado grande para un solo mapeo: " + path);
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            AssetBundle bundle = new AssetBundle(path, channel, mapped);
+            bundle.readIndex();
+            return bundle;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void readIndex() throws IOException {
+        if (mapped.limit() < HEADER_BYTES || mapped.getInt(0) != MAGIC) {
+            throw new IOException("No es un paquete de recursos: " + path);
+        }
+        int version = mapped.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Versión de paquete no soportada: " + version);
+        }
+        int entries = mapped.getInt(8);
+        long indexOffset = mapped.getLong(12);
+        if (indexOffset < HEADER_BYTES || indexOffset > mapped.limit()) {
+            throw new IOException("Índice fuera del archivo en " + path);
+        }
+
+        ByteBuffer index = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        index.position((int) indexOffset);
+        try {
+            for (int i = 0; i < entries; i++) {
+                byte type = index.get();
+                byte[] nameBytes = new byte[index.getShort() & 0xFFFF];
+                index.get(nameBytes);
+                String name = new String(nameBytes, StandardCharsets.UTF_8);
+                int width = index.getInt();
+                int height = index.getInt();
+                int format = index.getInt();
+                ByteBuffer[] levels = new ByteBuffer[index.getInt()];
+                for (int level = 0; level < levels.length; level++) {
+                    levels[level] = slice(index.getLong(), index.getLong());
+                }
+
+                if (type == TEXTURE) {
+                    textures.put(name, new Texture(name, width, height, format, levels));
+                } else if (type == TEXT) {
+                    texts.put(name, levels[0]);
+                } else {
+                    throw new IOException("Tipo de entrada desconocido " + type + " en " + name);
+                }
+            }
+        } catch (java.nio.BufferUnderflowException e) {
+            throw new IOException("Índice truncado en " + path);
+        }
+    }
+
+    // Vista del archivo mapeado, sin copiar
+    private ByteBuffer slice(long offset, long length) throws IOException {
+        if (offset < HEADER_BYTES || length < 0 || offset + length > mapped.limit()) {
+            throw new IOException("Entrada fuera del archivo en " + path);
+        }
+        ByteBuffer view = mapped.duplicate();
+        view.position((int) offset).limit((int) (offset + length));
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Textura por nombre (el mismo que se pasa a TextureLoader), o null si no está
+    public Texture getTexture(String name) {
+        return textures.get(name);
+    }
+
+    // Texto (fuente de shader) por nombre, o null si no está
+    public String getText(String name) {
+        ByteBuffer text = texts.get(name);
+        return text == null ? null : StandardCharsets.UTF_8.decode(text.duplicate()).toString();
+    }
+
+    public Set<String> getTextureNames() {
+        return Collections.unmodifiableSet(textures.keySet());
+    }
+
+    public Set<String> getTextNames() {
+        return Collections.unmodifiableSet(texts.keySet());
+    }
+
+    public long getMappedBytes() {
+        return mapped.limit();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // El mapeo se libera cuando el GC recoge el buffer; las vistas ya entregadas siguen siendo válidas
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d texturas, %d textos, %.1f MB", path.getFileName(), textures.size(), texts.size(),
+                getMappedBytes() / (1024.0 * 1024.0));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,300 @@
+package org.printed.chat;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Herramienta offline que genera un {@link AssetBundle}: decodifica una vez
+ * todas las texturas PNG de la carpeta de recursos (opcionalmente con su cadena
+ * de mipmaps) y guarda también las fuentes de shaders de shaders/, para que el
+ * juego sólo tenga que mapear el archivo al arrancar. Las texturas se pueden
+ * guardar comprimidas en BC1/BC3 con {@link BlockCompressor}; en ese caso
+ * siempre llevan todos sus mipmaps, porque GL no los genera sobre datos
+ * comprimidos.
+ */
+public class AssetPacker {
+
+    // Formato de compresión: BC1 para texturas opacas y BC3 para las que tienen transparencia
+    public static final int AUTO = -1;
+
+    private static final class Entry {
+        final byte type;
+        final String name;
+        final int width;
+        final int height;
+        final int format;
+        final long[] offsets;
+        final long[] lengths;
+
+        Entry(byte type, String name, int width, int height, int format, int levels) {
+            this.type = type;
+            this.name = name;
+            this.width = width;
+            this.height = height;
+            this.format = format;
+            this.offsets = new long[levels];
+            this.lengths = new long[levels];
+        }
+    }
+
+    private final ImageDecoder decoder;
+    private final boolean mipmaps;
+    private final int format;
+    private final BlockCompressor compressor = new BlockCompressor();
+
+    private int packedTextures = 0;
+    private int packedTexts = 0;
+    private long packedBytes = 0;
+    private long rgbaBytes = 0;
+    private long textureBytes = 0;
+    private long encodeNanos = 0;
+
+    public AssetPacker(ImageDecoder decoder, boolean mipmaps) {
+        this(decoder, mipmaps, BlockCompressor.RGBA);
+    }
+
+    // "format" es BlockCompressor.RGBA, BC1, BC3 o AUTO
+    public AssetPacker(ImageDecoder decoder, boolean mipmaps, int format) {
+        if (format != AUTO && format != BlockCompressor.RGBA && format != BlockCompressor.BC1
+                && format != BlockCompressor.BC3) {
+            throw new IllegalArgumentException("Formato de textura desconocido: " + format);
+        }
+        this.decoder = decoder;
+        this.mipmaps = mipmaps || format != BlockCompressor.RGBA;
+        this.format = format;
+    }
+
+    /**
+     * Empaqueta los PNG de root/textures y de la propia raíz (por su nombre de
+     * archivo, el mismo que usa TextureLoader) y los .vert/.frag/.glsl de
+     * root/shaders (como "shaders/nombre").
+     */
+    public void pack(Path root, Path out) throws IOException {
+        List<Path> images = new ArrayList<>();
+        list(root.resolve("textures"), images, ".png");
+        list(root, images, ".png");
+        List<Path> shaders = new ArrayList<>();
+        list(root.resolve("shaders"), shaders, ".vert", ".frag", ".glsl");
+
+        List<Entry> entries = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(AssetBundle.HEADER_BYTES);
+
+            for (Path image : images) {
+                String name = image.getFileName().toString();
+                if (contains(entries, name)) {
+                    // textures/ tiene prioridad, igual que en TextureLoader.resolvePath
+                    continue;
+                }
+                entries.add(writeTexture(channel, name, image));
+                packedTextures++;
+            }
+            for (Path shader : shaders) {
+                byte[] source = Files.readAllBytes(shader);
+                Entry entry = new Entry(AssetBundle.TEXT, "shaders/" + shader.getFileName(), 0, 0,
+                        BlockCompressor.RGBA, 1);
+                write(channel, entry, 0, ByteBuffer.wrap(source));
+                entries.add(entry);
+                packedTexts++;
+            }
+
+            long indexOffset = align(channel);
+            channel.write(index(entries));
+            packedBytes = channel.position();
+
+            ByteBuffer header = ByteBuffer.allocate(AssetBundle.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(AssetBundle.MAGIC).putInt(AssetBundle.VERSION).putInt(entries.size())
+                    .putLong(indexOffset).clear();
+            channel.write(header, 0);
+        }
+    }
+
+    private static void list(Path dir, List<Path> files, String... extensions) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.list(dir)) {
+            stream.filter(Files::isRegularFile).filter(path -> hasExtension(path, extensions)).sorted()
+                    .forEach(files::add);
+        }
+    }
+
+    private static boolean hasExtension(Path path, String... extensions) {
+        String name = path.getFileName().toString().toLowerCase();
+        for (String extension : extensions) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(List<Entry> entries, String name) {
+        for (Entry entry : entries) {
+            if (entry.name.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Entry writeTexture(FileChannel channel, String name, Path path) throws IOException {
+        ByteBuffer encoded = TextureDecodePipeline.readFile(path);
+        DecodedImage image;
+        try {
+            image = decoder.decode(name, encoded);
+        } finally {
+            MemoryUtil.memFree(encoded);
+        }
+
+        try {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int levels = mipmaps ? levelCount(width, height) : 1;
+            int levelFormat = format == AUTO ? BlockCompressor.chooseFormat(image.getPixels(), width, height) : format;
+            Entry entry = new Entry(AssetBundle.TEXTURE, name, width, height, levelFormat, levels);
+
+            ByteBuffer level = image.getPixels().duplicate();
+            for (int i = 0; i < levels; i++) {
+                int levelWidth = Math.max(1, width >> i);
+                int levelHeight = Math.max(1, height >> i);
+                if (i > 0) {
+                    level = downsample(level, Math.max(1, width >> (i - 1)), Math.max(1, height >> (i - 1)));
+                }
+                rgbaBytes += (long) levelWidth * levelHeight * 4;
+                write(channel, entry, i, encode(levelFormat, level, levelWidth, levelHeight));
+                textureBytes += entry.lengths[i];
+            }
+            return entry;
+        } finally {
+            image.free();
+        }
+    }
+
+    private ByteBuffer encode(int levelFormat, ByteBuffer rgba, int width, int height) {
+        if (levelFormat == BlockCompressor.RGBA) {
+            return rgba.duplicate();
+        }
+        long start = System.nanoTime();
+        ByteBuffer blocks = ByteBuffer.allocate(BlockCompressor.levelBytes(levelFormat, width, height));
+        compressor.encode(levelFormat, rgba, width, height, blocks);
+        encodeNanos += System.nanoTime() - start;
+        return blocks.flip();
+    }
+
+    private static void write(FileChannel channel, Entry entry, int level, ByteBuffer data) throws IOException {
+        entry.offsets[level] = align(channel);
+        entry.lengths[level] = data.remaining();
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    // Rellena con ceros hasta el siguiente múltiplo de ALIGNMENT y devuelve la posición
+    private static long align(FileChannel channel) throws IOException {
+        long position = channel.position();
+        int padding = (int) ((AssetBundle.ALIGNMENT - position % AssetBundle.ALIGNMENT) % AssetBundle.ALIGNMENT);
+        if (padding > 0) {
+            channel.write(ByteBuffer.allocate(padding));
+        }
+        return position + padding;
+    }
+
+    private static ByteBuffer index(List<Entry> entries) {
+        int size = 0;
+        List<byte[]> names = new ArrayList<>();
+        for (Entry entry : entries) {
+            byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+            if (name.length > 0xFFFF) {
+                throw new IllegalArgumentException("Nombre de recurso demasiado largo: " + entry.name);
+            }
+            names.add(name);
+            size += 1 + 2 + name.length + 4 * 4 + entry.offsets.length * 16;
+        }
+
+        ByteBuffer index = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            byte[] name = names.get(i);
+            index.put(entry.type).putShort((short) name.length).put(name);
+            index.putInt(entry.width).putInt(entry.height).putInt(entry.format).putInt(entry.offsets.length);
+            for (int level = 0; level < entry.offsets.length; level++) {
+                index.putLong(entry.offsets[level]).putLong(entry.lengths[level]);
+            }
+        }
+        return index.flip();
+    }
+
+    static int levelCount(int width, int height) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(width, height));
+    }
+
+    // Filtro de caja 2x2; en lados impares el último píxel se repite
+    static ByteBuffer downsample(ByteBuffer source, int width, int height) {
+        int outWidth = Math.max(1, width >> 1);
+        int outHeight = Math.max(1, height >> 1);
+        ByteBuffer out = ByteBuffer.allocate(outWidth * outHeight * 4);
+        for (int y = 0; y < outHeight; y++) {
+            int y0 = Math.min(y * 2, height - 1);
+            int y1 = Math.min(y * 2 + 1, height - 1);
+            for (int x = 0; x < outWidth; x++) {
+                int x0 = Math.min(x * 2, width - 1);
+                int x1 = Math.min(x * 2 + 1, width - 1);
+                for (int c = 0; c < 4; c++) {
+                    int sum = (source.get((y0 * width + x0) * 4 + c) & 0xFF)
+                            + (source.get((y0 * width + x1) * 4 + c) & 0xFF)
+                            + (source.get((y1 * width + x0) * 4 + c) & 0xFF)
+                            + (source.get((y1 * width + x1) * 4 + c) & 0xFF);
+                    out.put((y * outWidth + x) * 4 + c, (byte) ((sum + 2) >> 2));
+                }
+            }
+        }
+        return out;
+    }
+
+    public int getPackedTextures() {
+        return packedTextures;
+    }
+
+    public int getPackedTexts() {
+        return packedTexts;
+    }
+
+    public long getPackedBytes() {
+        return packedBytes;
+    }
+
+    // Lo que ocuparían las texturas empaquetadas en RGBA, con los mismos niveles
+    public long getRgbaBytes() {
+        return rgbaBytes;
+    }
+
+    public long getTextureBytes() {
+        return textureBytes;
+    }
+
+    public long getEncodeNanos() {
+        return encodeNanos;
+    }
+
+    @Override
+    public String toString() {
+        String compression = format == BlockCompressor.RGBA ? "" : String.format(
+                ", comprimidas %.1f MB -> %.1f MB en %.1f ms", rgbaBytes / (1024.0 * 1024.0),
+                textureBytes / (1024.0 * 1024.0), encodeNanos / 1_000_000.0);
+        return String.format("%d texturas, %d shaders, %.1f MB%s%s", packedTextures, packedTexts,
+                packedBytes / (1024.0 * 1024.0), mipmaps ? " con mipmaps" : "", compression);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,147 @@
+package org.printed.chat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vigila directorios de recursos con un {@link WatchService} en un hilo propio
+ * y avisa de cada fichero creado o modificado. Los editores suelen escribir un
+ * fichero en varios pasos, así que los avisos se agrupan: un fichero se entrega
+ * cuando lleva {@link #DEBOUNCE_MILLIS} ms sin eventos nuevos.
+ */
+public class AssetWatcher implements Closeable {
+
+    // Se llama desde el hilo del vigilante; detectedNanos es el primer evento del fichero
+    public interface Listener {
+        void onChanged(Path path, long detectedNanos);
+    }
+
+    public static final long DEBOUNCE_MILLIS = 30;
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final WatchService service;
+    private final Listener listener;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Thread thread;
+    private volatile boolean running = false;
+
+    // Fichero -> {primer evento, último evento}, en orden de llegada
+    private final LinkedHashMap<Path, long[]> pending = new LinkedHashMap<>();
+    private long delivered = 0;
+
+    public AssetWatcher(Listener listener) throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        this.listener = listener;
+        this.thread = new Thread(this::run, "asset-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    // Registra un directorio (sin subdirectorios); los que no existen se ignoran
+    public synchronized boolean watch(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return false;
+        }
+        WatchKey key = directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        directories.put(key, directory);
+        return true;
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                WatchKey key = service.poll(pending.isEmpty() ? IDLE_POLL_MILLIS : DEBOUNCE_MILLIS,
+                        TimeUnit.MILLISECONDS);
+                long now = System.nanoTime();
+                if (key != null) {
+                    collect(key, now);
+                    // Vaciar lo que ya esté en cola sin esperar
+                    while ((key = service.poll()) != null) {
+                        collect(key, now);
+                    }
+                }
+                deliverSettled(now);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Cierre normal
+        }
+    }
+
+    private void collect(WatchKey key, long now) {
+        Path directory;
+        synchronized (this) {
+            directory = directories.get(key);
+        }
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (directory == null || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            long[] times = pending.get(path);
+            if (times == null) {
+                pending.put(path, new long[]{now, now});
+            } else {
+                times[1] = now;
+            }
+        }
+        key.reset();
+    }
+
+    private void deliverSettled(long now) {
+        long debounceNanos = TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS);
+        Iterator<Map.Entry<Path, long[]>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, long[]> entry = it.next();
+            if (now - entry.getValue()[1] < debounceNanos) {
+                continue;
+            }
+            it.remove();
+            if (!Files.isRegularFile(entry.getKey())) {
+                continue;
+            }
+            delivered++;
+            try {
+                listener.onChanged(entry.getKey(), entry.getValue()[0]);
+            } catch (RuntimeException e) {
+                System.err.println("Error al procesar el cambio de " + entry.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public long getDelivered() {
+        return delivered;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            service.close();
+        } catch (IOException e) {
+            System.err.println("Error al cerrar el vigilante de recursos: " + e.getMessage());
+        }
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
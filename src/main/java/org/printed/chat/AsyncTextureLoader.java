@@ -0,0 +1,243 @@
+package org.printed.chat;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Carga de texturas sin bloquear el frame: la decodificación se hace en
+ * {@link TextureDecodePipeline} y la subida a GL en el hilo de render, con un
+ * presupuesto de tiempo por frame. Las texturas que estén en el
+ * {@link AssetBundle} asignado no se decodifican: se suben desde el mapeo.
+ */
+public class AsyncTextureLoader {
+
+    private static final class PendingUpload {
+        final TextureHandle handle;
+        final DecodedImage image;
+        final AssetBundle.Texture packed;
+
+        PendingUpload(TextureHandle handle, DecodedImage image, AssetBundle.Texture packed) {
+            this.handle = handle;
+            this.image = image;
+            this.packed = packed;
+        }
+    }
+
+    private final TextureDecodePipeline pipeline;
+    private final TextureCache cache;
+    private final Queue<PendingUpload> pendingUploads = new ConcurrentLinkedQueue<>();
+    private final int placeholderId;
+    private final ToIntFunction<DecodedImage> uploader;
+    private final IntConsumer deleter;
+    private volatile AssetBundle bundle;
+    // Tras cleanup() las imágenes que aún lleguen se liberan en vez de encolarse
+    private volatile boolean closed = false;
+
+    private long lastFrameUploadNanos = 0;
+    private int lastFrameUploads = 0;
+    private long maxFrameUploadNanos = 0;
+    private long totalUploads = 0;
+    private long bundleUploads = 0;
+
+    public AsyncTextureLoader(TextureDecodePipeline pipeline, TextureCache cache) {
+        this(pipeline, cache, createPlaceholder(), TextureLoader::uploadTexture, GL11::glDeleteTextures);
+    }
+
+    /**
+     * Sin GL, para pruebas: uploader sube las imágenes decodificadas y deleter
+     * borra texturas, como en {@link HotReloader}. Las texturas del paquete se
+     * siguen subiendo con {@link TextureLoader}.
+     */
+    AsyncTextureLoader(TextureDecodePipeline pipeline, TextureCache cache, int placeholderId,
+                       ToIntFunction<DecodedImage> uploader, IntConsumer deleter) {
+        this.pipeline = pipeline;
+        this.cache = cache;
+        this.placeholderId = placeholderId;
+        this.uploader = uploader;
+        this.deleter = deleter;
+    }
+
+    // Textura de 1x1 blanca que se dibuja mientras la real no está lista
+    private static int createPlaceholder() {
+        ByteBuffer pixel = BufferUtils.createByteBuffer(4);
+        pixel.put((byte) 0xFF).put((byte) 0xFF).put((byte) 0xFF).put((byte) 0xFF).flip();
+        return TextureLoader.uploadTexture(new DecodedImage("placeholder", 1, 1, pixel, false));
+    }
+
+    // Paquete del que se sirven las texturas que contenga; null para cargar sólo de archivos sueltos
+    public void setBundle(AssetBundle bundle) {
+        this.bundle = bundle;
+    }
+
+    public AssetBundle getBundle() {
+        return bundle;
+    }
+
+    // Si la textura se puede cargar, del paquete o de un archivo
+    public boolean exists(String fileName) {
+        AssetBundle current = bundle;
+        return (current != null && current.getTexture(fileName) != null)
+                || Files.exists(TextureLoader.resolvePath(fileName));
+    }
+
+    /**
+     * Devuelve enseguida un handle con una referencia; la textura real llega en
+     * algún processUploads() posterior. Cada load() debe ir emparejado con un
+     * {@link #release}. Se puede llamar desde cualquier hilo.
+     */
+    public TextureHandle load(String fileName) {
+        TextureHandle cached = cache.acquire(fileName);
+        if (cached != null) {
+            return cached;
+        }
+
+        TextureHandle created = new TextureHandle(fileName, placeholderId);
+        TextureHandle handle = cache.putIfAbsent(fileName, created);
+        if (handle != created) {
+            // Otro hilo empezó a cargar la misma textura
+            return handle;
+        }
+
+        AssetBundle current = bundle;
+        AssetBundle.Texture packed = current != null ? current.getTexture(fileName) : null;
+        if (packed != null) {
+            pendingUploads.add(new PendingUpload(handle, null, packed));
+            return handle;
+        }
+
+        pipeline.submit(fileName, TextureLoader.resolvePath(fileName)).whenComplete((image, error) -> {
+            if (error != null) {
+                System.err.println("Error al cargar la textura: " + fileName + " (" + error.getMessage() + ")");
+                handle.fail();
+                cache.remove(handle);
+            } else if (closed) {
+                image.free();
+            } else {
+                pendingUploads.add(new PendingUpload(handle, image, null));
+                if (closed) {
+                    // cleanup() pudo vaciar la cola justo antes de añadirla
+                    freePending();
+                }
+            }
+        });
+        return handle;
+    }
+
+    /**
+     * Sube texturas decodificadas hasta agotar el presupuesto del frame. Siempre
+     * sube al menos una para que la cola avance aunque el presupuesto sea muy bajo.
+     * Debe llamarse desde el hilo con el contexto GL. Devuelve true si ha
+     * subido o borrado alguna textura, porque eso cambia la textura enlazada.
+     */
+    public boolean processUploads(long budgetNanos) {
+        long start = System.nanoTime();
+        int uploads = 0;
+
+        // Borrar primero lo que la caché haya expulsado
+        int deleted = cache.processEvictions(deleter);
+
+        PendingUpload upload;
+        while ((uploads == 0 || System.nanoTime() - start < budgetNanos)
+                && (upload = pendingUploads.poll()) != null) {
+            if (upload.packed != null) {
+                AssetBundle.Texture packed = upload.packed;
+                int textureId = TextureLoader.uploadTexture(packed);
+                cache.setResident(upload.handle.getName(), textureId, TextureLoader.residentBytes(packed));
+                bundleUploads++;
+            } else {
+                DecodedImage image = upload.image;
+                try {
+                    int textureId = uploader.applyAsInt(image);
+                    cache.setResident(upload.handle.getName(), textureId, image.getWidth(), image.getHeight(),
+                            true);
+                } finally {
+                    image.free();
+                }
+            }
+            uploads++;
+        }
+
+        lastFrameUploads = uploads;
+        lastFrameUploadNanos = System.nanoTime() - start;
+        maxFrameUploadNanos = Math.max(maxFrameUploadNanos, lastFrameUploadNanos);
+        totalUploads += uploads;
+        return uploads > 0 || deleted > 0;
+    }
+
+    // Suelta una referencia; sin referencias la textura puede ser expulsada
+    public void release(TextureHandle handle) {
+        cache.release(handle);
+    }
+
+    public int getPendingUploads() {
+        return pendingUploads.size();
+    }
+
+    public int getLastFrameUploads() {
+        return lastFrameUploads;
+    }
+
+    public long getLastFrameUploadNanos() {
+        return lastFrameUploadNanos;
+    }
+
+    public long getMaxFrameUploadNanos() {
+        return maxFrameUploadNanos;
+    }
+
+    public long getTotalUploads() {
+        return totalUploads;
+    }
+
+    public long getBundleUploads() {
+        return bundleUploads;
+    }
+
+    public TextureDecodePipeline getPipeline() {
+        return pipeline;
+    }
+
+    // Textura blanca de 1x1 que se dibuja mientras la real no está lista
+    public int getPlaceholderId() {
+        return placeholderId;
+    }
+
+    public TextureCache getCache() {
+        return cache;
+    }
+
+    public void cleanup() {
+        closed = true;
+        // Espera a las decodificaciones en marcha para que no encolen después de vaciar la cola
+        if (!pipeline.shutdown()) {
+            System.err.println("Algunas texturas seguían decodificándose al cerrar");
+        }
+        freePending();
+
+        cache.clear(deleter);
+        deleter.accept(placeholderId);
+    }
+
+    // Libera lo que quedara pendiente de subir
+    private void freePending() {
+        PendingUpload upload;
+        while ((upload = pendingUploads.poll()) != null) {
+            if (upload.image != null) {
+                upload.image.free();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s, uploads=%d (del paquete %d) max upload/frame=%.2f ms, %s",
+                pipeline, totalUploads, bundleUploads, maxFrameUploadNanos / 1_000_000.0, cache);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package org.printed.chat;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Empaqueta imágenes decodificadas en una o varias páginas de tamaño fijo.
+ * Todo el trabajo se hace en CPU: no necesita contexto GL.
+ */
+public class AtlasBuilder {
+
+    private final int pageWidth;
+    private final int pageHeight;
+    private final int padding;
+
+    public AtlasBuilder(int pageWidth, int pageHeight, int padding) {
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+        this.padding = padding;
+    }
+
+    public TextureAtlas build(List<DecodedImage> images) {
+        // Colocar primero las más altas da un skyline más plano y menos huecos
+        List<DecodedImage> sorted = new ArrayList<>(images);
+        sorted.sort(Comparator.comparingInt(DecodedImage::getHeight).reversed()
+                .thenComparing(Comparator.comparingInt(DecodedImage::getWidth).reversed()));
+
+        List<SkylinePacker> packers = new ArrayList<>();
+        List<ByteBuffer> pages = new ArrayList<>();
+        List<AtlasRegion> regions = new ArrayList<>();
+
+        for (DecodedImage image : sorted) {
+            int w = image.getWidth() + padding;
+            int h = image.getHeight() + padding;
+            if (w > pageWidth || h > pageHeight) {
+                throw new IllegalArgumentException("La imagen " + image.getName() + " (" + image.getWidth() + "x"
+                        + image.getHeight() + ") no cabe en una página de " + pageWidth + "x" + pageHeight);
+            }
+
+            long position = -1;
+            int page = 0;
+            for (; page < packers.size(); page++) {
+                position = packers.get(page).insert(w, h);
+                if (position >= 0) {
+                    break;
+                }
+            }
+            if (position < 0) {
+                SkylinePacker packer = new SkylinePacker(pageWidth, pageHeight);
+                packers.add(packer);
+                pages.add(BufferUtils.createByteBuffer(pageWidth * pageHeight * 4));
+                page = packers.size() - 1;
+                position = packer.insert(w, h);
+            }
+
+            int x = SkylinePacker.unpackX(position);
+            int y = SkylinePacker.unpackY(position);
+            blit(image, pages.get(page), x, y);
+            regions.add(new AtlasRegion(image.getName(), page, x, y,
+                    image.getWidth(), image.getHeight(), pageWidth, pageHeight));
+        }
+
+        return new TextureAtlas(pageWidth, pageHeight, pages, regions);
+    }
+
+    // Sólo empaqueta (sin copiar píxeles); sirve para medir el algoritmo por separado
+    public int packOnly(int[] widths, int[] heights) {
+        List<SkylinePacker> packers = new ArrayList<>();
+        for (int i = 0; i < widths.length; i++) {
+            int w = widths[i] + padding;
+            int h = heights[i] + padding;
+            boolean placed = false;
+            for (SkylinePacker packer : packers) {
+                if (packer.insert(w, h) >= 0) {
+                    placed = true;
+                    break;
+                }
+            }
+            if (!placed) {
+                SkylinePacker packer = new SkylinePacker(pageWidth, pageHeight);
+                packers.add(packer);
+                packer.insert(w, h);
+            }
+        }
+        return packers.size();
+    }
+
+    private void blit(DecodedImage image, ByteBuffer page, int x, int y) {
+        ByteBuffer src = image.getPixels();
+        int rowBytes = image.getWidth() * 4;
+        for (int row = 0; row < image.getHeight(); row++) {
+            int srcOffset = row * rowBytes;
+            int dstOffset = ((y + row) * pageWidth + x) * 4;
+            page.put(dstOffset, src, srcOffset, rowBytes);
+        }
+    }
+}
\ No newline at end of file
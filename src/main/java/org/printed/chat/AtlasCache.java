@@ -0,0 +1,205 @@
+package org.printed.chat;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Atlas persistente en disco. La clave es un SHA-256 de los nombres y el
+ * contenido de las imágenes de origen: si no ha cambiado nada, el atlas se lee
+ * del fichero de caché sin empaquetar ni decodificar PNGs.
+ * <p>
+ * Formato: "ATLS", versión, clave (32 bytes), ancho y alto de página, páginas
+ * RGBA en crudo y, por cada región, nombre, página, x, y, ancho y alto.
+ */
+public class AtlasCache {
+
+    private static final int MAGIC = 0x41544C53; // "ATLS"
+    private static final int VERSION = 1;
+
+    private final AtlasBuilder builder;
+    private final ImageDecoder decoder;
+    private final int pageWidth;
+    private final int pageHeight;
+
+    private boolean lastLoadWasHit = false;
+
+    public AtlasCache(ImageDecoder decoder, int pageWidth, int pageHeight, int padding) {
+        this.decoder = decoder;
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+        this.builder = new AtlasBuilder(pageWidth, pageHeight, padding);
+    }
+
+    public TextureAtlas loadOrBuild(Path sourceDir, Path cacheFile) throws IOException {
+        List<Path> sources = listImages(sourceDir);
+        byte[] key = hashSources(sources);
+
+        if (Files.exists(cacheFile)) {
+            TextureAtlas cached = read(cacheFile, key);
+            if (cached != null) {
+                lastLoadWasHit = true;
+                return cached;
+            }
+        }
+
+        lastLoadWasHit = false;
+        List<DecodedImage> images = new ArrayList<>();
+        try {
+            for (Path source : sources) {
+                ByteBuffer encoded = TextureDecodePipeline.readFile(source);
+                try {
+                    images.add(decoder.decode(source.getFileName().toString(), encoded));
+                } finally {
+                    MemoryUtil.memFree(encoded);
+                }
+            }
+            TextureAtlas atlas = builder.build(images);
+            write(cacheFile, key, atlas);
+            return atlas;
+        } finally {
+            images.forEach(DecodedImage::free);
+        }
+    }
+
+    public boolean wasLastLoadHit() {
+        return lastLoadWasHit;
+    }
+
+    static List<Path> listImages(Path sourceDir) throws IOException {
+        try (Stream<Path> files = Files.list(sourceDir)) {
+            return files.filter(p -> p.getFileName().toString().toLowerCase().endsWith(".png"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static byte[] hashSources(List<Path> sources) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+        for (Path source : sources) {
+            digest.update(source.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            digest.update(Files.readAllBytes(source));
+        }
+        return digest.digest();
+    }
+
+    private void write(Path cacheFile, byte[] key, TextureAtlas atlas) throws IOException {
+        Path parent = cacheFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        // Escribir en un fichero temporal y renombrar, para no dejar una caché a medias
+        Path tmp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             OutputStream stream = Channels.newOutputStream(channel);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(key);
+            out.writeInt(atlas.getPageWidth());
+            out.writeInt(atlas.getPageHeight());
+            out.writeInt(atlas.getPageCount());
+            out.flush();
+
+            // Las páginas van directas del buffer nativo al canal
+            for (int i = 0; i < atlas.getPageCount(); i++) {
+                ByteBuffer page = atlas.getPage(i).duplicate();
+                page.clear();
+                while (page.hasRemaining()) {
+                    channel.write(page);
+                }
+            }
+
+            out.writeInt(atlas.getRegions().size());
+            for (AtlasRegion region : atlas.getRegions()) {
+                out.writeUTF(region.getName());
+                out.writeInt(region.getPage());
+                out.writeInt(region.getX());
+                out.writeInt(region.getY());
+                out.writeInt(region.getWidth());
+                out.writeInt(region.getHeight());
+            }
+        }
+        Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Devuelve null si el fichero no es válido o se generó con otras imágenes
+    private TextureAtlas read(Path cacheFile, byte[] expectedKey) throws IOException {
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            ByteBuffer header = BufferUtils.createByteBuffer(8 + expectedKey.length + 12);
+            while (header.hasRemaining() && channel.read(header) != -1) {
+                // Leer la cabecera completa
+            }
+            header.flip();
+            if (header.remaining() < header.capacity() || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return null;
+            }
+            byte[] key = new byte[expectedKey.length];
+            header.get(key);
+            if (!Arrays.equals(key, expectedKey)) {
+                return null;
+            }
+            int width = header.getInt();
+            int height = header.getInt();
+            int pageCount = header.getInt();
+            if (width != pageWidth || height != pageHeight) {
+                return null;
+            }
+
+            List<ByteBuffer> pages = new ArrayList<>();
+            for (int i = 0; i < pageCount; i++) {
+                ByteBuffer page = BufferUtils.createByteBuffer(width * height * 4);
+                while (page.hasRemaining()) {
+                    if (channel.read(page) == -1) {
+                        return null;
+                    }
+                }
+                pages.add(page.flip());
+            }
+
+            InputStream stream = Channels.newInputStream(channel);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+            int regionCount = in.readInt();
+            List<AtlasRegion> regions = new ArrayList<>(regionCount);
+            for (int i = 0; i < regionCount; i++) {
+                String name = in.readUTF();
+                int page = in.readInt();
+                int x = in.readInt();
+                int y = in.readInt();
+                int w = in.readInt();
+                int h = in.readInt();
+                regions.add(new AtlasRegion(name, page, x, y, w, h, width, height));
+            }
+            return new TextureAtlas(width, height, pages, regions);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package org.printed.chat;
+
+/**
+ * Zona de una página del atlas que ocupa una imagen. Las coordenadas UV siguen
+ * el convenio de {@link SpriteBatch}: v0 es el borde superior.
+ */
+public class AtlasRegion {
+
+    private final String name;
+    private final int page;
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    private final float u0;
+    private final float v0;
+    private final float u1;
+    private final float v1;
+
+    public AtlasRegion(String name, int page, int x, int y, int width, int height, int pageWidth, int pageHeight) {
+        this.name = name;
+        this.page = page;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.u0 = (float) x / pageWidth;
+        this.v0 = (float) y / pageHeight;
+        this.u1 = (float) (x + width) / pageWidth;
+        this.v1 = (float) (y + height) / pageHeight;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public float getU0() {
+        return u0;
+    }
+
+    public float getV0() {
+        return v0;
+    }
+
+    public float getU1() {
+        return u1;
+    }
+
+    public float getV1() {
+        return v1;
+    }
+}
\ No newline at end of file
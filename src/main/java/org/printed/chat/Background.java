@@ -1,200 +1,171 @@
 package org.printed.chat;
 
-import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL13;
-import org.lwjgl.opengl.GL15;
-import org.lwjgl.opengl.GL20;
-import org.lwjgl.opengl.GL30;
-import org.lwjgl.system.MemoryStack;
+import org.lwjgl.BufferUtils;
 
-import java.nio.FloatBuffer;
+import java.nio.ByteBuffer;
 
+/**
+ * Fondo parallax: varias capas de una textura 2D array, de la más lejana (0)
+ * a la más cercana, cada una con su velocidad de desplazamiento en x e y y su
+ * factor de parallax respecto a la cámara. Todas se dibujan en una sola
+ * pasada: un quad que cubre la vista y un shader que mezcla las capas.
+ */
 public class Background {
-    private int vaoId;
-    private int vboId;
-    private int texCoordsVboId;
-    private int textureId;
-    private int shaderProgramId;
-
-    private float scrollSpeed = 0.0f; // 0 para fondo estático, > 0 para desplazamiento
-    private float offsetX = 0.0f;
-    private float offsetY = 0.0f;
-
-    public Background(String textureFileName) {
-        init(textureFileName);
+
+    public static final int MAX_LAYERS = 8;
+    private static final String GENERATED_KEY = "generated-background-";
+
+    private final String textureKey; // nombre en TextureLoader, o null si la textura es externa
+    private final int textureArrayId;
+    private final int layerCount;
+
+    private final float[] speedX;
+    private final float[] speedY;
+    private final float[] parallax; // 0 = fijo en pantalla, 1 = se mueve con el mundo
+    private final float[] offsetX;
+    private final float[] offsetY;
+    private final float[] previousOffsetX;
+    private final float[] previousOffsetY;
+    private final float[] renderOffsets;
+
+    // Una capa por archivo; todas las imágenes deben tener el mismo tamaño
+    public Background(String... layerFileNames) {
+        this(String.join("|", layerFileNames), checkLoaded(TextureLoader.loadTextureArray(layerFileNames),
+                layerFileNames), layerFileNames.length);
     }
 
-    private void init(String textureFileName) {
-        // Crear el shader program para el fondo
-        createShaderProgram();
-
-        // Crear el VAO
-        vaoId = GL30.glGenVertexArrays();
-        GL30.glBindVertexArray(vaoId);
-
-        // Crear los vértices (un rectángulo que cubre toda la pantalla)
-        try (MemoryStack stack = MemoryStack.stackPush()) {
-            // Vértices para pantalla completa (-1 a 1 en ambos ejes)
-            float[] vertices = new float[]{
-                    -1.0f, 1.0f, 0.0f,  // Esquina superior izquierda
-                    1.0f, 1.0f, 0.0f,   // Esquina superior derecha
-                    1.0f, -1.0f, 0.0f,  // Esquina inferior derecha
-                    -1.0f, -1.0f, 0.0f  // Esquina inferior izquierda
-            };
-
-            // Coordenadas de textura (puedes ajustar estos valores para repetir la textura)
-            float[] texCoords = new float[]{
-                    0.0f, 1.0f,  // Esquina superior izquierda
-                    1.0f, 1.0f,  // Esquina superior derecha
-                    1.0f, 0.0f,  // Esquina inferior derecha
-                    0.0f, 0.0f   // Esquina inferior izquierda
-            };
-
-            // Crear y llenar el VBO de vértices
-            FloatBuffer vertexBuffer = stack.mallocFloat(vertices.length);
-            vertexBuffer.put(vertices).flip();
-
-            vboId = GL15.glGenBuffers();
-            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vboId);
-            GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertexBuffer, GL15.GL_STATIC_DRAW);
-            GL20.glVertexAttribPointer(0, 3, GL11.GL_FLOAT, false, 0, 0);
-            GL20.glEnableVertexAttribArray(0);
-
-            // Crear y llenar el VBO de coordenadas de textura
-            FloatBuffer texCoordsBuffer = stack.mallocFloat(texCoords.length);
-            texCoordsBuffer.put(texCoords).flip();
-
-            texCoordsVboId = GL15.glGenBuffers();
-            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, texCoordsVboId);
-            GL15.glBufferData(GL15.GL_ARRAY_BUFFER, texCoordsBuffer, GL15.GL_STATIC_DRAW);
-            GL20.glVertexAttribPointer(1, 2, GL11.GL_FLOAT, false, 0, 0);
-            GL20.glEnableVertexAttribArray(1);
+    private static int checkLoaded(int textureArrayId, String[] layerFileNames) {
+        if (textureArrayId <= 0) {
+            throw new IllegalStateException("No se pudo cargar el fondo: " + String.join(", ", layerFileNames));
         }
-
-        // Cargar textura del fondo
-        // Puedes usar la clase TextureLoader si la implementaste
-        textureId = TextureLoader.loadTexture(textureFileName);
-
-        // Desenlazar el VAO
-        GL30.glBindVertexArray(0);
+        return textureArrayId;
     }
 
-    private void createShaderProgram() {
-        // Vertex Shader con soporte para desplazamiento de textura
-        int vertexShaderId = GL20.glCreateShader(GL20.GL_VERTEX_SHADER);
-        GL20.glShaderSource(vertexShaderId,
-                "#version 410 core\n" +
-                        "layout (location = 0) in vec3 position;\n" +
-                        "layout (location = 1) in vec2 texCoord;\n" +
-                        "out vec2 TexCoord;\n" +
-                        "uniform vec2 texOffset;\n" +
-                        "void main() {\n" +
-                        "    gl_Position = vec4(position, 1.0);\n" +
-                        "    TexCoord = texCoord + texOffset;\n" +
-                        "}");
-        GL20.glCompileShader(vertexShaderId);
-
-        // Verificar errores de compilación
-        if (GL20.glGetShaderi(vertexShaderId, GL20.GL_COMPILE_STATUS) == 0) {
-            System.err.println("Error al compilar el Vertex Shader de fondo: " +
-                    GL20.glGetShaderInfoLog(vertexShaderId));
-            return;
+    /**
+     * Fondo generado sin archivos: un cielo degradado en la capa 0 y siluetas
+     * de colinas cada vez más oscuras en las siguientes. Las colinas se repiten
+     * en x, como exige el desplazamiento de las capas.
+     */
+    public static Background generate(int layerCount, int size) {
+        if (layerCount <= 0 || layerCount > MAX_LAYERS) {
+            throw new IllegalArgumentException("Número de capas no válido: " + layerCount + " (máximo " + MAX_LAYERS + ")");
         }
-
-        // Fragment Shader
-        int fragmentShaderId = GL20.glCreateShader(GL20.GL_FRAGMENT_SHADER);
-        GL20.glShaderSource(fragmentShaderId,
-                "#version 410 core\n" +
-                        "in vec2 TexCoord;\n" +
-                        "out vec4 fragColor;\n" +
-                        "uniform sampler2D textureSampler;\n" +
-                        "void main() {\n" +
-                        "    fragColor = texture(textureSampler, TexCoord);\n" +
-                        "}");
-        GL20.glCompileShader(fragmentShaderId);
-
-        // Verificar errores de compilación
-        if (GL20.glGetShaderi(fragmentShaderId, GL20.GL_COMPILE_STATUS) == 0) {
-            System.err.println("Error al compilar el Fragment Shader de fondo: " +
-                    GL20.glGetShaderInfoLog(fragmentShaderId));
-            return;
+        DecodedImage[] layers = new DecodedImage[layerCount];
+        for (int i = 0; i < layerCount; i++) {
+            layers[i] = new DecodedImage(GENERATED_KEY + i, size, size, generateLayer(i, layerCount, size), false);
         }
+        String key = GENERATED_KEY + layerCount + "x" + size;
+        return new Background(key, TextureLoader.createTextureArray(key, layers), layerCount);
+    }
 
-        // Crear y enlazar el Shader Program
-        shaderProgramId = GL20.glCreateProgram();
-        GL20.glAttachShader(shaderProgramId, vertexShaderId);
-        GL20.glAttachShader(shaderProgramId, fragmentShaderId);
-        GL20.glLinkProgram(shaderProgramId);
-
-        // Verificar errores de enlace
-        if (GL20.glGetProgrami(shaderProgramId, GL20.GL_LINK_STATUS) == 0) {
-            System.err.println("Error al enlazar el Shader Program de fondo: " +
-                    GL20.glGetProgramInfoLog(shaderProgramId));
-            return;
+    private static ByteBuffer generateLayer(int layer, int layerCount, int size) {
+        ByteBuffer pixels = BufferUtils.createByteBuffer(size * size * 4);
+        float depth = layer / (float) Math.max(1, layerCount - 1);
+        for (int y = 0; y < size; y++) {
+            float v = y / (float) size;
+            for (int x = 0; x < size; x++) {
+                if (layer == 0) {
+                    pixels.put((byte) (40 + 60 * v)).put((byte) (70 + 80 * v)).put((byte) (120 + 100 * v))
+                            .put((byte) 255);
+                    continue;
+                }
+                // Frecuencias enteras para que la silueta empalme al repetirse
+                double angle = 2.0 * Math.PI * x / size;
+                double ridge = 0.75 - 0.35 * depth
+                        + 0.08 * Math.sin(angle * (layer + 1) + layer)
+                        + 0.04 * Math.sin(angle * (3 * layer + 2));
+                boolean ground = v > ridge;
+                int shade = (int) (110 - 80 * depth);
+                pixels.put((byte) (shade / 2)).put((byte) shade).put((byte) (shade / 2 + 20))
+                        .put((byte) (ground ? 255 : 0));
+            }
         }
+        return pixels.flip();
+    }
 
-        // Después de enlazar, podemos eliminar los shaders
-        GL20.glDeleteShader(vertexShaderId);
-        GL20.glDeleteShader(fragmentShaderId);
+    // Fondo con una textura array ya creada (por ejemplo, en el backend por software)
+    public Background(int textureArrayId, int layerCount) {
+        this(null, textureArrayId, layerCount);
     }
 
-    // Método para actualizar el desplazamiento del fondo (útil para fondos con efecto parallax)
-    public void update(float deltaTime) {
-        if (scrollSpeed > 0) {
-            offsetX += scrollSpeed * deltaTime;
+    private Background(String textureKey, int textureArrayId, int layerCount) {
+        if (layerCount <= 0 || layerCount > MAX_LAYERS) {
+            throw new IllegalArgumentException("Número de capas no válido: " + layerCount + " (máximo " + MAX_LAYERS + ")");
+        }
+        this.textureKey = textureKey;
+        this.textureArrayId = textureArrayId;
+        this.layerCount = layerCount;
+        this.speedX = new float[layerCount];
+        this.speedY = new float[layerCount];
+        this.parallax = new float[layerCount];
+        this.offsetX = new float[layerCount];
+        this.offsetY = new float[layerCount];
+        this.previousOffsetX = new float[layerCount];
+        this.previousOffsetY = new float[layerCount];
+        this.renderOffsets = new float[layerCount * 2];
+    }
 
-            // Resetear el offset para crear un efecto continuo
-            if (offsetX > 1.0f) {
-                offsetX = 0.0f;
-            }
+    public void update(float deltaTime) {
+        for (int i = 0; i < layerCount; i++) {
+            previousOffsetX[i] = offsetX[i];
+            previousOffsetY[i] = offsetY[i];
+            offsetX[i] += speedX[i] * deltaTime;
+            offsetY[i] += speedY[i] * deltaTime;
+
+            // Llevar el offset a [0, 1) restando lo mismo al anterior, para que la
+            // interpolación no salte al dar la vuelta (la textura se repite)
+            float wrapX = (float) Math.floor(offsetX[i]);
+            offsetX[i] -= wrapX;
+            previousOffsetX[i] -= wrapX;
+            float wrapY = (float) Math.floor(offsetY[i]);
+            offsetY[i] -= wrapY;
+            previousOffsetY[i] -= wrapY;
         }
     }
 
+    // Velocidad de la capa 0 en x, como el antiguo fondo de una sola capa
     public void setScrollSpeed(float speed) {
-        this.scrollSpeed = speed;
+        setLayerSpeed(0, speed, 0.0f);
     }
 
-    public void render() {
-        // Usar el shader program
-        GL20.glUseProgram(shaderProgramId);
-
-        // Actualizar el offset de textura en el shader
-        int offsetLocation = GL20.glGetUniformLocation(shaderProgramId, "texOffset");
-        GL20.glUniform2f(offsetLocation, offsetX, offsetY);
-
-        // Activar la unidad de textura 0
-        GL13.glActiveTexture(GL13.GL_TEXTURE0);
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureId);
+    // Unidades de textura por segundo; el signo indica la dirección
+    public void setLayerSpeed(int layer, float speedX, float speedY) {
+        this.speedX[layer] = speedX;
+        this.speedY[layer] = speedY;
+    }
 
-        // Configurar el sampler para usar la unidad de textura 0
-        int textureSamplerLocation = GL20.glGetUniformLocation(shaderProgramId, "textureSampler");
-        GL20.glUniform1i(textureSamplerLocation, 0);
+    public void setLayerParallax(int layer, float factor) {
+        this.parallax[layer] = factor;
+    }
 
-        // Enlazar el VAO
-        GL30.glBindVertexArray(vaoId);
+    public int getLayerCount() {
+        return layerCount;
+    }
 
-        // Dibujar el rectángulo como 2 triángulos (un quad)
-        GL11.glDrawArrays(GL11.GL_TRIANGLE_FAN, 0, 4);
+    public float getLayerOffsetX(int layer) {
+        return offsetX[layer];
+    }
 
-        // Desenlazar el VAO
-        GL30.glBindVertexArray(0);
+    public float getLayerOffsetY(int layer) {
+        return offsetY[layer];
+    }
 
-        // Dejar de usar el shader program
-        GL20.glUseProgram(0);
+    // Cubre el rectángulo visible de la cámara (centro y tamaño en unidades de mundo)
+    public void render(SpriteBatch batch, float alpha, float viewX, float viewY, float viewWidth, float viewHeight) {
+        for (int i = 0; i < layerCount; i++) {
+            // Desplazamiento propio interpolado más el de la cámara, escalado por el parallax
+            renderOffsets[i * 2] = previousOffsetX[i] + (offsetX[i] - previousOffsetX[i]) * alpha
+                    + viewX * parallax[i] / viewWidth;
+            renderOffsets[i * 2 + 1] = previousOffsetY[i] + (offsetY[i] - previousOffsetY[i]) * alpha
+                    + viewY * parallax[i] / viewHeight;
+        }
+        batch.drawLayers(textureArrayId, layerCount, renderOffsets, viewX, viewY, viewWidth, viewHeight);
     }
 
     public void cleanup() {
-        // Eliminar los VBOs
-        GL15.glDeleteBuffers(vboId);
-        GL15.glDeleteBuffers(texCoordsVboId);
-
-        // Eliminar el VAO
-        GL30.glDeleteVertexArrays(vaoId);
-
-        // Eliminar la textura (si no usas TextureLoader)
-        // GL11.glDeleteTextures(textureId);
-
-        // Eliminar el shader program
-        GL20.glDeleteProgram(shaderProgramId);
+        // Soltar la referencia; TextureLoader decide cuándo borrar la textura
+        if (textureKey != null) {
+            TextureLoader.releaseTexture(textureKey);
+        }
     }
 }
\ No newline at end of file
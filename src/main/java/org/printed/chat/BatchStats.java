@@ -0,0 +1,85 @@
+package org.printed.chat;
+
+/**
+ * Estadísticas de {@link SpriteBatch}: cuántos flushes se hacen por frame y
+ * cuántos sprites entran en cada uno.
+ */
+public class BatchStats {
+
+    private int frameFlushes;
+    private int frameSprites;
+
+    private int lastFrameFlushes;
+    private int lastFrameSprites;
+    private int maxSpritesPerFlush;
+
+    private long totalFrames;
+    private long totalFlushes;
+    private long totalSprites;
+
+    void beginFrame() {
+        frameFlushes = 0;
+        frameSprites = 0;
+    }
+
+    void recordFlush(int sprites) {
+        frameFlushes++;
+        frameSprites += sprites;
+        totalFlushes++;
+        totalSprites += sprites;
+        if (sprites > maxSpritesPerFlush) {
+            maxSpritesPerFlush = sprites;
+        }
+    }
+
+    void endFrame() {
+        lastFrameFlushes = frameFlushes;
+        lastFrameSprites = frameSprites;
+        totalFrames++;
+    }
+
+    public int getLastFrameFlushes() {
+        return lastFrameFlushes;
+    }
+
+    public int getLastFrameSprites() {
+        return lastFrameSprites;
+    }
+
+    public int getMaxSpritesPerFlush() {
+        return maxSpritesPerFlush;
+    }
+
+    public double getAverageSpritesPerFlush() {
+        return totalFlushes == 0 ? 0.0 : (double) totalSprites / totalFlushes;
+    }
+
+    public double getAverageFlushesPerFrame() {
+        return totalFrames == 0 ? 0.0 : (double) totalFlushes / totalFrames;
+    }
+
+    public long getTotalFlushes() {
+        return totalFlushes;
+    }
+
+    public long getTotalSprites() {
+        return totalSprites;
+    }
+
+    public void reset() {
+        frameFlushes = 0;
+        frameSprites = 0;
+        lastFrameFlushes = 0;
+        lastFrameSprites = 0;
+        maxSpritesPerFlush = 0;
+        totalFrames = 0;
+        totalFlushes = 0;
+        totalSprites = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("flushes/frame=%.2f sprites/flush=%.1f max=%d",
+                getAverageFlushesPerFrame(), getAverageSpritesPerFlush(), maxSpritesPerFlush);
+    }
+}
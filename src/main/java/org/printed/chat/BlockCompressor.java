@@ -0,0 +1,406 @@
+package org.printed.chat;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compresión por bloques de 4x4 en formato BC1 (DXT1, 8 bytes por bloque, sin
+ * alfa) y BC3 (DXT5, 16 bytes: alfa interpolado más un bloque BC1). Es un
+ * codificador por CPU para {@link AssetPacker}: los extremos salen del eje
+ * principal de los colores del bloque y se afinan con una pasada de mínimos
+ * cuadrados. También decodifica, para medir la calidad y para subir RGBA en
+ * contextos sin S3TC.
+ * <p>
+ * Las imágenes son RGBA de 8 bits fila a fila; en los bordes que no llegan a
+ * un bloque completo se repite el último píxel.
+ */
+public class BlockCompressor {
+
+    public static final int RGBA = 0;
+    public static final int BC1 = 1;
+    public static final int BC3 = 2;
+
+    // Bloque actual en enteros, para no leer del buffer en cada prueba de paleta
+    private final int[] red = new int[16];
+    private final int[] green = new int[16];
+    private final int[] blue = new int[16];
+    private final int[] alpha = new int[16];
+    private final int[] indices = new int[16];
+    private final int[] savedIndices = new int[16];
+    private final int[] palette = new int[12];
+    private final int[] alphaPalette = new int[8];
+    private int refined0;
+    private int refined1;
+
+    public static int blockBytes(int format) {
+        switch (format) {
+            case BC1:
+                return 8;
+            case BC3:
+                return 16;
+            default:
+                throw new IllegalArgumentException("Formato sin bloques: " + format);
+        }
+    }
+
+    // Bytes de un nivel de width x height en el formato dado
+    public static int levelBytes(int format, int width, int height) {
+        if (format == RGBA) {
+            return width * height * 4;
+        }
+        return ((width + 3) / 4) * ((height + 3) / 4) * blockBytes(format);
+    }
+
+    // BC1 si todos los píxeles son opacos, BC3 si alguno tiene transparencia
+    public static int chooseFormat(ByteBuffer rgba, int width, int height) {
+        for (int i = 0; i < width * height; i++) {
+            if (rgba.get(i * 4 + 3) != (byte) 0xFF) {
+                return BC3;
+            }
+        }
+        return BC1;
+    }
+
+    /**
+     * Comprime la imagen en "out" a partir de su posición actual, que avanza
+     * {@link #levelBytes} bytes. Cada instancia reutiliza sus arrays, así que no
+     * se puede compartir entre hilos.
+     */
+    public void encode(int format, ByteBuffer rgba, int width, int height, ByteBuffer out) {
+        if (format != BC1 && format != BC3) {
+            throw new IllegalArgumentException("Formato no soportado: " + format);
+        }
+        for (int by = 0; by < height; by += 4) {
+            for (int bx = 0; bx < width; bx += 4) {
+                loadBlock(rgba, width, height, bx, by);
+                if (format == BC3) {
+                    encodeAlpha(out);
+                }
+                encodeColor(out);
+            }
+        }
+    }
+
+    private void loadBlock(ByteBuffer rgba, int width, int height, int bx, int by) {
+        for (int y = 0; y < 4; y++) {
+            int row = Math.min(by + y, height - 1) * width;
+            for (int x = 0; x < 4; x++) {
+                int offset = (row + Math.min(bx + x, width - 1)) * 4;
+                int i = y * 4 + x;
+                red[i] = rgba.get(offset) & 0xFF;
+                green[i] = rgba.get(offset + 1) & 0xFF;
+                blue[i] = rgba.get(offset + 2) & 0xFF;
+                alpha[i] = rgba.get(offset + 3) & 0xFF;
+            }
+        }
+    }
+
+    private void encodeColor(ByteBuffer out) {
+        // Media y covarianza del bloque
+        int sumR = 0;
+        int sumG = 0;
+        int sumB = 0;
+        for (int i = 0; i < 16; i++) {
+            sumR += red[i];
+            sumG += green[i];
+            sumB += blue[i];
+        }
+        float meanR = sumR / 16.0f;
+        float meanG = sumG / 16.0f;
+        float meanB = sumB / 16.0f;
+        float rr = 0, rg = 0, rb = 0, gg = 0, gb = 0, bb = 0;
+        for (int i = 0; i < 16; i++) {
+            float r = red[i] - meanR;
+            float g = green[i] - meanG;
+            float b = blue[i] - meanB;
+            rr += r * r;
+            rg += r * g;
+            rb += r * b;
+            gg += g * g;
+            gb += g * b;
+            bb += b * b;
+        }
+
+        // Eje principal por iteración de potencia, empezando por la diagonal de luminancia
+        float axisR = 0.299f;
+        float axisG = 0.587f;
+        float axisB = 0.114f;
+        for (int iteration = 0; iteration < 4; iteration++) {
+            float r = rr * axisR + rg * axisG + rb * axisB;
+            float g = rg * axisR + gg * axisG + gb * axisB;
+            float b = rb * axisR + gb * axisG + bb * axisB;
+            float length = Math.max(Math.abs(r), Math.max(Math.abs(g), Math.abs(b)));
+            if (length < 1e-6f) {
+                break;
+            }
+            axisR = r / length;
+            axisG = g / length;
+            axisB = b / length;
+        }
+
+        // Los píxeles más alejados sobre el eje son los extremos iniciales
+        int minIndex = 0;
+        int maxIndex = 0;
+        float minDot = Float.MAX_VALUE;
+        float maxDot = -Float.MAX_VALUE;
+        for (int i = 0; i < 16; i++) {
+            float dot = red[i] * axisR + green[i] * axisG + blue[i] * axisB;
+            if (dot < minDot) {
+                minDot = dot;
+                minIndex = i;
+            }
+            if (dot > maxDot) {
+                maxDot = dot;
+                maxIndex = i;
+            }
+        }
+        int color0 = to565(red[maxIndex], green[maxIndex], blue[maxIndex]);
+        int color1 = to565(red[minIndex], green[minIndex], blue[minIndex]);
+        long error = assignIndices(color0, color1);
+
+        // Afinar los extremos con los índices elegidos y quedarse con lo mejor
+        if (refine()) {
+            System.arraycopy(indices, 0, savedIndices, 0, 16);
+            long refinedError = assignIndices(refined0, refined1);
+            if (refinedError < error) {
+                color0 = refined0;
+                color1 = refined1;
+            } else {
+                System.arraycopy(savedIndices, 0, indices, 0, 16);
+            }
+        }
+
+        // Con color0 > color1 el bloque usa cuatro colores; si son iguales todos los índices valen 0
+        if (color0 < color1) {
+            int swap = color0;
+            color0 = color1;
+            color1 = swap;
+            for (int i = 0; i < 16; i++) {
+                indices[i] ^= 1;
+            }
+        } else if (color0 == color1) {
+            Arrays.fill(indices, 0);
+        }
+
+        int bits = 0;
+        for (int i = 15; i >= 0; i--) {
+            bits = (bits << 2) | indices[i];
+        }
+        out.put((byte) color0).put((byte) (color0 >> 8));
+        out.put((byte) color1).put((byte) (color1 >> 8));
+        out.put((byte) bits).put((byte) (bits >> 8)).put((byte) (bits >> 16)).put((byte) (bits >> 24));
+    }
+
+    // Elige para cada píxel el color más cercano de la paleta y devuelve el error total
+    private long assignIndices(int color0, int color1) {
+        buildPalette(color0, color1, palette);
+        long total = 0;
+        for (int i = 0; i < 16; i++) {
+            int best = 0;
+            int bestError = Integer.MAX_VALUE;
+            for (int p = 0; p < 4; p++) {
+                int dr = red[i] - palette[p * 3];
+                int dg = green[i] - palette[p * 3 + 1];
+                int db = blue[i] - palette[p * 3 + 2];
+                int e = dr * dr + dg * dg + db * db;
+                if (e < bestError) {
+                    bestError = e;
+                    best = p;
+                }
+            }
+            indices[i] = best;
+            total += bestError;
+        }
+        return total;
+    }
+
+    /**
+     * Mínimos cuadrados: con los índices fijos, cada píxel es a*c0 + b*c1 con
+     * pesos 1, 0, 2/3 y 1/3. Deja el resultado en refined0/refined1; false si
+     * el sistema es degenerado.
+     */
+    private boolean refine() {
+        float aa = 0, bb = 0, ab = 0;
+        float axR = 0, axG = 0, axB = 0, bxR = 0, bxG = 0, bxB = 0;
+        for (int i = 0; i < 16; i++) {
+            float a = WEIGHTS[indices[i]];
+            float b = 1.0f - a;
+            aa += a * a;
+            bb += b * b;
+            ab += a * b;
+            axR += a * red[i];
+            axG += a * green[i];
+            axB += a * blue[i];
+            bxR += b * red[i];
+            bxG += b * green[i];
+            bxB += b * blue[i];
+        }
+        float det = aa * bb - ab * ab;
+        if (Math.abs(det) < 1e-6f) {
+            return false;
+        }
+        float inv = 1.0f / det;
+        int r0 = clamp((axR * bb - bxR * ab) * inv);
+        int g0 = clamp((axG * bb - bxG * ab) * inv);
+        int b0 = clamp((axB * bb - bxB * ab) * inv);
+        int r1 = clamp((bxR * aa - axR * ab) * inv);
+        int g1 = clamp((bxG * aa - axG * ab) * inv);
+        int b1 = clamp((bxB * aa - axB * ab) * inv);
+        refined0 = to565(r0, g0, b0);
+        refined1 = to565(r1, g1, b1);
+        return true;
+    }
+
+    // Peso de color0 para cada índice en modo de cuatro colores
+    private static final float[] WEIGHTS = {1.0f, 0.0f, 2.0f / 3.0f, 1.0f / 3.0f};
+
+    private void encodeAlpha(ByteBuffer out) {
+        int min = 255;
+        int max = 0;
+        for (int i = 0; i < 16; i++) {
+            min = Math.min(min, alpha[i]);
+            max = Math.max(max, alpha[i]);
+        }
+
+        // alpha0 > alpha1: ocho valores interpolados; si son iguales basta el índice 0
+        long bits = 0;
+        if (max > min) {
+            int[] values = alphaPalette;
+            buildAlphaPalette(max, min, values);
+            for (int i = 15; i >= 0; i--) {
+                int best = 0;
+                int bestError = Integer.MAX_VALUE;
+                for (int p = 0; p < 8; p++) {
+                    int e = Math.abs(alpha[i] - values[p]);
+                    if (e < bestError) {
+                        bestError = e;
+                        best = p;
+                    }
+                }
+                bits = (bits << 3) | best;
+            }
+        }
+        out.put((byte) max).put((byte) min);
+        for (int i = 0; i < 6; i++) {
+            out.put((byte) (bits >>> (i * 8)));
+        }
+    }
+
+    /**
+     * Descomprime a RGBA en "out" desde su posición actual, que avanza
+     * width * height * 4 bytes. Lee "blocks" desde su posición actual.
+     */
+    public static void decode(int format, ByteBuffer blocks, int width, int height, ByteBuffer out) {
+        if (format != BC1 && format != BC3) {
+            throw new IllegalArgumentException("Formato no soportado: " + format);
+        }
+        int base = out.position();
+        int[] colors = new int[12];
+        int[] alphas = new int[8];
+        for (int by = 0; by < height; by += 4) {
+            for (int bx = 0; bx < width; bx += 4) {
+                long alphaBits = 0;
+                boolean hasAlpha = format == BC3;
+                if (hasAlpha) {
+                    int alpha0 = blocks.get() & 0xFF;
+                    int alpha1 = blocks.get() & 0xFF;
+                    buildAlphaPalette(alpha0, alpha1, alphas);
+                    for (int i = 0; i < 6; i++) {
+                        alphaBits |= (long) (blocks.get() & 0xFF) << (i * 8);
+                    }
+                }
+                int color0 = (blocks.get() & 0xFF) | (blocks.get() & 0xFF) << 8;
+                int color1 = (blocks.get() & 0xFF) | (blocks.get() & 0xFF) << 8;
+                int bits = (blocks.get() & 0xFF) | (blocks.get() & 0xFF) << 8 | (blocks.get() & 0xFF) << 16
+                        | (blocks.get() & 0xFF) << 24;
+                buildPalette(color0, color1, colors);
+                // BC1 con color0 <= color1: tres colores y el cuarto transparente
+                boolean threeColor = !hasAlpha && color0 <= color1;
+                if (threeColor) {
+                    for (int c = 0; c < 3; c++) {
+                        colors[6 + c] = (colors[c] + colors[3 + c]) / 2;
+                        colors[9 + c] = 0;
+                    }
+                }
+
+                for (int y = 0; y < 4 && by + y < height; y++) {
+                    for (int x = 0; x < 4 && bx + x < width; x++) {
+                        int i = y * 4 + x;
+                        int index = (bits >>> (i * 2)) & 3;
+                        int offset = base + ((by + y) * width + bx + x) * 4;
+                        out.put(offset, (byte) colors[index * 3]);
+                        out.put(offset + 1, (byte) colors[index * 3 + 1]);
+                        out.put(offset + 2, (byte) colors[index * 3 + 2]);
+                        int a = hasAlpha ? alphas[(int) (alphaBits >>> (i * 3)) & 7]
+                                : (threeColor && index == 3 ? 0 : 255);
+                        out.put(offset + 3, (byte) a);
+                    }
+                }
+            }
+        }
+        out.position(base + width * height * 4);
+    }
+
+    // Paleta RGB de cuatro colores (r, g, b por entrada) a partir de dos colores 565
+    private static void buildPalette(int color0, int color1, int[] palette) {
+        expand565(color0, palette, 0);
+        expand565(color1, palette, 3);
+        for (int c = 0; c < 3; c++) {
+            palette[6 + c] = (2 * palette[c] + palette[3 + c] + 1) / 3;
+            palette[9 + c] = (palette[c] + 2 * palette[3 + c] + 1) / 3;
+        }
+    }
+
+    private static void buildAlphaPalette(int alpha0, int alpha1, int[] values) {
+        values[0] = alpha0;
+        values[1] = alpha1;
+        if (alpha0 > alpha1) {
+            for (int i = 1; i < 7; i++) {
+                values[i + 1] = ((7 - i) * alpha0 + i * alpha1 + 3) / 7;
+            }
+        } else {
+            for (int i = 1; i < 5; i++) {
+                values[i + 1] = ((5 - i) * alpha0 + i * alpha1 + 2) / 5;
+            }
+            values[6] = 0;
+            values[7] = 255;
+        }
+    }
+
+    private static int to565(int r, int g, int b) {
+        return ((r * 31 + 127) / 255) << 11 | ((g * 63 + 127) / 255) << 5 | ((b * 31 + 127) / 255);
+    }
+
+    private static void expand565(int color, int[] out, int offset) {
+        int r = (color >> 11) & 31;
+        int g = (color >> 5) & 63;
+        int b = color & 31;
+        out[offset] = (r << 3) | (r >> 2);
+        out[offset + 1] = (g << 2) | (g >> 4);
+        out[offset + 2] = (b << 3) | (b >> 2);
+    }
+
+    private static int clamp(float value) {
+        return Math.max(0, Math.min(255, Math.round(value)));
+    }
+
+    /**
+     * PSNR en dB entre dos imágenes RGBA del mismo tamaño; con "withAlpha" a
+     * false sólo cuentan los canales de color. Infinito si son idénticas.
+     */
+    public static double psnr(ByteBuffer a, ByteBuffer b, int width, int height, boolean withAlpha) {
+        int channels = withAlpha ? 4 : 3;
+        double sum = 0;
+        for (int i = 0; i < width * height; i++) {
+            for (int c = 0; c < channels; c++) {
+                int d = (a.get(i * 4 + c) & 0xFF) - (b.get(i * 4 + c) & 0xFF);
+                sum += d * d;
+            }
+        }
+        if (sum == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double mse = sum / ((double) width * height * channels);
+        return 10.0 * Math.log10(255.0 * 255.0 / mse);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,141 @@
+package org.printed.chat;
+
+/**
+ * Cámara 2D en coordenadas de mundo: centro, zoom y tamaño visible. Se
+ * actualiza a paso fijo como las entidades (puede seguir a una de ellas) y
+ * guarda el estado anterior para interpolar al dibujar.
+ * <p>
+ * Con el tamaño por defecto (semiancho y semialto 1) y zoom 1 centrada en el
+ * origen, la cámara ve lo mismo que antes: el rectángulo -1..1.
+ */
+public class Camera2D {
+
+    private float x = 0.0f;
+    private float y = 0.0f;
+    private float zoom = 1.0f;
+    private float previousX = 0.0f;
+    private float previousY = 0.0f;
+    private float previousZoom = 1.0f;
+
+    // Mitad del área visible con zoom 1, en unidades de mundo
+    private float halfWidth = 1.0f;
+    private float halfHeight = 1.0f;
+
+    private EntityWorld followWorld;
+    private long followTarget = EntityWorld.INVALID;
+    private float followSharpness = 8.0f; // cuanto mayor, antes alcanza al objetivo
+
+    public void update(float deltaTime) {
+        previousX = x;
+        previousY = y;
+        previousZoom = zoom;
+
+        if (followWorld == null) {
+            return;
+        }
+        int index = followWorld.indexOf(followTarget);
+        if (index < 0) {
+            return;
+        }
+        // Acercamiento exponencial: independiente del paso y sin pasarse del objetivo
+        float t = 1.0f - (float) Math.exp(-followSharpness * deltaTime);
+        x += (followWorld.getX(index) - x) * t;
+        y += (followWorld.getY(index) - y) * t;
+    }
+
+    public void follow(EntityWorld world, long entity) {
+        this.followWorld = world;
+        this.followTarget = entity;
+    }
+
+    public void stopFollowing() {
+        this.followWorld = null;
+        this.followTarget = EntityWorld.INVALID;
+    }
+
+    // Entidad a la que sigue, o EntityWorld.INVALID
+    public long getFollowTarget() {
+        return followTarget;
+    }
+
+    public void setFollowSharpness(float sharpness) {
+        this.followSharpness = sharpness;
+    }
+
+    // Salta a una posición sin interpolar desde la anterior
+    public void setPosition(float x, float y) {
+        this.x = x;
+        this.y = y;
+        this.previousX = x;
+        this.previousY = y;
+    }
+
+    public void setZoom(float zoom) {
+        if (zoom <= 0.0f) {
+            throw new IllegalArgumentException("El zoom debe ser positivo: " + zoom);
+        }
+        this.zoom = zoom;
+    }
+
+    public void setViewSize(float halfWidth, float halfHeight) {
+        this.halfWidth = halfWidth;
+        this.halfHeight = halfHeight;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getPreviousX() {
+        return previousX;
+    }
+
+    public float getPreviousY() {
+        return previousY;
+    }
+
+    public float getZoom() {
+        return zoom;
+    }
+
+    public float getPreviousZoom() {
+        return previousZoom;
+    }
+
+    public float getHalfWidth() {
+        return halfWidth;
+    }
+
+    public float getHalfHeight() {
+        return halfHeight;
+    }
+
+    /**
+     * Matriz de vista y proyección ortográfica (column-major, como espera GL)
+     * que lleva el rectángulo visible centrado en (x, y) a -1..1.
+     */
+    public static void viewProjection(float x, float y, float visibleHalfWidth, float visibleHalfHeight, float[] out) {
+        float sx = 1.0f / visibleHalfWidth;
+        float sy = 1.0f / visibleHalfHeight;
+        out[0] = sx;
+        out[1] = 0.0f;
+        out[2] = 0.0f;
+        out[3] = 0.0f;
+        out[4] = 0.0f;
+        out[5] = sy;
+        out[6] = 0.0f;
+        out[7] = 0.0f;
+        out[8] = 0.0f;
+        out[9] = 0.0f;
+        out[10] = 1.0f;
+        out[11] = 0.0f;
+        out[12] = -x * sx;
+        out[13] = -y * sy;
+        out[14] = 0.0f;
+        out[15] = 1.0f;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,158 @@
+package org.printed.chat;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Backend que no dibuja: cada llamada de {@link SpriteBatch} se guarda como
+ * comando en un {@link RenderCommandBuffer}, con una clave que combina la capa
+ * actual, el shader, la textura y el orden de llegada. Al terminar el frame el
+ * buffer pasa a la {@link RenderCommandQueue}, que lo ordena y lo ejecuta en
+ * el hilo de render.
+ * <p>
+ * Los handles de geometría estática que devuelve son propios; la cola los
+ * traduce a los del backend real al ejecutar.
+ */
+public class CommandRenderBackend implements RenderBackend {
+
+    private final RenderCommandQueue queue;
+    private final int defaultShader;
+
+    private RenderCommandBuffer buffer;
+    private int layer = 0;
+    private int depth = 0;
+    private int view = -1;
+    private final float[] lastView = new float[16];
+    private boolean hasView = false;
+
+    // Handles de geometría estática: siguiente libre y pila de reutilizables. Los
+    // borrados en este frame no se reutilizan hasta el siguiente (ver RenderBackend)
+    private int nextStaticHandle = 0;
+    private int[] freeStaticHandles = new int[16];
+    private int freeStaticCount = 0;
+    private int reusableStaticCount = 0;
+
+    private long droppedFrames = 0;
+
+    // "defaultShader" es el ID del shader por defecto del backend real
+    public CommandRenderBackend(RenderCommandQueue queue, int defaultShader) {
+        this.queue = queue;
+        this.defaultShader = defaultShader;
+    }
+
+    @Override
+    public int getDefaultShader() {
+        return defaultShader;
+    }
+
+    @Override
+    public void beginFrame() {
+        buffer = queue.acquire();
+        if (buffer == null) {
+            droppedFrames++;
+        }
+        layer = 0;
+        depth = 0;
+        reusableStaticCount = freeStaticCount;
+        // La cámara sigue siendo la del frame anterior hasta que se cambie
+        view = buffer != null && hasView ? buffer.addView(lastView) : -1;
+    }
+
+    @Override
+    public void setLayer(int layer) {
+        this.layer = layer;
+    }
+
+    @Override
+    public void setViewProjection(float[] matrix) {
+        System.arraycopy(matrix, 0, lastView, 0, 16);
+        hasView = true;
+        if (buffer != null) {
+            view = buffer.addView(matrix);
+        }
+    }
+
+    @Override
+    public void drawInstances(int shaderId, int textureId, FloatBuffer instances, int count) {
+        if (buffer != null) {
+            buffer.addInstances(nextKey(shaderId, textureId), view, shaderId, textureId, instances, count);
+        }
+    }
+
+    @Override
+    public void drawLayers(int textureArrayId, int layerCount, float[] layerOffsets,
+                           float x, float y, float width, float height) {
+        if (buffer != null) {
+            buffer.addLayers(nextKey(0, textureArrayId), view, 0, textureArrayId, layerCount, layerOffsets,
+                    x, y, width, height);
+        }
+    }
+
+    @Override
+    public int createStaticInstances(FloatBuffer instances, int count) {
+        if (buffer == null) {
+            throw new IllegalStateException("Geometría estática creada fuera de beginFrame()/endFrame()");
+        }
+        int handle;
+        if (reusableStaticCount > 0) {
+            handle = freeStaticHandles[--reusableStaticCount];
+            // El hueco lo ocupa el último de la pila, que puede ser uno borrado en este frame
+            freeStaticHandles[reusableStaticCount] = freeStaticHandles[--freeStaticCount];
+        } else {
+            handle = nextStaticHandle++;
+        }
+        buffer.addResource(RenderCommandBuffer.CREATE_STATIC, handle, instances, count);
+        return handle;
+    }
+
+    @Override
+    public void updateStaticInstances(int handle, FloatBuffer instances, int count) {
+        if (buffer != null) {
+            buffer.addResource(RenderCommandBuffer.UPDATE_STATIC, handle, instances, count);
+        }
+    }
+
+    @Override
+    public void drawStaticInstances(int shaderId, int textureId, int handle, int count) {
+        if (buffer != null) {
+            buffer.addStatic(nextKey(shaderId, textureId), view, shaderId, textureId, handle, count);
+        }
+    }
+
+    @Override
+    public void deleteStaticInstances(int handle) {
+        if (buffer != null) {
+            buffer.addResource(RenderCommandBuffer.DELETE_STATIC, handle, null, 0);
+        }
+        if (freeStaticCount == freeStaticHandles.length) {
+            freeStaticHandles = Arrays.copyOf(freeStaticHandles, freeStaticCount * 2);
+        }
+        freeStaticHandles[freeStaticCount++] = handle;
+    }
+
+    private long nextKey(int shaderId, int textureId) {
+        return RenderCommandBuffer.sortKey(layer, shaderId, textureId, depth++);
+    }
+
+    @Override
+    public void endFrame() {
+        if (buffer != null) {
+            queue.submit(buffer);
+            buffer = null;
+        }
+    }
+
+    @Override
+    public void cleanup() {
+        queue.close();
+    }
+
+    public RenderCommandQueue getQueue() {
+        return queue;
+    }
+
+    // Frames perdidos porque la cola estaba cerrada
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+}
\ No newline at end of file
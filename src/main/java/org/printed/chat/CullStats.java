@@ -0,0 +1,78 @@
+package org.printed.chat;
+
+/**
+ * Cuántos sprites se envían al {@link SpriteBatch} y cuántos se descartan por
+ * quedar fuera de la cámara.
+ */
+public class CullStats {
+
+    private int frameSubmitted;
+    private int frameCulled;
+
+    private int lastFrameSubmitted;
+    private int lastFrameCulled;
+
+    private long totalFrames;
+    private long totalSubmitted;
+    private long totalCulled;
+
+    void beginFrame() {
+        frameSubmitted = 0;
+        frameCulled = 0;
+    }
+
+    void recordSubmitted(int count) {
+        frameSubmitted += count;
+    }
+
+    void recordCulled(int count) {
+        frameCulled += count;
+    }
+
+    void endFrame() {
+        lastFrameSubmitted = frameSubmitted;
+        lastFrameCulled = frameCulled;
+        totalSubmitted += frameSubmitted;
+        totalCulled += frameCulled;
+        totalFrames++;
+    }
+
+    public int getLastFrameSubmitted() {
+        return lastFrameSubmitted;
+    }
+
+    public int getLastFrameCulled() {
+        return lastFrameCulled;
+    }
+
+    public long getTotalSubmitted() {
+        return totalSubmitted;
+    }
+
+    public long getTotalCulled() {
+        return totalCulled;
+    }
+
+    // Fracción de sprites descartados sobre el total, en [0, 1]
+    public double getCulledRatio() {
+        long total = totalSubmitted + totalCulled;
+        return total == 0 ? 0.0 : (double) totalCulled / total;
+    }
+
+    public void reset() {
+        frameSubmitted = 0;
+        frameCulled = 0;
+        lastFrameSubmitted = 0;
+        lastFrameCulled = 0;
+        totalFrames = 0;
+        totalSubmitted = 0;
+        totalCulled = 0;
+    }
+
+    @Override
+    public String toString() {
+        double frames = Math.max(1, totalFrames);
+        return String.format("enviados/frame=%.1f descartados/frame=%.1f (%.1f%%)",
+                totalSubmitted / frames, totalCulled / frames, getCulledRatio() * 100.0);
+    }
+}
\ No newline at end of file
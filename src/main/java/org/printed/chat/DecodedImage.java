@@ -0,0 +1,52 @@
+package org.printed.chat;
+
+import org.lwjgl.stb.STBImage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Imagen ya decodificada a RGBA de 8 bits, lista para subir a GL.
+ */
+public class DecodedImage {
+
+    private final String name;
+    private final int width;
+    private final int height;
+    private final ByteBuffer pixels;
+    private final boolean stbOwned;
+
+    public DecodedImage(String name, int width, int height, ByteBuffer pixels, boolean stbOwned) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+        this.stbOwned = stbOwned;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public ByteBuffer getPixels() {
+        return pixels;
+    }
+
+    public int getByteSize() {
+        return width * height * 4;
+    }
+
+    // Libera la memoria nativa si la reservó STB; los buffers de Java los recoge el GC
+    public void free() {
+        if (stbOwned) {
+            STBImage.stbi_image_free(pixels);
+        }
+    }
+}
\ No newline at end of file
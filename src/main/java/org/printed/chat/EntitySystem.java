@@ -0,0 +1,50 @@
+package org.printed.chat;
+
+/**
+ * Sistema de actualización que ejecuta {@link SystemScheduler}. Declara qué
+ * componentes lee y escribe (máscaras de {@link EntityWorld}) para que el
+ * planificador pueda ejecutar a la vez los que no entran en conflicto.
+ */
+public interface EntitySystem {
+
+    String getName();
+
+    int reads();
+
+    int writes();
+
+    // true si update() se puede llamar con tramos disjuntos de entidades en paralelo
+    boolean isChunked();
+
+    void update(EntityWorld world, float deltaTime, int from, int to);
+
+    // Sistema que se ejecuta una sola vez por paso, fuera del bucle de entidades
+    static EntitySystem once(String name, int reads, int writes, Simulation action) {
+        return new EntitySystem() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public int reads() {
+                return reads;
+            }
+
+            @Override
+            public int writes() {
+                return writes;
+            }
+
+            @Override
+            public boolean isChunked() {
+                return false;
+            }
+
+            @Override
+            public void update(EntityWorld world, float deltaTime, int from, int to) {
+                action.update(deltaTime);
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,261 @@
+package org.printed.chat;
+
+import java.util.Arrays;
+
+/**
+ * Almacén de entidades como estructura de arrays: cada componente (posición,
+ * velocidad, tamaño, sprite, animación) vive en su propio array primitivo y las entidades
+ * vivas ocupan los índices 0..size()-1 sin huecos, para recorrerlas en orden.
+ * <p>
+ * Los handles son estables: un índice de slot más una generación. Al destruir
+ * una entidad, la última ocupa su hueco (swap-remove) y el slot vuelve a la
+ * lista libre con la generación incrementada, así que los handles viejos dejan
+ * de ser válidos. Crear y destruir son O(1).
+ */
+public class EntityWorld {
+
+    public static final long INVALID = -1L;
+
+    // Máscaras de componentes para declarar lecturas y escrituras de los sistemas
+    public static final int POSITION = 1;
+    public static final int PREVIOUS_POSITION = 1 << 1;
+    public static final int VELOCITY = 1 << 2;
+    public static final int SIZE = 1 << 3;
+    public static final int SPRITE = 1 << 4;
+    public static final int ANIMATION = 1 << 5;
+    // Estado fuera del mundo (fondo, cámara...) que algunos sistemas también tocan
+    public static final int BACKGROUND = 1 << 16;
+    public static final int CAMERA = 1 << 17;
+    public static final int PARTICLES = 1 << 18;
+
+    // Componentes, indexados por posición densa
+    float[] posX;
+    float[] posY;
+    float[] prevX;
+    float[] prevY;
+    float[] velX;
+    float[] velY;
+    float[] width;
+    float[] height;
+    int[] sprite;
+    // Animación: máquina de estados de AnimationLibrary (-1 si no tiene), estado,
+    // tiempo en el frame actual y frame global (-1 = textura entera)
+    int[] animator;
+    int[] animState;
+    float[] animTime;
+    int[] frame;
+
+    // Índice denso -> slot, y slot -> índice denso
+    private int[] denseToSlot;
+    private int[] slotToDense;
+    private int[] generation;
+
+    // Pila de slots libres
+    private int[] freeSlots;
+    private int freeCount = 0;
+    private int slotCount = 0;
+
+    private int size = 0;
+
+    public EntityWorld(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        posX = new float[capacity];
+        posY = new float[capacity];
+        prevX = new float[capacity];
+        prevY = new float[capacity];
+        velX = new float[capacity];
+        velY = new float[capacity];
+        width = new float[capacity];
+        height = new float[capacity];
+        sprite = new int[capacity];
+        animator = new int[capacity];
+        animState = new int[capacity];
+        animTime = new float[capacity];
+        frame = new int[capacity];
+        denseToSlot = new int[capacity];
+        slotToDense = new int[capacity];
+        generation = new int[capacity];
+        freeSlots = new int[capacity];
+    }
+
+    public long create(float x, float y, float w, float h, int spriteId) {
+        if (size == posX.length) {
+            grow(size * 2);
+        }
+
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : slotCount++;
+        int index = size++;
+        denseToSlot[index] = slot;
+        slotToDense[slot] = index;
+
+        posX[index] = x;
+        posY[index] = y;
+        prevX[index] = x;
+        prevY[index] = y;
+        velX[index] = 0.0f;
+        velY[index] = 0.0f;
+        width[index] = w;
+        height[index] = h;
+        sprite[index] = spriteId;
+        animator[index] = -1;
+        animState[index] = 0;
+        animTime[index] = 0.0f;
+        frame[index] = -1;
+
+        return ((long) generation[slot] << 32) | slot;
+    }
+
+    public boolean destroy(long handle) {
+        int index = indexOf(handle);
+        if (index < 0) {
+            return false;
+        }
+        int slot = denseToSlot[index];
+
+        // Mover la última entidad al hueco para mantener el array denso
+        int last = --size;
+        if (index != last) {
+            posX[index] = posX[last];
+            posY[index] = posY[last];
+            prevX[index] = prevX[last];
+            prevY[index] = prevY[last];
+            velX[index] = velX[last];
+            velY[index] = velY[last];
+            width[index] = width[last];
+            height[index] = height[last];
+            sprite[index] = sprite[last];
+            animator[index] = animator[last];
+            animState[index] = animState[last];
+            animTime[index] = animTime[last];
+            frame[index] = frame[last];
+            int movedSlot = denseToSlot[last];
+            denseToSlot[index] = movedSlot;
+            slotToDense[movedSlot] = index;
+        }
+
+        generation[slot]++;
+        freeSlots[freeCount++] = slot;
+        return true;
+    }
+
+    // Índice denso actual de la entidad, o -1 si el handle ya no es válido
+    public int indexOf(long handle) {
+        if (handle == INVALID) {
+            return -1;
+        }
+        int slot = (int) handle;
+        int gen = (int) (handle >>> 32);
+        if (slot < 0 || slot >= slotCount || generation[slot] != gen) {
+            return -1;
+        }
+        int index = slotToDense[slot];
+        return index < size && denseToSlot[index] == slot ? index : -1;
+    }
+
+    /**
+     * Hash del estado simulado (posiciones y velocidades en orden denso) para
+     * comprobar que dos ejecuciones van igual. Estilo FNV-1a, pero de 64 en 64
+     * bits: cada paso mezcla dos floats.
+     */
+    public long stateHash() {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < size; i++) {
+            hash = mixHash(hash, Float.floatToRawIntBits(posX[i]), Float.floatToRawIntBits(posY[i]));
+            hash = mixHash(hash, Float.floatToRawIntBits(velX[i]), Float.floatToRawIntBits(velY[i]));
+        }
+        return mixHash(hash, size, 0);
+    }
+
+    static long mixHash(long hash, int high, int low) {
+        hash = (hash ^ (((long) high << 32) | (low & 0xffffffffL))) * 0x100000001b3L;
+        return hash ^ (hash >>> 29);
+    }
+
+    public boolean isAlive(long handle) {
+        return indexOf(handle) >= 0;
+    }
+
+    private void grow(int capacity) {
+        posX = Arrays.copyOf(posX, capacity);
+        posY = Arrays.copyOf(posY, capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        velX = Arrays.copyOf(velX, capacity);
+        velY = Arrays.copyOf(velY, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        sprite = Arrays.copyOf(sprite, capacity);
+        animator = Arrays.copyOf(animator, capacity);
+        animState = Arrays.copyOf(animState, capacity);
+        animTime = Arrays.copyOf(animTime, capacity);
+        frame = Arrays.copyOf(frame, capacity);
+        denseToSlot = Arrays.copyOf(denseToSlot, capacity);
+        slotToDense = Arrays.copyOf(slotToDense, capacity);
+        generation = Arrays.copyOf(generation, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return posX.length;
+    }
+
+    // Accesos por índice denso; sólo válidos hasta la siguiente destrucción
+
+    public float getX(int index) {
+        return posX[index];
+    }
+
+    public float getY(int index) {
+        return posY[index];
+    }
+
+    public float getPreviousX(int index) {
+        return prevX[index];
+    }
+
+    public float getPreviousY(int index) {
+        return prevY[index];
+    }
+
+    public float getWidth(int index) {
+        return width[index];
+    }
+
+    public float getHeight(int index) {
+        return height[index];
+    }
+
+    public int getSprite(int index) {
+        return sprite[index];
+    }
+
+    public int getFrame(int index) {
+        return frame[index];
+    }
+
+    // Asigna una máquina de estados de AnimationLibrary; -1 vuelve a la textura entera
+    public void setAnimator(int index, int animatorId) {
+        animator[index] = animatorId;
+        animState[index] = -1;
+        animTime[index] = 0.0f;
+        frame[index] = -1;
+    }
+
+    public void setPosition(int index, float x, float y) {
+        posX[index] = x;
+        posY[index] = y;
+    }
+
+    public void setVelocity(int index, float vx, float vy) {
+        velX[index] = vx;
+        velY[index] = vy;
+    }
+
+    public void setSprite(int index, int spriteId) {
+        sprite[index] = spriteId;
+    }
+}
\ No newline at end of file
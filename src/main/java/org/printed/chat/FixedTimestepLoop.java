@@ -0,0 +1,93 @@
+package org.printed.chat;
+
+/**
+ * Bucle de paso fijo: acumula el tiempo real de cada frame y lo consume en
+ * pasos de simulación de duración constante. Lo que sobra se expresa como
+ * factor de interpolación (alpha) para dibujar entre los dos últimos estados.
+ */
+public class FixedTimestepLoop {
+
+    private final float stepSeconds;
+    private final int maxStepsPerFrame;
+
+    private double accumulator = 0.0;
+    private long totalSteps = 0;
+    private int lastFrameSteps = 0;
+    private double droppedSeconds = 0.0;
+
+    public FixedTimestepLoop(float stepSeconds, int maxStepsPerFrame) {
+        if (stepSeconds <= 0.0f) {
+            throw new IllegalArgumentException("El paso de simulación debe ser positivo: " + stepSeconds);
+        }
+        if (maxStepsPerFrame <= 0) {
+            throw new IllegalArgumentException("maxStepsPerFrame debe ser positivo: " + maxStepsPerFrame);
+        }
+        this.stepSeconds = stepSeconds;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    /**
+     * Avanza la simulación con el tiempo real transcurrido desde el frame
+     * anterior. Devuelve el número de pasos ejecutados.
+     */
+    public int advance(double frameSeconds, Simulation simulation) {
+        accumulator += frameSeconds;
+
+        int steps = 0;
+        while (accumulator >= stepSeconds && steps < maxStepsPerFrame) {
+            simulation.update(stepSeconds);
+            accumulator -= stepSeconds;
+            steps++;
+        }
+
+        // Si no hemos podido ponernos al día, descartar el retraso en lugar de
+        // arrastrarlo al siguiente frame (evita la "espiral de la muerte")
+        if (accumulator >= stepSeconds) {
+            double excess = accumulator - accumulator % stepSeconds;
+            droppedSeconds += excess;
+            accumulator -= excess;
+        }
+
+        totalSteps += steps;
+        lastFrameSteps = steps;
+        return steps;
+    }
+
+    // Fracción del siguiente paso ya transcurrida, en [0, 1)
+    public float getAlpha() {
+        return (float) (accumulator / stepSeconds);
+    }
+
+    public float getStepSeconds() {
+        return stepSeconds;
+    }
+
+    public int getMaxStepsPerFrame() {
+        return maxStepsPerFrame;
+    }
+
+    public long getTotalSteps() {
+        return totalSteps;
+    }
+
+    public int getLastFrameSteps() {
+        return lastFrameSteps;
+    }
+
+    // Tiempo real descartado por superar maxStepsPerFrame
+    public double getDroppedSeconds() {
+        return droppedSeconds;
+    }
+
+    /**
+     * Ejecuta "ticks" pasos seguidos tan rápido como sea posible, sin ventana
+     * ni espera. Devuelve el tiempo empleado en nanosegundos.
+     */
+    public static long runHeadless(Simulation simulation, float stepSeconds, int ticks) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            simulation.update(stepSeconds);
+        }
+        return System.nanoTime() - start;
+    }
+}
\ No newline at end of file
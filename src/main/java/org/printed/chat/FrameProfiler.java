@@ -0,0 +1,353 @@
+package org.printed.chat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Perfilador de frames: ámbitos de CPU anidados, tiempo de GPU y percentiles
+ * del tiempo de frame.
+ * <p>
+ * Los ámbitos se registran una vez por nombre y después se abren y cierran
+ * por ID. Cada medición se guarda en buffers circulares preasignados, así que
+ * grabar no reserva memoria; cuando el perfilador está desactivado cada
+ * llamada sólo comprueba un booleano. No es seguro entre hilos: se usa desde
+ * el hilo principal.
+ * <p>
+ * Las consultas de GPU se leen {@link #FRAMES_IN_FLIGHT} frames después, para
+ * no esperar a la GPU. Sin {@link GpuTimer} (por ejemplo, sin ventana) sólo se
+ * mide la CPU. {@link #exportChromeTrace} escribe el contenido de los buffers
+ * en el formato de eventos de chrome://tracing y Perfetto.
+ */
+public class FrameProfiler {
+
+    public static final int FRAMES_IN_FLIGHT = 4;
+    private static final int MAX_DEPTH = 32;
+    private static final int MAX_GPU_SCOPES_PER_FRAME = 16;
+
+    private boolean enabled;
+    private final long baseNanos = System.nanoTime();
+
+    // Nombres de ámbito y acumulados por ID
+    private String[] names = new String[16];
+    private long[] cpuTotalNanos = new long[16];
+    private long[] cpuCalls = new long[16];
+    private long[] gpuTotalNanos = new long[16];
+    private long[] gpuCalls = new long[16];
+    private int scopeCount = 0;
+
+    // Eventos de CPU: buffer circular indexado por eventCount & eventMask
+    private final int eventMask;
+    private final int[] eventScope;
+    private final int[] eventDepth;
+    private final long[] eventStart;
+    private final long[] eventEnd;
+    private long eventCount = 0;
+    private final int[] openEvents = new int[MAX_DEPTH];
+    private int depth = 0;
+
+    // Frames
+    private final int frameMask;
+    private final long[] frameStart;
+    private final long[] frameDuration;
+    private final long[] sortScratch;
+    private long frameIndex = 0;
+    private boolean inFrame = false;
+
+    // GPU: consultas por frame en vuelo y resultados ya leídos
+    private final GpuTimer gpu;
+    private final int[][] queries;
+    private final int[][] queryScope;
+    private final int[] queryCount;
+    private final long[] queryFrame;
+    private int activeGpuScope = -1;
+    private final int[] gpuResultScope;
+    private final long[] gpuResultFrame;
+    private final long[] gpuResultNanos;
+    private long gpuResultCount = 0;
+    private long gpuMissed = 0;
+
+    public FrameProfiler(int eventCapacity, int frameCapacity, GpuTimer gpu) {
+        int events = Integer.highestOneBit(Math.max(64, eventCapacity - 1)) << 1;
+        int frames = Integer.highestOneBit(Math.max(16, frameCapacity - 1)) << 1;
+        this.eventMask = events - 1;
+        this.eventScope = new int[events];
+        this.eventDepth = new int[events];
+        this.eventStart = new long[events];
+        this.eventEnd = new long[events];
+        this.frameMask = frames - 1;
+        this.frameStart = new long[frames];
+        this.frameDuration = new long[frames];
+        this.sortScratch = new long[frames];
+
+        this.gpu = gpu;
+        this.queries = new int[FRAMES_IN_FLIGHT][MAX_GPU_SCOPES_PER_FRAME];
+        this.queryScope = new int[FRAMES_IN_FLIGHT][MAX_GPU_SCOPES_PER_FRAME];
+        this.queryCount = new int[FRAMES_IN_FLIGHT];
+        this.queryFrame = new long[FRAMES_IN_FLIGHT];
+        this.gpuResultScope = new int[frames * MAX_GPU_SCOPES_PER_FRAME];
+        this.gpuResultFrame = new long[gpuResultScope.length];
+        this.gpuResultNanos = new long[gpuResultScope.length];
+        if (gpu != null) {
+            for (int[] frameQueries : queries) {
+                for (int i = 0; i < frameQueries.length; i++) {
+                    frameQueries[i] = gpu.createQuery();
+                }
+            }
+        }
+    }
+
+    public void setEnabled(boolean enabled) {
+        if (!enabled) {
+            // Cerrar lo que quedara abierto para empezar limpio al reactivar
+            depth = 0;
+            inFrame = false;
+            if (activeGpuScope >= 0) {
+                gpu.end();
+                activeGpuScope = -1;
+            }
+        }
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Devuelve el ID del ámbito; registrar el mismo nombre dos veces devuelve el mismo ID
+    public int register(String name) {
+        for (int i = 0; i < scopeCount; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        if (scopeCount == names.length) {
+            int capacity = scopeCount * 2;
+            names = Arrays.copyOf(names, capacity);
+            cpuTotalNanos = Arrays.copyOf(cpuTotalNanos, capacity);
+            cpuCalls = Arrays.copyOf(cpuCalls, capacity);
+            gpuTotalNanos = Arrays.copyOf(gpuTotalNanos, capacity);
+            gpuCalls = Arrays.copyOf(gpuCalls, capacity);
+        }
+        names[scopeCount] = name;
+        return scopeCount++;
+    }
+
+    public void beginFrame() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        frameStart[(int) (frameIndex & frameMask)] = now;
+        inFrame = true;
+
+        if (gpu != null) {
+            // Este hueco se usó hace FRAMES_IN_FLIGHT frames: leer sus resultados antes de reutilizarlo
+            int slot = (int) (frameIndex % FRAMES_IN_FLIGHT);
+            collectGpu(slot);
+            queryCount[slot] = 0;
+            queryFrame[slot] = frameIndex;
+        }
+    }
+
+    public void endFrame() {
+        if (!enabled || !inFrame) {
+            return;
+        }
+        int index = (int) (frameIndex & frameMask);
+        frameDuration[index] = System.nanoTime() - frameStart[index];
+        frameIndex++;
+        inFrame = false;
+    }
+
+    public void begin(int scope) {
+        if (!enabled) {
+            return;
+        }
+        if (depth >= MAX_DEPTH) {
+            depth++;
+            return;
+        }
+        int slot = (int) (eventCount++ & eventMask);
+        eventScope[slot] = scope;
+        eventDepth[slot] = depth;
+        eventEnd[slot] = -1;
+        openEvents[depth++] = slot;
+        eventStart[slot] = System.nanoTime();
+    }
+
+    public void end() {
+        if (!enabled || depth == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (--depth >= MAX_DEPTH) {
+            return;
+        }
+        int slot = openEvents[depth];
+        eventEnd[slot] = now;
+        cpuTotalNanos[eventScope[slot]] += now - eventStart[slot];
+        cpuCalls[eventScope[slot]]++;
+    }
+
+    // Mide en GPU lo que se envíe hasta endGpu(); no se pueden anidar
+    public void beginGpu(int scope) {
+        if (!enabled || gpu == null || !inFrame || activeGpuScope >= 0) {
+            return;
+        }
+        int slot = (int) (frameIndex % FRAMES_IN_FLIGHT);
+        int index = queryCount[slot];
+        if (index == MAX_GPU_SCOPES_PER_FRAME) {
+            return;
+        }
+        queryScope[slot][index] = scope;
+        queryCount[slot] = index + 1;
+        activeGpuScope = scope;
+        gpu.begin(queries[slot][index]);
+    }
+
+    public void endGpu() {
+        if (activeGpuScope < 0) {
+            return;
+        }
+        gpu.end();
+        activeGpuScope = -1;
+    }
+
+    private void collectGpu(int slot) {
+        for (int i = 0; i < queryCount[slot]; i++) {
+            int query = queries[slot][i];
+            if (!gpu.isResultAvailable(query)) {
+                // La GPU va más de FRAMES_IN_FLIGHT frames por detrás: se pierde la medición
+                gpuMissed++;
+                continue;
+            }
+            long nanos = gpu.getResultNanos(query);
+            int scope = queryScope[slot][i];
+            int index = (int) (gpuResultCount++ % gpuResultScope.length);
+            gpuResultScope[index] = scope;
+            gpuResultFrame[index] = queryFrame[slot];
+            gpuResultNanos[index] = nanos;
+            gpuTotalNanos[scope] += nanos;
+            gpuCalls[scope]++;
+        }
+        queryCount[slot] = 0;
+    }
+
+    // Tiempo de frame del percentil p (0..1) entre los frames que siguen en el buffer
+    public double getFramePercentileMillis(double p) {
+        int count = (int) Math.min(frameIndex, frameMask + 1);
+        if (count == 0) {
+            return 0.0;
+        }
+        for (int i = 0; i < count; i++) {
+            sortScratch[i] = frameDuration[(int) ((frameIndex - 1 - i) & frameMask)];
+        }
+        Arrays.sort(sortScratch, 0, count);
+        int index = Math.min(count - 1, Math.max(0, (int) Math.ceil(p * count) - 1));
+        return sortScratch[index] / 1_000_000.0;
+    }
+
+    public double getCpuAverageMillis(int scope) {
+        return cpuCalls[scope] == 0 ? 0.0 : cpuTotalNanos[scope] / 1_000_000.0 / cpuCalls[scope];
+    }
+
+    public double getGpuAverageMillis(int scope) {
+        return gpuCalls[scope] == 0 ? 0.0 : gpuTotalNanos[scope] / 1_000_000.0 / gpuCalls[scope];
+    }
+
+    public long getFrameCount() {
+        return frameIndex;
+    }
+
+    public long getGpuMissed() {
+        return gpuMissed;
+    }
+
+    /**
+     * Escribe los eventos que siguen en los buffers como JSON de eventos de
+     * traza (formato "X" con ts y dur en microsegundos). La CPU va en el hilo 1
+     * y la GPU en el 2; como GL_TIME_ELAPSED no da el instante de inicio, cada
+     * medición de GPU se coloca al principio de su frame.
+     */
+    public void exportChromeTrace(Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+            out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":1,\"args\":{\"name\":\"CPU\"}},\n");
+            out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":2,\"args\":{\"name\":\"GPU\"}}");
+
+            long firstFrame = Math.max(0, frameIndex - (frameMask + 1));
+            for (long frame = firstFrame; frame < frameIndex; frame++) {
+                int index = (int) (frame & frameMask);
+                writeEvent(out, "frame", 1, frameStart[index], frameDuration[index]);
+            }
+
+            long firstEvent = Math.max(0, eventCount - (eventMask + 1));
+            for (long event = firstEvent; event < eventCount; event++) {
+                int slot = (int) (event & eventMask);
+                if (eventEnd[slot] >= 0) {
+                    writeEvent(out, names[eventScope[slot]], 1, eventStart[slot], eventEnd[slot] - eventStart[slot]);
+                }
+            }
+
+            long firstResult = Math.max(0, gpuResultCount - gpuResultScope.length);
+            for (long result = firstResult; result < gpuResultCount; result++) {
+                int index = (int) (result % gpuResultScope.length);
+                long frame = gpuResultFrame[index];
+                if (frame < firstFrame) {
+                    continue;
+                }
+                writeEvent(out, names[gpuResultScope[index]], 2, frameStart[(int) (frame & frameMask)],
+                        gpuResultNanos[index]);
+            }
+            out.write("\n]}\n");
+        }
+    }
+
+    private void writeEvent(BufferedWriter out, String name, int thread, long startNanos, long durationNanos)
+            throws IOException {
+        out.write(",\n{\"name\":\"");
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+            }
+            out.write(c < 0x20 ? ' ' : c);
+        }
+        out.write(String.format(Locale.ROOT, "\",\"ph\":\"X\",\"pid\":1,\"tid\":%d,\"ts\":%.3f,\"dur\":%.3f}",
+                thread, (startNanos - baseNanos) / 1000.0, durationNanos / 1000.0));
+    }
+
+    public void cleanup() {
+        if (gpu != null) {
+            for (int[] frameQueries : queries) {
+                for (int query : frameQueries) {
+                    gpu.deleteQuery(query);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("frames=%d p50=%.2f ms p99=%.2f ms", frameIndex,
+                getFramePercentileMillis(0.50), getFramePercentileMillis(0.99)));
+        for (int i = 0; i < scopeCount; i++) {
+            if (cpuCalls[i] > 0) {
+                sb.append(String.format(" %s=%.3f ms", names[i], getCpuAverageMillis(i)));
+            }
+            if (gpuCalls[i] > 0) {
+                sb.append(String.format(" %s(gpu)=%.3f ms", names[i], getGpuAverageMillis(i)));
+            }
+        }
+        if (gpuMissed > 0) {
+            sb.append(" gpu perdidas=").append(gpuMissed);
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
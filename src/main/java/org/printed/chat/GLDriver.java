@@ -0,0 +1,32 @@
+package org.printed.chat;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Llamadas de GL que pasan por {@link GLStateCache}. La implementación real es
+ * {@link LwjglGLDriver}; {@link RecordingGLDriver} las registra sin GPU.
+ */
+public interface GLDriver {
+
+    void useProgram(int programId);
+
+    void bindVertexArray(int vaoId);
+
+    void bindBuffer(int target, int bufferId);
+
+    void activeTexture(int unit);
+
+    void bindTexture(int target, int textureId);
+
+    void enable(int capability);
+
+    void disable(int capability);
+
+    void blendFunc(int sfactor, int dfactor);
+
+    void bufferData(int target, long size, int usage);
+
+    void bufferSubData(int target, long offset, FloatBuffer data);
+
+    void drawArraysInstanced(int mode, int first, int count, int instances);
+}
\ No newline at end of file
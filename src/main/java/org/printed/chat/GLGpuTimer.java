@@ -0,0 +1,41 @@
+package org.printed.chat;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL33;
+
+/**
+ * {@link GpuTimer} sobre consultas GL_TIME_ELAPSED (OpenGL 3.3).
+ */
+public class GLGpuTimer implements GpuTimer {
+
+    @Override
+    public int createQuery() {
+        return GL15.glGenQueries();
+    }
+
+    @Override
+    public void begin(int query) {
+        GL15.glBeginQuery(GL33.GL_TIME_ELAPSED, query);
+    }
+
+    @Override
+    public void end() {
+        GL15.glEndQuery(GL33.GL_TIME_ELAPSED);
+    }
+
+    @Override
+    public boolean isResultAvailable(int query) {
+        return GL15.glGetQueryObjecti(query, GL15.GL_QUERY_RESULT_AVAILABLE) == GL11.GL_TRUE;
+    }
+
+    @Override
+    public long getResultNanos(int query) {
+        return GL33.glGetQueryObjectui64(query, GL15.GL_QUERY_RESULT);
+    }
+
+    @Override
+    public void deleteQuery(int query) {
+        GL15.glDeleteQueries(query);
+    }
+}
\ No newline at end of file
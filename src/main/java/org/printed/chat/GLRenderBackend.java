@@ -0,0 +1,312 @@
+package org.printed.chat;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL33;
+import org.lwjgl.system.MemoryStack;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Backend OpenGL para {@link SpriteBatch}: un quad unitario compartido y las
+ * instancias de cada frame en un {@link StreamingBuffer}, dibujadas con
+ * glDrawArraysInstanced apuntando los atributos al rango recién escrito.
+ */
+public class GLRenderBackend implements RenderBackend {
+
+    private static final int STRIDE = SpriteBatch.FLOATS_PER_SPRITE * Float.BYTES;
+
+    // Cada segmento del anillo admite este número de batches llenos antes de pasar al siguiente
+    private static final int STREAM_BATCHES_PER_SEGMENT = 16;
+    private static final int SPRITE_SHADER = 0;
+
+    // Vertex Shader: coloca el quad unitario según los datos de cada instancia y lo pasa
+    // de coordenadas de mundo a clip con la escala (xy) y traslación (zw) de la cámara
+    static final String VERTEX_SHADER =
+            "#version 410 core\n" +
+                    "layout (location = 0) in vec2 corner;\n" +
+                    "layout (location = 1) in vec4 rect;\n" +
+                    "layout (location = 2) in vec4 uvRect;\n" +
+                    "out vec2 TexCoord;\n" +
+                    "uniform vec4 viewTransform;\n" +
+                    "void main() {\n" +
+                    "    vec2 pos = rect.xy + (corner - 0.5) * rect.zw;\n" +
+                    "    gl_Position = vec4(pos * viewTransform.xy + viewTransform.zw, 0.0, 1.0);\n" +
+                    "    TexCoord = vec2(mix(uvRect.x, uvRect.z, corner.x), mix(uvRect.w, uvRect.y, corner.y));\n" +
+                    "}";
+
+    static final String FRAGMENT_SHADER =
+            "#version 410 core\n" +
+                    "in vec2 TexCoord;\n" +
+                    "out vec4 fragColor;\n" +
+                    "uniform sampler2D textureSampler;\n" +
+                    "void main() {\n" +
+                    "    fragColor = texture(textureSampler, TexCoord);\n" +
+                    "}";
+
+    // Mezcla las capas del fondo de atrás hacia delante (alfa premultiplicado) y
+    // devuelve el color sin premultiplicar para el blending normal
+    static final String LAYERS_FRAGMENT_SHADER =
+            "#version 410 core\n" +
+                    "in vec2 TexCoord;\n" +
+                    "out vec4 fragColor;\n" +
+                    "uniform sampler2DArray layers;\n" +
+                    "uniform int layerCount;\n" +
+                    "uniform vec2 layerOffsets[" + Background.MAX_LAYERS + "];\n" +
+                    "void main() {\n" +
+                    "    vec3 color = vec3(0.0);\n" +
+                    "    float alpha = 0.0;\n" +
+                    "    for (int i = 0; i < layerCount; i++) {\n" +
+                    "        vec4 c = texture(layers, vec3(TexCoord + layerOffsets[i], float(i)));\n" +
+                    "        color = c.rgb * c.a + color * (1.0 - c.a);\n" +
+                    "        alpha = c.a + alpha * (1.0 - c.a);\n" +
+                    "    }\n" +
+                    "    fragColor = alpha > 0.0 ? vec4(color / alpha, alpha) : vec4(0.0);\n" +
+                    "}";
+
+    private static final String[] LAYER_OFFSET_NAMES = new String[Background.MAX_LAYERS];
+
+    static {
+        for (int i = 0; i < LAYER_OFFSET_NAMES.length; i++) {
+            LAYER_OFFSET_NAMES[i] = "layerOffsets[" + i + "]";
+        }
+    }
+
+    private final int capacity;
+    private int vaoId;
+    private int quadVboId;
+    private StreamingBuffer stream;
+    private final ShaderProgram shader;
+    private final ShaderProgram layersShader;
+    private final FloatBuffer layerQuad = BufferUtils.createFloatBuffer(SpriteBatch.FLOATS_PER_SPRITE);
+    private final GLStateCache state;
+    private final float[] viewTransform = {1.0f, 1.0f, 0.0f, 0.0f};
+
+    // Geometría estática: un VAO y un VBO por handle; 0 en los huecos libres
+    private int[] staticVaos = new int[16];
+    private int[] staticVbos = new int[16];
+    private long[] staticBytes = new long[16];
+
+    public GLRenderBackend(int capacity, ShaderLibrary shaders, GLStateCache state) {
+        this.capacity = capacity;
+        this.state = state;
+        this.shader = shaders.get("sprite", VERTEX_SHADER, FRAGMENT_SHADER);
+        this.layersShader = shaders.get("parallax", VERTEX_SHADER, LAYERS_FRAGMENT_SHADER);
+        init();
+    }
+
+    private void init() {
+        // El sampler siempre lee de la unidad 0: basta con fijarlo una vez
+        shader.bind();
+        shader.setUniform1i("textureSampler", 0);
+        layersShader.bind();
+        layersShader.setUniform1i("layers", 0);
+        GL20.glUseProgram(0);
+
+        vaoId = GL30.glGenVertexArrays();
+        GL30.glBindVertexArray(vaoId);
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            // Esquinas del quad unitario (0..1); el shader las escala con los datos de instancia
+            float[] corners = new float[]{
+                    0.0f, 1.0f,  // Esquina superior izquierda
+                    1.0f, 1.0f,  // Esquina superior derecha
+                    1.0f, 0.0f,  // Esquina inferior derecha
+                    0.0f, 0.0f   // Esquina inferior izquierda
+            };
+
+            FloatBuffer cornerBuffer = stack.mallocFloat(corners.length);
+            cornerBuffer.put(corners).flip();
+
+            quadVboId = GL15.glGenBuffers();
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, quadVboId);
+            GL15.glBufferData(GL15.GL_ARRAY_BUFFER, cornerBuffer, GL15.GL_STATIC_DRAW);
+            GL20.glVertexAttribPointer(0, 2, GL11.GL_FLOAT, false, 0, 0);
+            GL20.glEnableVertexAttribArray(0);
+        }
+
+        // Instancias: rectángulo (x, y, w, h) + rectángulo UV (u0, v0, u1, v1), escritas cada frame
+        // El VAO y el buffer del quad se enlazaron sin pasar por la caché
+        state.reset();
+        stream = new StreamingBuffer(state, (long) capacity * STRIDE * STREAM_BATCHES_PER_SEGMENT);
+        enableInstanceAttributes();
+
+        state.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        state.bindVertexArray(0);
+    }
+
+    // Activa en el VAO enlazado los atributos por instancia, leídos del GL_ARRAY_BUFFER enlazado
+    private static void enableInstanceAttributes() {
+        setInstanceAttributes(0);
+        GL20.glEnableVertexAttribArray(1);
+        GL33.glVertexAttribDivisor(1, 1);
+        GL20.glEnableVertexAttribArray(2);
+        GL33.glVertexAttribDivisor(2, 1);
+    }
+
+    // Atributos por instancia leídos del GL_ARRAY_BUFFER enlazado a partir de "offset", en el VAO enlazado
+    private static void setInstanceAttributes(long offset) {
+        GL20.glVertexAttribPointer(1, 4, GL11.GL_FLOAT, false, STRIDE, offset);
+        GL20.glVertexAttribPointer(2, 4, GL11.GL_FLOAT, false, STRIDE, offset + 4L * Float.BYTES);
+    }
+
+    // Los comandos guardan este ID estable y no el del programa GL, que cambia al recargarlo;
+    // el programa 0 nunca sirve para dibujar, así que no choca con ningún programa real
+    @Override
+    public int getDefaultShader() {
+        return SPRITE_SHADER;
+    }
+
+    @Override
+    public void beginFrame() {
+        // El estado enlazado sigue valiendo entre frames: quien toque GL por fuera invalida lo suyo
+        state.beginFrame();
+
+        state.bindVertexArray(vaoId);
+        state.activeTexture(GL13.GL_TEXTURE0);
+
+        // Habilitar transparencias una vez por frame
+        state.enable(GL11.GL_BLEND);
+        state.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+    }
+
+    @Override
+    public void setViewProjection(float[] matrix) {
+        viewTransform[0] = matrix[0];
+        viewTransform[1] = matrix[5];
+        viewTransform[2] = matrix[12];
+        viewTransform[3] = matrix[13];
+    }
+
+    @Override
+    public void drawInstances(int shaderId, int textureId, FloatBuffer instances, int count) {
+        bindProgramAndTexture(shaderId, textureId);
+        streamInstances(instances);
+        state.drawArraysInstanced(GL11.GL_TRIANGLE_FAN, 0, 4, count);
+    }
+
+    @Override
+    public void drawLayers(int textureArrayId, int layerCount, float[] layerOffsets,
+                           float x, float y, float width, float height) {
+        state.useProgram(layersShader.getProgramId());
+        state.bindTexture(GL30.GL_TEXTURE_2D_ARRAY, textureArrayId);
+        layersShader.setUniform4f("viewTransform", viewTransform[0], viewTransform[1], viewTransform[2], viewTransform[3]);
+        layersShader.setUniform1i("layerCount", layerCount);
+        for (int i = 0; i < layerCount; i++) {
+            layersShader.setUniform2f(LAYER_OFFSET_NAMES[i], layerOffsets[i * 2], layerOffsets[i * 2 + 1]);
+        }
+
+        layerQuad.clear();
+        layerQuad.put(x).put(y).put(width).put(height).put(0.0f).put(1.0f).put(1.0f).put(0.0f).flip();
+        streamInstances(layerQuad);
+        state.drawArraysInstanced(GL11.GL_TRIANGLE_FAN, 0, 4, 1);
+    }
+
+    // Copia las instancias al anillo y apunta a ellas los atributos del VAO dinámico
+    private void streamInstances(FloatBuffer instances) {
+        long offset = stream.write(instances);
+        // Tras dibujar geometría estática hay que volver al VAO dinámico
+        state.bindVertexArray(vaoId);
+        state.bindBuffer(GL15.GL_ARRAY_BUFFER, stream.getBufferId());
+        setInstanceAttributes(offset);
+    }
+
+    private void bindProgramAndTexture(int shaderId, int textureId) {
+        // Sólo llegan a GL los cambios reales de programa o textura
+        boolean sprite = shaderId == SPRITE_SHADER || shaderId == shader.getProgramId();
+        state.useProgram(sprite ? shader.getProgramId() : shaderId);
+        state.bindTexture(GL11.GL_TEXTURE_2D, textureId);
+        if (sprite) {
+            // ShaderProgram no vuelve a subir el uniform si la cámara no se ha movido
+            shader.setUniform4f("viewTransform", viewTransform[0], viewTransform[1], viewTransform[2], viewTransform[3]);
+        }
+    }
+
+    @Override
+    public int createStaticInstances(FloatBuffer instances, int count) {
+        int handle = 0;
+        while (handle < staticVaos.length && staticVaos[handle] != 0) {
+            handle++;
+        }
+        if (handle == staticVaos.length) {
+            staticVaos = Arrays.copyOf(staticVaos, handle * 2);
+            staticVbos = Arrays.copyOf(staticVbos, handle * 2);
+            staticBytes = Arrays.copyOf(staticBytes, handle * 2);
+        }
+
+        int vao = GL30.glGenVertexArrays();
+        state.bindVertexArray(vao);
+        state.bindBuffer(GL15.GL_ARRAY_BUFFER, quadVboId);
+        GL20.glVertexAttribPointer(0, 2, GL11.GL_FLOAT, false, 0, 0);
+        GL20.glEnableVertexAttribArray(0);
+
+        int vbo = GL15.glGenBuffers();
+        state.bindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+        enableInstanceAttributes();
+
+        staticVaos[handle] = vao;
+        staticVbos[handle] = vbo;
+        staticBytes[handle] = -1;
+        updateStaticInstances(handle, instances, count);
+        return handle;
+    }
+
+    @Override
+    public void updateStaticInstances(int handle, FloatBuffer instances, int count) {
+        long bytes = (long) count * STRIDE;
+        state.bindBuffer(GL15.GL_ARRAY_BUFFER, staticVbos[handle]);
+        if (bytes > staticBytes[handle]) {
+            state.bufferData(GL15.GL_ARRAY_BUFFER, bytes, GL15.GL_STATIC_DRAW);
+            staticBytes[handle] = bytes;
+        }
+        state.bufferSubData(GL15.GL_ARRAY_BUFFER, 0, instances);
+    }
+
+    @Override
+    public void drawStaticInstances(int shaderId, int textureId, int handle, int count) {
+        bindProgramAndTexture(shaderId, textureId);
+        state.bindVertexArray(staticVaos[handle]);
+        state.drawArraysInstanced(GL11.GL_TRIANGLE_FAN, 0, 4, count);
+    }
+
+    @Override
+    public void deleteStaticInstances(int handle) {
+        // Desenlazar a través de la caché para que no recuerde un objeto borrado
+        state.bindVertexArray(0);
+        state.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        GL15.glDeleteBuffers(staticVbos[handle]);
+        GL30.glDeleteVertexArrays(staticVaos[handle]);
+        staticVaos[handle] = 0;
+        staticVbos[handle] = 0;
+        staticBytes[handle] = 0;
+    }
+
+    @Override
+    public void endFrame() {
+        // No hace falta desenlazar nada: el siguiente frame vuelve a fijar el estado que necesita
+        stream.endFrame();
+        state.endFrame();
+    }
+
+    public StreamingBuffer getStream() {
+        return stream;
+    }
+
+    @Override
+    public void cleanup() {
+        for (int handle = 0; handle < staticVaos.length; handle++) {
+            if (staticVaos[handle] != 0) {
+                deleteStaticInstances(handle);
+            }
+        }
+        GL15.glDeleteBuffers(quadVboId);
+        stream.cleanup();
+        GL30.glDeleteVertexArrays(vaoId);
+        // El programa es de la ShaderLibrary, que lo borra en su cleanup()
+    }
+}
@@ -0,0 +1,147 @@
+package org.printed.chat;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL41;
+import org.lwjgl.system.MemoryStack;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+public class GLShaderBackend implements ShaderBackend {
+
+    @Override
+    public int compileProgram(String name, String vertexSource, String fragmentSource) {
+        // Vertex Shader
+        int vertexShaderId = GL20.glCreateShader(GL20.GL_VERTEX_SHADER);
+        GL20.glShaderSource(vertexShaderId, vertexSource);
+        GL20.glCompileShader(vertexShaderId);
+
+        // Verificar errores de compilación
+        if (GL20.glGetShaderi(vertexShaderId, GL20.GL_COMPILE_STATUS) == 0) {
+            System.err.println("Error al compilar el Vertex Shader de " + name + ": " +
+                    GL20.glGetShaderInfoLog(vertexShaderId));
+            GL20.glDeleteShader(vertexShaderId);
+            return 0;
+        }
+
+        // Fragment Shader
+        int fragmentShaderId = GL20.glCreateShader(GL20.GL_FRAGMENT_SHADER);
+        GL20.glShaderSource(fragmentShaderId, fragmentSource);
+        GL20.glCompileShader(fragmentShaderId);
+
+        // Verificar errores de compilación
+        if (GL20.glGetShaderi(fragmentShaderId, GL20.GL_COMPILE_STATUS) == 0) {
+            System.err.println("Error al compilar el Fragment Shader de " + name + ": " +
+                    GL20.glGetShaderInfoLog(fragmentShaderId));
+            GL20.glDeleteShader(vertexShaderId);
+            GL20.glDeleteShader(fragmentShaderId);
+            return 0;
+        }
+
+        // Crear y enlazar el Shader Program
+        int programId = GL20.glCreateProgram();
+        GL20.glAttachShader(programId, vertexShaderId);
+        GL20.glAttachShader(programId, fragmentShaderId);
+        if (supportsProgramBinary()) {
+            // Pedir al driver que conserve el binario para poder guardarlo
+            GL41.glProgramParameteri(programId, GL41.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL11.GL_TRUE);
+        }
+        GL20.glLinkProgram(programId);
+
+        // Después de enlazar, podemos eliminar los shaders
+        GL20.glDeleteShader(vertexShaderId);
+        GL20.glDeleteShader(fragmentShaderId);
+
+        // Verificar errores de enlace
+        if (GL20.glGetProgrami(programId, GL20.GL_LINK_STATUS) == 0) {
+            System.err.println("Error al enlazar el Shader Program de " + name + ": " +
+                    GL20.glGetProgramInfoLog(programId));
+            GL20.glDeleteProgram(programId);
+            return 0;
+        }
+        return programId;
+    }
+
+    @Override
+    public String getDriverId() {
+        return GL11.glGetString(GL11.GL_RENDERER) + "|" + GL11.glGetString(GL11.GL_VERSION);
+    }
+
+    @Override
+    public boolean supportsProgramBinary() {
+        return GL11.glGetInteger(GL41.GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+    }
+
+    @Override
+    public ByteBuffer getProgramBinary(int programId) {
+        int length = GL20.glGetProgrami(programId, GL41.GL_PROGRAM_BINARY_LENGTH);
+        if (length <= 0) {
+            return null;
+        }
+        ByteBuffer binary = BufferUtils.createByteBuffer(length);
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer written = stack.mallocInt(1);
+            IntBuffer format = stack.mallocInt(1);
+            GL41.glGetProgramBinary(programId, written, format, binary);
+
+            ByteBuffer result = BufferUtils.createByteBuffer(4 + written.get(0));
+            result.putInt(format.get(0));
+            binary.limit(written.get(0));
+            result.put(binary).flip();
+            return result;
+        }
+    }
+
+    @Override
+    public int loadProgramBinary(ByteBuffer binary) {
+        int format = binary.getInt(binary.position());
+        ByteBuffer data = binary.duplicate();
+        data.position(binary.position() + 4);
+
+        int programId = GL20.glCreateProgram();
+        GL41.glProgramBinary(programId, format, data);
+        if (GL20.glGetProgrami(programId, GL20.GL_LINK_STATUS) == 0) {
+            // Binario de otro driver o corrupto: habrá que compilar desde el código fuente
+            GL20.glDeleteProgram(programId);
+            return 0;
+        }
+        return programId;
+    }
+
+    @Override
+    public int getUniformLocation(int programId, String name) {
+        return GL20.glGetUniformLocation(programId, name);
+    }
+
+    @Override
+    public void useProgram(int programId) {
+        GL20.glUseProgram(programId);
+    }
+
+    @Override
+    public void uniform1i(int location, int value) {
+        GL20.glUniform1i(location, value);
+    }
+
+    @Override
+    public void uniform1f(int location, float value) {
+        GL20.glUniform1f(location, value);
+    }
+
+    @Override
+    public void uniform2f(int location, float x, float y) {
+        GL20.glUniform2f(location, x, y);
+    }
+
+    @Override
+    public void uniform4f(int location, float x, float y, float z, float w) {
+        GL20.glUniform4f(location, x, y, z, w);
+    }
+
+    @Override
+    public void deleteProgram(int programId) {
+        GL20.glDeleteProgram(programId);
+    }
+}
\ No newline at end of file
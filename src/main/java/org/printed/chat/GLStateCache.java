@@ -0,0 +1,222 @@
+package org.printed.chat;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Capa fina delante de {@link GLDriver} que recuerda el estado actual (programa,
+ * VAO, buffer de vértices, unidad activa, texturas por unidad y blending) y
+ * descarta los cambios que no cambian nada. Cuenta las llamadas ahorradas.
+ * <p>
+ * Sólo conoce lo que pasa por ella: si otro código toca GL directamente hay
+ * que llamar a {@link #reset()}, o invalidar sólo lo que ha cambiado, antes de
+ * volver a usarla.
+ */
+public class GLStateCache implements GLDriver {
+
+    private static final int UNKNOWN = -1;
+    private static final int MAX_TEXTURE_UNITS = 16;
+
+    private final GLDriver driver;
+
+    private int program;
+    private int vertexArray;
+    private int arrayBuffer;
+    private int activeUnit;
+    private final int[] textures2D = new int[MAX_TEXTURE_UNITS];
+    private int blendEnabled;
+    private int blendSrc;
+    private int blendDst;
+
+    private int frameIssued = 0;
+    private int frameSaved = 0;
+    private int lastFrameIssued = 0;
+    private int lastFrameSaved = 0;
+    private long totalIssued = 0;
+    private long totalSaved = 0;
+
+    public GLStateCache(GLDriver driver) {
+        this.driver = driver;
+        reset();
+    }
+
+    // Olvida todo el estado conocido: la siguiente llamada de cada tipo se envía siempre
+    public void reset() {
+        program = UNKNOWN;
+        vertexArray = UNKNOWN;
+        arrayBuffer = UNKNOWN;
+        activeUnit = UNKNOWN;
+        Arrays.fill(textures2D, UNKNOWN);
+        blendEnabled = UNKNOWN;
+        blendSrc = UNKNOWN;
+        blendDst = UNKNOWN;
+    }
+
+    // Olvida sólo las texturas enlazadas, tras subir o borrar texturas fuera de la caché
+    public void invalidateTextures() {
+        Arrays.fill(textures2D, UNKNOWN);
+    }
+
+    // Olvida el programa en uso, tras recompilar o borrar programas fuera de la caché
+    public void invalidateProgram() {
+        program = UNKNOWN;
+    }
+
+    public void beginFrame() {
+        frameIssued = 0;
+        frameSaved = 0;
+    }
+
+    public void endFrame() {
+        lastFrameIssued = frameIssued;
+        lastFrameSaved = frameSaved;
+    }
+
+    private boolean skip(boolean redundant) {
+        if (redundant) {
+            frameSaved++;
+            totalSaved++;
+            return true;
+        }
+        frameIssued++;
+        totalIssued++;
+        return false;
+    }
+
+    @Override
+    public void useProgram(int programId) {
+        if (skip(program == programId)) {
+            return;
+        }
+        program = programId;
+        driver.useProgram(programId);
+    }
+
+    @Override
+    public void bindVertexArray(int vaoId) {
+        if (skip(vertexArray == vaoId)) {
+            return;
+        }
+        vertexArray = vaoId;
+        driver.bindVertexArray(vaoId);
+    }
+
+    @Override
+    public void bindBuffer(int target, int bufferId) {
+        if (target == GL15.GL_ARRAY_BUFFER) {
+            if (skip(arrayBuffer == bufferId)) {
+                return;
+            }
+            arrayBuffer = bufferId;
+        } else {
+            skip(false);
+        }
+        driver.bindBuffer(target, bufferId);
+    }
+
+    @Override
+    public void activeTexture(int unit) {
+        if (skip(activeUnit == unit)) {
+            return;
+        }
+        activeUnit = unit;
+        driver.activeTexture(unit);
+    }
+
+    @Override
+    public void bindTexture(int target, int textureId) {
+        int index = activeUnit - GL13.GL_TEXTURE0;
+        if (target == GL11.GL_TEXTURE_2D && index >= 0 && index < MAX_TEXTURE_UNITS) {
+            if (skip(textures2D[index] == textureId)) {
+                return;
+            }
+            textures2D[index] = textureId;
+        } else {
+            skip(false);
+        }
+        driver.bindTexture(target, textureId);
+    }
+
+    // Atajo para la unidad indicada (0, 1, ...)
+    public void bindTexture2D(int unitIndex, int textureId) {
+        activeTexture(GL13.GL_TEXTURE0 + unitIndex);
+        bindTexture(GL11.GL_TEXTURE_2D, textureId);
+    }
+
+    @Override
+    public void enable(int capability) {
+        if (capability == GL11.GL_BLEND) {
+            if (skip(blendEnabled == 1)) {
+                return;
+            }
+            blendEnabled = 1;
+        } else {
+            skip(false);
+        }
+        driver.enable(capability);
+    }
+
+    @Override
+    public void disable(int capability) {
+        if (capability == GL11.GL_BLEND) {
+            if (skip(blendEnabled == 0)) {
+                return;
+            }
+            blendEnabled = 0;
+        } else {
+            skip(false);
+        }
+        driver.disable(capability);
+    }
+
+    @Override
+    public void blendFunc(int sfactor, int dfactor) {
+        if (skip(blendSrc == sfactor && blendDst == dfactor)) {
+            return;
+        }
+        blendSrc = sfactor;
+        blendDst = dfactor;
+        driver.blendFunc(sfactor, dfactor);
+    }
+
+    // Las subidas de datos y los dibujos nunca son redundantes: se envían siempre
+    @Override
+    public void bufferData(int target, long size, int usage) {
+        driver.bufferData(target, size, usage);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, FloatBuffer data) {
+        driver.bufferSubData(target, offset, data);
+    }
+
+    @Override
+    public void drawArraysInstanced(int mode, int first, int count, int instances) {
+        driver.drawArraysInstanced(mode, first, count, instances);
+    }
+
+    public int getLastFrameIssued() {
+        return lastFrameIssued;
+    }
+
+    public int getLastFrameSaved() {
+        return lastFrameSaved;
+    }
+
+    public long getTotalIssued() {
+        return totalIssued;
+    }
+
+    public long getTotalSaved() {
+        return totalSaved;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cambios de estado enviados=%d ahorrados=%d", totalIssued, totalSaved);
+    }
+}
\ No newline at end of file
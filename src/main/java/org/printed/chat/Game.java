@@ -4,8 +4,15 @@ import org.lwjgl.glfw.GLFW;
 import org.lwjgl.glfw.GLFWErrorCallback;
 import org.lwjgl.opengl.GL;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GLCapabilities;
 import org.lwjgl.system.MemoryUtil;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 public class Game {
 
     private long window;
@@ -13,7 +20,64 @@ public class Game {
     private final int HEIGHT = 600;
     private final String TITLE = "Mi Juego 2D";
 
+    private static final int BATCH_CAPACITY = 4096;
+
+    // Simulación a 60 pasos por segundo; como mucho 5 pasos por frame para no entrar
+    // en la espiral de la muerte cuando un frame tarda demasiado
+    private static final float SIMULATION_STEP = 1.0f / 60.0f;
+    private static final int MAX_STEPS_PER_FRAME = 5;
+
+    // Tiempo máximo por frame dedicado a subir texturas a GL
+    private static final long TEXTURE_UPLOAD_BUDGET_NANOS = 2_000_000L;
+
+    // Memoria de vídeo máxima para texturas sin referencias antes de expulsarlas
+    private static final long TEXTURE_BUDGET_BYTES = 256L * 1024 * 1024;
+
+    // Hoja de animación del jugador: fila de arriba en reposo, fila de abajo andando
+    private static final String PLAYER_SHEET = "robot-sheet.png";
+    private static final int PLAYER_SHEET_COLUMNS = 4;
+    private static final int PLAYER_SHEET_ROWS = 2;
+
+    // Capas del fondo, de la más lejana a la más cercana
+    private static final String[] BACKGROUND_LAYERS = {"background-far.png", "background-mid.png", "background-near.png"};
+    private static final int GENERATED_BACKGROUND_SIZE = 256;
+
+    private static final int PARTICLE_CAPACITY = 2048;
+
+    private ShaderLibrary shaderLibrary;
+    private AsyncTextureLoader textureLoader;
+    private AssetBundle bundle;
+    private TextureHandle playerTexture;
     private Player player;
+    private Scene scene;
+    private ReplayRecorder recorder;
+    private final FixedTimestepLoop loop = new FixedTimestepLoop(SIMULATION_STEP, MAX_STEPS_PER_FRAME);
+    private GLStateCache glState;
+    private GLRenderBackend renderBackend;
+    private SpriteBatch spriteBatch;
+    private GLCapabilities capabilities;
+
+    // -Dgame.renderThread=false envía los comandos a GL desde el hilo del juego
+    private final boolean useRenderThread = Boolean.parseBoolean(System.getProperty("game.renderThread", "true"));
+    private RenderCommandQueue commandQueue;
+    private RenderThread renderThread;
+
+    // -Dgame.hotReload=true vigila texturas y shaders y los recarga al guardarlos
+    private final boolean useHotReload = Boolean.parseBoolean(System.getProperty("game.hotReload", "false"));
+    private AssetWatcher assetWatcher;
+    private HotReloader hotReloader;
+
+    // -Dgame.stats=true muestra las estadísticas de cada subsistema (sobre todo al cerrar)
+    private final boolean printStats = Boolean.getBoolean("game.stats");
+
+    // Perfilador: se activa con -Dgame.profile=true; F12 exporta la traza
+    private FrameProfiler profiler;
+    private int scopePoll;
+    private int scopeUploads;
+    private int scopeSimulate;
+    private int scopeRender;
+    private int scopeSubmit;
+    private int scopeSwap;
 
     public Game() {
         init();
@@ -43,15 +107,29 @@ public class Game {
             throw new RuntimeException("No se pudo crear la ventana GLFW");
         }
 
-        // Configurar callbacks de teclado
+        // Configurar callbacks de teclado y ratón
         GLFW.glfwSetKeyCallback(window, (window, key, scancode, action, mods) -> {
             if (key == GLFW.GLFW_KEY_ESCAPE && action == GLFW.GLFW_RELEASE) {
                 GLFW.glfwSetWindowShouldClose(window, true);
             }
 
-            // Manejar los controles del jugador
-            if (player != null) {
-                player.handleInput(window, key, action);
+            if (key == GLFW.GLFW_KEY_F12 && action == GLFW.GLFW_RELEASE) {
+                exportTrace();
+            }
+
+            // El resto se encola y la simulación lo lee en el siguiente paso
+            if (scene != null) {
+                scene.getInput().onKey(key, action);
+            }
+        });
+        GLFW.glfwSetMouseButtonCallback(window, (window, button, action, mods) -> {
+            if (scene != null) {
+                scene.getInput().onMouseButton(button, action);
+            }
+        });
+        GLFW.glfwSetCursorPosCallback(window, (window, x, y) -> {
+            if (scene != null) {
+                scene.getInput().onCursor(x, y);
             }
         });
 
@@ -75,47 +153,377 @@ public class Game {
         GLFW.glfwShowWindow(window);
 
         // Inicializar OpenGL
-        GL.createCapabilities();
+        capabilities = GL.createCapabilities();
 
         // Establecer el color de fondo
         GL11.glClearColor(0.2f, 0.3f, 0.3f, 1.0f);
 
+        // Las consultas de GPU del perfilador necesitan el contexto ya creado
+        createProfiler();
+
+        // Crear el batch de sprites compartido por todos los objetos
+        shaderLibrary = new ShaderLibrary(new GLShaderBackend(),
+                Paths.get(System.getProperty("user.dir"), "target", "shader-cache"));
+        glState = new GLStateCache(new LwjglGLDriver());
+        renderBackend = new GLRenderBackend(BATCH_CAPACITY, shaderLibrary, glState);
+        // El batch escribe comandos; se ordenan y se envían a GL al ejecutar el frame
+        commandQueue = new RenderCommandQueue(RenderCommandQueue.DEFAULT_BUFFERS, 1024, BATCH_CAPACITY);
+        spriteBatch = new SpriteBatch(new CommandRenderBackend(commandQueue, renderBackend.getDefaultShader()),
+                BATCH_CAPACITY);
+
+        // Decodificar texturas en segundo plano; se suben a GL dentro del bucle
+        textureLoader = new AsyncTextureLoader(new TextureDecodePipeline(new StbImageDecoder()),
+                new TextureCache(TEXTURE_BUDGET_BYTES));
+        openBundle();
+        startHotReload();
+
         // Inicializar el jugador
-        player = new Player();
+        scene = new Scene();
+        createPlayer();
+        createParticles();
+        scene.getCamera().follow(scene.getWorld(), player.getEntity());
+
+        // -Dgame.record=archivo graba la partida para reproducirla con --replay
+        String recordPath = System.getProperty("game.record");
+        if (recordPath != null) {
+            try {
+                recorder = new ReplayRecorder(Paths.get(recordPath));
+                recorder.begin(scene, SIMULATION_STEP);
+            } catch (IOException e) {
+                System.err.println("Error al empezar la grabación: " + e.getMessage());
+                recorder = null;
+            }
+        }
+        createBackground();
+        scene.publishSnapshot();
+    }
+
+    // Si hay un paquete generado con --pack, las texturas se sirven desde él
+    private void openBundle() {
+        Path bundlePath = TextureLoader.getAssetRoot().resolve(AssetBundle.DEFAULT_NAME);
+        if (!Files.exists(bundlePath)) {
+            return;
+        }
+        try {
+            bundle = AssetBundle.open(bundlePath);
+            textureLoader.setBundle(bundle);
+            printStat("Paquete", bundle);
+        } catch (IOException e) {
+            System.err.println("Error al abrir el paquete, se usan los archivos sueltos: " + e.getMessage());
+        }
+    }
+
+    private void createPlayer() {
+        if (!textureLoader.exists(PLAYER_SHEET)) {
+            playerTexture = textureLoader.load("robot.png");
+            player = scene.createPlayer(playerTexture);
+            return;
+        }
+        playerTexture = textureLoader.load(PLAYER_SHEET);
+        player = scene.createPlayer(playerTexture);
+        AnimationLibrary animations = scene.getAnimations();
+        int idle = animations.addGridClip("player-idle", PLAYER_SHEET_COLUMNS, PLAYER_SHEET_ROWS,
+                0, PLAYER_SHEET_COLUMNS, 0.25f, true);
+        int walk = animations.addGridClip("player-walk", PLAYER_SHEET_COLUMNS, PLAYER_SHEET_ROWS,
+                PLAYER_SHEET_COLUMNS, PLAYER_SHEET_COLUMNS, 0.1f, true);
+        player.setAnimator(animations.addAnimator(idle, walk, 0.01f));
+    }
+
+    // Una fuente de chispas blancas junto al origen, con la textura de reserva del cargador
+    private void createParticles() {
+        ParticleSystem sparks = new ParticleSystem(TextureHandle.ready("particle", textureLoader.getPlaceholderId()),
+                PARTICLE_CAPACITY);
+        sparks.setGravity(0.0f, -0.6f);
+        sparks.setDrag(0.3f);
+        sparks.setSize(0.015f, 0.0f);
+        sparks.addEmitter(new ParticleEmitter(0.5f, -0.4f, 150.0f)
+                .setDirection((float) (Math.PI / 2.0), 0.5f)
+                .setSpeed(0.3f, 0.7f)
+                .setLife(0.8f, 1.6f));
+        scene.addParticles(sparks);
+    }
+
+    // Con las capas del disco si están todas; si no, o si fallan, con capas generadas
+    private void createBackground() {
+        Background background = null;
+        boolean found = true;
+        for (String layer : BACKGROUND_LAYERS) {
+            found &= Files.exists(TextureLoader.resolvePath(layer));
+        }
+        if (found) {
+            try {
+                background = new Background(BACKGROUND_LAYERS);
+            } catch (IllegalStateException e) {
+                System.err.println(e.getMessage() + "; se usa un fondo generado");
+            }
+        }
+        if (background == null) {
+            background = Background.generate(BACKGROUND_LAYERS.length, GENERATED_BACKGROUND_SIZE);
+        }
+        for (int i = 0; i < BACKGROUND_LAYERS.length; i++) {
+            // Las capas cercanas se desplazan más deprisa y siguen más a la cámara
+            float depth = (i + 1.0f) / BACKGROUND_LAYERS.length;
+            background.setLayerSpeed(i, 0.02f * depth, 0.0f);
+            background.setLayerParallax(i, 0.5f * depth);
+        }
+        scene.setBackground(background);
     }
 
     public void start() {
+        startRenderThread();
         gameLoop();
+        stopRenderThread();
         cleanup();
     }
 
+    /**
+     * Exporta los shaders a shaders/ (sin pisar los editados) y empieza a vigilar
+     * la raíz de recursos, textures/ y shaders/. Los shaders ya editados en otra
+     * sesión entran en la cola desde el principio.
+     */
+    private void startHotReload() {
+        if (!useHotReload) {
+            return;
+        }
+        Path root = TextureLoader.getAssetRoot();
+        Path shaderDir = root.resolve("shaders");
+        shaderLibrary.exportSources(shaderDir);
+        hotReloader = new HotReloader(textureLoader.getPipeline(), shaderLibrary, TextureLoader::uploadTexture,
+                GL11::glDeleteTextures, textureLoader.getCache(), TextureLoader.getCache());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(shaderDir, "*.{vert,frag}")) {
+            // Aplicar lo editado antes de arrancar; lo recién exportado ya es lo que está compilado
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String current = shaderLibrary.getSource(fileName.substring(0, fileName.length() - 5),
+                        fileName.endsWith(".vert"));
+                if (!Files.readString(file).equals(current)) {
+                    hotReloader.onChanged(file, System.nanoTime());
+                }
+            }
+            assetWatcher = new AssetWatcher(hotReloader);
+            assetWatcher.watch(root);
+            assetWatcher.watch(root.resolve("textures"));
+            assetWatcher.watch(shaderDir);
+            assetWatcher.start();
+            printStat("Recarga en caliente", "vigilando " + root);
+        } catch (IOException e) {
+            System.err.println("Error al iniciar la recarga en caliente: " + e.getMessage());
+        }
+    }
+
+    // Con el contexto GL, antes de ejecutar cada frame
+    private void processAssets() {
+        boolean touched = textureLoader.processUploads(TEXTURE_UPLOAD_BUDGET_NANOS);
+        if (hotReloader != null) {
+            touched |= hotReloader.processReloads(TEXTURE_UPLOAD_BUDGET_NANOS);
+        }
+        // Subir, borrar y recompilar no pasa por glState: que no dé por buena una textura o programa viejo
+        if (touched) {
+            glState.invalidateTextures();
+            glState.invalidateProgram();
+        }
+    }
+
+    // El contexto GL sólo puede estar activo en un hilo: a partir de aquí es del de render
+    private void startRenderThread() {
+        if (!useRenderThread) {
+            return;
+        }
+        GLFW.glfwMakeContextCurrent(MemoryUtil.NULL);
+        renderThread = new RenderThread(commandQueue, renderBackend, new RenderThread.Hooks() {
+            @Override
+            public void attach() {
+                GLFW.glfwMakeContextCurrent(window);
+                GL.setCapabilities(capabilities);
+            }
+
+            @Override
+            public void beforeFrame() {
+                processAssets();
+                GL11.glClear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT);
+            }
+
+            @Override
+            public void afterFrame() {
+                GLFW.glfwSwapBuffers(window);
+            }
+
+            @Override
+            public void detach() {
+                GLFW.glfwMakeContextCurrent(MemoryUtil.NULL);
+            }
+        });
+        renderThread.start();
+    }
+
+    // Espera a que se envíen los frames pendientes y recupera el contexto para liberar los recursos
+    private void stopRenderThread() {
+        if (renderThread == null) {
+            return;
+        }
+        renderThread.stop();
+        GLFW.glfwMakeContextCurrent(window);
+        GL.setCapabilities(capabilities);
+        if (renderThread.getFailure() != null) {
+            System.err.println("El hilo de render terminó con error: " + renderThread.getFailure());
+        }
+    }
+
     private void gameLoop() {
+        long lastTime = System.nanoTime();
         while (!GLFW.glfwWindowShouldClose(window)) {
+            long now = System.nanoTime();
+            double frameSeconds = (now - lastTime) / 1_000_000_000.0;
+            lastTime = now;
+
+            profiler.beginFrame();
+
             // Manejar eventos
+            profiler.begin(scopePoll);
             GLFW.glfwPollEvents();
+            profiler.end();
+
+            // Subir las texturas que ya estén decodificadas (con hilo de render, lo hace él)
+            if (renderThread == null) {
+                profiler.begin(scopeUploads);
+                processAssets();
+                profiler.end();
+            }
+
+            // Avanzar la simulación en pasos fijos y pasar el resultado al render
+            profiler.begin(scopeSimulate);
+            if (loop.advance(frameSeconds, scene) > 0) {
+                scene.publishSnapshot();
+            }
+            profiler.end();
+
+            // Escribir los comandos del frame interpolando entre los dos últimos estados;
+            // espera si el hilo de render todavía no ha soltado un buffer
+            profiler.begin(scopeRender);
+            render(loop.getAlpha());
+            profiler.end();
 
-            // Renderizar
-            render();
+            if (renderThread == null) {
+                // Sin hilo de render, el frame se envía a GL aquí mismo
+                profiler.begin(scopeSubmit);
+                profiler.beginGpu(scopeSubmit);
+                submitFrame();
+                profiler.endGpu();
+                profiler.end();
 
-            // Actualizar la ventana
-            GLFW.glfwSwapBuffers(window);
+                // Actualizar la ventana
+                profiler.begin(scopeSwap);
+                GLFW.glfwSwapBuffers(window);
+                profiler.end();
+            } else if (!renderThread.isAlive()) {
+                System.err.println("El hilo de render se ha detenido: " + renderThread.getFailure());
+                break;
+            }
+
+            profiler.endFrame();
+        }
+    }
+
+    private void createProfiler() {
+        // Las consultas de GPU necesitan el contexto, que con hilo de render no está en este hilo
+        profiler = new FrameProfiler(1 << 16, 1024, useRenderThread ? null : new GLGpuTimer());
+        profiler.setEnabled(Boolean.getBoolean("game.profile"));
+        scopePoll = profiler.register("poll");
+        scopeUploads = profiler.register("uploads");
+        scopeSimulate = profiler.register("simulate");
+        scopeRender = profiler.register("render");
+        scopeSubmit = profiler.register("submit");
+        scopeSwap = profiler.register("swap");
+    }
+
+    private void exportTrace() {
+        if (!profiler.isEnabled()) {
+            System.err.println("El perfilador está desactivado (usa -Dgame.profile=true)");
+            return;
+        }
+        Path path = Paths.get(System.getProperty("user.dir"), "target", "trace-" + System.currentTimeMillis() + ".json");
+        try {
+            Files.createDirectories(path.getParent());
+            profiler.exportChromeTrace(path);
+            System.out.println("Traza guardada en " + path);
+        } catch (IOException e) {
+            System.err.println("Error al guardar la traza: " + e.getMessage());
         }
     }
 
-    private void render() {
-        // Limpiar la pantalla
+    private void render(float alpha) {
+        // Dibujar la escena: end() entrega los comandos a la cola
+        spriteBatch.begin();
+        scene.render(spriteBatch, alpha);
+        spriteBatch.end();
+    }
+
+    private void submitFrame() {
+        RenderCommandBuffer buffer = commandQueue.poll();
+        if (buffer == null) {
+            return;
+        }
         GL11.glClear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT);
+        commandQueue.execute(buffer, renderBackend);
+        commandQueue.release(buffer);
+    }
 
-        // Dibujar el jugador
-        player.render();
+    private void printStat(String label, Object value) {
+        if (printStats) {
+            System.out.println(label + ": " + value);
+        }
     }
 
     private void cleanup() {
+        if (assetWatcher != null) {
+            assetWatcher.close();
+        }
+        if (hotReloader != null) {
+            printStat("Recarga", hotReloader);
+            hotReloader.cleanup();
+        }
+        printStat("Sistemas", scene.getScheduler());
+        if (profiler.isEnabled()) {
+            System.out.println("Perfil: " + profiler);
+        }
+        profiler.cleanup();
+        printStat("Culling", scene.getCullStats());
+        printStat("Entrada", scene.getInput());
+        if (recorder != null) {
+            try {
+                recorder.close();
+                printStat("Grabación", recorder);
+            } catch (IOException e) {
+                System.err.println("Error al cerrar la grabación: " + e.getMessage());
+            }
+        }
+
         // Liberar el jugador
         player.cleanup();
+        if (scene.getBackground() != null) {
+            scene.getBackground().cleanup();
+        }
+        textureLoader.release(playerTexture);
+
+        // Liberar los buffers del batch y los shaders
+        printStat("Comandos", commandQueue + (renderThread != null ? " (hilo de render)" : ""));
+        printStat("Streaming", renderBackend.getStream());
+        renderBackend.cleanup();
+        printStat("Estado GL", glState);
+        printStat("Shaders", shaderLibrary);
+        shaderLibrary.cleanup();
 
         // Liberar las texturas (si usas la clase TextureLoader)
         TextureLoader.cleanup();
+        printStat("Texturas", textureLoader);
+        textureLoader.cleanup();
+        if (bundle != null) {
+            try {
+                bundle.close();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar el paquete: " + e.getMessage());
+            }
+        }
 
         // Destruir la ventana
         GLFW.glfwDestroyWindow(window);
@@ -0,0 +1,21 @@
+package org.printed.chat;
+
+/**
+ * Consultas de tiempo de GPU que usa {@link FrameProfiler}. Sólo puede haber
+ * una medición activa a la vez, como con GL_TIME_ELAPSED.
+ */
+public interface GpuTimer {
+
+    int createQuery();
+
+    void begin(int query);
+
+    void end();
+
+    // true cuando la GPU ya ha terminado y el resultado se puede leer sin esperar
+    boolean isResultAvailable(int query);
+
+    long getResultNanos(int query);
+
+    void deleteQuery(int query);
+}
\ No newline at end of file
@@ -0,0 +1,1196 @@
+package org.printed.chat;
+
+import org.lwjgl.glfw.GLFW;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Modos de ejecución sin ventana para medir el rendimiento en CI.
+ */
+public class HeadlessRunner {
+
+    private static final float SIMULATION_STEP = 1.0f / 60.0f;
+
+    public static boolean handles(String[] args) {
+        return args.length > 0 && args[0].startsWith("--");
+    }
+
+    public static void run(String[] args) {
+        switch (args[0]) {
+            case "--simulate":
+                simulate(intArg(args, 1, 1_000_000), intArg(args, 2, 0));
+                break;
+            case "--bench-entities":
+                benchEntities(intArg(args, 1, 100_000), intArg(args, 2, 1000));
+                break;
+            case "--bench-systems":
+                benchSystems(intArg(args, 1, 200_000), intArg(args, 2, 500));
+                break;
+            case "--bench-grid":
+                benchGrid(intArg(args, 1, 100_000));
+                break;
+            case "--cull":
+                cull(intArg(args, 1, 100_000), intArg(args, 2, 600));
+                break;
+            case "--tilemap":
+                tilemap(intArg(args, 1, 4096), intArg(args, 2, 600));
+                break;
+            case "--parallax":
+                parallax(intArg(args, 1, 4), intArg(args, 2, 120));
+                break;
+            case "--profile":
+                profile(intArg(args, 1, 300), intArg(args, 2, 1000), args.length > 3 ? Paths.get(args[3]) : null);
+                break;
+            case "--animate":
+                animate(intArg(args, 1, 100_000), intArg(args, 2, 600));
+                break;
+            case "--particles":
+                particles(intArg(args, 1, 1_000_000), intArg(args, 2, 600));
+                break;
+            case "--commands":
+                commands(intArg(args, 1, 20_000), intArg(args, 2, 600), !(args.length > 3 && args[3].equals("inline")));
+                break;
+            case "--record":
+                record(intArg(args, 1, 36_000), intArg(args, 2, 10_000), Paths.get(args.length > 3 ? args[3] : "replay.rply"));
+                break;
+            case "--replay":
+                replay(Paths.get(args[1]), args.length > 2 && args[2].equals("render"));
+                break;
+            case "--decode":
+                decode(args.length > 1 ? args[1] : "robot.png", intArg(args, 2, 64));
+                break;
+            case "--atlas":
+                atlas(intArg(args, 1, 10_000));
+                break;
+            case "--pack":
+                pack(args.length > 1 ? Paths.get(args[1]) : TextureLoader.getAssetRoot().resolve(AssetBundle.DEFAULT_NAME),
+                        args.length > 2 ? args[2] : "");
+                break;
+            case "--compress":
+                compress(args.length > 1 ? args[1] : "robot.png", intArg(args, 2, 5));
+                break;
+            case "--bundle":
+                bundle(args.length > 1 ? Paths.get(args[1]) : null, intArg(args, 2, 5));
+                break;
+            case "--render":
+                render(intArg(args, 1, 300), intArg(args, 2, 1000), args.length > 3 ? Paths.get(args[3]) : null);
+                break;
+            case "--hot-reload":
+                hotReload(intArg(args, 1, 24));
+                break;
+            case "--golden":
+                golden(Paths.get(args[1]), intArg(args, 2, 0));
+                break;
+            default:
+                throw new IllegalArgumentException("Modo desconocido: " + args[0]);
+        }
+    }
+
+    // Simula N pasos tan rápido como sea posible y muestra los pasos por segundo
+    static void simulate(int ticks, int entities) {
+        Scene scene = new Scene(entities + 1);
+        scene.createPlayer(TextureHandle.ready("robot.png", 0));
+        spawnEntities(scene, entities, 0);
+
+        // Mantener pulsada una tecla para que el jugador se mueva durante la prueba
+        scene.getInput().onKey(GLFW.GLFW_KEY_D, GLFW.GLFW_PRESS);
+
+        // Calentamiento para que el JIT compile el bucle antes de medir
+        FixedTimestepLoop.runHeadless(scene, SIMULATION_STEP, Math.min(ticks, 100_000));
+
+        long nanos = FixedTimestepLoop.runHeadless(scene, SIMULATION_STEP, ticks);
+        double seconds = nanos / 1_000_000_000.0;
+        System.out.printf("simulate: %d ticks con %d entidades en %.3f s (%.0f ticks/s)%n",
+                ticks, scene.getWorld().size(), seconds, ticks / seconds);
+    }
+
+    // N entidades animadas, la mitad quietas: coste por paso de AnimationSystem y del envío al batch
+    static void animate(int count, int ticks) {
+        Scene scene = new Scene(count);
+        AnimationLibrary animations = scene.getAnimations();
+        int idle = animations.addGridClip("idle", 8, 8, 0, 4, 0.25f, true);
+        int walk = animations.addGridClip("walk", 8, 8, 8, 8, 0.08f, true);
+        int animator = animations.addAnimator(idle, walk, 0.05f);
+        int sprite = scene.registerSprite(TextureHandle.ready("sheet.png", 1));
+
+        Random random = new Random(7);
+        EntityWorld world = scene.getWorld();
+        for (int i = 0; i < count; i++) {
+            int index = world.indexOf(world.create(random.nextFloat() * 2 - 1, random.nextFloat() * 2 - 1,
+                    0.02f, 0.02f, sprite));
+            if (i % 2 == 0) {
+                world.setVelocity(index, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+            }
+            world.setAnimator(index, animator);
+            // Desfasadas para que no cambien todas de frame en el mismo paso
+            AnimationSystem.advance(animations, world, random.nextFloat(), index, index + 1);
+            AnimationSystem.advance(animations, world, random.nextFloat(), index, index + 1);
+        }
+
+        for (int warmup = 0; warmup < 100; warmup++) {
+            AnimationSystem.advance(animations, world, SIMULATION_STEP, 0, world.size());
+        }
+        long start = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            AnimationSystem.advance(animations, world, SIMULATION_STEP, 0, world.size());
+        }
+        double advanceMillis = (System.nanoTime() - start) / 1_000_000.0 / ticks;
+
+        // Todo a la vista para medir también el envío de UVs por instancia
+        scene.getCamera().setViewSize(2.0f, 2.0f);
+        scene.update(SIMULATION_STEP);
+        scene.publishSnapshot();
+        SpriteBatch batch = new SpriteBatch(new RecordingRenderBackend(false), 4096);
+        int frames = Math.max(1, ticks / 10);
+        start = System.nanoTime();
+        for (int frame = 0; frame < frames; frame++) {
+            batch.begin();
+            scene.render(batch, 1.0f);
+            batch.end();
+        }
+        double renderMillis = (System.nanoTime() - start) / 1_000_000.0 / frames;
+
+        System.out.printf("animate: %d entidades, avanzar %.3f ms/paso (%.1f ns/entidad), enviar %.3f ms/frame; %s%n",
+                count, advanceMillis, advanceMillis * 1_000_000.0 / count, renderMillis, scene.getScheduler());
+    }
+
+    /**
+     * Graba "ticks" pasos con entrada aleatoria (semilla fija): el jugador cambia
+     * de dirección cada medio segundo más o menos, como alguien jugando.
+     */
+    static void record(int ticks, int entities, Path out) {
+        Scene scene = new Scene(entities + 1);
+        Player player = scene.createPlayer(TextureHandle.ready("robot.png", 0));
+        scene.getCamera().follow(scene.getWorld(), player.getEntity());
+        spawnEntities(scene, entities, 0);
+
+        int[] keys = {GLFW.GLFW_KEY_W, GLFW.GLFW_KEY_A, GLFW.GLFW_KEY_S, GLFW.GLFW_KEY_D};
+        Random random = new Random(13);
+        Input input = scene.getInput();
+        try (ReplayRecorder recorder = new ReplayRecorder(out)) {
+            recorder.begin(scene, SIMULATION_STEP);
+            for (int tick = 0; tick < ticks; tick++) {
+                if (random.nextInt(30) == 0) {
+                    int key = keys[random.nextInt(keys.length)];
+                    input.onKey(key, scene.getInput().getSnapshot().isKeyDown(key) ? GLFW.GLFW_RELEASE : GLFW.GLFW_PRESS);
+                }
+                if (random.nextInt(10) == 0) {
+                    input.onCursor(random.nextInt(800), random.nextInt(600));
+                }
+                scene.update(SIMULATION_STEP);
+            }
+            System.out.println("record: " + recorder);
+        } catch (IOException e) {
+            System.err.println("Error al grabar " + out + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // Reproduce una grabación lo más rápido posible; con "render" también envía cada paso al batch
+    static void replay(Path file, boolean render) {
+        ReplayPlayer player;
+        try {
+            player = new ReplayPlayer(file);
+        } catch (IOException e) {
+            System.err.println("Error al leer " + file + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Scene scene = player.getScene();
+        SpriteBatch batch = new SpriteBatch(new RecordingRenderBackend(false), 4096);
+
+        long start = System.nanoTime();
+        try {
+            while (player.step()) {
+                if (render) {
+                    scene.publishSnapshot();
+                    batch.begin();
+                    scene.render(batch, 1.0f);
+                    batch.end();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Grabación truncada en el paso " + player.getTicks() + ": " + e.getMessage());
+            System.exit(1);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("replay: %s; total %.3f s (%.0f pasos/s)%s%n", player, seconds,
+                player.getTicks() / seconds, render ? " " + batch.getStats() : "");
+        if (player.getMismatches() > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Entidades de prueba con posición y velocidad aleatorias (semilla fija para repetir resultados)
+    static void spawnEntities(Scene scene, int count, int spriteId) {
+        Random random = new Random(7);
+        EntityWorld world = scene.getWorld();
+        for (int i = 0; i < count; i++) {
+            long entity = world.create(random.nextFloat() * 2 - 1, random.nextFloat() * 2 - 1, 0.02f, 0.02f, spriteId);
+            world.setVelocity(world.indexOf(entity), random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+        }
+    }
+
+    // Entidad como objeto, tal y como estaba Player: referencia para comparar con EntityWorld
+    static final class ObjectEntity {
+        float x;
+        float y;
+        float previousX;
+        float previousY;
+        float velocityX;
+        float velocityY;
+        float width;
+        float height;
+        int sprite;
+
+        void update(float deltaTime) {
+            previousX = x;
+            previousY = y;
+            x += velocityX * deltaTime;
+            y += velocityY * deltaTime;
+        }
+    }
+
+    // Compara la actualización de movimiento de N entidades en SoA frente a un objeto por entidad
+    static void benchEntities(int count, int ticks) {
+        Scene scene = new Scene(count);
+        spawnEntities(scene, count, 0);
+        EntityWorld world = scene.getWorld();
+
+        // Los objetos se crean intercalados con basura para que no queden contiguos en el heap,
+        // como ocurre en un juego real
+        Random random = new Random(7);
+        ObjectEntity[] objects = new ObjectEntity[count];
+        List<float[]> garbage = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ObjectEntity entity = new ObjectEntity();
+            entity.x = random.nextFloat() * 2 - 1;
+            entity.y = random.nextFloat() * 2 - 1;
+            entity.velocityX = random.nextFloat() - 0.5f;
+            entity.velocityY = random.nextFloat() - 0.5f;
+            objects[i] = entity;
+            garbage.add(new float[random.nextInt(16)]);
+        }
+        garbage.clear();
+        Collections.shuffle(Arrays.asList(objects), random);
+
+        for (int warmup = 0; warmup < 3; warmup++) {
+            for (int t = 0; t < ticks; t++) {
+                MovementSystem.integrate(world, SIMULATION_STEP);
+                for (ObjectEntity entity : objects) {
+                    entity.update(SIMULATION_STEP);
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) {
+            MovementSystem.integrate(world, SIMULATION_STEP);
+        }
+        double soaMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) {
+            for (ObjectEntity entity : objects) {
+                entity.update(SIMULATION_STEP);
+            }
+        }
+        double objectMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        System.out.printf("entities: %d entidades x %d ticks: SoA %.2f ms, objetos %.2f ms (x%.2f)%n",
+                count, ticks, soaMillis, objectMillis, objectMillis / soaMillis);
+    }
+
+    // Repite la simulación con pools de 1..N hilos y muestra cómo escala con los núcleos
+    static void benchSystems(int count, int ticks) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        double baseline = 0.0;
+        for (int threads = 1; threads <= cores; threads = threads < cores ? Math.min(cores, threads * 2) : cores + 1) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                Scene scene = new Scene(count + 1, new SystemScheduler(pool, SystemScheduler.DEFAULT_CHUNK_SIZE));
+                scene.createPlayer(TextureHandle.ready("robot.png", 0));
+                spawnEntities(scene, count, 0);
+                scene.getInput().onKey(GLFW.GLFW_KEY_D, GLFW.GLFW_PRESS);
+
+                FixedTimestepLoop.runHeadless(scene, SIMULATION_STEP, ticks);
+                scene.getScheduler().resetStats();
+
+                long nanos = FixedTimestepLoop.runHeadless(scene, SIMULATION_STEP, ticks);
+                double ticksPerSecond = ticks / (nanos / 1_000_000_000.0);
+                if (threads == 1) {
+                    baseline = ticksPerSecond;
+                }
+                System.out.printf("systems: %d hilos, %d entidades: %.0f ticks/s (x%.2f) %s%n",
+                        threads, count, ticksPerSecond, ticksPerSecond / baseline, scene.getScheduler());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    // Compara las parejas solapadas de la rejilla con la fuerza bruta O(n²), de 1k entidades hasta "maxCount"
+    static void benchGrid(int maxCount) {
+        for (int count = 1000; count <= maxCount; count *= 10) {
+            // Densidad constante: el área crece con el número de entidades
+            float side = (float) Math.sqrt(count) * 0.05f;
+            Scene scene = new Scene(count);
+            Random random = new Random(7);
+            EntityWorld world = scene.getWorld();
+            for (int i = 0; i < count; i++) {
+                long entity = world.create(random.nextFloat() * side, random.nextFloat() * side,
+                        0.01f + random.nextFloat() * 0.02f, 0.01f + random.nextFloat() * 0.02f, 0);
+                world.setVelocity(world.indexOf(entity), random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+            }
+
+            SpatialHashGrid grid = new SpatialHashGrid(0.04f, count);
+            long start = System.nanoTime();
+            grid.update(world);
+            double insertMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+            MovementSystem.integrate(world, SIMULATION_STEP);
+            start = System.nanoTime();
+            grid.update(world);
+            double moveMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+            long[] checksum = new long[1];
+            for (int warmup = 0; warmup < 5; warmup++) {
+                grid.forEachPair((a, b) -> checksum[0] += a ^ b);
+            }
+            start = System.nanoTime();
+            int gridPairs = grid.forEachPair((a, b) -> checksum[0] += a ^ b);
+            double gridMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+            start = System.nanoTime();
+            int brutePairs = bruteForcePairs(world);
+            double bruteMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+            System.out.printf("grid: %d entidades, %d parejas (fuerza bruta %d): insertar %.2f ms, mover %.2f ms, "
+                            + "parejas %.2f ms, fuerza bruta %.2f ms (x%.1f) %s%n",
+                    count, gridPairs, brutePairs, insertMillis, moveMillis, gridMillis, bruteMillis,
+                    bruteMillis / gridMillis, grid);
+            if (gridPairs != brutePairs) {
+                System.exit(1);
+            }
+        }
+    }
+
+    private static int bruteForcePairs(EntityWorld world) {
+        int pairs = 0;
+        for (int a = 0, n = world.size(); a < n; a++) {
+            float ax = world.posX[a];
+            float ay = world.posY[a];
+            float aw = world.width[a] * 0.5f;
+            float ah = world.height[a] * 0.5f;
+            for (int b = a + 1; b < n; b++) {
+                float bw = world.width[b] * 0.5f;
+                float bh = world.height[b] * 0.5f;
+                if (ax - aw <= world.posX[b] + bw && ax + aw >= world.posX[b] - bw
+                        && ay - ah <= world.posY[b] + bh && ay + ah >= world.posY[b] - bh) {
+                    pairs++;
+                }
+            }
+        }
+        return pairs;
+    }
+
+    // Nivel mucho mayor que la pantalla con la cámara siguiendo al jugador: mide el coste por frame del culling
+    static void cull(int count, int frames) {
+        RecordingRenderBackend backend = new RecordingRenderBackend();
+        SpriteBatch batch = new SpriteBatch(backend, 4096);
+        Scene scene = new Scene(count + 1);
+        Player player = scene.createPlayer(TextureHandle.ready("robot.png", 1));
+        scene.getCamera().follow(scene.getWorld(), player.getEntity());
+        scene.getInput().onKey(GLFW.GLFW_KEY_D, GLFW.GLFW_PRESS);
+
+        // Entidades repartidas en un cuadrado de 40x40 unidades; la cámara ve 2x2
+        Random random = new Random(7);
+        EntityWorld world = scene.getWorld();
+        for (int i = 0; i < count; i++) {
+            long entity = world.create(random.nextFloat() * 40 - 20, random.nextFloat() * 40 - 20, 0.05f, 0.05f, 0);
+            world.setVelocity(world.indexOf(entity), random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+        }
+
+        long renderNanos = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            scene.update(SIMULATION_STEP);
+            scene.publishSnapshot();
+            long start = System.nanoTime();
+            batch.begin();
+            scene.render(batch, 0.5f);
+            batch.end();
+            renderNanos += System.nanoTime() - start;
+            backend.clear();
+        }
+        System.out.printf("cull: %d entidades, %d frames, render %.3f ms/frame, %s%n",
+                count, frames, renderNanos / 1_000_000.0 / frames, scene.getCullStats());
+    }
+
+    // Genera un mapa de N x N tiles, lo abre proyectado en memoria y lo recorre con la cámara
+    static void tilemap(int side, int frames) {
+        try {
+            Path file = Files.createTempFile("tilemap", ".bin");
+            try {
+                TileMap generated = TileMap.create(side, side, 32, 0.1f);
+                Random random = new Random(7);
+                for (int y = 0; y < side; y++) {
+                    for (int x = 0; x < side; x++) {
+                        // Suelo con huecos: un tercio de los tiles vacíos
+                        generated.setTile(x, y, random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(16));
+                    }
+                }
+                generated.save(file);
+
+                long start = System.nanoTime();
+                TileMap map = TileMap.open(file);
+                double openMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+                RecordingRenderBackend backend = new RecordingRenderBackend();
+                SpriteBatch batch = new SpriteBatch(backend, 4096);
+                TileMapRenderer renderer = new TileMapRenderer(map, TileSet.grid(1, 4, 4), backend);
+
+                // La cámara (2x2 unidades) cruza el mapa en diagonal
+                float mapSize = side * map.getTileSize();
+                long frameNanos = 0;
+                for (int frame = 0; frame < frames; frame++) {
+                    float center = 1.0f + (mapSize - 2.0f) * frame / Math.max(1, frames - 1);
+                    start = System.nanoTime();
+                    batch.begin();
+                    renderer.render(batch, center - 1.0f, center - 1.0f, center + 1.0f, center + 1.0f);
+                    batch.end();
+                    frameNanos += System.nanoTime() - start;
+                    backend.clear();
+                }
+                long rebuildsBefore = renderer.getRebuilds();
+                int tileX = (int) ((mapSize - 1.0f) / map.getTileSize());
+                map.setTile(tileX, tileX, 5);
+                batch.begin();
+                renderer.render(batch, mapSize - 2.0f, mapSize - 2.0f, mapSize, mapSize);
+                batch.end();
+
+                System.out.printf("tilemap: %dx%d tiles (%.1f MB en disco), abrir %.2f ms, %.3f ms/frame, "
+                                + "%d tiles/frame, %d reconstrucciones tras editar un tile, %d buffers estáticos vivos, %s%n",
+                        side, side, Files.size(file) / (1024.0 * 1024.0), openMillis, frameNanos / 1_000_000.0 / frames,
+                        renderer.getLastFrameTiles(), renderer.getRebuilds() - rebuildsBefore,
+                        backend.getLiveStaticBuffers(), renderer);
+                renderer.cleanup();
+                map.close();
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            System.err.println("Error en la prueba del tilemap: " + e.getMessage());
+        }
+    }
+
+    // Fondo de N capas: una pasada por capa frente a una sola pasada que las mezcla; mide fps y overdraw
+    static void parallax(int layers, int frames) {
+        SoftwareRenderBackend backend = new SoftwareRenderBackend(RENDER_WIDTH, RENDER_HEIGHT);
+        SpriteBatch batch = new SpriteBatch(backend, 16);
+        int[] textures = new int[layers];
+        for (int i = 0; i < layers; i++) {
+            // La capa 0 es opaca; las demás tienen huecos transparentes
+            int alpha = i == 0 ? 255 : 0;
+            textures[i] = backend.createCheckerTexture(64,
+                    SoftwareRenderBackend.rgba(40 + 40 * i, 80, 160 - 30 * i, 255), SoftwareRenderBackend.rgba(20, 30, 40, alpha));
+        }
+        Background background = new Background(backend.createTextureArray(textures), layers);
+        for (int i = 0; i < layers; i++) {
+            background.setLayerSpeed(i, 0.02f * (i + 1), i % 2 == 0 ? 0.0f : 0.01f * i);
+        }
+
+        float[] offsets = new float[layers * 2];
+        long start = System.nanoTime();
+        double multiOverdraw = 0.0;
+        for (int frame = 0; frame < frames; frame++) {
+            background.update(SIMULATION_STEP);
+            batch.begin();
+            for (int i = 0; i < layers; i++) {
+                float u = background.getLayerOffsetX(i);
+                float v = background.getLayerOffsetY(i);
+                batch.draw(textures[i], 0.0f, 0.0f, 2.0f, 2.0f, u, 1.0f + v, 1.0f + u, v);
+                offsets[i * 2] = u;
+                offsets[i * 2 + 1] = v;
+            }
+            batch.end();
+            multiOverdraw += backend.getLastFrameOverdraw();
+        }
+        double multiSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        int multiPixel = backend.getPixel(RENDER_WIDTH / 3, RENDER_HEIGHT / 3);
+
+        start = System.nanoTime();
+        double singleOverdraw = 0.0;
+        for (int frame = 0; frame < frames; frame++) {
+            batch.begin();
+            backend.drawLayers(0, layers, offsets, 0.0f, 0.0f, 2.0f, 2.0f);
+            batch.end();
+            singleOverdraw += backend.getLastFrameOverdraw();
+        }
+        double singleSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        int singlePixel = backend.getPixel(RENDER_WIDTH / 3, RENDER_HEIGHT / 3);
+
+        System.out.printf("parallax: %d capas, %d frames: una pasada por capa %.1f fps (overdraw %.2f), "
+                        + "una sola pasada %.1f fps (overdraw %.2f), píxel de control %08x / %08x%n",
+                layers, frames, frames / multiSeconds, multiOverdraw / frames, frames / singleSeconds,
+                singleOverdraw / frames, multiPixel, singlePixel);
+    }
+
+    // Decodifica la misma imagen N veces en el pool de hilos y mide el rendimiento
+    static void decode(String fileName, int count) {
+        TextureDecodePipeline pipeline = new TextureDecodePipeline(new StbImageDecoder());
+        Path path = TextureLoader.resolvePath(fileName);
+
+        List<CompletableFuture<DecodedImage>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            futures.add(pipeline.submit(fileName, path));
+        }
+        for (CompletableFuture<DecodedImage> future : futures) {
+            future.join().free();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        pipeline.shutdown();
+
+        System.out.printf("decode: %d imágenes en %.3f s (%.1f imágenes/s) %s%n",
+                count, seconds, count / seconds, pipeline);
+    }
+
+    // Empaqueta N rectángulos aleatorios y, si existe la carpeta de texturas, mide la caché en frío y en caliente
+    static void atlas(int count) {
+        Random random = new Random(42);
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+        for (int i = 0; i < count; i++) {
+            widths[i] = 8 + random.nextInt(120);
+            heights[i] = 8 + random.nextInt(120);
+        }
+
+        AtlasBuilder builder = new AtlasBuilder(2048, 2048, 1);
+        for (int i = 0; i < 5; i++) {
+            builder.packOnly(widths, heights);
+        }
+        long start = System.nanoTime();
+        int pages = builder.packOnly(widths, heights);
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+        System.out.printf("atlas: %d rectángulos en %d páginas, %.2f ms%n", count, pages, millis);
+
+        Path textures = TextureLoader.resolvePath("");
+        if (!Files.isDirectory(textures)) {
+            return;
+        }
+        try {
+            Path cacheFile = Files.createTempFile("atlas", ".bin");
+            Files.delete(cacheFile);
+            AtlasCache cache = new AtlasCache(new StbImageDecoder(), 2048, 2048, 1);
+
+            start = System.nanoTime();
+            TextureAtlas cold = cache.loadOrBuild(textures, cacheFile);
+            double coldMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+            start = System.nanoTime();
+            cache.loadOrBuild(textures, cacheFile);
+            double warmMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+            System.out.printf("atlas cache: %d imágenes, frío %.2f ms, caliente %.2f ms (hit=%b)%n",
+                    cold.getRegions().size(), coldMillis, warmMillis, cache.wasLastLoadHit());
+            Files.deleteIfExists(cacheFile);
+        } catch (IOException e) {
+            System.err.println("Error al construir el atlas: " + e.getMessage());
+        }
+    }
+
+    // Genera el paquete de recursos; "mode" es "mips", "bc1", "bc3", "bc" (BC1/BC3 según el alfa) o nada
+    static void pack(Path out, String mode) {
+        int format;
+        switch (mode) {
+            case "bc1":
+                format = BlockCompressor.BC1;
+                break;
+            case "bc3":
+                format = BlockCompressor.BC3;
+                break;
+            case "bc":
+                format = AssetPacker.AUTO;
+                break;
+            default:
+                format = BlockCompressor.RGBA;
+        }
+        AssetPacker packer = new AssetPacker(new StbImageDecoder(), mode.equals("mips"), format);
+        long start = System.nanoTime();
+        try {
+            packer.pack(TextureLoader.getAssetRoot(), out);
+        } catch (IOException e) {
+            System.err.println("Error al empaquetar: " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.printf("pack: %s en %s, %.2f ms%n", packer, out, (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    /**
+     * Compara el arranque de las dos rutas hasta tener los píxeles listos para
+     * glTexImage2D: leer y decodificar cada PNG suelto frente a mapear el
+     * paquete y recorrer sus niveles (como haría la subida). Sin paquete se
+     * genera uno temporal. Ambas rutas leen archivos que ya están en la caché de
+     * páginas del SO, así que la primera ronda mide sobre todo CPU y reservas.
+     */
+    static void bundle(Path file, int rounds) {
+        try {
+            Path bundlePath = file;
+            if (bundlePath == null) {
+                bundlePath = Files.createTempFile("assets", ".bundle");
+                new AssetPacker(new StbImageDecoder(), false).pack(TextureLoader.getAssetRoot(), bundlePath);
+            }
+            List<String> names;
+            try (AssetBundle probe = AssetBundle.open(bundlePath)) {
+                names = new ArrayList<>(probe.getTextureNames());
+            }
+            Collections.sort(names);
+
+            StbImageDecoder decoder = new StbImageDecoder();
+            double firstFiles = 0;
+            double bestFiles = Double.MAX_VALUE;
+            long decodedBytes = 0;
+            for (int round = 0; round < rounds; round++) {
+                List<DecodedImage> images = new ArrayList<>();
+                long start = System.nanoTime();
+                for (String name : names) {
+                    ByteBuffer encoded = TextureDecodePipeline.readFile(TextureLoader.resolvePath(name));
+                    try {
+                        images.add(decoder.decode(name, encoded));
+                    } finally {
+                        MemoryUtil.memFree(encoded);
+                    }
+                }
+                double millis = (System.nanoTime() - start) / 1_000_000.0;
+                firstFiles = round == 0 ? millis : firstFiles;
+                bestFiles = Math.min(bestFiles, millis);
+                decodedBytes = 0;
+                for (DecodedImage image : images) {
+                    decodedBytes += image.getByteSize();
+                    image.free();
+                }
+            }
+
+            double firstBundle = 0;
+            double bestBundle = Double.MAX_VALUE;
+            long mappedBytes = 0;
+            long checksum = 0;
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                try (AssetBundle bundle = AssetBundle.open(bundlePath)) {
+                    for (String name : names) {
+                        AssetBundle.Texture texture = bundle.getTexture(name);
+                        for (int level = 0; level < texture.getLevelCount(); level++) {
+                            ByteBuffer pixels = texture.getLevel(level);
+                            for (int i = 0; i + 8 <= pixels.limit(); i += 8) {
+                                checksum += pixels.getLong(i);
+                            }
+                        }
+                    }
+                    mappedBytes = bundle.getMappedBytes();
+                }
+                double millis = (System.nanoTime() - start) / 1_000_000.0;
+                firstBundle = round == 0 ? millis : firstBundle;
+                bestBundle = Math.min(bestBundle, millis);
+            }
+            if (file == null) {
+                Files.deleteIfExists(bundlePath);
+            }
+
+            System.out.printf("bundle: %d texturas; archivos sueltos %.2f ms (mejor %.2f ms), %.1f MB decodificados "
+                            + "en memoria propia; paquete %.2f ms (mejor %.2f ms), %.1f MB mapeados en la caché de "
+                            + "páginas, 0 MB propios (suma %x)%n",
+                    names.size(), firstFiles, bestFiles, decodedBytes / (1024.0 * 1024.0), firstBundle, bestBundle,
+                    mappedBytes / (1024.0 * 1024.0), checksum);
+        } catch (IOException e) {
+            System.err.println("Error en la prueba del paquete: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Comprime la imagen con su cadena de mipmaps en BC1 y BC3 y muestra la
+     * velocidad (mejor de N rondas), la calidad (PSNR del nivel 0 frente al
+     * original, sólo color en BC1) y el ahorro frente a RGBA.
+     */
+    static void compress(String fileName, int rounds) {
+        DecodedImage image;
+        try {
+            ByteBuffer encoded = TextureDecodePipeline.readFile(TextureLoader.resolvePath(fileName));
+            try {
+                image = new StbImageDecoder().decode(fileName, encoded);
+            } finally {
+                MemoryUtil.memFree(encoded);
+            }
+        } catch (IOException e) {
+            System.err.println("Error al leer la imagen: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        // Cadena de mipmaps en RGBA, como la prepara AssetPacker
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int levels = AssetPacker.levelCount(width, height);
+        ByteBuffer[] chain = new ByteBuffer[levels];
+        chain[0] = image.getPixels();
+        long rgbaBytes = (long) width * height * 4;
+        for (int i = 1; i < levels; i++) {
+            chain[i] = AssetPacker.downsample(chain[i - 1], Math.max(1, width >> (i - 1)),
+                    Math.max(1, height >> (i - 1)));
+            rgbaBytes += (long) Math.max(1, width >> i) * Math.max(1, height >> i) * 4;
+        }
+
+        BlockCompressor compressor = new BlockCompressor();
+        for (int format : new int[] {BlockCompressor.BC1, BlockCompressor.BC3}) {
+            ByteBuffer[] blocks = new ByteBuffer[levels];
+            long compressedBytes = 0;
+            for (int i = 0; i < levels; i++) {
+                blocks[i] = ByteBuffer.allocate(BlockCompressor.levelBytes(format, Math.max(1, width >> i),
+                        Math.max(1, height >> i)));
+                compressedBytes += blocks[i].capacity();
+            }
+
+            double best = Double.MAX_VALUE;
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < levels; i++) {
+                    blocks[i].clear();
+                    compressor.encode(format, chain[i], Math.max(1, width >> i), Math.max(1, height >> i), blocks[i]);
+                }
+                best = Math.min(best, (System.nanoTime() - start) / 1_000_000.0);
+            }
+
+            ByteBuffer decoded = ByteBuffer.allocate(width * height * 4);
+            BlockCompressor.decode(format, blocks[0].flip(), width, height, decoded);
+            boolean withAlpha = format == BlockCompressor.BC3;
+            double psnr = BlockCompressor.psnr(image.getPixels(), decoded, width, height, withAlpha);
+
+            System.out.printf("compress: %s %dx%d, %d niveles en %.2f ms (%.1f Mpx/s), PSNR %.2f dB%s, "
+                            + "%.2f MB -> %.2f MB (%.1f%% de RGBA)%n",
+                    withAlpha ? "BC3" : "BC1", width, height, levels, best, rgbaBytes / 4 / best / 1000.0, psnr,
+                    withAlpha ? "" : " (RGB)", rgbaBytes / (1024.0 * 1024.0), compressedBytes / (1024.0 * 1024.0),
+                    100.0 * compressedBytes / rgbaBytes);
+        }
+        image.free();
+    }
+
+    /**
+     * Mantiene un pool de N partículas lleno (el emisor repone las que mueren) y
+     * mide el paso de actualización; después mide la preparación de instancias
+     * para el render contra un backend que sólo registra las llamadas.
+     */
+    static void particles(int count, int ticks) {
+        ParticleSystem system = new ParticleSystem(TextureHandle.ready("particle", 1), count);
+        system.setGravity(0.0f, -0.5f);
+        system.setDrag(0.2f);
+        system.setSize(0.02f, 0.0f);
+        // Vida media de 2 s: a count / 2 por segundo se repone lo que muere
+        ParticleEmitter emitter = system.addEmitter(new ParticleEmitter(0.0f, 0.0f, count / 2.0f)
+                .setLife(1.0f, 3.0f).setSpeed(0.1f, 1.0f));
+        system.burst(emitter, count);
+        for (int i = 0; i < 120; i++) {
+            system.update(SIMULATION_STEP);
+        }
+
+        long particleSteps = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            system.update(SIMULATION_STEP);
+            particleSteps += system.size();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        RecordingRenderBackend backend = new RecordingRenderBackend();
+        SpriteBatch batch = new SpriteBatch(backend, 65_536);
+        int frames = Math.min(ticks, 120);
+        long calls = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            batch.begin();
+            system.render(batch, 0.5f, 0.0f, 0.0f, 100.0f, 100.0f);
+            batch.end();
+            calls += backend.getCalls().size();
+            backend.clear();
+        }
+        double renderMillis = (System.nanoTime() - start) / 1_000_000.0 / frames;
+
+        System.out.printf("particles: %d vivas de media, %d pasos, %.3f ms/paso (%.1f M partículas/s); "
+                        + "render %.3f ms/frame en %d llamadas; %s%n",
+                particleSteps / ticks, ticks, seconds * 1000.0 / ticks, particleSteps / seconds / 1_000_000.0,
+                renderMillis, calls / frames, system);
+    }
+
+    /**
+     * Escribe N sprites por frame con texturas mezcladas en tres capas (la de
+     * delante primero) a través de la cola de comandos, y los ejecuta sobre un
+     * backend que sólo registra, en un hilo de render o en el mismo hilo
+     * ("inline"). Comprueba que las capas llegan en orden y que no se pierde
+     * ninguna instancia.
+     */
+    static void commands(int sprites, int frames, boolean threaded) {
+        final int layers = 3;
+        final int texturesPerLayer = 8;
+        Random random = new Random(7);
+        float[] x = new float[sprites];
+        float[] y = new float[sprites];
+        int[] texture = new int[sprites];
+        for (int i = 0; i < sprites; i++) {
+            x[i] = random.nextFloat() * 2.0f - 1.0f;
+            y[i] = random.nextFloat() * 2.0f - 1.0f;
+            texture[i] = random.nextInt(texturesPerLayer);
+        }
+
+        RenderCommandQueue queue = new RenderCommandQueue(RenderCommandQueue.DEFAULT_BUFFERS, 1024, 4096);
+        SpriteBatch batch = new SpriteBatch(new CommandRenderBackend(queue, RecordingRenderBackend.DEFAULT_SHADER), 4096);
+        RecordingRenderBackend target = new RecordingRenderBackend();
+        long[] executed = new long[2];
+        boolean[] ordered = {true};
+        // Las texturas de la capa L son L * 100 + k, así que el orden de capas se ve en las llamadas
+        RenderThread.Hooks hooks = new RenderThread.Hooks() {
+            @Override
+            public void afterFrame() {
+                int lastLayer = -1;
+                for (RecordingRenderBackend.DrawCall call : target.getCalls()) {
+                    ordered[0] &= call.textureId / 100 >= lastLayer;
+                    lastLayer = call.textureId / 100;
+                    executed[0]++;
+                    executed[1] += call.instanceCount;
+                }
+                target.clear();
+            }
+        };
+        RenderThread renderThread = threaded ? new RenderThread(queue, target, hooks) : null;
+        if (renderThread != null) {
+            renderThread.start();
+        }
+
+        float[] identity = {1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1};
+        long encodeNanos = 0;
+        long start = System.nanoTime();
+        for (int frame = 0; frame < frames; frame++) {
+            long encodeStart = System.nanoTime();
+            batch.begin();
+            batch.setViewProjection(identity);
+            for (int layer = layers - 1; layer >= 0; layer--) {
+                batch.setLayer(layer);
+                for (int i = layer; i < sprites; i += layers) {
+                    batch.draw(layer * 100 + texture[i], x[i], y[i], 0.02f, 0.02f);
+                }
+            }
+            batch.end();
+            encodeNanos += System.nanoTime() - encodeStart;
+
+            if (renderThread == null) {
+                RenderCommandBuffer buffer = queue.poll();
+                queue.execute(buffer, target);
+                hooks.afterFrame();
+                queue.release(buffer);
+            }
+        }
+        if (renderThread != null) {
+            renderThread.stop();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("commands: %d sprites, %d frames a %.1f fps (%s); escritura %.3f ms/frame, "
+                        + "%d llamadas/frame; capas en orden=%b, instancias completas=%b; %s%n",
+                sprites, frames, frames / seconds, threaded ? "hilo de render" : "mismo hilo",
+                encodeNanos / 1_000_000.0 / frames, executed[0] / frames, ordered[0],
+                executed[1] == (long) sprites * frames, queue);
+    }
+
+    /**
+     * Recarga en caliente sin GL: copia robot.png y los shaders a un directorio
+     * temporal, los reescribe uno a uno mientras simula frames a 60 fps y mide
+     * desde la escritura hasta que el frame usa el recurso nuevo. Uno de cada
+     * cuatro cambios de shader lleva un #error y debe conservar el programa anterior.
+     */
+    static void hotReload(int changes) {
+        Path robot = TextureLoader.resolvePath("robot.png");
+        if (!Files.exists(robot)) {
+            System.err.println("hot-reload: no se encuentra " + robot);
+            return;
+        }
+        Path root = null;
+        try {
+            root = Files.createTempDirectory("hot-reload");
+            Path textures = Files.createDirectories(root.resolve("textures"));
+            Path shaderDir = root.resolve("shaders");
+            byte[] png = Files.readAllBytes(robot);
+            Files.write(textures.resolve("robot.png"), png);
+
+            ShaderLibrary shaders = new ShaderLibrary(new RecordingShaderBackend(false), null);
+            ShaderProgram sprite = shaders.get("sprite", GLRenderBackend.VERTEX_SHADER, GLRenderBackend.FRAGMENT_SHADER);
+            shaders.exportSources(shaderDir);
+
+            // IDs de textura ficticios: la caché sólo necesita que sean distintos
+            TextureCache cache = new TextureCache(64L * 1024 * 1024);
+            TextureHandle handle = cache.putIfAbsent("robot.png", new TextureHandle("robot.png", 0));
+            cache.setResident("robot.png", 1, 1, 1, true);
+            int[] nextTextureId = {2};
+            List<Integer> deleted = new ArrayList<>();
+
+            TextureDecodePipeline pipeline = new TextureDecodePipeline(new StbImageDecoder(), 1);
+            HotReloader reloader = new HotReloader(pipeline, shaders, image -> nextTextureId[0]++, deleted::add, cache);
+            long frameNanos = 16_666_667L;
+            long[] latencies = new long[changes];
+            boolean correct = true;
+            int textureChanges = 0;
+            int brokenShaders = 0;
+            int timeouts = 0;
+
+            try (AssetWatcher watcher = new AssetWatcher(reloader)) {
+                watcher.watch(textures);
+                watcher.watch(shaderDir);
+                watcher.start();
+                String fragment = Files.readString(shaderDir.resolve("sprite.frag"));
+
+                for (int change = 0; change < changes; change++) {
+                    boolean texture = change % 2 == 0;
+                    boolean broken = !texture && change % 8 == 7;
+                    int before = reloader.getTextureReloads() + reloader.getShaderReloads() + reloader.getFailedShaders();
+                    int programBefore = sprite.getProgramId();
+                    int textureBefore = handle.getTextureId();
+
+                    long written = System.nanoTime();
+                    if (texture) {
+                        Files.write(textures.resolve("robot.png"), png);
+                        textureChanges++;
+                    } else {
+                        String edited = (broken ? "#error cambio " : "// cambio ") + change + "\n";
+                        Files.writeString(shaderDir.resolve("sprite.frag"),
+                                fragment.replaceFirst("\n", "\n" + edited));
+                        brokenShaders += broken ? 1 : 0;
+                    }
+
+                    // Frames a 60 fps hasta que se aplique el cambio, como mucho 2 s
+                    long deadline = written + 2_000_000_000L;
+                    while (reloader.getTextureReloads() + reloader.getShaderReloads()
+                            + reloader.getFailedShaders() == before) {
+                        long frameStart = System.nanoTime();
+                        if (frameStart > deadline) {
+                            timeouts++;
+                            break;
+                        }
+                        reloader.processReloads(2_000_000L);
+                        long sleep = frameNanos - (System.nanoTime() - frameStart);
+                        if (sleep > 0) {
+                            Thread.sleep(sleep / 1_000_000L, (int) (sleep % 1_000_000L));
+                        }
+                    }
+                    latencies[change] = System.nanoTime() - written;
+
+                    if (broken) {
+                        correct &= sprite.getProgramId() == programBefore;
+                    } else if (!texture) {
+                        correct &= sprite.getProgramId() != programBefore;
+                    } else {
+                        correct &= handle.getTextureId() != textureBefore;
+                    }
+                }
+                // Dejar pasar los frames que aún podían usar las texturas viejas
+                for (int frame = 0; frame < HotReloader.RETIRE_FRAMES; frame++) {
+                    reloader.processReloads(2_000_000L);
+                }
+            }
+            reloader.cleanup();
+            pipeline.shutdown();
+
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            System.out.printf("hot-reload: %d cambios (%d texturas, %d shaders, %d con error), sin aplicar=%d; "
+                            + "escritura->frame p50=%.1f ms máx=%.1f ms; recurso correcto tras cada cambio=%b, "
+                            + "texturas viejas borradas=%d/%d; %s; shaders: %s%n",
+                    changes, textureChanges, changes - textureChanges, brokenShaders, timeouts,
+                    sorted[sorted.length / 2] / 1_000_000.0, sorted[sorted.length - 1] / 1_000_000.0,
+                    correct, deleted.size(), reloader.getTextureReloads(), reloader, shaders);
+        } catch (IOException e) {
+            System.err.println("hot-reload: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            deleteTree(root);
+        }
+    }
+
+    private static void deleteTree(Path root) {
+        if (root == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Collections.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("No se pudo borrar " + root + ": " + e.getMessage());
+        }
+    }
+
+    // Escena de prueba para el backend por software: fondo que se desplaza, jugador y una rejilla de sprites
+    private static final int RENDER_WIDTH = 800;
+    private static final int RENDER_HEIGHT = 600;
+
+    private static Scene createSoftwareScene(SoftwareRenderBackend backend) {
+        int playerTexture = backend.createCheckerTexture(32,
+                SoftwareRenderBackend.rgba(230, 80, 60, 255), SoftwareRenderBackend.rgba(0, 0, 0, 0));
+        Path robot = TextureLoader.resolvePath("robot.png");
+        if (Files.exists(robot)) {
+            try {
+                ByteBuffer encoded = TextureDecodePipeline.readFile(robot);
+                try {
+                    DecodedImage image = new StbImageDecoder().decode("robot.png", encoded);
+                    playerTexture = backend.createTexture(image);
+                    image.free();
+                } finally {
+                    MemoryUtil.memFree(encoded);
+                }
+            } catch (IOException e) {
+                System.err.println("Usando textura de prueba para el jugador: " + e.getMessage());
+            }
+        }
+
+        Scene scene = new Scene();
+        scene.createPlayer(TextureHandle.ready("robot.png", playerTexture));
+        scene.getInput().onKey(GLFW.GLFW_KEY_D, GLFW.GLFW_PRESS);
+
+        Background background = new Background(backend.createTextureArray(backend.createCheckerTexture(64,
+                SoftwareRenderBackend.rgba(40, 60, 90, 255), SoftwareRenderBackend.rgba(60, 90, 120, 255))), 1);
+        background.setScrollSpeed(0.1f);
+        scene.setBackground(background);
+        return scene;
+    }
+
+    private static void drawFrame(SpriteBatch batch, Scene scene, int spriteTexture, int sprites) {
+        batch.begin();
+        scene.render(batch, 1.0f);
+        int columns = (int) Math.ceil(Math.sqrt(sprites));
+        for (int i = 0; i < sprites; i++) {
+            float x = -0.95f + 1.9f * (i % columns) / columns;
+            float y = 0.95f - 1.9f * (i / columns) / columns;
+            batch.draw(spriteTexture, x, y, 0.04f, 0.04f);
+        }
+        batch.end();
+    }
+
+    // Dibuja N frames con el rasterizador por software y muestra los frames por segundo
+    static void render(int frames, int sprites, Path outDir) {
+        SoftwareRenderBackend backend = new SoftwareRenderBackend(RENDER_WIDTH, RENDER_HEIGHT);
+        SpriteBatch batch = new SpriteBatch(backend, 4096);
+        Scene scene = createSoftwareScene(backend);
+        int spriteTexture = backend.createCheckerTexture(16,
+                SoftwareRenderBackend.rgba(250, 220, 80, 200), SoftwareRenderBackend.rgba(80, 200, 250, 120));
+
+        try {
+            if (outDir != null) {
+                Files.createDirectories(outDir);
+            }
+            long start = System.nanoTime();
+            for (int frame = 0; frame < frames; frame++) {
+                scene.update(SIMULATION_STEP);
+                scene.publishSnapshot();
+                drawFrame(batch, scene, spriteTexture, sprites);
+                if (outDir != null) {
+                    backend.writePng(outDir.resolve(String.format("frame-%05d.png", frame)));
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            System.out.printf("render: %d frames con %d sprites en %.3f s (%.1f fps) %s %s%n",
+                    frames, sprites, seconds, frames / seconds, batch.getStats(), scene.getCullStats());
+        } catch (IOException e) {
+            System.err.println("Error al crear la carpeta de salida: " + e.getMessage());
+        }
+    }
+
+    // Como --render pero con el perfilador activo; opcionalmente exporta la traza de Chrome
+    static void profile(int frames, int sprites, Path trace) {
+        SoftwareRenderBackend backend = new SoftwareRenderBackend(RENDER_WIDTH, RENDER_HEIGHT);
+        SpriteBatch batch = new SpriteBatch(backend, 4096);
+        Scene scene = createSoftwareScene(backend);
+        int spriteTexture = backend.createCheckerTexture(16,
+                SoftwareRenderBackend.rgba(250, 220, 80, 200), SoftwareRenderBackend.rgba(80, 200, 250, 120));
+
+        FrameProfiler profiler = new FrameProfiler(1 << 16, 1024, null);
+        int simulate = profiler.register("simulate");
+        int publish = profiler.register("publish");
+        int draw = profiler.register("render");
+        profiler.setEnabled(true);
+
+        for (int frame = 0; frame < frames; frame++) {
+            profiler.beginFrame();
+            profiler.begin(simulate);
+            scene.update(SIMULATION_STEP);
+            profiler.begin(publish);
+            scene.publishSnapshot();
+            profiler.end();
+            profiler.end();
+            profiler.begin(draw);
+            drawFrame(batch, scene, spriteTexture, sprites);
+            profiler.end();
+            profiler.endFrame();
+        }
+        System.out.println("profile: " + profiler);
+
+        if (trace != null) {
+            try {
+                profiler.exportChromeTrace(trace);
+                System.out.println("profile: traza guardada en " + trace);
+            } catch (IOException e) {
+                System.err.println("Error al guardar la traza: " + e.getMessage());
+            }
+        }
+    }
+
+    // Dibuja un frame fijo y lo compara con la imagen de referencia; si no existe, la crea
+    static void golden(Path goldenPng, int tolerance) {
+        SoftwareRenderBackend backend = new SoftwareRenderBackend(RENDER_WIDTH, RENDER_HEIGHT);
+        SpriteBatch batch = new SpriteBatch(backend, 4096);
+        Scene scene = createSoftwareScene(backend);
+        int spriteTexture = backend.createCheckerTexture(16,
+                SoftwareRenderBackend.rgba(250, 220, 80, 200), SoftwareRenderBackend.rgba(80, 200, 250, 120));
+        for (int i = 0; i < 60; i++) {
+            scene.update(SIMULATION_STEP);
+        }
+        scene.publishSnapshot();
+        drawFrame(batch, scene, spriteTexture, 100);
+
+        if (!Files.exists(goldenPng)) {
+            backend.writePng(goldenPng);
+            System.out.println("golden: creada la imagen de referencia " + goldenPng);
+            return;
+        }
+        try {
+            ByteBuffer encoded = TextureDecodePipeline.readFile(goldenPng);
+            int differences;
+            try {
+                DecodedImage golden = new StbImageDecoder().decode(goldenPng.toString(), encoded);
+                differences = backend.countDifferences(golden, tolerance);
+                golden.free();
+            } finally {
+                MemoryUtil.memFree(encoded);
+            }
+            System.out.printf("golden: %d píxeles distintos (tolerancia %d)%n", differences, tolerance);
+            if (differences > 0) {
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.err.println("Error al leer la imagen de referencia: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,297 @@
+package org.printed.chat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Recarga en caliente de texturas y shaders a partir de los avisos de
+ * {@link AssetWatcher}. Sólo se recarga lo que ha cambiado y ya está en uso:
+ * una textura que está en alguna caché o un programa conocido por la
+ * {@link ShaderLibrary}.
+ * <p>
+ * Leer y decodificar ocurre fuera del hilo de render (en el vigilante y en el
+ * pool de decodificación); en el hilo de render, {@link #processReloads} sólo
+ * sube la textura o compila, con presupuesto por frame como las subidas
+ * normales, y cambia el objeto GL detrás del mismo {@link TextureHandle} o
+ * {@link ShaderProgram}. Las texturas viejas se borran unos frames después,
+ * cuando ningún buffer de comandos en vuelo puede usarlas ya.
+ */
+public class HotReloader implements AssetWatcher.Listener {
+
+    // Frames que puede tardar en ejecutarse un comando ya grabado: todos los buffers de la cola más el actual
+    public static final int RETIRE_FRAMES = RenderCommandQueue.DEFAULT_BUFFERS + 1;
+
+    private static final class Reload {
+        final String name;
+        final long detectedNanos;
+        // Textura: imagen decodificada y caché donde vive; shader: fuentes (null = sin cambios)
+        final DecodedImage image;
+        final TextureCache cache;
+        final String vertexSource;
+        final String fragmentSource;
+
+        Reload(String name, long detectedNanos, DecodedImage image, TextureCache cache,
+               String vertexSource, String fragmentSource) {
+            this.name = name;
+            this.detectedNanos = detectedNanos;
+            this.image = image;
+            this.cache = cache;
+            this.vertexSource = vertexSource;
+            this.fragmentSource = fragmentSource;
+        }
+    }
+
+    private final TextureDecodePipeline pipeline;
+    private final ShaderLibrary shaders;
+    private final ToIntFunction<DecodedImage> uploader;
+    private final IntConsumer deleter;
+    private final TextureCache[] caches;
+
+    private final ConcurrentLinkedQueue<Reload> pending = new ConcurrentLinkedQueue<>();
+    // Tras cleanup() las imágenes que aún lleguen del pool se liberan en vez de encolarse
+    private volatile boolean closed = false;
+
+    // Texturas sustituidas pendientes de borrar, con el frame a partir del que se pueden borrar
+    private final ArrayDeque<long[]> retired = new ArrayDeque<>();
+    private long frame = 0;
+
+    private final AtomicInteger failedDecodes = new AtomicInteger();
+    private int textureReloads = 0;
+    private int shaderReloads = 0;
+    private int failedShaders = 0;
+    private int unchanged = 0;
+    private int ignored = 0;
+    private long lastLatencyNanos = 0;
+    private long maxLatencyNanos = 0;
+    private long totalLatencyNanos = 0;
+    private long lastFrameNanos = 0;
+    private long maxFrameNanos = 0;
+
+    /**
+     * uploader crea la textura GL (TextureLoader::uploadTexture) y deleter la
+     * borra; ambos se llaman sólo desde {@link #processReloads}. Una textura se
+     * recarga en la primera caché de "caches" que la contenga.
+     */
+    public HotReloader(TextureDecodePipeline pipeline, ShaderLibrary shaders, ToIntFunction<DecodedImage> uploader,
+                       IntConsumer deleter, TextureCache... caches) {
+        this.pipeline = pipeline;
+        this.shaders = shaders;
+        this.uploader = uploader;
+        this.deleter = deleter;
+        this.caches = caches;
+    }
+
+    // Hilo del vigilante: clasifica el fichero y prepara la recarga sin tocar GL
+    @Override
+    public void onChanged(Path path, long detectedNanos) {
+        String fileName = path.getFileName().toString();
+        String lower = fileName.toLowerCase();
+        if (lower.endsWith(".vert") || lower.endsWith(".frag")) {
+            String source;
+            try {
+                source = Files.readString(path);
+            } catch (IOException e) {
+                System.err.println("Error al leer el shader " + path + ": " + e.getMessage());
+                return;
+            }
+            String program = fileName.substring(0, fileName.length() - 5);
+            boolean vertex = lower.endsWith(".vert");
+            pending.add(new Reload(program, detectedNanos, null, null,
+                    vertex ? source : null, vertex ? null : source));
+        } else if (lower.endsWith(".png")) {
+            TextureCache cache = findCache(fileName);
+            if (cache == null) {
+                // Nadie la usa: se cargará del disco cuando haga falta
+                return;
+            }
+            pipeline.submit(fileName, path).whenComplete((image, error) -> {
+                if (error != null) {
+                    // Un fichero a medio escribir llegará otra vez con el siguiente evento
+                    failedDecodes.incrementAndGet();
+                    System.err.println("Error al recargar la textura " + fileName + ": " + error.getMessage());
+                } else if (closed) {
+                    image.free();
+                } else {
+                    pending.add(new Reload(fileName, detectedNanos, image, cache, null, null));
+                    if (closed) {
+                        // cleanup() pudo vaciar la cola justo antes de añadirla
+                        freePending();
+                    }
+                }
+            });
+        }
+    }
+
+    private TextureCache findCache(String name) {
+        for (TextureCache cache : caches) {
+            if (cache.contains(name)) {
+                return cache;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Aplica las recargas listas hasta agotar el presupuesto (al menos una) y
+     * borra las texturas retiradas que ya no puede usar ningún frame. Debe
+     * llamarse una vez por frame desde el hilo con el contexto GL, antes de
+     * ejecutar los comandos del frame. Devuelve true si ha tocado texturas o
+     * programas en GL.
+     */
+    public boolean processReloads(long budgetNanos) {
+        frame++;
+        boolean touched = false;
+        while (!retired.isEmpty() && retired.peek()[1] <= frame) {
+            deleter.accept((int) retired.poll()[0]);
+            touched = true;
+        }
+        if (pending.isEmpty()) {
+            lastFrameNanos = 0;
+            return touched;
+        }
+
+        long start = System.nanoTime();
+        int applied = 0;
+        Reload reload;
+        while ((applied == 0 || System.nanoTime() - start < budgetNanos) && (reload = pending.poll()) != null) {
+            if (reload.image != null) {
+                applyTexture(reload);
+            } else {
+                applyShader(reload);
+            }
+            applied++;
+        }
+        long end = System.nanoTime();
+        lastFrameNanos = end - start;
+        maxFrameNanos = Math.max(maxFrameNanos, lastFrameNanos);
+        return true;
+    }
+
+    private void applyTexture(Reload reload) {
+        DecodedImage image = reload.image;
+        int oldTextureId;
+        try {
+            int textureId = uploader.applyAsInt(image);
+            oldTextureId = reload.cache.replaceTexture(reload.name, textureId,
+                    TextureCache.textureBytes(image.getWidth(), image.getHeight(), true));
+        } finally {
+            image.free();
+        }
+        if (oldTextureId == 0) {
+            // Expulsada o aún sin subir mientras se decodificaba
+            ignored++;
+            return;
+        }
+        retired.add(new long[]{oldTextureId, frame + RETIRE_FRAMES});
+        textureReloads++;
+        recordLatency(reload);
+    }
+
+    private void applyShader(Reload reload) {
+        // El programa no se usa hasta que se ejecutan comandos, así que se puede borrar el viejo ya
+        switch (shaders.reload(reload.name, reload.vertexSource, reload.fragmentSource)) {
+            case ShaderLibrary.RELOADED:
+                shaderReloads++;
+                recordLatency(reload);
+                break;
+            case ShaderLibrary.UNCHANGED:
+                // Guardado sin cambios, o un segundo aviso del mismo cambio
+                unchanged++;
+                break;
+            case ShaderLibrary.FAILED:
+                failedShaders++;
+                break;
+            default:
+                ignored++;
+                break;
+        }
+    }
+
+    private void recordLatency(Reload reload) {
+        lastLatencyNanos = System.nanoTime() - reload.detectedNanos;
+        maxLatencyNanos = Math.max(maxLatencyNanos, lastLatencyNanos);
+        totalLatencyNanos += lastLatencyNanos;
+    }
+
+    public int getTextureReloads() {
+        return textureReloads;
+    }
+
+    public int getShaderReloads() {
+        return shaderReloads;
+    }
+
+    public int getFailedShaders() {
+        return failedShaders;
+    }
+
+    public int getFailedDecodes() {
+        return failedDecodes.get();
+    }
+
+    // Shaders que llegaron con las mismas fuentes que ya estaban compiladas
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public int getIgnored() {
+        return ignored;
+    }
+
+    public int getRetiredTextures() {
+        return retired.size();
+    }
+
+    public long getLastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    public double getAverageLatencyMillis() {
+        int reloads = textureReloads + shaderReloads;
+        return reloads == 0 ? 0.0 : totalLatencyNanos / (reloads * 1_000_000.0);
+    }
+
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    public long getMaxFrameNanos() {
+        return maxFrameNanos;
+    }
+
+    // Libera lo pendiente y borra ya las texturas retiradas; con el contexto GL, al cerrar
+    public void cleanup() {
+        closed = true;
+        freePending();
+        while (!retired.isEmpty()) {
+            deleter.accept((int) retired.poll()[0]);
+        }
+    }
+
+    private void freePending() {
+        Reload reload;
+        while ((reload = pending.poll()) != null) {
+            if (reload.image != null) {
+                reload.image.free();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("recargas texturas=%d shaders=%d, fallidas=%d (shaders) %d (imágenes), sin cambios=%d, "
+                        + "ignoradas=%d, latencia media=%.1f ms máx=%.1f ms, coste máx/frame=%.2f ms",
+                textureReloads, shaderReloads, failedShaders, failedDecodes.get(), unchanged, ignored,
+                getAverageLatencyMillis(), maxLatencyNanos / 1_000_000.0, maxFrameNanos / 1_000_000.0);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,13 @@
+package org.printed.chat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodifica una imagen comprimida (PNG, JPG...) a RGBA. Las implementaciones
+ * deben poder llamarse desde varios hilos a la vez y no usar GL.
+ */
+public interface ImageDecoder {
+
+    DecodedImage decode(String name, ByteBuffer encoded) throws IOException;
+}
\ No newline at end of file
@@ -0,0 +1,175 @@
+package org.printed.chat;
+
+import org.lwjgl.glfw.GLFW;
+
+import java.util.Arrays;
+
+/**
+ * Subsistema de entrada. Los callbacks de GLFW sólo encolan eventos en un
+ * {@link InputQueue}; al principio de cada paso de simulación {@link #tick()}
+ * los aplica y deja un {@link InputSnapshot} consistente para todo el paso, así
+ * que el juego no depende del ritmo de eventos ni de la repetición de teclas
+ * del sistema operativo.
+ */
+public class Input implements InputQueue.EventConsumer {
+
+    private final InputQueue queue;
+    private final InputActions actions = new InputActions();
+    private final InputSnapshot snapshot = new InputSnapshot();
+
+    // Estado acumulado por los eventos desde el último tick()
+    private final long[] held = new long[InputSnapshot.KEY_WORDS];
+    private final long[] pressed = new long[InputSnapshot.KEY_WORDS];
+    private final long[] released = new long[InputSnapshot.KEY_WORDS];
+    private int buttonsHeld;
+    private int buttonsPressed;
+    private int buttonsReleased;
+    private float mouseX;
+    private float mouseY;
+
+    // Recibe cada evento aplicado, por ejemplo para grabarlo (ver ReplayRecorder)
+    private InputQueue.EventConsumer listener;
+
+    private long ticks = 0;
+    private long events = 0;
+
+    public Input() {
+        this(1024);
+    }
+
+    public Input(int queueCapacity) {
+        this.queue = new InputQueue(queueCapacity);
+    }
+
+    // Callbacks de GLFW: sólo encolan, no tocan el estado del juego
+
+    public void onKey(int key, int action) {
+        // Las repeticiones no aportan nada: la tecla ya consta como mantenida
+        if (action == GLFW.GLFW_REPEAT || key < 0 || key >= InputSnapshot.KEY_COUNT) {
+            return;
+        }
+        queue.offer(InputQueue.KEY, key, action, 0.0f, 0.0f);
+    }
+
+    public void onMouseButton(int button, int action) {
+        if (button < 0 || button >= InputSnapshot.BUTTON_COUNT) {
+            return;
+        }
+        queue.offer(InputQueue.MOUSE_BUTTON, button, action, 0.0f, 0.0f);
+    }
+
+    public void onCursor(double x, double y) {
+        queue.offer(InputQueue.CURSOR, 0, 0, (float) x, (float) y);
+    }
+
+    /**
+     * Aplica los eventos pendientes y actualiza la foto del paso. Los flancos
+     * (pulsado/soltado) sólo aparecen en el primer paso tras el evento.
+     */
+    public InputSnapshot tick() {
+        events += queue.drain(this);
+
+        System.arraycopy(held, 0, snapshot.keysHeld, 0, held.length);
+        System.arraycopy(pressed, 0, snapshot.keysPressed, 0, pressed.length);
+        System.arraycopy(released, 0, snapshot.keysReleased, 0, released.length);
+        snapshot.buttonsHeld = buttonsHeld;
+        snapshot.buttonsPressed = buttonsPressed;
+        snapshot.buttonsReleased = buttonsReleased;
+        snapshot.mouseX = mouseX;
+        snapshot.mouseY = mouseY;
+
+        // Una acción se pulsa si alguna de sus teclas se pulsó y se suelta si ya no queda ninguna mantenida
+        int previousActions = snapshot.actionsHeld;
+        snapshot.actionsHeld = actions.resolve(held, buttonsHeld);
+        snapshot.actionsPressed = actions.resolve(pressed, buttonsPressed);
+        snapshot.actionsReleased = previousActions & ~snapshot.actionsHeld
+                | actions.resolve(released, buttonsReleased) & ~snapshot.actionsHeld;
+
+        Arrays.fill(pressed, 0L);
+        Arrays.fill(released, 0L);
+        buttonsPressed = 0;
+        buttonsReleased = 0;
+        ticks++;
+        return snapshot;
+    }
+
+    // Aplica un evento ya desencolado; lo llama drain() desde tick()
+    @Override
+    public void accept(int type, int code, int action, float x, float y) {
+        if (listener != null) {
+            listener.accept(type, code, action, x, y);
+        }
+        boolean down = action == GLFW.GLFW_PRESS;
+        switch (type) {
+            case InputQueue.KEY: {
+                long bit = 1L << code;
+                int word = code >>> 6;
+                if (down) {
+                    held[word] |= bit;
+                    pressed[word] |= bit;
+                } else {
+                    held[word] &= ~bit;
+                    released[word] |= bit;
+                }
+                break;
+            }
+            case InputQueue.MOUSE_BUTTON: {
+                int bit = 1 << code;
+                if (down) {
+                    buttonsHeld |= bit;
+                    buttonsPressed |= bit;
+                } else {
+                    buttonsHeld &= ~bit;
+                    buttonsReleased |= bit;
+                }
+                break;
+            }
+            case InputQueue.CURSOR:
+                mouseX = x;
+                mouseY = y;
+                break;
+        }
+    }
+
+    // Olvida teclas mantenidas y eventos pendientes (por ejemplo, al perder el foco)
+    public void reset() {
+        queue.drain((type, code, action, x, y) -> {
+        });
+        Arrays.fill(held, 0L);
+        Arrays.fill(pressed, 0L);
+        Arrays.fill(released, 0L);
+        buttonsHeld = 0;
+        buttonsPressed = 0;
+        buttonsReleased = 0;
+        snapshot.clear();
+    }
+
+    public void setListener(InputQueue.EventConsumer listener) {
+        this.listener = listener;
+    }
+
+    public InputSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public InputActions getActions() {
+        return actions;
+    }
+
+    public InputQueue getQueue() {
+        return queue;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ticks=%d eventos=%d descartados=%d", ticks, events, queue.getDropped());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package org.printed.chat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Asignación de teclas y botones del ratón a acciones de juego. Cada acción es
+ * un bit (como mucho 32) y una tecla puede disparar varias acciones.
+ */
+public class InputActions {
+
+    public static final int MAX_ACTIONS = 32;
+
+    private final int[] keyActions = new int[InputSnapshot.KEY_COUNT];
+    private final int[] buttonActions = new int[InputSnapshot.BUTTON_COUNT];
+    private final List<String> names = new ArrayList<>();
+
+    // Crea una acción nueva y devuelve su número
+    public int define(String name) {
+        if (names.size() == MAX_ACTIONS) {
+            throw new IllegalStateException("Demasiadas acciones, el máximo es " + MAX_ACTIONS + ": " + name);
+        }
+        names.add(name);
+        return names.size() - 1;
+    }
+
+    public void bindKey(int action, int key) {
+        checkAction(action);
+        if (key < 0 || key >= keyActions.length) {
+            throw new IllegalArgumentException("Tecla fuera de rango: " + key);
+        }
+        keyActions[key] |= 1 << action;
+    }
+
+    public void bindMouseButton(int action, int button) {
+        checkAction(action);
+        if (button < 0 || button >= buttonActions.length) {
+            throw new IllegalArgumentException("Botón fuera de rango: " + button);
+        }
+        buttonActions[button] |= 1 << action;
+    }
+
+    // Quita todas las teclas y botones de la acción
+    public void unbind(int action) {
+        checkAction(action);
+        int keep = ~(1 << action);
+        for (int i = 0; i < keyActions.length; i++) {
+            keyActions[i] &= keep;
+        }
+        for (int i = 0; i < buttonActions.length; i++) {
+            buttonActions[i] &= keep;
+        }
+    }
+
+    private void checkAction(int action) {
+        if (action < 0 || action >= names.size()) {
+            throw new IllegalArgumentException("Acción no definida: " + action);
+        }
+    }
+
+    // Acciones activas para un conjunto de teclas (bits) y de botones
+    int resolve(long[] keys, int buttons) {
+        int result = 0;
+        for (int word = 0; word < keys.length; word++) {
+            long bits = keys[word];
+            while (bits != 0) {
+                result |= keyActions[(word << 6) + Long.numberOfTrailingZeros(bits)];
+                bits &= bits - 1;
+            }
+        }
+        while (buttons != 0) {
+            result |= buttonActions[Integer.numberOfTrailingZeros(buttons)];
+            buttons &= buttons - 1;
+        }
+        return result;
+    }
+
+    public String getName(int action) {
+        return names.get(action);
+    }
+
+    public int size() {
+        return names.size();
+    }
+}
\ No newline at end of file
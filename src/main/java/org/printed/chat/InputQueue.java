@@ -0,0 +1,86 @@
+package org.printed.chat;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola circular de tamaño fijo para eventos de entrada, sin bloqueos y sin
+ * objetos por evento: cada campo vive en su propio array. Es de un solo
+ * productor (los callbacks de GLFW) y un solo consumidor (la simulación).
+ * Si se llena, los eventos nuevos se descartan y se cuentan.
+ */
+public class InputQueue {
+
+    public interface EventConsumer {
+        void accept(int type, int code, int action, float x, float y);
+    }
+
+    public static final int KEY = 1;
+    public static final int MOUSE_BUTTON = 2;
+    public static final int CURSOR = 3;
+
+    private final int mask;
+    private final int[] types;
+    private final int[] codes;
+    private final int[] actions;
+    private final float[] xs;
+    private final float[] ys;
+
+    // Índices crecientes; el slot es índice & mask. Cada uno sólo lo escribe un hilo
+    private final AtomicLong writeIndex = new AtomicLong();
+    private final AtomicLong readIndex = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public InputQueue(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("La capacidad de la cola debe ser potencia de dos: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.types = new int[capacity];
+        this.codes = new int[capacity];
+        this.actions = new int[capacity];
+        this.xs = new float[capacity];
+        this.ys = new float[capacity];
+    }
+
+    // Lado productor; false si la cola está llena y el evento se pierde
+    public boolean offer(int type, int code, int action, float x, float y) {
+        long write = writeIndex.get();
+        if (write - readIndex.get() > mask) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        int slot = (int) write & mask;
+        types[slot] = type;
+        codes[slot] = code;
+        actions[slot] = action;
+        xs[slot] = x;
+        ys[slot] = y;
+        // Publicar el slot ya escrito al consumidor
+        writeIndex.lazySet(write + 1);
+        return true;
+    }
+
+    // Lado consumidor: entrega los eventos pendientes en orden y devuelve cuántos había
+    public int drain(EventConsumer consumer) {
+        long read = readIndex.get();
+        long write = writeIndex.get();
+        for (long i = read; i < write; i++) {
+            int slot = (int) i & mask;
+            consumer.accept(types[slot], codes[slot], actions[slot], xs[slot], ys[slot]);
+        }
+        readIndex.lazySet(write);
+        return (int) (write - read);
+    }
+
+    public int size() {
+        return (int) (writeIndex.get() - readIndex.get());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package org.printed.chat;
+
+import org.lwjgl.glfw.GLFW;
+
+import java.util.Arrays;
+
+/**
+ * Estado de la entrada visto por un paso de simulación: teclas y botones
+ * mantenidos, los pulsados y soltados desde el paso anterior (también las
+ * pulsaciones que empiezan y acaban dentro del mismo frame), la posición del
+ * ratón y las acciones resultantes. No cambia durante el paso.
+ */
+public class InputSnapshot {
+
+    public static final int KEY_COUNT = GLFW.GLFW_KEY_LAST + 1;
+    public static final int BUTTON_COUNT = GLFW.GLFW_MOUSE_BUTTON_LAST + 1;
+    static final int KEY_WORDS = (KEY_COUNT + 63) >>> 6;
+
+    final long[] keysHeld = new long[KEY_WORDS];
+    final long[] keysPressed = new long[KEY_WORDS];
+    final long[] keysReleased = new long[KEY_WORDS];
+    int buttonsHeld;
+    int buttonsPressed;
+    int buttonsReleased;
+    float mouseX;
+    float mouseY;
+    int actionsHeld;
+    int actionsPressed;
+    int actionsReleased;
+
+    public boolean isKeyDown(int key) {
+        return test(keysHeld, key);
+    }
+
+    public boolean wasKeyPressed(int key) {
+        return test(keysPressed, key);
+    }
+
+    public boolean wasKeyReleased(int key) {
+        return test(keysReleased, key);
+    }
+
+    private static boolean test(long[] bits, int key) {
+        return key >= 0 && key < KEY_COUNT && (bits[key >>> 6] & (1L << key)) != 0;
+    }
+
+    public boolean isButtonDown(int button) {
+        return (buttonsHeld & (1 << button)) != 0;
+    }
+
+    public boolean wasButtonPressed(int button) {
+        return (buttonsPressed & (1 << button)) != 0;
+    }
+
+    public boolean isActionDown(int action) {
+        return (actionsHeld & (1 << action)) != 0;
+    }
+
+    public boolean wasActionPressed(int action) {
+        return (actionsPressed & (1 << action)) != 0;
+    }
+
+    public boolean wasActionReleased(int action) {
+        return (actionsReleased & (1 << action)) != 0;
+    }
+
+    // -1, 0 o 1 según cuál de las dos acciones esté mantenida
+    public float getAxis(int negative, int positive) {
+        return (isActionDown(positive) ? 1.0f : 0.0f) - (isActionDown(negative) ? 1.0f : 0.0f);
+    }
+
+    public float getMouseX() {
+        return mouseX;
+    }
+
+    public float getMouseY() {
+        return mouseY;
+    }
+
+    public int getActionsHeld() {
+        return actionsHeld;
+    }
+
+    public int getActionsPressed() {
+        return actionsPressed;
+    }
+
+    public int getActionsReleased() {
+        return actionsReleased;
+    }
+
+    public void copyFrom(InputSnapshot other) {
+        System.arraycopy(other.keysHeld, 0, keysHeld, 0, KEY_WORDS);
+        System.arraycopy(other.keysPressed, 0, keysPressed, 0, KEY_WORDS);
+        System.arraycopy(other.keysReleased, 0, keysReleased, 0, KEY_WORDS);
+        buttonsHeld = other.buttonsHeld;
+        buttonsPressed = other.buttonsPressed;
+        buttonsReleased = other.buttonsReleased;
+        mouseX = other.mouseX;
+        mouseY = other.mouseY;
+        actionsHeld = other.actionsHeld;
+        actionsPressed = other.actionsPressed;
+        actionsReleased = other.actionsReleased;
+    }
+
+    public void clear() {
+        Arrays.fill(keysHeld, 0L);
+        Arrays.fill(keysPressed, 0L);
+        Arrays.fill(keysReleased, 0L);
+        buttonsHeld = 0;
+        buttonsPressed = 0;
+        buttonsReleased = 0;
+        mouseX = 0.0f;
+        mouseY = 0.0f;
+        actionsHeld = 0;
+        actionsPressed = 0;
+        actionsReleased = 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package org.printed.chat;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+
+import java.nio.FloatBuffer;
+
+public class LwjglGLDriver implements GLDriver {
+
+    @Override
+    public void useProgram(int programId) {
+        GL20.glUseProgram(programId);
+    }
+
+    @Override
+    public void bindVertexArray(int vaoId) {
+        GL30.glBindVertexArray(vaoId);
+    }
+
+    @Override
+    public void bindBuffer(int target, int bufferId) {
+        GL15.glBindBuffer(target, bufferId);
+    }
+
+    @Override
+    public void activeTexture(int unit) {
+        GL13.glActiveTexture(unit);
+    }
+
+    @Override
+    public void bindTexture(int target, int textureId) {
+        GL11.glBindTexture(target, textureId);
+    }
+
+    @Override
+    public void enable(int capability) {
+        GL11.glEnable(capability);
+    }
+
+    @Override
+    public void disable(int capability) {
+        GL11.glDisable(capability);
+    }
+
+    @Override
+    public void blendFunc(int sfactor, int dfactor) {
+        GL11.glBlendFunc(sfactor, dfactor);
+    }
+
+    @Override
+    public void bufferData(int target, long size, int usage) {
+        GL15.glBufferData(target, size, usage);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, FloatBuffer data) {
+        GL15.glBufferSubData(target, offset, data);
+    }
+
+    @Override
+    public void drawArraysInstanced(int mode, int first, int count, int instances) {
+        GL31.glDrawArraysInstanced(mode, first, count, instances);
+    }
+}
\ No newline at end of file
@@ -2,6 +2,12 @@ package org.printed.chat;
 
 public class Main {
     public static void main(String[] args) {
+        // Modos sin ventana (por ejemplo: --simulate 1000000)
+        if (HeadlessRunner.handles(args)) {
+            HeadlessRunner.run(args);
+            return;
+        }
+
         Game game = new Game();
         game.start();
     }
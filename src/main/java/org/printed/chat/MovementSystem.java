@@ -0,0 +1,56 @@
+package org.printed.chat;
+
+/**
+ * Integra la velocidad de las entidades: guarda la posición anterior (para
+ * interpolar al dibujar) y avanza la actual. Recorre los arrays de
+ * {@link EntityWorld} en orden, por tramos [from, to).
+ */
+public final class MovementSystem implements EntitySystem {
+
+    @Override
+    public String getName() {
+        return "movement";
+    }
+
+    @Override
+    public int reads() {
+        return EntityWorld.VELOCITY | EntityWorld.POSITION;
+    }
+
+    @Override
+    public int writes() {
+        return EntityWorld.POSITION | EntityWorld.PREVIOUS_POSITION;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return true;
+    }
+
+    @Override
+    public void update(EntityWorld world, float deltaTime, int from, int to) {
+        integrate(world, deltaTime, from, to);
+    }
+
+    public static void integrate(EntityWorld world, float deltaTime) {
+        integrate(world, deltaTime, 0, world.size());
+    }
+
+    public static void integrate(EntityWorld world, float deltaTime, int from, int to) {
+        float[] posX = world.posX;
+        float[] posY = world.posY;
+        float[] prevX = world.prevX;
+        float[] prevY = world.prevY;
+        float[] velX = world.velX;
+        float[] velY = world.velY;
+
+        for (int i = from; i < to; i++) {
+            prevX[i] = posX[i];
+            posX[i] += velX[i] * deltaTime;
+        }
+        for (int i = from; i < to; i++) {
+            prevY[i] = posY[i];
+            posY[i] += velY[i] * deltaTime;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package org.printed.chat;
+
+/**
+ * Fuente de partículas de un {@link ParticleSystem}: emite "rate" partículas
+ * por segundo desde su posición, en la dirección "angle" con una apertura de
+ * "spread" radianes, y con velocidad y vida al azar dentro de sus rangos.
+ */
+public class ParticleEmitter {
+
+    float x;
+    float y;
+    float rate;
+    float angle = (float) (Math.PI / 2.0);
+    float spread = (float) (Math.PI * 2.0);
+    float minSpeed = 0.1f;
+    float maxSpeed = 0.3f;
+    float minLife = 0.5f;
+    float maxLife = 1.0f;
+    boolean enabled = true;
+
+    // Fracción de partícula que quedó sin emitir en el paso anterior
+    float pending = 0.0f;
+
+    public ParticleEmitter(float x, float y, float rate) {
+        this.x = x;
+        this.y = y;
+        this.rate = rate;
+    }
+
+    public ParticleEmitter setPosition(float x, float y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    public ParticleEmitter setRate(float rate) {
+        if (rate < 0.0f) {
+            throw new IllegalArgumentException("El ritmo de emisión no puede ser negativo: " + rate);
+        }
+        this.rate = rate;
+        return this;
+    }
+
+    public ParticleEmitter setDirection(float angle, float spread) {
+        this.angle = angle;
+        this.spread = spread;
+        return this;
+    }
+
+    public ParticleEmitter setSpeed(float min, float max) {
+        this.minSpeed = min;
+        this.maxSpeed = Math.max(min, max);
+        return this;
+    }
+
+    public ParticleEmitter setLife(float min, float max) {
+        if (min <= 0.0f) {
+            throw new IllegalArgumentException("La vida de las partículas debe ser positiva: " + min);
+        }
+        this.minLife = min;
+        this.maxLife = Math.max(min, max);
+        return this;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        pending = 0.0f;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getRate() {
+        return rate;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,293 @@
+package org.printed.chat;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partículas de un mismo material (textura, rectángulo UV, gravedad,
+ * rozamiento y tamaño a lo largo de la vida) en un pool preasignado como
+ * estructura de arrays. Las vivas ocupan 0..size()-1; al morir, la última
+ * ocupa su hueco. Actualizar no reserva memoria y los bucles son recorridos
+ * lineales sobre arrays de floats que el JIT puede vectorizar.
+ * <p>
+ * Se dibujan todas de una vez con {@link SpriteBatch#drawInstances}, leyendo
+ * los arrays directamente: render() no debe solaparse con update().
+ */
+public class ParticleSystem {
+
+    // Estado por partícula; "age" va de 0 a 1 a lo largo de la vida y "ageRate" es 1 / vida
+    float[] posX;
+    float[] posY;
+    float[] prevX;
+    float[] prevY;
+    float[] velX;
+    float[] velY;
+    float[] age;
+    float[] ageRate;
+
+    private final int capacity;
+    private int size = 0;
+    private final List<ParticleEmitter> emitters = new ArrayList<>();
+
+    // Material
+    private final TextureHandle texture;
+    private float u0 = 0.0f;
+    private float v0 = 0.0f;
+    private float u1 = 1.0f;
+    private float v1 = 1.0f;
+    private float gravityX = 0.0f;
+    private float gravityY = 0.0f;
+    private float drag = 0.0f;
+    private float startSize = 0.05f;
+    private float endSize = 0.0f;
+
+    // Instancias para el batch; se reservan en el primer render()
+    private FloatBuffer instances;
+
+    // xorshift32: sin reservas ni sincronización, y reproducible con la misma semilla
+    private int seed = 0x9E3779B9;
+
+    private long spawned = 0;
+    private long died = 0;
+    private long dropped = 0;
+    private int lastSubmitted = 0;
+
+    public ParticleSystem(TextureHandle texture, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacidad de partículas debe ser positiva: " + capacity);
+        }
+        this.texture = texture;
+        this.capacity = capacity;
+        posX = new float[capacity];
+        posY = new float[capacity];
+        prevX = new float[capacity];
+        prevY = new float[capacity];
+        velX = new float[capacity];
+        velY = new float[capacity];
+        age = new float[capacity];
+        ageRate = new float[capacity];
+    }
+
+    public ParticleEmitter addEmitter(ParticleEmitter emitter) {
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    public void removeEmitter(ParticleEmitter emitter) {
+        emitters.remove(emitter);
+    }
+
+    public void setRegion(float u0, float v0, float u1, float v1) {
+        this.u0 = u0;
+        this.v0 = v0;
+        this.u1 = u1;
+        this.v1 = v1;
+    }
+
+    public void setGravity(float x, float y) {
+        gravityX = x;
+        gravityY = y;
+    }
+
+    // Fracción de velocidad que se pierde por segundo
+    public void setDrag(float drag) {
+        this.drag = drag;
+    }
+
+    // Tamaño al nacer y al morir; en medio se interpola
+    public void setSize(float start, float end) {
+        startSize = start;
+        endSize = end;
+    }
+
+    public void setSeed(int seed) {
+        this.seed = seed == 0 ? 1 : seed;
+    }
+
+    // Crea una partícula; si el pool está lleno se descarta y devuelve false
+    public boolean spawn(float x, float y, float vx, float vy, float life) {
+        if (size == capacity) {
+            dropped++;
+            return false;
+        }
+        int i = size++;
+        posX[i] = x;
+        posY[i] = y;
+        prevX[i] = x;
+        prevY[i] = y;
+        velX[i] = vx;
+        velY[i] = vy;
+        age[i] = 0.0f;
+        ageRate[i] = 1.0f / life;
+        spawned++;
+        return true;
+    }
+
+    // Emite "count" partículas de golpe con los parámetros del emisor
+    public void burst(ParticleEmitter emitter, int count) {
+        for (int i = 0; i < count; i++) {
+            emit(emitter);
+        }
+    }
+
+    private void emit(ParticleEmitter emitter) {
+        float direction = emitter.angle + (nextFloat() - 0.5f) * emitter.spread;
+        float speed = emitter.minSpeed + (emitter.maxSpeed - emitter.minSpeed) * nextFloat();
+        float life = emitter.minLife + (emitter.maxLife - emitter.minLife) * nextFloat();
+        spawn(emitter.x, emitter.y, (float) Math.cos(direction) * speed, (float) Math.sin(direction) * speed, life);
+    }
+
+    private float nextFloat() {
+        int s = seed;
+        s ^= s << 13;
+        s ^= s >>> 17;
+        s ^= s << 5;
+        seed = s;
+        return (s >>> 8) * 0x1.0p-24f;
+    }
+
+    public void update(float deltaTime) {
+        for (int e = 0, n = emitters.size(); e < n; e++) {
+            ParticleEmitter emitter = emitters.get(e);
+            if (!emitter.enabled) {
+                continue;
+            }
+            emitter.pending += emitter.rate * deltaTime;
+            int count = (int) emitter.pending;
+            emitter.pending -= count;
+            burst(emitter, count);
+        }
+        integrate(deltaTime);
+        removeDead();
+    }
+
+    // Un bucle por eje, sin ramas, para que el JIT lo vectorice
+    private void integrate(float deltaTime) {
+        float damping = Math.max(0.0f, 1.0f - drag * deltaTime);
+        float gx = gravityX * deltaTime;
+        float gy = gravityY * deltaTime;
+        int n = size;
+        float[] posX = this.posX;
+        float[] posY = this.posY;
+        float[] prevX = this.prevX;
+        float[] prevY = this.prevY;
+        float[] velX = this.velX;
+        float[] velY = this.velY;
+        float[] age = this.age;
+        float[] ageRate = this.ageRate;
+
+        for (int i = 0; i < n; i++) {
+            prevX[i] = posX[i];
+            float vx = velX[i] * damping + gx;
+            velX[i] = vx;
+            posX[i] += vx * deltaTime;
+        }
+        for (int i = 0; i < n; i++) {
+            prevY[i] = posY[i];
+            float vy = velY[i] * damping + gy;
+            velY[i] = vy;
+            posY[i] += vy * deltaTime;
+        }
+        for (int i = 0; i < n; i++) {
+            age[i] += ageRate[i] * deltaTime;
+        }
+    }
+
+    // Swap-remove de las que han cumplido su vida; la que se mueve al hueco se vuelve a mirar
+    private void removeDead() {
+        int i = 0;
+        while (i < size) {
+            if (age[i] < 1.0f) {
+                i++;
+                continue;
+            }
+            int last = --size;
+            posX[i] = posX[last];
+            posY[i] = posY[last];
+            prevX[i] = prevX[last];
+            prevY[i] = prevY[last];
+            velX[i] = velX[last];
+            velY[i] = velY[last];
+            age[i] = age[last];
+            ageRate[i] = ageRate[last];
+            died++;
+        }
+    }
+
+    /**
+     * Envía las partículas dentro del rectángulo visible como un único lote de
+     * instancias, interpolando entre los dos últimos pasos.
+     */
+    public void render(SpriteBatch batch, float alpha, float viewX, float viewY, float halfWidth, float halfHeight) {
+        if (size == 0) {
+            lastSubmitted = 0;
+            return;
+        }
+        if (instances == null) {
+            instances = BufferUtils.createFloatBuffer(capacity * SpriteBatch.FLOATS_PER_SPRITE);
+        }
+
+        // Escrituras absolutas: las relativas comprueban y mueven la posición en cada float
+        FloatBuffer out = instances;
+        float sizeDelta = endSize - startSize;
+        int submitted = 0;
+        for (int i = 0, n = size; i < n; i++) {
+            float x = prevX[i] + (posX[i] - prevX[i]) * alpha;
+            float y = prevY[i] + (posY[i] - prevY[i]) * alpha;
+            float s = startSize + sizeDelta * age[i];
+            if (Math.abs(x - viewX) > halfWidth + s * 0.5f || Math.abs(y - viewY) > halfHeight + s * 0.5f) {
+                continue;
+            }
+            int o = submitted * SpriteBatch.FLOATS_PER_SPRITE;
+            out.put(o, x).put(o + 1, y).put(o + 2, s).put(o + 3, s)
+                    .put(o + 4, u0).put(o + 5, v0).put(o + 6, u1).put(o + 7, v1);
+            submitted++;
+        }
+        out.position(0).limit(submitted * SpriteBatch.FLOATS_PER_SPRITE);
+        lastSubmitted = submitted;
+        if (submitted > 0) {
+            batch.drawInstances(texture.getTextureId(), out, submitted);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public List<ParticleEmitter> getEmitters() {
+        return emitters;
+    }
+
+    public TextureHandle getTexture() {
+        return texture;
+    }
+
+    public long getSpawned() {
+        return spawned;
+    }
+
+    public long getDied() {
+        return died;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public int getLastSubmitted() {
+        return lastSubmitted;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d/%d vivas, creadas=%d muertas=%d descartadas=%d, dibujadas=%d",
+                texture.getName(), size, capacity, spawned, died, dropped, lastSubmitted);
+    }
+}
\ No newline at end of file
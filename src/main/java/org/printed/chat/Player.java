@@ -1,223 +1,93 @@
 package org.printed.chat;
 
-import org.lwjgl.BufferUtils;
 import org.lwjgl.glfw.GLFW;
-import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL13;
-import org.lwjgl.opengl.GL15;
-import org.lwjgl.opengl.GL20;
-import org.lwjgl.opengl.GL30;
-import org.lwjgl.stb.STBImage;
-import org.lwjgl.system.MemoryStack;
-
-import java.nio.ByteBuffer;
-import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 
+/**
+ * El jugador es una entidad más del {@link EntityWorld}; esta clase sólo
+ * traduce las acciones de movimiento de cada paso a su velocidad.
+ */
 public class Player {
 
-    private int vaoId;
-    private int vboId;
-    private int texCoordsVboId;
-    private int textureId;
-    private int shaderProgramId;
+    // Acciones de movimiento; bindDefaultKeys() las define en este orden
+    public static final int MOVE_UP = 0;
+    public static final int MOVE_DOWN = 1;
+    public static final int MOVE_LEFT = 2;
+    public static final int MOVE_RIGHT = 3;
+
+    private final EntityWorld world;
+    private final long entity;
 
-    private float x = 0.0f;
-    private float y = 0.0f;
-    private float speed = 0.01f;
+    private float speed = 0.6f; // unidades por segundo
     private float width = 0.2f;
     private float height = 0.3f;
+    private float lastX = 0.0f;
+    private float lastY = 0.0f;
 
-    public Player() {
-        init();
+    public Player(EntityWorld world, int spriteId) {
+        this.world = world;
+        this.entity = world.create(0.0f, 0.0f, width, height, spriteId);
     }
 
-    private void init() {
-        // Crear el shader program para texturas
-        createShaderProgram();
-
-        // Crear el VAO
-        vaoId = GL30.glGenVertexArrays();
-        GL30.glBindVertexArray(vaoId);
-
-        // Crear los vértices del jugador (un rectángulo simple que representará al personaje)
-        try (MemoryStack stack = MemoryStack.stackPush()) {
-            // Vértices del rectángulo
-            float[] vertices = new float[]{
-                    -width/2, height/2, 0.0f,  // Esquina superior izquierda
-                    width/2, height/2, 0.0f,   // Esquina superior derecha
-                    width/2, -height/2, 0.0f,  // Esquina inferior derecha
-                    -width/2, -height/2, 0.0f  // Esquina inferior izquierda
-            };
-
-            // Coordenadas de textura
-            float[] texCoords = new float[]{
-                    0.0f, 0.0f,  // Esquina superior izquierda
-                    1.0f, 0.0f,  // Esquina superior derecha
-                    1.0f, 1.0f,  // Esquina inferior derecha
-                    0.0f, 1.0f   // Esquina inferior izquierda
-            };
-
-            // Crear y llenar el VBO de vértices
-            FloatBuffer vertexBuffer = stack.mallocFloat(vertices.length);
-            vertexBuffer.put(vertices).flip();
-
-            vboId = GL15.glGenBuffers();
-            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vboId);
-            GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertexBuffer, GL15.GL_STATIC_DRAW);
-            GL20.glVertexAttribPointer(0, 3, GL11.GL_FLOAT, false, 0, 0);
-            GL20.glEnableVertexAttribArray(0);
-
-            // Crear y llenar el VBO de coordenadas de textura
-            FloatBuffer texCoordsBuffer = stack.mallocFloat(texCoords.length);
-            texCoordsBuffer.put(texCoords).flip();
-
-            texCoordsVboId = GL15.glGenBuffers();
-            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, texCoordsVboId);
-            GL15.glBufferData(GL15.GL_ARRAY_BUFFER, texCoordsBuffer, GL15.GL_STATIC_DRAW);
-            GL20.glVertexAttribPointer(1, 2, GL11.GL_FLOAT, false, 0, 0);
-            GL20.glEnableVertexAttribArray(1);
+    // WASD y flechas; las acciones deben ser las primeras que se definen en "actions"
+    public static void bindDefaultKeys(InputActions actions) {
+        if (actions.size() != MOVE_UP) {
+            throw new IllegalStateException("Las acciones del jugador deben definirse primero");
         }
-
-        // Cargar textura
-        loadTexture("robot.png");
-
-        // Desenlazar el VAO
-        GL30.glBindVertexArray(0);
+        actions.define("up");
+        actions.define("down");
+        actions.define("left");
+        actions.define("right");
+        actions.bindKey(MOVE_UP, GLFW.GLFW_KEY_W);
+        actions.bindKey(MOVE_UP, GLFW.GLFW_KEY_UP);
+        actions.bindKey(MOVE_DOWN, GLFW.GLFW_KEY_S);
+        actions.bindKey(MOVE_DOWN, GLFW.GLFW_KEY_DOWN);
+        actions.bindKey(MOVE_LEFT, GLFW.GLFW_KEY_A);
+        actions.bindKey(MOVE_LEFT, GLFW.GLFW_KEY_LEFT);
+        actions.bindKey(MOVE_RIGHT, GLFW.GLFW_KEY_D);
+        actions.bindKey(MOVE_RIGHT, GLFW.GLFW_KEY_RIGHT);
     }
 
-    private void createShaderProgram() {
-        // Vertex Shader con soporte para texturas
-        int vertexShaderId = GL20.glCreateShader(GL20.GL_VERTEX_SHADER);
-        GL20.glShaderSource(vertexShaderId,
-                "#version 410 core\n" +
-                        "layout (location = 0) in vec3 position;\n" +
-                        "layout (location = 1) in vec2 texCoord;\n" +
-                        "out vec2 TexCoord;\n" +
-                        "uniform vec2 offset;\n" +
-                        "void main() {\n" +
-                        "    gl_Position = vec4(position.x + offset.x, position.y + offset.y, position.z, 1.0);\n" +
-                        "    TexCoord = texCoord;\n" +
-                        "}");
-        GL20.glCompileShader(vertexShaderId);
-
-        // Verificar errores de compilación
-        if (GL20.glGetShaderi(vertexShaderId, GL20.GL_COMPILE_STATUS) == 0) {
-            System.err.println("Error al compilar el Vertex Shader: " + GL20.glGetShaderInfoLog(vertexShaderId));
-            return;
-        }
-
-        // Fragment Shader con soporte para texturas
-        int fragmentShaderId = GL20.glCreateShader(GL20.GL_FRAGMENT_SHADER);
-        GL20.glShaderSource(fragmentShaderId,
-                "#version 410 core\n" +
-                        "in vec2 TexCoord;\n" +
-                        "out vec4 fragColor;\n" +
-                        "uniform sampler2D textureSampler;\n" +
-                        "void main() {\n" +
-                        "    fragColor = texture(textureSampler, TexCoord);\n" +
-                        "}");
-        GL20.glCompileShader(fragmentShaderId);
-
-        // Verificar errores de compilación
-        if (GL20.glGetShaderi(fragmentShaderId, GL20.GL_COMPILE_STATUS) == 0) {
-            System.err.println("Error al compilar el Fragment Shader: " + GL20.glGetShaderInfoLog(fragmentShaderId));
-            return;
-        }
-
-        // Crear y enlazar el Shader Program
-        shaderProgramId = GL20.glCreateProgram();
-        GL20.glAttachShader(shaderProgramId, vertexShaderId);
-        GL20.glAttachShader(shaderProgramId, fragmentShaderId);
-        GL20.glLinkProgram(shaderProgramId);
-
-        // Verificar errores de enlace
-        if (GL20.glGetProgrami(shaderProgramId, GL20.GL_LINK_STATUS) == 0) {
-            System.err.println("Error al enlazar el Shader Program: " + GL20.glGetProgramInfoLog(shaderProgramId));
+    public void update(InputSnapshot input, float deltaTime) {
+        int index = world.indexOf(entity);
+        if (index < 0) {
             return;
         }
-
-        // Después de enlazar, podemos eliminar los shaders
-        GL20.glDeleteShader(vertexShaderId);
-        GL20.glDeleteShader(fragmentShaderId);
+        float dx = input.getAxis(MOVE_LEFT, MOVE_RIGHT);
+        float dy = input.getAxis(MOVE_DOWN, MOVE_UP);
+        world.setVelocity(index, dx * speed, dy * speed);
     }
 
-    private void loadTexture(String fileName) {
-        textureId = TextureLoader.loadTexture(fileName);
-        if (textureId == -1) {
-            throw new RuntimeException("Error al cargar la textura del jugador: " + fileName);
+    // Animación de AnimationLibrary para el sprite del jugador; -1 lo deja estático
+    public void setAnimator(int animatorId) {
+        int index = world.indexOf(entity);
+        if (index >= 0) {
+            world.setAnimator(index, animatorId);
         }
     }
 
-    public void render() {
-        // Usar el shader program
-        GL20.glUseProgram(shaderProgramId);
-
-        // Actualizar la posición del jugador en el shader
-        int offsetLocation = GL20.glGetUniformLocation(shaderProgramId, "offset");
-        GL20.glUniform2f(offsetLocation, x, y);
-
-        // Activar la unidad de textura 0
-        GL13.glActiveTexture(GL13.GL_TEXTURE0);
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureId);
-
-        // Configurar el sampler para usar la unidad de textura 0
-        int textureSamplerLocation = GL20.glGetUniformLocation(shaderProgramId, "textureSampler");
-        GL20.glUniform1i(textureSamplerLocation, 0);
-
-        // Enlazar el VAO
-        GL30.glBindVertexArray(vaoId);
-
-        // Habilitar transparencias
-        GL11.glEnable(GL11.GL_BLEND);
-        GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
-
-        // Dibujar el rectángulo como 2 triángulos (un quad)
-        GL11.glDrawArrays(GL11.GL_TRIANGLE_FAN, 0, 4);
-
-        // Deshabilitar transparencias
-        GL11.glDisable(GL11.GL_BLEND);
-
-        // Desenlazar el VAO
-        GL30.glBindVertexArray(0);
+    public long getEntity() {
+        return entity;
+    }
 
-        // Dejar de usar el shader program
-        GL20.glUseProgram(0);
+    // Con la entidad ya destruida devuelven la última posición conocida
+    public float getX() {
+        int index = world.indexOf(entity);
+        if (index >= 0) {
+            lastX = world.getX(index);
+        }
+        return lastX;
     }
 
-    public void handleInput(long window, int key, int action) {
-        if (action == GLFW.GLFW_PRESS || action == GLFW.GLFW_REPEAT) {
-            switch (key) {
-                case GLFW.GLFW_KEY_W:
-                    y += speed;
-                    break;
-                case GLFW.GLFW_KEY_S:
-                    y -= speed;
-                    break;
-                case GLFW.GLFW_KEY_A:
-                    x -= speed;
-                    break;
-                case GLFW.GLFW_KEY_D:
-                    x += speed;
-                    break;
-            }
+    public float getY() {
+        int index = world.indexOf(entity);
+        if (index >= 0) {
+            lastY = world.getY(index);
         }
+        return lastY;
     }
 
     public void cleanup() {
-        // Eliminar los VBOs
-        GL15.glDeleteBuffers(vboId);
-        GL15.glDeleteBuffers(texCoordsVboId);
-
-        // Eliminar el VAO
-        GL30.glDeleteVertexArrays(vaoId);
-
-        // Eliminar la textura
-        GL11.glDeleteTextures(textureId);
-
-        // Eliminar el shader program
-        GL20.glDeleteProgram(shaderProgramId);
+        // La textura no es del jugador: quien la cargó suelta la referencia (ver Game.cleanup)
+        world.destroy(entity);
     }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package org.printed.chat;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * GLDriver que no llama a GL: guarda cada llamada como texto para comprobar
+ * la secuencia exacta sin GPU.
+ */
+public class RecordingGLDriver implements GLDriver {
+
+    private final List<String> calls = new ArrayList<>();
+
+    @Override
+    public void useProgram(int programId) {
+        calls.add("useProgram " + programId);
+    }
+
+    @Override
+    public void bindVertexArray(int vaoId) {
+        calls.add("bindVertexArray " + vaoId);
+    }
+
+    @Override
+    public void bindBuffer(int target, int bufferId) {
+        calls.add("bindBuffer " + target + " " + bufferId);
+    }
+
+    @Override
+    public void activeTexture(int unit) {
+        calls.add("activeTexture " + unit);
+    }
+
+    @Override
+    public void bindTexture(int target, int textureId) {
+        calls.add("bindTexture " + target + " " + textureId);
+    }
+
+    @Override
+    public void enable(int capability) {
+        calls.add("enable " + capability);
+    }
+
+    @Override
+    public void disable(int capability) {
+        calls.add("disable " + capability);
+    }
+
+    @Override
+    public void blendFunc(int sfactor, int dfactor) {
+        calls.add("blendFunc " + sfactor + " " + dfactor);
+    }
+
+    @Override
+    public void bufferData(int target, long size, int usage) {
+        calls.add("bufferData " + target + " " + size + " " + usage);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, FloatBuffer data) {
+        calls.add("bufferSubData " + target + " " + offset + " " + data.remaining());
+    }
+
+    @Override
+    public void drawArraysInstanced(int mode, int first, int count, int instances) {
+        calls.add("drawArraysInstanced " + mode + " " + first + " " + count + " " + instances);
+    }
+
+    public List<String> getCalls() {
+        return Collections.unmodifiableList(calls);
+    }
+
+    public void clear() {
+        calls.clear();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+package org.printed.chat;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Backend que no dibuja nada: sólo registra las llamadas que recibe. Permite
+ * comprobar el comportamiento de {@link SpriteBatch} sin GPU.
+ */
+public class RecordingRenderBackend implements RenderBackend {
+
+    public static final int DEFAULT_SHADER = 1;
+    public static final int LAYERS_SHADER = 2;
+
+    public static final class DrawCall {
+        public final int shaderId;
+        public final int textureId;
+        public final int instanceCount;
+        public final float[] instanceData;
+
+        DrawCall(int shaderId, int textureId, int instanceCount, float[] instanceData) {
+            this.shaderId = shaderId;
+            this.textureId = textureId;
+            this.instanceCount = instanceCount;
+            this.instanceData = instanceData;
+        }
+
+        @Override
+        public String toString() {
+            return "draw(shader=" + shaderId + ", texture=" + textureId + ", instances=" + instanceCount + ")";
+        }
+    }
+
+    private final List<DrawCall> calls = new ArrayList<>();
+    private final boolean keepInstanceData;
+    private final List<float[]> staticInstances = new ArrayList<>();
+    private final float[] viewProjection = {1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1};
+    private int frames = 0;
+
+    public RecordingRenderBackend() {
+        this(false);
+    }
+
+    public RecordingRenderBackend(boolean keepInstanceData) {
+        this.keepInstanceData = keepInstanceData;
+    }
+
+    @Override
+    public int getDefaultShader() {
+        return DEFAULT_SHADER;
+    }
+
+    @Override
+    public void beginFrame() {
+    }
+
+    @Override
+    public void setViewProjection(float[] matrix) {
+        System.arraycopy(matrix, 0, viewProjection, 0, 16);
+    }
+
+    @Override
+    public void drawInstances(int shaderId, int textureId, FloatBuffer instances, int count) {
+        float[] data = null;
+        if (keepInstanceData) {
+            data = new float[count * SpriteBatch.FLOATS_PER_SPRITE];
+            instances.get(instances.position(), data);
+        }
+        calls.add(new DrawCall(shaderId, textureId, count, data));
+    }
+
+    @Override
+    public void drawLayers(int textureArrayId, int layerCount, float[] layerOffsets,
+                           float x, float y, float width, float height) {
+        float[] data = null;
+        if (keepInstanceData) {
+            data = new float[4 + layerCount * 2];
+            data[0] = x;
+            data[1] = y;
+            data[2] = width;
+            data[3] = height;
+            System.arraycopy(layerOffsets, 0, data, 4, layerCount * 2);
+        }
+        calls.add(new DrawCall(LAYERS_SHADER, textureArrayId, 1, data));
+    }
+
+    @Override
+    public int createStaticInstances(FloatBuffer instances, int count) {
+        staticInstances.add(null);
+        int handle = staticInstances.size() - 1;
+        updateStaticInstances(handle, instances, count);
+        return handle;
+    }
+
+    @Override
+    public void updateStaticInstances(int handle, FloatBuffer instances, int count) {
+        float[] data = new float[count * SpriteBatch.FLOATS_PER_SPRITE];
+        instances.get(instances.position(), data);
+        staticInstances.set(handle, data);
+    }
+
+    @Override
+    public void drawStaticInstances(int shaderId, int textureId, int handle, int count) {
+        calls.add(new DrawCall(shaderId, textureId, count, keepInstanceData ? staticInstances.get(handle) : null));
+    }
+
+    @Override
+    public void deleteStaticInstances(int handle) {
+        staticInstances.set(handle, null);
+    }
+
+    public int getLiveStaticBuffers() {
+        int live = 0;
+        for (float[] data : staticInstances) {
+            if (data != null) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    @Override
+    public void endFrame() {
+        frames++;
+    }
+
+    @Override
+    public void cleanup() {
+        calls.clear();
+    }
+
+    public List<DrawCall> getCalls() {
+        return Collections.unmodifiableList(calls);
+    }
+
+    public float[] getViewProjection() {
+        return viewProjection.clone();
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    public void clear() {
+        calls.clear();
+        frames = 0;
+    }
+}
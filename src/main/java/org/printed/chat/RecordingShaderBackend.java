@@ -0,0 +1,107 @@
+package org.printed.chat;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ShaderBackend sin GL: asigna IDs y ubicaciones ficticias y registra cada
+ * llamada, para comprobar la caché de {@link ShaderLibrary} sin GPU.
+ */
+public class RecordingShaderBackend implements ShaderBackend {
+
+    private final List<String> calls = new ArrayList<>();
+    private final Map<String, Integer> locations = new HashMap<>();
+    private final Map<Integer, ByteBuffer> binaries = new HashMap<>();
+    private final boolean binarySupport;
+    private int nextProgramId = 1;
+
+    public RecordingShaderBackend(boolean binarySupport) {
+        this.binarySupport = binarySupport;
+    }
+
+    // Como el preprocesador de GLSL, una directiva #error hace fallar la compilación
+    @Override
+    public int compileProgram(String name, String vertexSource, String fragmentSource) {
+        if (vertexSource.contains("#error") || fragmentSource.contains("#error")) {
+            calls.add("compile " + name + " -> error");
+            return 0;
+        }
+        int programId = nextProgramId++;
+        calls.add("compile " + name + " -> " + programId);
+        ByteBuffer binary = ByteBuffer.allocateDirect(8);
+        binary.putInt(0x42494E).putInt(programId).flip();
+        binaries.put(programId, binary);
+        return programId;
+    }
+
+    @Override
+    public String getDriverId() {
+        return "recording";
+    }
+
+    @Override
+    public boolean supportsProgramBinary() {
+        return binarySupport;
+    }
+
+    @Override
+    public ByteBuffer getProgramBinary(int programId) {
+        ByteBuffer binary = binaries.get(programId);
+        return binary == null ? null : binary.duplicate();
+    }
+
+    @Override
+    public int loadProgramBinary(ByteBuffer binary) {
+        int programId = nextProgramId++;
+        calls.add("loadBinary -> " + programId);
+        return programId;
+    }
+
+    @Override
+    public int getUniformLocation(int programId, String name) {
+        calls.add("getUniformLocation " + programId + " " + name);
+        return locations.computeIfAbsent(programId + ":" + name, k -> locations.size());
+    }
+
+    @Override
+    public void useProgram(int programId) {
+        calls.add("useProgram " + programId);
+    }
+
+    @Override
+    public void uniform1i(int location, int value) {
+        calls.add("uniform1i " + location + " " + value);
+    }
+
+    @Override
+    public void uniform1f(int location, float value) {
+        calls.add("uniform1f " + location + " " + value);
+    }
+
+    @Override
+    public void uniform2f(int location, float x, float y) {
+        calls.add("uniform2f " + location + " " + x + " " + y);
+    }
+
+    @Override
+    public void uniform4f(int location, float x, float y, float z, float w) {
+        calls.add("uniform4f " + location + " " + x + " " + y + " " + z + " " + w);
+    }
+
+    @Override
+    public void deleteProgram(int programId) {
+        calls.add("deleteProgram " + programId);
+    }
+
+    public List<String> getCalls() {
+        return Collections.unmodifiableList(calls);
+    }
+
+    public void clear() {
+        calls.clear();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package org.printed.chat;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Destino de los lotes de sprites que genera {@link SpriteBatch}.
+ * <p>
+ * Cada instancia ocupa {@link SpriteBatch#FLOATS_PER_SPRITE} floats en el buffer:
+ * centro (x, y), tamaño (w, h) y rectángulo UV (u0, v0, u1, v1), donde v0 es la
+ * coordenada del borde superior del sprite.
+ */
+public interface RenderBackend {
+
+    // Shader que se usa cuando el llamador no indica ninguno
+    int getDefaultShader();
+
+    void beginFrame();
+
+    /**
+     * Matriz de vista y proyección (column-major) para las instancias que
+     * vengan a continuación. Es una cámara 2D sin rotación: sólo se usan la
+     * escala (m[0], m[5]) y la traslación (m[12], m[13]).
+     */
+    void setViewProjection(float[] matrix);
+
+    /**
+     * Capa de lo que se dibuje a continuación. Los backends que ordenan los
+     * comandos (ver {@link CommandRenderBackend}) dibujan las capas de menor a
+     * mayor; los que dibujan en el acto la ignoran.
+     */
+    default void setLayer(int layer) {
+    }
+
+    // Dibuja "count" instancias con el mismo shader y la misma textura
+    void drawInstances(int shaderId, int textureId, FloatBuffer instances, int count);
+
+    /**
+     * Dibuja un quad (centro y tamaño) que mezcla en una sola pasada las
+     * primeras "layerCount" capas de una textura array, de la 0 (fondo) hacia
+     * delante. Cada capa se desplaza por su par (u, v) de "layerOffsets"; el
+     * rectángulo UV base es (0, 1)-(1, 0) y la textura se repite.
+     */
+    void drawLayers(int textureArrayId, int layerCount, float[] layerOffsets, float x, float y, float width, float height);
+
+    /**
+     * Geometría estática: instancias que se suben una vez y se dibujan en
+     * muchos frames (por ejemplo, un trozo de tilemap). Devuelve un handle
+     * que sólo entiende este backend.
+     * <p>
+     * Los backends que ordenan los comandos crean y actualizan la geometría al
+     * principio del frame y la borran al final, así que un frame no puede
+     * dibujar la misma geometría antes y después de actualizarla: todos sus
+     * dibujos ven los datos nuevos. Tampoco se puede dibujar tras borrarla.
+     */
+    int createStaticInstances(FloatBuffer instances, int count);
+
+    void updateStaticInstances(int handle, FloatBuffer instances, int count);
+
+    void drawStaticInstances(int shaderId, int textureId, int handle, int count);
+
+    void deleteStaticInstances(int handle);
+
+    void endFrame();
+
+    void cleanup();
+}
@@ -0,0 +1,294 @@
+package org.printed.chat;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Comandos de dibujo de un frame, tal como los escribe
+ * {@link CommandRenderBackend} en el hilo del juego: una clave de orden de 64
+ * bits por comando, sus parámetros en arrays paralelos y los datos de
+ * instancias copiados a un buffer propio. Todo se reserva una vez y se
+ * reutiliza; sólo crece si un frame no cabe.
+ * <p>
+ * Las operaciones sobre geometría estática (crear, actualizar, borrar) van
+ * aparte, en el orden en que llegaron: crear y actualizar se aplican antes de
+ * los dibujos y borrar, después.
+ */
+public class RenderCommandBuffer {
+
+    // Tipos de comando de dibujo
+    static final byte INSTANCES = 0;
+    static final byte LAYERS = 1;
+    static final byte STATIC = 2;
+
+    // Operaciones sobre geometría estática
+    static final byte CREATE_STATIC = 0;
+    static final byte UPDATE_STATIC = 1;
+    static final byte DELETE_STATIC = 2;
+
+    // Clave: capa (8 bits) | shader (12) | textura (20) | orden de llegada (24)
+    public static final int LAYER_BITS = 8;
+    public static final int SHADER_BITS = 12;
+    public static final int TEXTURE_BITS = 20;
+    public static final int DEPTH_BITS = 24;
+
+    // Comandos de dibujo
+    int count = 0;
+    long[] keys;
+    byte[] type;
+    int[] shader;
+    int[] texture;
+    int[] view;
+    // INSTANCES: primer float e instancias; LAYERS: primer float de "extra" y capas; STATIC: handle e instancias
+    int[] first;
+    int[] size;
+
+    // Operaciones sobre geometría estática
+    int resourceCount = 0;
+    byte[] resourceOp;
+    int[] resourceHandle;
+    int[] resourceFirst;
+    int[] resourceSize;
+
+    // Datos copiados: instancias, floats de las capas y matrices de cámara
+    FloatBuffer instances;
+    float[] extra;
+    int extraCount = 0;
+    float[] views;
+    int viewCount = 0;
+
+    // Orden tras sort(): índices de comando por clave creciente
+    private int[] order;
+    private int[] orderScratch;
+    private long[] sortedKeys;
+    private long[] keyScratch;
+    private final int[] histograms = new int[8 * 256];
+    private long lastSortNanos = 0;
+
+    public RenderCommandBuffer(int commandCapacity, int instanceCapacity) {
+        int capacity = Math.max(16, commandCapacity);
+        keys = new long[capacity];
+        type = new byte[capacity];
+        shader = new int[capacity];
+        texture = new int[capacity];
+        view = new int[capacity];
+        first = new int[capacity];
+        size = new int[capacity];
+        order = new int[capacity];
+        orderScratch = new int[capacity];
+        sortedKeys = new long[capacity];
+        keyScratch = new long[capacity];
+        resourceOp = new byte[16];
+        resourceHandle = new int[16];
+        resourceFirst = new int[16];
+        resourceSize = new int[16];
+        instances = BufferUtils.createFloatBuffer(Math.max(1, instanceCapacity) * SpriteBatch.FLOATS_PER_SPRITE);
+        extra = new float[256];
+        views = new float[16 * 4];
+    }
+
+    public static long sortKey(int layer, int shaderId, int textureId, int depth) {
+        return ((long) (layer & ((1 << LAYER_BITS) - 1)) << (SHADER_BITS + TEXTURE_BITS + DEPTH_BITS))
+                | ((long) (shaderId & ((1 << SHADER_BITS) - 1)) << (TEXTURE_BITS + DEPTH_BITS))
+                | ((long) (textureId & ((1 << TEXTURE_BITS) - 1)) << DEPTH_BITS)
+                | (depth & ((1 << DEPTH_BITS) - 1));
+    }
+
+    public static int layerOf(long key) {
+        return (int) (key >>> (SHADER_BITS + TEXTURE_BITS + DEPTH_BITS));
+    }
+
+    public void reset() {
+        count = 0;
+        resourceCount = 0;
+        extraCount = 0;
+        viewCount = 0;
+        instances.clear();
+    }
+
+    // Guarda una matriz de cámara y devuelve su índice para los comandos siguientes
+    public int addView(float[] matrix) {
+        if ((viewCount + 1) * 16 > views.length) {
+            views = Arrays.copyOf(views, views.length * 2);
+        }
+        System.arraycopy(matrix, 0, views, viewCount * 16, 16);
+        return viewCount++;
+    }
+
+    public void addInstances(long key, int viewIndex, int shaderId, int textureId, FloatBuffer data, int instanceCount) {
+        int index = nextCommand(key, INSTANCES, viewIndex, shaderId, textureId);
+        first[index] = copyInstances(data, instanceCount);
+        size[index] = instanceCount;
+    }
+
+    public void addLayers(long key, int viewIndex, int shaderId, int textureArrayId, int layerCount, float[] layerOffsets,
+                          float x, float y, float width, float height) {
+        int index = nextCommand(key, LAYERS, viewIndex, shaderId, textureArrayId);
+        int start = reserveExtra(4 + layerCount * 2);
+        extra[start] = x;
+        extra[start + 1] = y;
+        extra[start + 2] = width;
+        extra[start + 3] = height;
+        System.arraycopy(layerOffsets, 0, extra, start + 4, layerCount * 2);
+        first[index] = start;
+        size[index] = layerCount;
+    }
+
+    public void addStatic(long key, int viewIndex, int shaderId, int textureId, int handle, int instanceCount) {
+        int index = nextCommand(key, STATIC, viewIndex, shaderId, textureId);
+        first[index] = handle;
+        size[index] = instanceCount;
+    }
+
+    // Crear o actualizar geometría estática; "handle" es el del CommandRenderBackend, no el del backend real
+    public void addResource(byte op, int handle, FloatBuffer data, int instanceCount) {
+        if (resourceCount == resourceOp.length) {
+            int capacity = resourceCount * 2;
+            resourceOp = Arrays.copyOf(resourceOp, capacity);
+            resourceHandle = Arrays.copyOf(resourceHandle, capacity);
+            resourceFirst = Arrays.copyOf(resourceFirst, capacity);
+            resourceSize = Arrays.copyOf(resourceSize, capacity);
+        }
+        int index = resourceCount++;
+        resourceOp[index] = op;
+        resourceHandle[index] = handle;
+        resourceFirst[index] = data != null ? copyInstances(data, instanceCount) : 0;
+        resourceSize[index] = instanceCount;
+    }
+
+    private int nextCommand(long key, byte commandType, int viewIndex, int shaderId, int textureId) {
+        if (count == keys.length) {
+            grow(count * 2);
+        }
+        int index = count++;
+        keys[index] = key;
+        type[index] = commandType;
+        view[index] = viewIndex;
+        shader[index] = shaderId;
+        texture[index] = textureId;
+        return index;
+    }
+
+    // Copia las instancias al final del buffer propio y devuelve el float donde empiezan
+    private int copyInstances(FloatBuffer data, int instanceCount) {
+        int floats = instanceCount * SpriteBatch.FLOATS_PER_SPRITE;
+        if (instances.remaining() < floats) {
+            int needed = instances.position() + floats;
+            FloatBuffer larger = BufferUtils.createFloatBuffer(Math.max(needed, instances.capacity() * 2));
+            instances.flip();
+            larger.put(instances);
+            instances = larger;
+        }
+        int start = instances.position();
+        instances.put(start, data, data.position(), floats);
+        instances.position(start + floats);
+        return start;
+    }
+
+    private int reserveExtra(int floats) {
+        if (extraCount + floats > extra.length) {
+            extra = Arrays.copyOf(extra, Math.max(extraCount + floats, extra.length * 2));
+        }
+        int start = extraCount;
+        extraCount += floats;
+        return start;
+    }
+
+    private void grow(int capacity) {
+        keys = Arrays.copyOf(keys, capacity);
+        type = Arrays.copyOf(type, capacity);
+        shader = Arrays.copyOf(shader, capacity);
+        texture = Arrays.copyOf(texture, capacity);
+        view = Arrays.copyOf(view, capacity);
+        first = Arrays.copyOf(first, capacity);
+        size = Arrays.copyOf(size, capacity);
+        order = new int[capacity];
+        orderScratch = new int[capacity];
+        sortedKeys = new long[capacity];
+        keyScratch = new long[capacity];
+    }
+
+    /**
+     * Radix sort LSD de las claves, un byte por pasada. Los ocho histogramas se
+     * cuentan en una sola lectura y se saltan las pasadas en las que todas las
+     * claves tienen el mismo byte (lo normal en capa y shader). Es estable: a
+     * igual clave se respeta el orden de llegada.
+     */
+    public void sort() {
+        long start = System.nanoTime();
+        int n = count;
+        int[] src = order;
+        int[] dst = orderScratch;
+        long[] srcKeys = sortedKeys;
+        long[] dstKeys = keyScratch;
+        int[] counts = histograms;
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < n; i++) {
+            long key = keys[i];
+            src[i] = i;
+            srcKeys[i] = key;
+            for (int pass = 0; pass < 8; pass++) {
+                counts[pass * 256 + (int) ((key >>> (pass * 8)) & 0xFF)]++;
+            }
+        }
+
+        for (int pass = 0; pass < 8 && n > 1; pass++) {
+            int base = pass * 256;
+            int shift = pass * 8;
+            if (counts[base + (int) ((srcKeys[0] >>> shift) & 0xFF)] == n) {
+                continue;
+            }
+            int offset = 0;
+            for (int b = 0; b < 256; b++) {
+                int c = counts[base + b];
+                counts[base + b] = offset;
+                offset += c;
+            }
+            for (int i = 0; i < n; i++) {
+                long key = srcKeys[i];
+                int position = counts[base + (int) ((key >>> shift) & 0xFF)]++;
+                dst[position] = src[i];
+                dstKeys[position] = key;
+            }
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+            long[] swapKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = swapKeys;
+        }
+
+        order = src;
+        orderScratch = dst;
+        sortedKeys = srcKeys;
+        keyScratch = dstKeys;
+        lastSortNanos = System.nanoTime() - start;
+    }
+
+    // Índice del comando que va en la posición "position" tras sort()
+    public int sortedCommand(int position) {
+        return order[position];
+    }
+
+    public long sortedKey(int position) {
+        return sortedKeys[position];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getResourceCount() {
+        return resourceCount;
+    }
+
+    public int getInstanceFloats() {
+        return instances.position();
+    }
+
+    public long getLastSortNanos() {
+        return lastSortNanos;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,305 @@
+package org.printed.chat;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cola de frames entre el hilo del juego, que escribe comandos, y el de
+ * render, que los ordena y los ejecuta sobre el {@link RenderBackend} real.
+ * Hay un número fijo de {@link RenderCommandBuffer} (dos por defecto): el
+ * juego escribe el frame N mientras el render envía el N-1, y si el render se
+ * retrasa el juego espera a que quede un buffer libre.
+ * <p>
+ * Al ejecutar, los comandos de instancias consecutivos con el mismo shader,
+ * textura y cámara se juntan en una sola llamada mientras quepan en el lote.
+ * La geometría estática se crea y actualiza antes de los dibujos del frame y
+ * se borra después de ellos (ver {@link RenderBackend#createStaticInstances}).
+ */
+public class RenderCommandQueue {
+
+    public static final int DEFAULT_BUFFERS = 2;
+
+    private final BlockingQueue<RenderCommandBuffer> free;
+    private final BlockingQueue<RenderCommandBuffer> filled;
+    private final int batchCapacity;
+    private volatile boolean closed = false;
+
+    // Sólo los usa el hilo que ejecuta
+    private final FloatBuffer staging;
+    private final float[] viewScratch = new float[16];
+    private float[] layerScratch = new float[16];
+    private int[] staticHandles = new int[16];
+
+    // Estadísticas (del hilo que ejecuta salvo las de espera)
+    private volatile long producerWaitNanos = 0;
+    private volatile int maxQueueDepth = 0;
+    private volatile int lastQueueDepth = 0;
+    private long frames = 0;
+    private long totalCommands = 0;
+    private int lastCommands = 0;
+    private int maxCommands = 0;
+    private int lastDraws = 0;
+    private long lastSortNanos = 0;
+    private long totalSortNanos = 0;
+    private long maxSortNanos = 0;
+
+    // "batchCapacity" es el máximo de instancias por llamada que admite el backend real
+    public RenderCommandQueue(int buffers, int commandCapacity, int batchCapacity) {
+        if (buffers < 1) {
+            throw new IllegalArgumentException("Hace falta al menos un buffer de comandos: " + buffers);
+        }
+        this.free = new ArrayBlockingQueue<>(buffers);
+        this.filled = new ArrayBlockingQueue<>(buffers);
+        this.batchCapacity = batchCapacity;
+        for (int i = 0; i < buffers; i++) {
+            free.add(new RenderCommandBuffer(commandCapacity, batchCapacity * 4));
+        }
+        this.staging = BufferUtils.createFloatBuffer(batchCapacity * SpriteBatch.FLOATS_PER_SPRITE);
+    }
+
+    /**
+     * Buffer libre para escribir el siguiente frame; espera si el render va
+     * retrasado. Devuelve null si la cola se ha cerrado.
+     */
+    public RenderCommandBuffer acquire() {
+        long start = System.nanoTime();
+        try {
+            RenderCommandBuffer buffer;
+            while ((buffer = free.poll(10, TimeUnit.MILLISECONDS)) == null) {
+                if (closed) {
+                    return null;
+                }
+            }
+            buffer.reset();
+            return buffer;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            producerWaitNanos += System.nanoTime() - start;
+        }
+    }
+
+    // Entrega el frame escrito al render
+    public void submit(RenderCommandBuffer buffer) {
+        filled.add(buffer);
+        int depth = filled.size();
+        lastQueueDepth = depth;
+        if (depth > maxQueueDepth) {
+            maxQueueDepth = depth;
+        }
+    }
+
+    // Siguiente frame por ejecutar, o null si se agota el tiempo o la cola se cierra
+    public RenderCommandBuffer take(long timeoutNanos) throws InterruptedException {
+        return filled.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Siguiente frame por ejecutar sin esperar, o null; para ejecutar en el mismo hilo que escribe
+    public RenderCommandBuffer poll() {
+        return filled.poll();
+    }
+
+    // Devuelve el buffer ya ejecutado para que el juego pueda reutilizarlo
+    public void release(RenderCommandBuffer buffer) {
+        free.add(buffer);
+    }
+
+    // Despierta a quien espere un buffer libre; acquire() devuelve null a partir de ahora
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Ordena el frame y lo ejecuta sobre "target" entre beginFrame() y
+     * endFrame(). Debe llamarse siempre desde el mismo hilo (el del contexto GL).
+     */
+    public void execute(RenderCommandBuffer buffer, RenderBackend target) {
+        buffer.sort();
+        updateSortStats(buffer);
+        target.beginFrame();
+        FloatBuffer data = buffer.instances.duplicate();
+
+        // Crear y actualizar antes de los dibujos; borrar después, cuando ya nadie la dibuja
+        applyResources(buffer, target, data, false);
+
+        int currentView = -1;
+        int draws = 0;
+        int runShader = 0;
+        int runTexture = 0;
+        int runInstances = 0;
+        staging.clear();
+        for (int position = 0, n = buffer.count; position < n; position++) {
+            int command = buffer.sortedCommand(position);
+            byte commandType = buffer.type[command];
+            int commandView = buffer.view[command];
+            int shaderId = buffer.shader[command];
+            int textureId = buffer.texture[command];
+            int count = buffer.size[command];
+
+            // Seguir juntando instancias mientras no cambie nada y quepan
+            if (commandType == RenderCommandBuffer.INSTANCES && runInstances > 0 && commandView == currentView
+                    && shaderId == runShader && textureId == runTexture && runInstances + count <= batchCapacity) {
+                stage(buffer.instances, buffer.first[command], count);
+                runInstances += count;
+                continue;
+            }
+            if (runInstances > 0) {
+                target.drawInstances(runShader, runTexture, staging.flip(), runInstances);
+                staging.clear();
+                runInstances = 0;
+                draws++;
+            }
+            if (commandView != currentView && commandView >= 0) {
+                target.setViewProjection(viewMatrix(buffer, commandView));
+                currentView = commandView;
+            }
+
+            switch (commandType) {
+                case RenderCommandBuffer.INSTANCES:
+                    if (count > batchCapacity) {
+                        // Más grande que un lote: va directamente
+                        target.drawInstances(shaderId, textureId, slice(data, buffer.first[command], count),
+                                count);
+                        draws++;
+                    } else {
+                        stage(buffer.instances, buffer.first[command], count);
+                        runShader = shaderId;
+                        runTexture = textureId;
+                        runInstances = count;
+                    }
+                    break;
+                case RenderCommandBuffer.LAYERS: {
+                    int start = buffer.first[command];
+                    float[] extra = buffer.extra;
+                    if (layerScratch.length < count * 2) {
+                        layerScratch = new float[count * 2];
+                    }
+                    System.arraycopy(extra, start + 4, layerScratch, 0, count * 2);
+                    target.drawLayers(textureId, count, layerScratch,
+                            extra[start], extra[start + 1], extra[start + 2], extra[start + 3]);
+                    draws++;
+                    break;
+                }
+                default:
+                    target.drawStaticInstances(shaderId, textureId, staticHandles[buffer.first[command]], count);
+                    draws++;
+                    break;
+            }
+        }
+        if (runInstances > 0) {
+            target.drawInstances(runShader, runTexture, staging.flip(), runInstances);
+            draws++;
+        }
+        applyResources(buffer, target, data, true);
+
+        target.endFrame();
+        lastDraws = draws;
+    }
+
+    // Operaciones sobre geometría estática en el orden en que llegaron: sólo los borrados o sólo el resto
+    private void applyResources(RenderCommandBuffer buffer, RenderBackend target, FloatBuffer data, boolean deletes) {
+        for (int i = 0; i < buffer.resourceCount; i++) {
+            byte op = buffer.resourceOp[i];
+            if ((op == RenderCommandBuffer.DELETE_STATIC) != deletes) {
+                continue;
+            }
+            int handle = buffer.resourceHandle[i];
+            switch (op) {
+                case RenderCommandBuffer.CREATE_STATIC:
+                    if (handle >= staticHandles.length) {
+                        staticHandles = Arrays.copyOf(staticHandles, Math.max(handle + 1, staticHandles.length * 2));
+                    }
+                    staticHandles[handle] = target.createStaticInstances(
+                            slice(data, buffer.resourceFirst[i], buffer.resourceSize[i]),
+                            buffer.resourceSize[i]);
+                    break;
+                case RenderCommandBuffer.UPDATE_STATIC:
+                    target.updateStaticInstances(staticHandles[handle],
+                            slice(data, buffer.resourceFirst[i], buffer.resourceSize[i]),
+                            buffer.resourceSize[i]);
+                    break;
+                default:
+                    target.deleteStaticInstances(staticHandles[handle]);
+                    break;
+            }
+        }
+    }
+
+    private void updateSortStats(RenderCommandBuffer buffer) {
+        frames++;
+        lastCommands = buffer.count;
+        maxCommands = Math.max(maxCommands, lastCommands);
+        totalCommands += lastCommands;
+        lastSortNanos = buffer.getLastSortNanos();
+        totalSortNanos += lastSortNanos;
+        maxSortNanos = Math.max(maxSortNanos, lastSortNanos);
+    }
+
+    // Apunta "view" (un duplicado del buffer de instancias) a las instancias de un comando
+    private static FloatBuffer slice(FloatBuffer view, int firstFloat, int instanceCount) {
+        view.limit(firstFloat + instanceCount * SpriteBatch.FLOATS_PER_SPRITE).position(firstFloat);
+        return view;
+    }
+
+    private void stage(FloatBuffer data, int firstFloat, int instanceCount) {
+        int floats = instanceCount * SpriteBatch.FLOATS_PER_SPRITE;
+        staging.put(staging.position(), data, firstFloat, floats);
+        staging.position(staging.position() + floats);
+    }
+
+    private float[] viewMatrix(RenderCommandBuffer buffer, int viewIndex) {
+        System.arraycopy(buffer.views, viewIndex * 16, viewScratch, 0, 16);
+        return viewScratch;
+    }
+
+    public int getLastQueueDepth() {
+        return lastQueueDepth;
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public long getProducerWaitNanos() {
+        return producerWaitNanos;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public int getLastCommands() {
+        return lastCommands;
+    }
+
+    public int getLastDraws() {
+        return lastDraws;
+    }
+
+    public long getLastSortNanos() {
+        return lastSortNanos;
+    }
+
+    public long getMaxSortNanos() {
+        return maxSortNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("frames=%d comandos/frame=%.1f (máx %d) llamadas último frame=%d, "
+                        + "ordenación media=%.1f µs (máx %.1f µs), cola máx=%d, espera del juego=%.1f ms",
+                frames, frames > 0 ? (double) totalCommands / frames : 0.0, maxCommands, lastDraws,
+                frames > 0 ? totalSortNanos / 1000.0 / frames : 0.0, maxSortNanos / 1000.0, maxQueueDepth,
+                producerWaitNanos / 1_000_000.0);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package org.printed.chat;
+
+/**
+ * Hilo que ejecuta los frames de una {@link RenderCommandQueue} sobre el
+ * backend real. Con GL, {@link Hooks#attach} hace actual el contexto en este
+ * hilo y {@link Hooks#afterFrame} presenta el frame; sin GL (pruebas, modos
+ * sin ventana) basta con un backend que no dibuje.
+ */
+public class RenderThread {
+
+    // Trabajo propio del hilo de render alrededor de cada frame
+    public interface Hooks {
+        default void attach() {
+        }
+
+        default void beforeFrame() {
+        }
+
+        default void afterFrame() {
+        }
+
+        default void detach() {
+        }
+    }
+
+    private static final long POLL_NANOS = 10_000_000L;
+
+    private final RenderCommandQueue queue;
+    private final RenderBackend target;
+    private final Hooks hooks;
+    private final Thread thread;
+    private volatile boolean running = false;
+    private volatile Throwable failure;
+
+    public RenderThread(RenderCommandQueue queue, RenderBackend target, Hooks hooks) {
+        this.queue = queue;
+        this.target = target;
+        this.hooks = hooks;
+        this.thread = new Thread(this::run, "render");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            hooks.attach();
+            try {
+                while (true) {
+                    RenderCommandBuffer buffer = queue.take(POLL_NANOS);
+                    if (buffer == null) {
+                        if (!running) {
+                            break;
+                        }
+                        continue;
+                    }
+                    try {
+                        hooks.beforeFrame();
+                        queue.execute(buffer, target);
+                        hooks.afterFrame();
+                    } finally {
+                        queue.release(buffer);
+                    }
+                }
+            } finally {
+                hooks.detach();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            failure = e;
+            // Que el juego no se quede esperando un buffer libre
+            queue.close();
+        }
+    }
+
+    /**
+     * Ejecuta los frames que queden pendientes y para el hilo. Tras volver, el
+     * contexto GL vuelve a estar libre para otro hilo.
+     */
+    public void stop() {
+        running = false;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isAlive() {
+        return thread.isAlive();
+    }
+
+    // Error que paró el hilo, o null
+    public Throwable getFailure() {
+        return failure;
+    }
+}
\ No newline at end of file
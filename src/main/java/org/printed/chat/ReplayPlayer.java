@@ -0,0 +1,164 @@
+package org.printed.chat;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reproduce una grabación de {@link ReplayRecorder} sin ventana: reconstruye el
+ * mundo inicial, vuelve a encolar en cada paso los mismos eventos de entrada y
+ * compara el hash del estado con el grabado. El archivo se lee entero antes de
+ * empezar para que la E/S no cuente en el tiempo.
+ */
+public class ReplayPlayer {
+
+    private final Scene scene;
+    private final DataInputStream in;
+    private final float stepSeconds;
+
+    private long ticks = 0;
+    private long mismatches = 0;
+    private long firstMismatch = -1;
+    private long nanos = 0;
+
+    public ReplayPlayer(Path path) throws IOException {
+        in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)));
+        if (in.readInt() != ReplayRecorder.MAGIC) {
+            throw new IOException("No es una grabación: " + path);
+        }
+        int version = in.readInt();
+        if (version != ReplayRecorder.VERSION) {
+            throw new IOException("Versión de grabación no soportada: " + version);
+        }
+        stepSeconds = in.readFloat();
+        int count = in.readInt();
+        int playerIndex = in.readInt();
+        float cameraX = in.readFloat();
+        float cameraY = in.readFloat();
+        float cameraZoom = in.readFloat();
+        boolean followPlayer = in.readBoolean();
+
+        // Crear las entidades en el mismo orden denso para que los hashes coincidan
+        scene = new Scene(Math.max(count, 1));
+        EntityWorld world = scene.getWorld();
+        for (int i = 0; i < count; i++) {
+            if (i == playerIndex) {
+                scene.createPlayer(TextureHandle.ready("replay-player", 1));
+            } else {
+                world.create(0.0f, 0.0f, 0.0f, 0.0f, 0);
+            }
+        }
+        int maxSprite = 0;
+        for (int i = 0; i < count; i++) {
+            world.posX[i] = in.readFloat();
+            world.posY[i] = in.readFloat();
+            world.prevX[i] = in.readFloat();
+            world.prevY[i] = in.readFloat();
+            world.velX[i] = in.readFloat();
+            world.velY[i] = in.readFloat();
+            world.width[i] = in.readFloat();
+            world.height[i] = in.readFloat();
+            world.sprite[i] = in.readInt();
+            maxSprite = Math.max(maxSprite, world.sprite[i]);
+        }
+        // Texturas de relleno para poder dibujar todos los sprites grabados
+        int registered = scene.getPlayer() != null ? 1 : 0;
+        while (registered <= maxSprite) {
+            scene.registerSprite(TextureHandle.ready("replay-" + registered, registered + 1));
+            registered++;
+        }
+
+        Camera2D camera = scene.getCamera();
+        camera.setPosition(cameraX, cameraY);
+        camera.setZoom(cameraZoom);
+        if (followPlayer && scene.getPlayer() != null) {
+            camera.follow(world, scene.getPlayer().getEntity());
+        }
+    }
+
+    /**
+     * Avanza un paso con la entrada grabada y comprueba su hash. Devuelve false
+     * cuando ya no quedan pasos.
+     */
+    public boolean step() throws IOException {
+        if (in.available() == 0) {
+            return false;
+        }
+        InputQueue queue = scene.getInput().getQueue();
+        int eventCount = readVarInt();
+        for (int i = 0; i < eventCount; i++) {
+            int type = in.readUnsignedByte();
+            int code = in.readShort();
+            int action = in.readUnsignedByte();
+            float x = 0.0f;
+            float y = 0.0f;
+            if (type == InputQueue.CURSOR) {
+                x = in.readFloat();
+                y = in.readFloat();
+            }
+            queue.offer(type, code, action, x, y);
+        }
+        long expected = in.readLong();
+
+        long start = System.nanoTime();
+        scene.update(stepSeconds);
+        nanos += System.nanoTime() - start;
+
+        if (scene.stateHash() != expected) {
+            if (firstMismatch < 0) {
+                firstMismatch = ticks;
+            }
+            mismatches++;
+        }
+        ticks++;
+        return true;
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            if (shift > 28) {
+                throw new IOException("Varint demasiado largo en la grabación");
+            }
+        }
+    }
+
+    public Scene getScene() {
+        return scene;
+    }
+
+    public float getStepSeconds() {
+        return stepSeconds;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getMismatches() {
+        return mismatches;
+    }
+
+    // Primer paso cuyo hash no coincide, o -1
+    public long getFirstMismatch() {
+        return firstMismatch;
+    }
+
+    // Pasos por segundo contando sólo la simulación
+    public double getTicksPerSecond() {
+        return nanos == 0 ? 0.0 : ticks * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d pasos, %.0f pasos/s, %s", ticks, getTicksPerSecond(),
+                mismatches == 0 ? "hashes iguales" : mismatches + " hashes distintos (primero en el paso " + firstMismatch + ")");
+    }
+}
\ No newline at end of file
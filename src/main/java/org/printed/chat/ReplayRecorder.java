@@ -0,0 +1,167 @@
+package org.printed.chat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Graba una partida para reproducirla con {@link ReplayPlayer}: una cabecera
+ * con el estado inicial del mundo y la cámara y, por cada paso de simulación,
+ * los eventos de entrada que aplicó {@link Input#tick()} y el hash del estado
+ * resultante.
+ * <p>
+ * Formato (big endian): "RPLY", versión, paso en segundos, número de entidades,
+ * índice del jugador (-1 si no hay), cámara (x, y, zoom, ¿sigue al jugador?) y
+ * las entidades en orden denso. Después, por paso: número de eventos como
+ * varint, cada evento (tipo, código, acción y, si es del cursor, x e y) y el
+ * hash de 64 bits. Un paso sin eventos ocupa 9 bytes.
+ */
+public class ReplayRecorder implements InputQueue.EventConsumer, AutoCloseable {
+
+    static final int MAGIC = 0x52504C59; // "RPLY"
+    static final int VERSION = 1;
+
+    private final Path path;
+    private final DataOutputStream out;
+    private Scene scene;
+
+    // Eventos del paso en curso
+    private int[] types = new int[16];
+    private int[] codes = new int[16];
+    private int[] actions = new int[16];
+    private float[] xs = new float[16];
+    private float[] ys = new float[16];
+    private int eventCount = 0;
+
+    private int headerBytes = 0;
+    private long ticks = 0;
+    private long events = 0;
+    private boolean failed = false;
+
+    public ReplayRecorder(Path path) throws IOException {
+        this.path = path;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+    }
+
+    // Escribe el estado inicial y empieza a recibir la entrada de la escena
+    public void begin(Scene scene, float stepSeconds) throws IOException {
+        if (this.scene != null) {
+            throw new IllegalStateException("La grabación ya había empezado");
+        }
+        this.scene = scene;
+        EntityWorld world = scene.getWorld();
+        Camera2D camera = scene.getCamera();
+        Player player = scene.getPlayer();
+        long playerEntity = player != null ? player.getEntity() : EntityWorld.INVALID;
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeFloat(stepSeconds);
+        out.writeInt(world.size());
+        out.writeInt(world.indexOf(playerEntity));
+        out.writeFloat(camera.getX());
+        out.writeFloat(camera.getY());
+        out.writeFloat(camera.getZoom());
+        out.writeBoolean(playerEntity != EntityWorld.INVALID && camera.getFollowTarget() == playerEntity);
+        for (int i = 0; i < world.size(); i++) {
+            out.writeFloat(world.posX[i]);
+            out.writeFloat(world.posY[i]);
+            out.writeFloat(world.prevX[i]);
+            out.writeFloat(world.prevY[i]);
+            out.writeFloat(world.velX[i]);
+            out.writeFloat(world.velY[i]);
+            out.writeFloat(world.width[i]);
+            out.writeFloat(world.height[i]);
+            out.writeInt(world.sprite[i]);
+        }
+
+        headerBytes = out.size();
+        scene.getInput().setListener(this);
+        scene.setRecorder(this);
+    }
+
+    // Evento aplicado por Input.tick(); se guarda con el paso en curso
+    @Override
+    public void accept(int type, int code, int action, float x, float y) {
+        if (eventCount == types.length) {
+            int capacity = eventCount * 2;
+            types = Arrays.copyOf(types, capacity);
+            codes = Arrays.copyOf(codes, capacity);
+            actions = Arrays.copyOf(actions, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+        types[eventCount] = type;
+        codes[eventCount] = code;
+        actions[eventCount] = action;
+        xs[eventCount] = x;
+        ys[eventCount] = y;
+        eventCount++;
+    }
+
+    // Lo llama Scene.update() al acabar cada paso
+    void endTick(long stateHash) {
+        if (failed) {
+            return;
+        }
+        try {
+            writeVarInt(eventCount);
+            for (int i = 0; i < eventCount; i++) {
+                out.writeByte(types[i]);
+                out.writeShort(codes[i]);
+                out.writeByte(actions[i]);
+                if (types[i] == InputQueue.CURSOR) {
+                    out.writeFloat(xs[i]);
+                    out.writeFloat(ys[i]);
+                }
+            }
+            out.writeLong(stateHash);
+        } catch (IOException e) {
+            // No parar el juego por la grabación: se deja de grabar y ya
+            System.err.println("Error al grabar la repetición " + path + ": " + e.getMessage());
+            failed = true;
+        }
+        events += eventCount;
+        eventCount = 0;
+        ticks++;
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (scene != null) {
+            scene.getInput().setListener(null);
+            scene.setRecorder(null);
+            scene = null;
+        }
+        out.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d pasos, %d eventos, %d bytes (%.1f bytes/paso sin la cabecera)", path.getFileName(),
+                ticks, events, out.size(), ticks == 0 ? 0.0 : (double) (out.size() - headerBytes) / ticks);
+    }
+}
\ No newline at end of file
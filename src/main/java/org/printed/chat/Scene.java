@@ -0,0 +1,192 @@
+package org.printed.chat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Contenido del juego: lo que se simula a paso fijo y se dibuja interpolado.
+ * Las entidades (incluido el jugador) viven en un {@link EntityWorld} que
+ * actualizan los sistemas de un {@link SystemScheduler}; tras los pasos de cada
+ * frame se publica una copia para el render en un {@link SnapshotExchange}.
+ */
+public class Scene implements Simulation {
+
+    // Capas de dibujo, de atrás hacia delante; ver RenderBackend.setLayer
+    public static final int LAYER_BACKGROUND = 0;
+    public static final int LAYER_TILES = 1;
+    public static final int LAYER_ENTITIES = 2;
+    public static final int LAYER_PARTICLES = 3;
+
+    private final EntityWorld world;
+    private final SystemScheduler scheduler;
+    private final SnapshotExchange snapshots = new SnapshotExchange();
+    private final Camera2D camera = new Camera2D();
+    private final Input input = new Input();
+    private final AnimationLibrary animations = new AnimationLibrary();
+    private final CullStats cullStats = new CullStats();
+    private final float[] viewProjection = new float[16];
+    private final List<ParticleSystem> particles = new ArrayList<>();
+    private TextureHandle[] sprites = new TextureHandle[8];
+    private int spriteCount = 0;
+
+    private Player player;
+    private Background background;
+    private TileMapRenderer tileMap;
+    private ReplayRecorder recorder;
+
+    public Scene() {
+        this(1024);
+    }
+
+    public Scene(int entityCapacity) {
+        this(entityCapacity, new SystemScheduler());
+    }
+
+    public Scene(int entityCapacity, SystemScheduler scheduler) {
+        this.world = new EntityWorld(entityCapacity);
+        this.scheduler = scheduler;
+        Player.bindDefaultKeys(input.getActions());
+
+        // El orden importa: el jugador fija su velocidad antes de que se integre
+        scheduler.add(EntitySystem.once("player", 0, EntityWorld.VELOCITY, deltaTime -> {
+            if (player != null) {
+                player.update(input.getSnapshot(), deltaTime);
+            }
+        }));
+        scheduler.add(EntitySystem.once("background", 0, EntityWorld.BACKGROUND, deltaTime -> {
+            if (background != null) {
+                background.update(deltaTime);
+            }
+        }));
+        scheduler.add(new MovementSystem());
+        scheduler.add(new AnimationSystem(animations));
+        scheduler.add(EntitySystem.once("particles", 0, EntityWorld.PARTICLES, deltaTime -> {
+            for (int i = 0, n = particles.size(); i < n; i++) {
+                particles.get(i).update(deltaTime);
+            }
+        }));
+        scheduler.add(EntitySystem.once("camera", EntityWorld.POSITION, EntityWorld.CAMERA, camera::update));
+    }
+
+    // Registra una textura y devuelve el ID de sprite que usan las entidades
+    public int registerSprite(TextureHandle texture) {
+        if (spriteCount == sprites.length) {
+            sprites = Arrays.copyOf(sprites, spriteCount * 2);
+        }
+        sprites[spriteCount] = texture;
+        return spriteCount++;
+    }
+
+    public Player createPlayer(TextureHandle texture) {
+        player = new Player(world, registerSprite(texture));
+        return player;
+    }
+
+    public void setBackground(Background background) {
+        this.background = background;
+    }
+
+    // Las partículas se simulan en cada paso y se dibujan encima de las entidades
+    public ParticleSystem addParticles(ParticleSystem system) {
+        particles.add(system);
+        return system;
+    }
+
+    public void setTileMap(TileMapRenderer tileMap) {
+        this.tileMap = tileMap;
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        // La entrada se fija al principio del paso y no cambia hasta el siguiente
+        input.tick();
+        scheduler.update(world, deltaTime);
+        if (recorder != null) {
+            recorder.endTick(stateHash());
+        }
+    }
+
+    // Hash del mundo y la cámara tras el último paso; ver EntityWorld.stateHash()
+    public long stateHash() {
+        return EntityWorld.mixHash(world.stateHash(),
+                Float.floatToRawIntBits(camera.getX()), Float.floatToRawIntBits(camera.getY()));
+    }
+
+    // Graba la entrada y el hash de cada paso a partir de ahora; null deja de grabar
+    public void setRecorder(ReplayRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    // Publica el estado actual para el render; basta una vez por frame, tras los pasos de simulación
+    public void publishSnapshot() {
+        snapshots.publish(world, camera, scheduler.getTicks());
+    }
+
+    public void render(SpriteBatch batch, float alpha) {
+        WorldSnapshot snapshot = snapshots.acquire();
+        float viewX = snapshot.getViewX(alpha);
+        float viewY = snapshot.getViewY(alpha);
+        float halfWidth = snapshot.getViewHalfWidth(alpha);
+        float halfHeight = snapshot.getViewHalfHeight(alpha);
+        Camera2D.viewProjection(viewX, viewY, halfWidth, halfHeight, viewProjection);
+        batch.setViewProjection(viewProjection);
+
+        if (background != null) {
+            batch.setLayer(LAYER_BACKGROUND);
+            background.render(batch, alpha, viewX, viewY, halfWidth * 2.0f, halfHeight * 2.0f);
+        }
+        if (tileMap != null) {
+            batch.setLayer(LAYER_TILES);
+            tileMap.render(batch, viewX - halfWidth, viewY - halfHeight, viewX + halfWidth, viewY + halfHeight);
+        }
+        batch.setLayer(LAYER_ENTITIES);
+        cullStats.beginFrame();
+        SpriteRenderSystem.render(snapshot, batch, alpha, sprites, animations, cullStats);
+        cullStats.endFrame();
+        batch.setLayer(LAYER_PARTICLES);
+        for (int i = 0, n = particles.size(); i < n; i++) {
+            particles.get(i).render(batch, alpha, viewX, viewY, halfWidth, halfHeight);
+        }
+    }
+
+    public EntityWorld getWorld() {
+        return world;
+    }
+
+    public SystemScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public Camera2D getCamera() {
+        return camera;
+    }
+
+    public AnimationLibrary getAnimations() {
+        return animations;
+    }
+
+    public Input getInput() {
+        return input;
+    }
+
+    public CullStats getCullStats() {
+        return cullStats;
+    }
+
+    public List<ParticleSystem> getParticles() {
+        return particles;
+    }
+
+    public TileMapRenderer getTileMap() {
+        return tileMap;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public Background getBackground() {
+        return background;
+    }
+}
\ No newline at end of file
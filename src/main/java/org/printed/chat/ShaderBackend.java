@@ -0,0 +1,38 @@
+package org.printed.chat;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Llamadas de GL que usa {@link ShaderLibrary}. Separarlas permite probar la
+ * caché de programas y el seguimiento de uniforms sin GPU.
+ */
+public interface ShaderBackend {
+
+    // Compila y enlaza; devuelve 0 si falla
+    int compileProgram(String name, String vertexSource, String fragmentSource);
+
+    // Identifica driver y versión: un binario sólo vale para el mismo driver
+    String getDriverId();
+
+    boolean supportsProgramBinary();
+
+    // Formato en los 4 primeros bytes y el binario a continuación, o null si no se puede obtener
+    ByteBuffer getProgramBinary(int programId);
+
+    // Crea el programa a partir de un binario guardado; devuelve 0 si el driver lo rechaza
+    int loadProgramBinary(ByteBuffer binary);
+
+    int getUniformLocation(int programId, String name);
+
+    void useProgram(int programId);
+
+    void uniform1i(int location, int value);
+
+    void uniform1f(int location, float value);
+
+    void uniform2f(int location, float x, float y);
+
+    void uniform4f(int location, float x, float y, float z, float w);
+
+    void deleteProgram(int programId);
+}
\ No newline at end of file
@@ -0,0 +1,281 @@
+package org.printed.chat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Programas de shader compartidos. Dos peticiones con el mismo código fuente
+ * devuelven el mismo {@link ShaderProgram}. Si el driver lo permite, los
+ * binarios enlazados se guardan en disco y se reutilizan en el siguiente
+ * arranque en lugar de compilar.
+ * <p>
+ * Los programas se pueden recargar por nombre con {@link #reload}: el
+ * {@link ShaderProgram} es el mismo y sólo cambia el programa GL de dentro.
+ * <p>
+ * Sólo debe usarse desde el hilo con el contexto GL.
+ */
+public class ShaderLibrary {
+
+    // Resultados de reload()
+    public static final int RELOADED = 0;
+    public static final int UNCHANGED = 1;
+    public static final int FAILED = 2;
+    public static final int UNKNOWN = 3;
+
+    private final ShaderBackend backend;
+    private final Path binaryCacheDir;
+    private final Map<String, ShaderProgram> programs = new HashMap<>();
+    // Por nombre, con las fuentes actuales (vértice, fragmento, hash) para recargarlo
+    private final Map<String, ShaderProgram> byName = new LinkedHashMap<>();
+    private final Map<String, String[]> sources = new HashMap<>();
+
+    private int compiled = 0;
+    private int loadedFromBinary = 0;
+    private int dedupHits = 0;
+    private int reloaded = 0;
+    private int failedReloads = 0;
+
+    // binaryCacheDir puede ser null para no guardar binarios
+    public ShaderLibrary(ShaderBackend backend, Path binaryCacheDir) {
+        this.backend = backend;
+        this.binaryCacheDir = binaryCacheDir;
+    }
+
+    /**
+     * Devuelve el programa para estas fuentes, compilándolo sólo la primera vez.
+     * Lanza IllegalStateException si no compila.
+     */
+    public ShaderProgram get(String name, String vertexSource, String fragmentSource) {
+        String key = sourceHash(vertexSource, fragmentSource);
+        ShaderProgram program = programs.get(key);
+        if (program != null) {
+            dedupHits++;
+            byName.putIfAbsent(name, program);
+            sources.putIfAbsent(name, new String[]{vertexSource, fragmentSource, key});
+            return program;
+        }
+
+        int programId = createProgram(name, key, vertexSource, fragmentSource);
+        if (programId == 0) {
+            throw new IllegalStateException("No se pudo crear el shader " + name);
+        }
+
+        program = new ShaderProgram(backend, name, programId);
+        programs.put(key, program);
+        byName.put(name, program);
+        sources.put(name, new String[]{vertexSource, fragmentSource, key});
+        return program;
+    }
+
+    /**
+     * Recompila el programa "name" con fuentes nuevas (null deja la etapa como
+     * está) y cambia el programa GL detrás del mismo ShaderProgram. Devuelve
+     * {@link #RELOADED}, {@link #UNCHANGED} si las fuentes son las que ya tiene,
+     * {@link #FAILED} si no compila (se queda el último que funcionaba) o
+     * {@link #UNKNOWN} si no hay ningún programa con ese nombre.
+     */
+    public int reload(String name, String vertexSource, String fragmentSource) {
+        ShaderProgram program = byName.get(name);
+        if (program == null) {
+            return UNKNOWN;
+        }
+        String[] current = sources.get(name);
+        String vertex = vertexSource != null ? vertexSource : current[0];
+        String fragment = fragmentSource != null ? fragmentSource : current[1];
+        String oldKey = current[2];
+        String key = sourceHash(vertex, fragment);
+        if (key.equals(oldKey)) {
+            return UNCHANGED;
+        }
+
+        int programId = createProgram(name, key, vertex, fragment);
+        if (programId == 0) {
+            failedReloads++;
+            System.err.println("El shader " + name + " no compila; se mantiene la versión anterior");
+            return FAILED;
+        }
+
+        backend.deleteProgram(program.getProgramId());
+        program.replace(programId);
+        programs.remove(oldKey, program);
+        programs.putIfAbsent(key, program);
+        current[0] = vertex;
+        current[1] = fragment;
+        current[2] = key;
+        reloaded++;
+        return RELOADED;
+    }
+
+    // Desde el binario guardado si lo hay; si no, compila. Devuelve 0 si falla
+    private int createProgram(String name, String key, String vertexSource, String fragmentSource) {
+        int programId = loadBinary(key);
+        if (programId != 0) {
+            loadedFromBinary++;
+        } else {
+            programId = backend.compileProgram(name, vertexSource, fragmentSource);
+            if (programId == 0) {
+                return 0;
+            }
+            compiled++;
+            saveBinary(key, programId);
+        }
+        return programId;
+    }
+
+    /**
+     * Escribe las fuentes de cada programa como "nombre.vert" y "nombre.frag" en
+     * dir, sin pisar las que ya existan, para poder editarlas y recargarlas.
+     * Devuelve cuántos ficheros ha creado.
+     */
+    public int exportSources(Path dir) {
+        int written = 0;
+        try {
+            Files.createDirectories(dir);
+            for (Map.Entry<String, String[]> entry : sources.entrySet()) {
+                written += writeIfMissing(dir.resolve(entry.getKey() + ".vert"), entry.getValue()[0]);
+                written += writeIfMissing(dir.resolve(entry.getKey() + ".frag"), entry.getValue()[1]);
+            }
+        } catch (IOException e) {
+            System.err.println("Error al exportar los shaders a " + dir + ": " + e.getMessage());
+        }
+        return written;
+    }
+
+    private static int writeIfMissing(Path path, String source) throws IOException {
+        if (Files.exists(path)) {
+            return 0;
+        }
+        Files.writeString(path, source);
+        return 1;
+    }
+
+    public boolean hasProgram(String name) {
+        return byName.containsKey(name);
+    }
+
+    // Fuente actual de una etapa del programa "name", o null si no existe
+    public String getSource(String name, boolean vertex) {
+        String[] current = sources.get(name);
+        return current == null ? null : current[vertex ? 0 : 1];
+    }
+
+    static String sourceHash(String vertexSource, String fragmentSource) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(vertexSource.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(fragmentSource.getBytes(StandardCharsets.UTF_8));
+            return toHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    // El binario depende del driver, así que el nombre del fichero incluye también su identificador
+    private Path binaryPath(String key) {
+        String driverHash = sourceHash(backend.getDriverId(), "").substring(0, 16);
+        return binaryCacheDir.resolve(key.substring(0, 32) + "-" + driverHash + ".bin");
+    }
+
+    private int loadBinary(String key) {
+        if (binaryCacheDir == null || !backend.supportsProgramBinary()) {
+            return 0;
+        }
+        Path path = binaryPath(key);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer binary = ByteBuffer.allocateDirect((int) channel.size());
+            while (binary.hasRemaining() && channel.read(binary) != -1) {
+                // Leer el fichero completo
+            }
+            binary.flip();
+            return binary.remaining() > 4 ? backend.loadProgramBinary(binary) : 0;
+        } catch (IOException e) {
+            System.err.println("Error al leer el binario de shader " + path + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private void saveBinary(String key, int programId) {
+        if (binaryCacheDir == null || !backend.supportsProgramBinary()) {
+            return;
+        }
+        ByteBuffer binary = backend.getProgramBinary(programId);
+        if (binary == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(binaryCacheDir);
+            try (FileChannel channel = FileChannel.open(binaryPath(key), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (binary.hasRemaining()) {
+                    channel.write(binary);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error al guardar el binario de shader: " + e.getMessage());
+        }
+    }
+
+    public int getCompiledCount() {
+        return compiled;
+    }
+
+    public int getLoadedFromBinaryCount() {
+        return loadedFromBinary;
+    }
+
+    public int getDedupHits() {
+        return dedupHits;
+    }
+
+    public int getReloadedCount() {
+        return reloaded;
+    }
+
+    public int getFailedReloadCount() {
+        return failedReloads;
+    }
+
+    public void cleanup() {
+        // Un programa recargado puede haber quedado sólo en byName si sus fuentes nuevas ya existían
+        Set<ShaderProgram> all = Collections.newSetFromMap(new IdentityHashMap<>());
+        all.addAll(programs.values());
+        all.addAll(byName.values());
+        for (ShaderProgram program : all) {
+            backend.deleteProgram(program.getProgramId());
+        }
+        programs.clear();
+        byName.clear();
+        sources.clear();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("programas=%d compilados=%d desde binario=%d reutilizados=%d recargados=%d fallidos=%d",
+                programs.size(), compiled, loadedFromBinary, dedupHits, reloaded, failedReloads);
+    }
+}
\ No newline at end of file
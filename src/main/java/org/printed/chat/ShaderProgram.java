@@ -0,0 +1,164 @@
+package org.printed.chat;
+
+import java.util.Arrays;
+
+/**
+ * Programa enlazado con su caché de ubicaciones de uniforms y el último valor
+ * enviado a cada una. Los valores repetidos no se vuelven a subir.
+ * <p>
+ * Los setters asumen que el programa está en uso (ver {@link #bind()}), igual
+ * que glUniform*.
+ */
+public class ShaderProgram {
+
+    private static final int NO_LOCATION = -1;
+    private static final int COMPONENTS = 4;
+
+    private final ShaderBackend backend;
+    private final String name;
+    // Cambia si el programa se recarga (ver ShaderLibrary.reload); el objeto sigue siendo el mismo
+    private int programId;
+
+    // Tabla hash abierta nombre -> ubicación, sin objetos Integer
+    private String[] names = new String[16];
+    private int[] locations = new int[16];
+    private int uniformCount = 0;
+
+    // Último valor por ubicación, como bits de float o int, y si ya se subió alguno
+    private int[] values = new int[0];
+    private boolean[] hasValue = new boolean[0];
+
+    private long uploads = 0;
+    private long skippedUploads = 0;
+
+    public ShaderProgram(ShaderBackend backend, String name, int programId) {
+        this.backend = backend;
+        this.name = name;
+        this.programId = programId;
+    }
+
+    public void bind() {
+        backend.useProgram(programId);
+    }
+
+    public int getUniformLocation(String uniform) {
+        int mask = names.length - 1;
+        int slot = uniform.hashCode() & mask;
+        while (names[slot] != null) {
+            if (names[slot].equals(uniform)) {
+                return locations[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Primera vez: preguntar al driver y recordarlo, aunque no exista (-1)
+        int location = backend.getUniformLocation(programId, uniform);
+        names[slot] = uniform;
+        locations[slot] = location;
+        if (++uniformCount * 2 > names.length) {
+            grow();
+        }
+        return location;
+    }
+
+    private void grow() {
+        String[] oldNames = names;
+        int[] oldLocations = locations;
+        names = new String[oldNames.length * 2];
+        locations = new int[oldNames.length * 2];
+        int mask = names.length - 1;
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null) {
+                int slot = oldNames[i].hashCode() & mask;
+                while (names[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                names[slot] = oldNames[i];
+                locations[slot] = oldLocations[i];
+            }
+        }
+    }
+
+    public void setUniform1i(String uniform, int value) {
+        int location = getUniformLocation(uniform);
+        if (changed(location, value, 0, 0, 0)) {
+            backend.uniform1i(location, value);
+        }
+    }
+
+    public void setUniform1f(String uniform, float value) {
+        int location = getUniformLocation(uniform);
+        if (changed(location, Float.floatToRawIntBits(value), 0, 0, 0)) {
+            backend.uniform1f(location, value);
+        }
+    }
+
+    public void setUniform2f(String uniform, float x, float y) {
+        int location = getUniformLocation(uniform);
+        if (changed(location, Float.floatToRawIntBits(x), Float.floatToRawIntBits(y), 0, 0)) {
+            backend.uniform2f(location, x, y);
+        }
+    }
+
+    public void setUniform4f(String uniform, float x, float y, float z, float w) {
+        int location = getUniformLocation(uniform);
+        if (changed(location, Float.floatToRawIntBits(x), Float.floatToRawIntBits(y),
+                Float.floatToRawIntBits(z), Float.floatToRawIntBits(w))) {
+            backend.uniform4f(location, x, y, z, w);
+        }
+    }
+
+    // Compara con el último valor subido y lo actualiza; false si no hace falta subirlo
+    private boolean changed(int location, int a, int b, int c, int d) {
+        if (location == NO_LOCATION) {
+            return false;
+        }
+        if (location >= hasValue.length) {
+            int capacity = Math.max(location + 1, hasValue.length * 2);
+            hasValue = Arrays.copyOf(hasValue, capacity);
+            values = Arrays.copyOf(values, capacity * COMPONENTS);
+        }
+        int base = location * COMPONENTS;
+        if (hasValue[location] && values[base] == a && values[base + 1] == b
+                && values[base + 2] == c && values[base + 3] == d) {
+            skippedUploads++;
+            return false;
+        }
+        hasValue[location] = true;
+        values[base] = a;
+        values[base + 1] = b;
+        values[base + 2] = c;
+        values[base + 3] = d;
+        uploads++;
+        return true;
+    }
+
+    // Olvida los valores recordados (por ejemplo, tras recargar el programa)
+    public void invalidateUniforms() {
+        Arrays.fill(hasValue, false);
+    }
+
+    // Pasa a usar otro programa GL: las ubicaciones y los valores recordados ya no valen
+    void replace(int newProgramId) {
+        programId = newProgramId;
+        Arrays.fill(names, null);
+        uniformCount = 0;
+        invalidateUniforms();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getProgramId() {
+        return programId;
+    }
+
+    public long getUploads() {
+        return uploads;
+    }
+
+    public long getSkippedUploads() {
+        return skippedUploads;
+    }
+}
\ No newline at end of file
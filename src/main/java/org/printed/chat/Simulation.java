@@ -0,0 +1,10 @@
+package org.printed.chat;
+
+/**
+ * Estado del juego que avanza en pasos de tiempo fijos. No debe tocar GL para
+ * poder ejecutarse sin ventana.
+ */
+public interface Simulation {
+
+    void update(float deltaTime);
+}
\ No newline at end of file
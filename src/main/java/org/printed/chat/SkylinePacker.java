@@ -0,0 +1,165 @@
+package org.printed.chat;
+
+import java.util.Arrays;
+
+/**
+ * Empaquetador de rectángulos con el algoritmo "skyline" (bottom-left): guarda
+ * el perfil superior de lo ya colocado como una lista de segmentos horizontales
+ * y pone cada rectángulo donde quede más abajo.
+ */
+public class SkylinePacker {
+
+    private final int width;
+    private final int height;
+
+    // Segmentos del skyline: inicio en x, altura ocupada y ancho
+    private int[] nodeX;
+    private int[] nodeY;
+    private int[] nodeWidth;
+    private int nodeCount;
+
+    private long usedArea = 0;
+
+    public SkylinePacker(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.nodeX = new int[16];
+        this.nodeY = new int[16];
+        this.nodeWidth = new int[16];
+        reset();
+    }
+
+    public void reset() {
+        nodeCount = 1;
+        nodeX[0] = 0;
+        nodeY[0] = 0;
+        nodeWidth[0] = width;
+        usedArea = 0;
+    }
+
+    /**
+     * Busca sitio para un rectángulo de w x h. Devuelve la posición empaquetada
+     * como (x << 32 | y), o -1 si no cabe en la página.
+     */
+    public long insert(int w, int h) {
+        int bestIndex = -1;
+        int bestX = 0;
+        int bestY = Integer.MAX_VALUE;
+        int bestWidth = Integer.MAX_VALUE;
+
+        for (int i = 0; i < nodeCount; i++) {
+            int y = fit(i, w, h);
+            // El más bajo; a igual altura, el segmento más estrecho desperdicia menos
+            if (y >= 0 && (y < bestY || (y == bestY && nodeWidth[i] < bestWidth))) {
+                bestIndex = i;
+                bestX = nodeX[i];
+                bestY = y;
+                bestWidth = nodeWidth[i];
+            }
+        }
+
+        if (bestIndex < 0) {
+            return -1;
+        }
+
+        addLevel(bestIndex, bestX, bestY, w, h);
+        usedArea += (long) w * h;
+        return ((long) bestX << 32) | (bestY & 0xFFFFFFFFL);
+    }
+
+    // Altura a la que quedaría el rectángulo apoyado a partir del segmento i, o -1
+    private int fit(int index, int w, int h) {
+        int x = nodeX[index];
+        if (x + w > width) {
+            return -1;
+        }
+        int remaining = w;
+        int y = 0;
+        int i = index;
+        while (remaining > 0) {
+            if (i >= nodeCount) {
+                return -1;
+            }
+            y = Math.max(y, nodeY[i]);
+            if (y + h > height) {
+                return -1;
+            }
+            remaining -= nodeWidth[i];
+            i++;
+        }
+        return y;
+    }
+
+    private void addLevel(int index, int x, int y, int w, int h) {
+        insertNode(index, x, y + h, w);
+
+        // Recortar o eliminar los segmentos que quedan debajo del nuevo
+        for (int i = index + 1; i < nodeCount; i++) {
+            int previousEnd = nodeX[i - 1] + nodeWidth[i - 1];
+            if (nodeX[i] >= previousEnd) {
+                break;
+            }
+            int shrink = previousEnd - nodeX[i];
+            nodeX[i] += shrink;
+            nodeWidth[i] -= shrink;
+            if (nodeWidth[i] > 0) {
+                break;
+            }
+            removeNode(i);
+            i--;
+        }
+
+        // Unir segmentos contiguos a la misma altura
+        for (int i = 0; i < nodeCount - 1; i++) {
+            if (nodeY[i] == nodeY[i + 1]) {
+                nodeWidth[i] += nodeWidth[i + 1];
+                removeNode(i + 1);
+                i--;
+            }
+        }
+    }
+
+    private void insertNode(int index, int x, int y, int w) {
+        if (nodeCount == nodeX.length) {
+            int capacity = nodeX.length * 2;
+            nodeX = Arrays.copyOf(nodeX, capacity);
+            nodeY = Arrays.copyOf(nodeY, capacity);
+            nodeWidth = Arrays.copyOf(nodeWidth, capacity);
+        }
+        System.arraycopy(nodeX, index, nodeX, index + 1, nodeCount - index);
+        System.arraycopy(nodeY, index, nodeY, index + 1, nodeCount - index);
+        System.arraycopy(nodeWidth, index, nodeWidth, index + 1, nodeCount - index);
+        nodeX[index] = x;
+        nodeY[index] = y;
+        nodeWidth[index] = w;
+        nodeCount++;
+    }
+
+    private void removeNode(int index) {
+        System.arraycopy(nodeX, index + 1, nodeX, index, nodeCount - index - 1);
+        System.arraycopy(nodeY, index + 1, nodeY, index, nodeCount - index - 1);
+        System.arraycopy(nodeWidth, index + 1, nodeWidth, index, nodeCount - index - 1);
+        nodeCount--;
+    }
+
+    public static int unpackX(long position) {
+        return (int) (position >>> 32);
+    }
+
+    public static int unpackY(long position) {
+        return (int) position;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Fracción del área de la página ocupada por rectángulos
+    public double getOccupancy() {
+        return (double) usedArea / ((long) width * height);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package org.printed.chat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Triple buffer de {@link WorldSnapshot} entre la simulación y el render.
+ * La simulación escribe siempre en su propio buffer y lo publica con un
+ * intercambio atómico; el render se queda con el último publicado. Ninguno de
+ * los dos espera al otro, y el render nunca ve una copia a medias.
+ */
+public class SnapshotExchange {
+
+    // Bit que indica que el buffer intermedio tiene una copia que el render aún no ha tomado
+    private static final int FRESH = 4;
+
+    private final WorldSnapshot[] buffers = {new WorldSnapshot(), new WorldSnapshot(), new WorldSnapshot()};
+    private final AtomicInteger ready = new AtomicInteger(2);
+    private int writeIndex = 0; // sólo lo toca la simulación
+    private int readIndex = 1;  // sólo lo toca el render
+
+    private long published = 0;
+
+    // Desde el hilo de simulación, al terminar un paso
+    public void publish(EntityWorld world, Camera2D camera, long tick) {
+        buffers[writeIndex].copyFrom(world, camera, tick);
+        writeIndex = ready.getAndSet(writeIndex | FRESH) & 3;
+        published++;
+    }
+
+    // Desde el hilo de render: la copia más reciente, válida hasta la siguiente llamada
+    public WorldSnapshot acquire() {
+        if ((ready.get() & FRESH) != 0) {
+            readIndex = ready.getAndSet(readIndex) & 3;
+        }
+        return buffers[readIndex];
+    }
+
+    public long getPublished() {
+        return published;
+    }
+}
\ No newline at end of file
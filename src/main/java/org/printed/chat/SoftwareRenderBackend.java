@@ -0,0 +1,470 @@
+package org.printed.chat;
+
+import org.lwjgl.stb.STBImageWrite;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Rasterizador por software para dibujar sin GPU: quads texturizados con
+ * mezcla alfa y coordenadas UV que se repiten (equivale a GL_REPEAT con
+ * filtro nearest). Dibuja en un framebuffer RGBA fuera del heap.
+ * <p>
+ * Cada flush se reparte en bandas horizontales, una por núcleo. Cada banda
+ * dibuja todas las instancias recortadas a sus filas, en orden, así que el
+ * resultado es idéntico al de un solo hilo. Los bucles internos no reservan
+ * memoria.
+ * <p>
+ * Cuenta los fragmentos escritos en cada frame: dividido entre los píxeles de
+ * la pantalla da el overdraw, que en GPU se traduce en coste de fill-rate.
+ */
+public class SoftwareRenderBackend implements RenderBackend {
+
+    public static final int DEFAULT_SHADER = 1;
+
+    private static final class Texture {
+        final int width;
+        final int height;
+        final int[] pixels;
+
+        Texture(int width, int height, int[] pixels) {
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class BandTask extends RecursiveAction {
+        int firstRow;
+        int lastRow;
+        long fragments;
+        final int[] layerRows = new int[Background.MAX_LAYERS];
+
+        @Override
+        protected void compute() {
+            fragments = currentLayers != null ? rasterizeLayers(firstRow, lastRow, layerRows) : rasterize(firstRow, lastRow);
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final ByteBuffer framebuffer;
+    private final IntBuffer pixels;
+    private final List<Texture> textures = new ArrayList<>();
+    private final List<FloatBuffer> staticInstances = new ArrayList<>();
+    private final List<Texture[]> textureArrays = new ArrayList<>();
+    private final FloatBuffer layerQuad = FloatBuffer.allocate(SpriteBatch.FLOATS_PER_SPRITE);
+    private final BandTask[] bands;
+    private int clearColor = 0xFF4D4D33; // (0.2, 0.3, 0.3) como Game
+
+    // Escala y traslación de la matriz de vista, como en el vertex shader
+    private float viewScaleX = 1.0f;
+    private float viewScaleY = 1.0f;
+    private float viewOffsetX = 0.0f;
+    private float viewOffsetY = 0.0f;
+
+    // Datos del flush en curso, leídos por las bandas
+    private FloatBuffer currentInstances;
+    private int currentCount;
+    private Texture currentTexture;
+    private Texture[] currentLayers;
+    private float[] currentLayerOffsets;
+    private int currentLayerCount;
+
+    private long frames = 0;
+    private long spritesDrawn = 0;
+    private long frameFragments = 0;
+    private long lastFrameFragments = 0;
+    private long totalFragments = 0;
+
+    public SoftwareRenderBackend(int width, int height) {
+        this(width, height, Runtime.getRuntime().availableProcessors());
+    }
+
+    public SoftwareRenderBackend(int width, int height, int bandCount) {
+        this.width = width;
+        this.height = height;
+        this.framebuffer = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.LITTLE_ENDIAN);
+        this.pixels = framebuffer.asIntBuffer();
+
+        // El ID 0 es la textura vacía, igual que en GL
+        textures.add(new Texture(1, 1, new int[]{0xFFFFFFFF}));
+
+        int count = Math.max(1, Math.min(bandCount, height));
+        this.bands = new BandTask[count];
+        int rowsPerBand = (height + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            bands[i] = new BandTask();
+            bands[i].firstRow = Math.min(height, i * rowsPerBand);
+            bands[i].lastRow = Math.min(height, (i + 1) * rowsPerBand);
+        }
+    }
+
+    // Registra una textura y devuelve su ID; los píxeles se copian
+    public int createTexture(DecodedImage image) {
+        IntBuffer source = image.getPixels().duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        int[] data = new int[image.getWidth() * image.getHeight()];
+        source.get(0, data);
+        textures.add(new Texture(image.getWidth(), image.getHeight(), data));
+        return textures.size() - 1;
+    }
+
+    // Tablero de ajedrez para cuando no hay imagen disponible
+    public int createCheckerTexture(int size, int colorA, int colorB) {
+        int[] data = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                data[y * size + x] = ((x / 8 + y / 8) & 1) == 0 ? colorA : colorB;
+            }
+        }
+        textures.add(new Texture(size, size, data));
+        return textures.size() - 1;
+    }
+
+    // Agrupa texturas ya creadas, del mismo tamaño, como capas de una textura array
+    public int createTextureArray(int... textureIds) {
+        Texture[] layers = new Texture[textureIds.length];
+        for (int i = 0; i < textureIds.length; i++) {
+            layers[i] = textures.get(textureIds[i]);
+            if (layers[i].width != layers[0].width || layers[i].height != layers[0].height) {
+                throw new IllegalArgumentException("Las capas deben tener el mismo tamaño: textura " + textureIds[i]);
+            }
+        }
+        textureArrays.add(layers);
+        return textureArrays.size() - 1;
+    }
+
+    public static int rgba(int r, int g, int b, int a) {
+        return (a << 24) | (b << 16) | (g << 8) | r;
+    }
+
+    public void setClearColor(float r, float g, float b, float a) {
+        clearColor = rgba(Math.round(r * 255), Math.round(g * 255), Math.round(b * 255), Math.round(a * 255));
+    }
+
+    @Override
+    public int getDefaultShader() {
+        return DEFAULT_SHADER;
+    }
+
+    @Override
+    public void beginFrame() {
+        frameFragments = 0;
+        for (int i = 0, n = width * height; i < n; i++) {
+            pixels.put(i, clearColor);
+        }
+    }
+
+    @Override
+    public void setViewProjection(float[] matrix) {
+        viewScaleX = matrix[0];
+        viewScaleY = matrix[5];
+        viewOffsetX = matrix[12];
+        viewOffsetY = matrix[13];
+    }
+
+    @Override
+    public void drawInstances(int shaderId, int textureId, FloatBuffer instances, int count) {
+        currentInstances = instances;
+        currentCount = count;
+        currentTexture = textureId >= 0 && textureId < textures.size() ? textures.get(textureId) : textures.get(0);
+        runBands();
+        spritesDrawn += count;
+        currentInstances = null;
+        currentTexture = null;
+    }
+
+    @Override
+    public void drawLayers(int textureArrayId, int layerCount, float[] layerOffsets,
+                           float x, float y, float width, float height) {
+        layerQuad.clear();
+        layerQuad.put(x).put(y).put(width).put(height).put(0.0f).put(1.0f).put(1.0f).put(0.0f).flip();
+        currentInstances = layerQuad;
+        currentCount = 1;
+        currentLayers = textureArrays.get(textureArrayId);
+        currentLayerOffsets = layerOffsets;
+        currentLayerCount = Math.min(Math.min(layerCount, currentLayers.length), Background.MAX_LAYERS);
+        runBands();
+        spritesDrawn++;
+        currentInstances = null;
+        currentLayers = null;
+        currentLayerOffsets = null;
+    }
+
+    private void runBands() {
+        if (bands.length == 1) {
+            frameFragments += currentLayers != null ? rasterizeLayers(0, height, bands[0].layerRows) : rasterize(0, height);
+            return;
+        }
+        for (BandTask band : bands) {
+            band.reinitialize();
+        }
+        ForkJoinTask.invokeAll(bands);
+        for (BandTask band : bands) {
+            frameFragments += band.fragments;
+        }
+    }
+
+    @Override
+    public int createStaticInstances(FloatBuffer instances, int count) {
+        staticInstances.add(null);
+        int handle = staticInstances.size() - 1;
+        updateStaticInstances(handle, instances, count);
+        return handle;
+    }
+
+    @Override
+    public void updateStaticInstances(int handle, FloatBuffer instances, int count) {
+        float[] data = new float[count * SpriteBatch.FLOATS_PER_SPRITE];
+        instances.get(instances.position(), data);
+        staticInstances.set(handle, FloatBuffer.wrap(data));
+    }
+
+    @Override
+    public void drawStaticInstances(int shaderId, int textureId, int handle, int count) {
+        drawInstances(shaderId, textureId, staticInstances.get(handle), count);
+    }
+
+    @Override
+    public void deleteStaticInstances(int handle) {
+        staticInstances.set(handle, null);
+    }
+
+    // Devuelve cuántos fragmentos ha escrito
+    private long rasterize(int firstRow, int lastRow) {
+        FloatBuffer data = currentInstances;
+        Texture texture = currentTexture;
+        int base = data.position();
+        long fragments = 0;
+
+        for (int i = 0; i < currentCount; i++) {
+            int offset = base + i * SpriteBatch.FLOATS_PER_SPRITE;
+            float cx = data.get(offset) * viewScaleX + viewOffsetX;
+            float cy = data.get(offset + 1) * viewScaleY + viewOffsetY;
+            float w = data.get(offset + 2) * viewScaleX;
+            float h = data.get(offset + 3) * viewScaleY;
+            float u0 = data.get(offset + 4);
+            float v0 = data.get(offset + 5);
+            float u1 = data.get(offset + 6);
+            float v1 = data.get(offset + 7);
+
+            // De coordenadas normalizadas (-1..1, y hacia arriba) a píxeles (fila 0 arriba)
+            float left = (cx - w * 0.5f + 1.0f) * 0.5f * width;
+            float right = (cx + w * 0.5f + 1.0f) * 0.5f * width;
+            float top = (1.0f - (cy + h * 0.5f)) * 0.5f * height;
+            float bottom = (1.0f - (cy - h * 0.5f)) * 0.5f * height;
+
+            int x0 = Math.max(0, (int) Math.ceil(left - 0.5f));
+            int x1 = Math.min(width, (int) Math.ceil(right - 0.5f));
+            int y0 = Math.max(firstRow, (int) Math.ceil(top - 0.5f));
+            int y1 = Math.min(lastRow, (int) Math.ceil(bottom - 0.5f));
+            if (x0 >= x1 || y0 >= y1) {
+                continue;
+            }
+
+            float du = (u1 - u0) / (right - left);
+            float dv = (v1 - v0) / (bottom - top);
+            for (int y = y0; y < y1; y++) {
+                float v = v0 + (y + 0.5f - top) * dv;
+                int ty = wrap((int) Math.floor(v * texture.height), texture.height);
+                int textureRow = ty * texture.width;
+                int row = y * width;
+                float u = u0 + (x0 + 0.5f - left) * du;
+                for (int x = x0; x < x1; x++, u += du) {
+                    int tx = wrap((int) Math.floor(u * texture.width), texture.width);
+                    blend(row + x, texture.pixels[textureRow + tx]);
+                }
+                fragments += x1 - x0;
+            }
+        }
+        return fragments;
+    }
+
+    /**
+     * Un solo quad que mezcla todas las capas por píxel y escribe una vez, como
+     * el shader de capas. Se mezcla de delante hacia atrás para dejar de leer
+     * capas en cuanto el píxel es opaco; el resultado es el mismo.
+     */
+    private long rasterizeLayers(int firstRow, int lastRow, int[] layerRows) {
+        FloatBuffer data = currentInstances;
+        int offset = data.position();
+        float cx = data.get(offset) * viewScaleX + viewOffsetX;
+        float cy = data.get(offset + 1) * viewScaleY + viewOffsetY;
+        float w = data.get(offset + 2) * viewScaleX;
+        float h = data.get(offset + 3) * viewScaleY;
+
+        float left = (cx - w * 0.5f + 1.0f) * 0.5f * width;
+        float right = (cx + w * 0.5f + 1.0f) * 0.5f * width;
+        float top = (1.0f - (cy + h * 0.5f)) * 0.5f * height;
+        float bottom = (1.0f - (cy - h * 0.5f)) * 0.5f * height;
+        int x0 = Math.max(0, (int) Math.ceil(left - 0.5f));
+        int x1 = Math.min(width, (int) Math.ceil(right - 0.5f));
+        int y0 = Math.max(firstRow, (int) Math.ceil(top - 0.5f));
+        int y1 = Math.min(lastRow, (int) Math.ceil(bottom - 0.5f));
+        if (x0 >= x1 || y0 >= y1) {
+            return 0;
+        }
+
+        Texture[] layers = currentLayers;
+        float[] offsets = currentLayerOffsets;
+        int layerCount = currentLayerCount;
+        float du = 1.0f / (right - left);
+        float dv = -1.0f / (bottom - top);
+        for (int y = y0; y < y1; y++) {
+            // La fila de textura de cada capa no cambia a lo largo de la fila de pantalla
+            float v = 1.0f + (y + 0.5f - top) * dv;
+            for (int layer = 0; layer < layerCount; layer++) {
+                Texture texture = layers[layer];
+                layerRows[layer] = wrap((int) Math.floor((v + offsets[layer * 2 + 1]) * texture.height), texture.height)
+                        * texture.width;
+            }
+            int row = y * width;
+            float u = (x0 + 0.5f - left) * du;
+            for (int x = x0; x < x1; x++, u += du) {
+                // Color premultiplicado acumulado de delante hacia atrás
+                int r = 0;
+                int g = 0;
+                int b = 0;
+                int a = 0;
+                for (int layer = layerCount - 1; layer >= 0 && a < 255; layer--) {
+                    Texture texture = layers[layer];
+                    int tx = wrap((int) Math.floor((u + offsets[layer * 2]) * texture.width), texture.width);
+                    int src = texture.pixels[layerRows[layer] + tx];
+                    int sa = src >>> 24;
+                    if (sa == 0) {
+                        continue;
+                    }
+                    if (a == 0 && sa == 255) {
+                        r = src & 0xFF;
+                        g = (src >> 8) & 0xFF;
+                        b = (src >> 16) & 0xFF;
+                        a = 255;
+                        break;
+                    }
+                    int weight = (255 - a) * sa;
+                    r += ((src & 0xFF) * weight + 127 * 255) / (255 * 255);
+                    g += (((src >> 8) & 0xFF) * weight + 127 * 255) / (255 * 255);
+                    b += (((src >> 16) & 0xFF) * weight + 127 * 255) / (255 * 255);
+                    a += (weight + 127) / 255;
+                }
+                if (a >= 255) {
+                    blend(row + x, (255 << 24) | (Math.min(255, b) << 16) | (Math.min(255, g) << 8) | Math.min(255, r));
+                } else if (a > 0) {
+                    blend(row + x, rgba(Math.min(255, (r * 255 + a / 2) / a), Math.min(255, (g * 255 + a / 2) / a),
+                            Math.min(255, (b * 255 + a / 2) / a), a));
+                }
+            }
+        }
+        return (long) (x1 - x0) * (y1 - y0);
+    }
+
+    private static int wrap(int value, int size) {
+        int r = value % size;
+        return r < 0 ? r + size : r;
+    }
+
+    // GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA
+    private void blend(int index, int src) {
+        int sa = src >>> 24;
+        if (sa == 0) {
+            return;
+        }
+        if (sa == 255) {
+            pixels.put(index, src);
+            return;
+        }
+        int dst = pixels.get(index);
+        int inv = 255 - sa;
+        int r = ((src & 0xFF) * sa + (dst & 0xFF) * inv + 127) / 255;
+        int g = (((src >> 8) & 0xFF) * sa + ((dst >> 8) & 0xFF) * inv + 127) / 255;
+        int b = (((src >> 16) & 0xFF) * sa + ((dst >> 16) & 0xFF) * inv + 127) / 255;
+        int a = sa + ((dst >>> 24) * inv + 127) / 255;
+        pixels.put(index, (a << 24) | (b << 16) | (g << 8) | r);
+    }
+
+    @Override
+    public void endFrame() {
+        frames++;
+        lastFrameFragments = frameFragments;
+        totalFragments += frameFragments;
+    }
+
+    @Override
+    public void cleanup() {
+        textures.clear();
+        staticInstances.clear();
+        textureArrays.clear();
+    }
+
+    public ByteBuffer getFramebuffer() {
+        return framebuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public int getPixel(int x, int y) {
+        return pixels.get(y * width + x);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getSpritesDrawn() {
+        return spritesDrawn;
+    }
+
+    public long getLastFrameFragments() {
+        return lastFrameFragments;
+    }
+
+    // Fragmentos escritos por píxel de pantalla en el último frame
+    public double getLastFrameOverdraw() {
+        return (double) lastFrameFragments / ((long) width * height);
+    }
+
+    public double getAverageOverdraw() {
+        return frames == 0 ? 0.0 : (double) totalFragments / frames / ((long) width * height);
+    }
+
+    public boolean writePng(Path path) {
+        return STBImageWrite.stbi_write_png(path.toString(), width, height, 4, framebuffer, width * 4);
+    }
+
+    /**
+     * Compara el framebuffer con una imagen de referencia del mismo tamaño.
+     * Devuelve cuántos píxeles difieren en algún canal más de "tolerance".
+     */
+    public int countDifferences(DecodedImage golden, int tolerance) {
+        if (golden.getWidth() != width || golden.getHeight() != height) {
+            return width * height;
+        }
+        IntBuffer expected = golden.getPixels().duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        int differences = 0;
+        for (int i = 0, n = width * height; i < n; i++) {
+            int a = pixels.get(i);
+            int b = expected.get(i);
+            for (int shift = 0; shift < 32; shift += 8) {
+                if (Math.abs(((a >>> shift) & 0xFF) - ((b >>> shift) & 0xFF)) > tolerance) {
+                    differences++;
+                    break;
+                }
+            }
+        }
+        return differences;
+    }
+}
\ No newline at end of file
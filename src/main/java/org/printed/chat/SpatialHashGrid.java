@@ -0,0 +1,320 @@
+package org.printed.chat;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Rejilla uniforme con tabla hash de celdas para consultas espaciales: qué
+ * entidades caen en un rectángulo (culling) y qué parejas de cajas se solapan
+ * (fase amplia de colisiones).
+ * <p>
+ * Cada entidad se identifica con un entero (por ejemplo su índice en
+ * {@link EntityWorld}) y ocupa un nodo por celda que toca. Los nodos forman
+ * listas enlazadas dentro de arrays primitivos, así que insertar, mover y
+ * quitar no reservan memoria una vez alcanzada la capacidad. Mover una entidad
+ * que no cambia de celdas sólo actualiza su caja.
+ */
+public class SpatialHashGrid {
+
+    public interface PairConsumer {
+        void accept(int a, int b);
+    }
+
+    private static final int NONE = -1;
+
+    private final float cellSize;
+    private final float inverseCellSize;
+    private final int bucketMask;
+    private final int[] bucketHead;
+
+    // Nodos: una entrada por (entidad, celda)
+    private int[] nodeId;
+    private int[] nodeCellX;
+    private int[] nodeCellY;
+    private int[] nodeNext;
+    private int[] nodePrev;
+    private int[] nodeNextOfId; // siguiente nodo de la misma entidad
+    private int nodeCount = 0;
+    private int freeNode = NONE;
+    private int liveNodes = 0;
+
+    // Por entidad: caja y rango de celdas que ocupa
+    private float[] minX;
+    private float[] minY;
+    private float[] maxX;
+    private float[] maxY;
+    private int[] cellMinX;
+    private int[] cellMinY;
+    private int[] cellMaxX;
+    private int[] cellMaxY;
+    private int[] firstNode;
+    private int[] queryStamp;
+    private int currentStamp = 0;
+    private int count = 0;
+
+    public SpatialHashGrid(float cellSize, int expectedEntities) {
+        if (cellSize <= 0.0f) {
+            throw new IllegalArgumentException("El tamaño de celda debe ser positivo: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1.0f / cellSize;
+
+        int buckets = Integer.highestOneBit(Math.max(16, expectedEntities * 2 - 1)) << 1;
+        this.bucketMask = buckets - 1;
+        this.bucketHead = new int[buckets];
+        Arrays.fill(bucketHead, NONE);
+
+        int capacity = Math.max(16, expectedEntities);
+        growIds(capacity);
+        growNodes(capacity * 2);
+    }
+
+    private void growIds(int capacity) {
+        int old = firstNode == null ? 0 : firstNode.length;
+        minX = minX == null ? new float[capacity] : Arrays.copyOf(minX, capacity);
+        minY = minY == null ? new float[capacity] : Arrays.copyOf(minY, capacity);
+        maxX = maxX == null ? new float[capacity] : Arrays.copyOf(maxX, capacity);
+        maxY = maxY == null ? new float[capacity] : Arrays.copyOf(maxY, capacity);
+        cellMinX = cellMinX == null ? new int[capacity] : Arrays.copyOf(cellMinX, capacity);
+        cellMinY = cellMinY == null ? new int[capacity] : Arrays.copyOf(cellMinY, capacity);
+        cellMaxX = cellMaxX == null ? new int[capacity] : Arrays.copyOf(cellMaxX, capacity);
+        cellMaxY = cellMaxY == null ? new int[capacity] : Arrays.copyOf(cellMaxY, capacity);
+        firstNode = firstNode == null ? new int[capacity] : Arrays.copyOf(firstNode, capacity);
+        queryStamp = queryStamp == null ? new int[capacity] : Arrays.copyOf(queryStamp, capacity);
+        Arrays.fill(firstNode, old, capacity, NONE);
+    }
+
+    private void growNodes(int capacity) {
+        nodeId = nodeId == null ? new int[capacity] : Arrays.copyOf(nodeId, capacity);
+        nodeCellX = nodeCellX == null ? new int[capacity] : Arrays.copyOf(nodeCellX, capacity);
+        nodeCellY = nodeCellY == null ? new int[capacity] : Arrays.copyOf(nodeCellY, capacity);
+        nodeNext = nodeNext == null ? new int[capacity] : Arrays.copyOf(nodeNext, capacity);
+        nodePrev = nodePrev == null ? new int[capacity] : Arrays.copyOf(nodePrev, capacity);
+        nodeNextOfId = nodeNextOfId == null ? new int[capacity] : Arrays.copyOf(nodeNextOfId, capacity);
+    }
+
+    private int cell(float value) {
+        return (int) Math.floor(value * inverseCellSize);
+    }
+
+    private int bucket(int cellX, int cellY) {
+        int h = cellX * 0x9E3779B1 ^ cellY * 0x85EBCA77;
+        return (h ^ (h >>> 16)) & bucketMask;
+    }
+
+    // Inserta o mueve la entidad; (x, y) es el centro de la caja, como en SpriteBatch
+    public void insert(int id, float x, float y, float width, float height) {
+        if (id < 0) {
+            throw new IllegalArgumentException("ID de entidad no válido: " + id);
+        }
+        if (id >= firstNode.length) {
+            growIds(Math.max(id + 1, firstNode.length * 2));
+        }
+        float halfW = width * 0.5f;
+        float halfH = height * 0.5f;
+        minX[id] = x - halfW;
+        minY[id] = y - halfH;
+        maxX[id] = x + halfW;
+        maxY[id] = y + halfH;
+
+        int cx0 = cell(minX[id]);
+        int cy0 = cell(minY[id]);
+        int cx1 = cell(maxX[id]);
+        int cy1 = cell(maxY[id]);
+
+        if (firstNode[id] != NONE) {
+            if (cx0 == cellMinX[id] && cy0 == cellMinY[id] && cx1 == cellMaxX[id] && cy1 == cellMaxY[id]) {
+                return;
+            }
+            unlinkAll(id);
+        } else {
+            count++;
+        }
+
+        cellMinX[id] = cx0;
+        cellMinY[id] = cy0;
+        cellMaxX[id] = cx1;
+        cellMaxY[id] = cy1;
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                link(id, cx, cy);
+            }
+        }
+    }
+
+    public void move(int id, float x, float y, float width, float height) {
+        insert(id, x, y, width, height);
+    }
+
+    public boolean remove(int id) {
+        if (id < 0 || id >= firstNode.length || firstNode[id] == NONE) {
+            return false;
+        }
+        unlinkAll(id);
+        count--;
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < firstNode.length && firstNode[id] != NONE;
+    }
+
+    /**
+     * Sincroniza la rejilla con las entidades del mundo, usando el índice denso
+     * como ID. Quita los IDs que ya no existen tras una destrucción.
+     */
+    public void update(EntityWorld world) {
+        int size = world.size();
+        for (int i = 0; i < size; i++) {
+            insert(i, world.posX[i], world.posY[i], world.width[i], world.height[i]);
+        }
+        for (int id = size; id < firstNode.length && count > size; id++) {
+            remove(id);
+        }
+    }
+
+    private void link(int id, int cellX, int cellY) {
+        int node;
+        if (freeNode != NONE) {
+            node = freeNode;
+            freeNode = nodeNext[node];
+        } else {
+            if (nodeCount == nodeId.length) {
+                growNodes(nodeCount * 2);
+            }
+            node = nodeCount++;
+        }
+        int b = bucket(cellX, cellY);
+        nodeId[node] = id;
+        nodeCellX[node] = cellX;
+        nodeCellY[node] = cellY;
+        nodePrev[node] = NONE;
+        nodeNext[node] = bucketHead[b];
+        if (bucketHead[b] != NONE) {
+            nodePrev[bucketHead[b]] = node;
+        }
+        bucketHead[b] = node;
+        nodeNextOfId[node] = firstNode[id];
+        firstNode[id] = node;
+        liveNodes++;
+    }
+
+    private void unlinkAll(int id) {
+        int node = firstNode[id];
+        while (node != NONE) {
+            int next = nodeNextOfId[node];
+            if (nodePrev[node] != NONE) {
+                nodeNext[nodePrev[node]] = nodeNext[node];
+            } else {
+                bucketHead[bucket(nodeCellX[node], nodeCellY[node])] = nodeNext[node];
+            }
+            if (nodeNext[node] != NONE) {
+                nodePrev[nodeNext[node]] = nodePrev[node];
+            }
+            nodeNext[node] = freeNode;
+            freeNode = node;
+            liveNodes--;
+            node = next;
+        }
+        firstNode[id] = NONE;
+    }
+
+    /**
+     * Llama a "visitor" una vez por cada entidad cuya caja se solapa con el
+     * rectángulo dado. Devuelve cuántas ha visitado.
+     */
+    public int query(float queryMinX, float queryMinY, float queryMaxX, float queryMaxY, IntConsumer visitor) {
+        int stamp = nextStamp();
+        int found = 0;
+        int cx0 = cell(queryMinX);
+        int cy0 = cell(queryMinY);
+        int cx1 = cell(queryMaxX);
+        int cy1 = cell(queryMaxY);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                for (int node = bucketHead[bucket(cx, cy)]; node != NONE; node = nodeNext[node]) {
+                    int id = nodeId[node];
+                    if (nodeCellX[node] != cx || nodeCellY[node] != cy || queryStamp[id] == stamp) {
+                        continue;
+                    }
+                    queryStamp[id] = stamp;
+                    if (minX[id] <= queryMaxX && maxX[id] >= queryMinX && minY[id] <= queryMaxY && maxY[id] >= queryMinY) {
+                        visitor.accept(id);
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private int nextStamp() {
+        if (++currentStamp == 0) {
+            Arrays.fill(queryStamp, 0);
+            currentStamp = 1;
+        }
+        return currentStamp;
+    }
+
+    /**
+     * Llama a "visitor" una vez por cada pareja de cajas solapadas, con a < b.
+     * Una pareja que comparte varias celdas sólo se informa en la primera de
+     * ellas. Devuelve el número de parejas.
+     */
+    public int forEachPair(PairConsumer visitor) {
+        int pairs = 0;
+        for (int head : bucketHead) {
+            for (int a = head; a != NONE; a = nodeNext[a]) {
+                int idA = nodeId[a];
+                int cellX = nodeCellX[a];
+                int cellY = nodeCellY[a];
+                for (int b = nodeNext[a]; b != NONE; b = nodeNext[b]) {
+                    int idB = nodeId[b];
+                    // Otra celda con el mismo hash
+                    if (nodeCellX[b] != cellX || nodeCellY[b] != cellY) {
+                        continue;
+                    }
+                    if (Math.max(cellMinX[idA], cellMinX[idB]) != cellX || Math.max(cellMinY[idA], cellMinY[idB]) != cellY) {
+                        continue;
+                    }
+                    if (minX[idA] <= maxX[idB] && maxX[idA] >= minX[idB] && minY[idA] <= maxY[idB] && maxY[idA] >= minY[idB]) {
+                        visitor.accept(Math.min(idA, idB), Math.max(idA, idB));
+                        pairs++;
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    public void clear() {
+        Arrays.fill(bucketHead, NONE);
+        Arrays.fill(firstNode, NONE);
+        nodeCount = 0;
+        freeNode = NONE;
+        liveNodes = 0;
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getNodeCount() {
+        return liveNodes;
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    public int getBucketCount() {
+        return bucketHead.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("entidades=%d nodos=%d celda=%.3f buckets=%d",
+                count, liveNodes, cellSize, bucketHead.length);
+    }
+}
\ No newline at end of file
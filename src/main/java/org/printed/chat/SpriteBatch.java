@@ -0,0 +1,167 @@
+package org.printed.chat;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Agrupa sprites en un único buffer de instancias y los envía al
+ * {@link RenderBackend} con una sola llamada de dibujo por cada cambio de
+ * shader o textura.
+ */
+public class SpriteBatch {
+
+    // x, y, w, h, u0, v0, u1, v1
+    public static final int FLOATS_PER_SPRITE = 8;
+
+    private final RenderBackend backend;
+    private final FloatBuffer instances;
+    private final int capacity;
+    private final BatchStats stats = new BatchStats();
+
+    private int count = 0;
+    private int currentShader = 0;
+    private int currentTexture = 0;
+    private boolean drawing = false;
+
+    public SpriteBatch(RenderBackend backend, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacidad del batch debe ser positiva: " + capacity);
+        }
+        this.backend = backend;
+        this.capacity = capacity;
+        this.instances = BufferUtils.createFloatBuffer(capacity * FLOATS_PER_SPRITE);
+    }
+
+    public void begin() {
+        if (drawing) {
+            throw new IllegalStateException("SpriteBatch.begin() llamado dos veces sin end()");
+        }
+        drawing = true;
+        stats.beginFrame();
+        backend.beginFrame();
+    }
+
+    // Las instancias ya acumuladas se dibujan con la matriz anterior
+    public void setViewProjection(float[] matrix) {
+        if (drawing) {
+            flush();
+        }
+        backend.setViewProjection(matrix);
+    }
+
+    // Lo acumulado se envía en la capa anterior; ver RenderBackend.setLayer
+    public void setLayer(int layer) {
+        if (drawing) {
+            flush();
+        }
+        backend.setLayer(layer);
+    }
+
+    public void draw(int textureId, float x, float y, float width, float height) {
+        draw(backend.getDefaultShader(), textureId, x, y, width, height, 0.0f, 0.0f, 1.0f, 1.0f);
+    }
+
+    public void draw(int textureId, float x, float y, float width, float height,
+                     float u0, float v0, float u1, float v1) {
+        draw(backend.getDefaultShader(), textureId, x, y, width, height, u0, v0, u1, v1);
+    }
+
+    public void draw(int shaderId, int textureId, float x, float y, float width, float height,
+                     float u0, float v0, float u1, float v1) {
+        if (!drawing) {
+            throw new IllegalStateException("SpriteBatch.draw() llamado fuera de begin()/end()");
+        }
+
+        // Cambio de estado o buffer lleno: enviar lo acumulado
+        if (count > 0 && (shaderId != currentShader || textureId != currentTexture)) {
+            flush();
+        } else if (count == capacity) {
+            flush();
+        }
+        currentShader = shaderId;
+        currentTexture = textureId;
+
+        instances.put(x).put(y).put(width).put(height)
+                .put(u0).put(v0).put(u1).put(v1);
+        count++;
+    }
+
+    /**
+     * Dibuja geometría estática creada en el backend. Lo acumulado antes se
+     * envía primero para respetar el orden de dibujo.
+     */
+    public void drawStatic(int textureId, int handle, int count) {
+        if (!drawing) {
+            throw new IllegalStateException("SpriteBatch.drawStatic() llamado fuera de begin()/end()");
+        }
+        flush();
+        backend.drawStaticInstances(backend.getDefaultShader(), textureId, handle, count);
+        stats.recordFlush(count);
+    }
+
+    /**
+     * Dibuja instancias ya preparadas (por ejemplo, partículas) con el shader por
+     * defecto. Lo acumulado antes se envía primero; las instancias van en una
+     * llamada por cada "capacity" del batch, que es lo que admite el backend.
+     */
+    public void drawInstances(int textureId, FloatBuffer data, int instanceCount) {
+        if (!drawing) {
+            throw new IllegalStateException("SpriteBatch.drawInstances() llamado fuera de begin()/end()");
+        }
+        flush();
+        int start = data.position();
+        int limit = data.limit();
+        for (int first = 0; first < instanceCount; first += capacity) {
+            int chunk = Math.min(capacity, instanceCount - first);
+            data.limit(start + (first + chunk) * FLOATS_PER_SPRITE).position(start + first * FLOATS_PER_SPRITE);
+            backend.drawInstances(backend.getDefaultShader(), textureId, data, chunk);
+            stats.recordFlush(chunk);
+        }
+        data.limit(limit).position(start);
+    }
+
+    // Fondo de varias capas en una sola llamada; ver RenderBackend.drawLayers
+    public void drawLayers(int textureArrayId, int layerCount, float[] layerOffsets,
+                           float x, float y, float width, float height) {
+        if (!drawing) {
+            throw new IllegalStateException("SpriteBatch.drawLayers() llamado fuera de begin()/end()");
+        }
+        flush();
+        backend.drawLayers(textureArrayId, layerCount, layerOffsets, x, y, width, height);
+        stats.recordFlush(1);
+    }
+
+    public RenderBackend getBackend() {
+        return backend;
+    }
+
+    public void flush() {
+        if (count == 0) {
+            return;
+        }
+        instances.flip();
+        backend.drawInstances(currentShader, currentTexture, instances, count);
+        stats.recordFlush(count);
+        instances.clear();
+        count = 0;
+    }
+
+    public void end() {
+        if (!drawing) {
+            throw new IllegalStateException("SpriteBatch.end() llamado sin begin()");
+        }
+        flush();
+        backend.endFrame();
+        stats.endFrame();
+        drawing = false;
+    }
+
+    public BatchStats getStats() {
+        return stats;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
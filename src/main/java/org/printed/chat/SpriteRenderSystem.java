@@ -0,0 +1,55 @@
+package org.printed.chat;
+
+/**
+ * Envía al {@link SpriteBatch} las entidades de la última copia publicada por
+ * la simulación, interpolando su posición entre los dos últimos pasos. Sólo
+ * se envían las que se solapan con el rectángulo visible de la cámara. El
+ * sprite de cada entidad es un índice en el array de texturas que recibe; si
+ * está animada, su frame elige el rectángulo UV de la instancia.
+ */
+public final class SpriteRenderSystem {
+
+    private SpriteRenderSystem() {
+    }
+
+    public static void render(WorldSnapshot world, SpriteBatch batch, float alpha, TextureHandle[] sprites,
+                              AnimationLibrary animations, CullStats stats) {
+        float[] posX = world.posX;
+        float[] posY = world.posY;
+        float[] prevX = world.prevX;
+        float[] prevY = world.prevY;
+        float[] width = world.width;
+        float[] height = world.height;
+        int[] sprite = world.sprite;
+        int[] frame = world.frame;
+        float[] frameUVs = animations.frameUVs;
+
+        float viewX = world.getViewX(alpha);
+        float viewY = world.getViewY(alpha);
+        float halfViewW = world.getViewHalfWidth(alpha);
+        float halfViewH = world.getViewHalfHeight(alpha);
+
+        int submitted = 0;
+        for (int i = 0, n = world.size(); i < n; i++) {
+            float x = prevX[i] + (posX[i] - prevX[i]) * alpha;
+            float y = prevY[i] + (posY[i] - prevY[i]) * alpha;
+            float w = width[i];
+            float h = height[i];
+            if (Math.abs(x - viewX) > halfViewW + w * 0.5f || Math.abs(y - viewY) > halfViewH + h * 0.5f) {
+                continue;
+            }
+            int f = frame[i];
+            if (f < 0) {
+                batch.draw(sprites[sprite[i]].getTextureId(), x, y, w, h, 0.0f, 0.0f, 1.0f, 1.0f);
+            } else {
+                int uv = f * 4;
+                batch.draw(sprites[sprite[i]].getTextureId(), x, y, w, h,
+                        frameUVs[uv], frameUVs[uv + 1], frameUVs[uv + 2], frameUVs[uv + 3]);
+            }
+            submitted++;
+        }
+
+        stats.recordSubmitted(submitted);
+        stats.recordCulled(world.getCulled() + world.size() - submitted);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package org.printed.chat;
+
+import org.lwjgl.stb.STBImage;
+import org.lwjgl.system.MemoryStack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Decodificador basado en stb_image. Usa stbi_load_from_memory, que no depende
+ * de estado global y se puede llamar desde los hilos del pool de decodificación.
+ */
+public class StbImageDecoder implements ImageDecoder {
+
+    @Override
+    public DecodedImage decode(String name, ByteBuffer encoded) throws IOException {
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer width = stack.mallocInt(1);
+            IntBuffer height = stack.mallocInt(1);
+            IntBuffer channels = stack.mallocInt(1);
+
+            ByteBuffer image = STBImage.stbi_load_from_memory(encoded, width, height, channels, 4);
+            if (image == null) {
+                throw new IOException("Error al decodificar " + name + ": " + STBImage.stbi_failure_reason());
+            }
+            return new DecodedImage(name, width.get(0), height.get(0), image, true);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,220 @@
+package org.printed.chat;
+
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL44;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Buffer GL para datos que cambian cada frame (instancias de sprites), como un
+ * anillo de segmentos: por defecto tres, uno para el frame que se escribe y dos
+ * que la GPU puede estar leyendo todavía. Al salir de un segmento se pone una
+ * fence y antes de volver a escribir en él se espera a que la GPU la pase; si
+ * hay que esperar de verdad se cuenta como parón.
+ * <p>
+ * Con GL 4.4 el buffer se mapea una sola vez (persistente y coherente) y se
+ * escribe directamente; si no, cada escritura mapea su rango con
+ * glMapBufferRange sin sincronizar e invalidándolo. Las escrituras copian con
+ * MemoryUtil, sin reservar memoria. Debe usarse en el hilo de render.
+ */
+public class StreamingBuffer {
+
+    public static final int DEFAULT_SEGMENTS = 3;
+
+    // Los atributos de vértice piden alineación; 16 cubre vec4
+    private static final long ALIGNMENT = 16;
+    private static final long WAIT_TIMEOUT_NANOS = 1_000_000_000L;
+
+    private final GLStateCache state;
+    private final int bufferId;
+    private final long segmentBytes;
+    private final int segments;
+    private final boolean persistent;
+    private final long mappedAddress;
+
+    private final long[] fences;
+    private int segment = 0;
+    private long cursor = 0;
+
+    private long frameBytes = 0;
+    private int frameStalls = 0;
+    private long lastFrameBytes = 0;
+    private int lastFrameStalls = 0;
+    private long totalBytes = 0;
+    private long totalStalls = 0;
+    private long totalStallNanos = 0;
+    private long frames = 0;
+
+    public StreamingBuffer(GLStateCache state, long segmentBytes) {
+        this(state, segmentBytes, DEFAULT_SEGMENTS, GL.getCapabilities().OpenGL44);
+    }
+
+    public StreamingBuffer(GLStateCache state, long segmentBytes, int segments, boolean usePersistentMapping) {
+        if (segments < 2) {
+            throw new IllegalArgumentException("Hacen falta al menos dos segmentos: " + segments);
+        }
+        if (segmentBytes <= 0 || segmentBytes % ALIGNMENT != 0) {
+            throw new IllegalArgumentException("Tamaño de segmento no válido: " + segmentBytes);
+        }
+        this.state = state;
+        this.segmentBytes = segmentBytes;
+        this.segments = segments;
+        this.persistent = usePersistentMapping;
+        this.fences = new long[segments];
+
+        long size = segmentBytes * segments;
+        bufferId = GL15.glGenBuffers();
+        state.bindBuffer(GL15.GL_ARRAY_BUFFER, bufferId);
+        if (persistent) {
+            int flags = GL30.GL_MAP_WRITE_BIT | GL44.GL_MAP_PERSISTENT_BIT | GL44.GL_MAP_COHERENT_BIT;
+            GL44.glBufferStorage(GL15.GL_ARRAY_BUFFER, size, flags);
+            mappedAddress = GL30.nglMapBufferRange(GL15.GL_ARRAY_BUFFER, 0, size, flags);
+            if (mappedAddress == MemoryUtil.NULL) {
+                throw new IllegalStateException("No se pudo mapear el buffer de streaming");
+            }
+        } else {
+            state.bufferData(GL15.GL_ARRAY_BUFFER, size, GL15.GL_STREAM_DRAW);
+            mappedAddress = MemoryUtil.NULL;
+        }
+    }
+
+    /**
+     * Copia los datos pendientes de "data" (sin moverlo) y devuelve el
+     * desplazamiento en bytes dentro del buffer donde han quedado.
+     */
+    public long write(FloatBuffer data) {
+        long bytes = (long) data.remaining() * Float.BYTES;
+        if (bytes > segmentBytes) {
+            throw new IllegalArgumentException("Escritura de " + bytes + " bytes mayor que el segmento (" + segmentBytes + ")");
+        }
+        if (cursor + bytes > segmentBytes) {
+            // No cabe en lo que queda del segmento: pasar al siguiente antes de que acabe el frame
+            nextSegment();
+        }
+
+        long offset = segment * segmentBytes + cursor;
+        long source = MemoryUtil.memAddress(data);
+        if (persistent) {
+            MemoryUtil.memCopy(source, mappedAddress + offset, bytes);
+        } else {
+            state.bindBuffer(GL15.GL_ARRAY_BUFFER, bufferId);
+            // La fence del segmento ya garantiza que la GPU no lo lee: no hace falta que el driver sincronice
+            long target = GL30.nglMapBufferRange(GL15.GL_ARRAY_BUFFER, offset, bytes,
+                    GL30.GL_MAP_WRITE_BIT | GL30.GL_MAP_INVALIDATE_RANGE_BIT | GL30.GL_MAP_UNSYNCHRONIZED_BIT);
+            if (target == MemoryUtil.NULL) {
+                throw new IllegalStateException("No se pudo mapear el rango " + offset + "+" + bytes);
+            }
+            MemoryUtil.memCopy(source, target, bytes);
+            GL15.glUnmapBuffer(GL15.GL_ARRAY_BUFFER);
+        }
+
+        cursor += (bytes + ALIGNMENT - 1) & ~(ALIGNMENT - 1);
+        frameBytes += bytes;
+        return offset;
+    }
+
+    // Cierra el segmento del frame con una fence; el siguiente frame empieza en otro
+    public void endFrame() {
+        if (cursor > 0) {
+            nextSegment();
+        }
+        lastFrameBytes = frameBytes;
+        lastFrameStalls = frameStalls;
+        totalBytes += frameBytes;
+        frameBytes = 0;
+        frameStalls = 0;
+        frames++;
+    }
+
+    private void nextSegment() {
+        fences[segment] = GL32.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        segment = (segment + 1) % segments;
+        cursor = 0;
+        waitForSegment(segment);
+    }
+
+    private void waitForSegment(int index) {
+        long fence = fences[index];
+        if (fence == 0) {
+            return;
+        }
+        int result = GL32.glClientWaitSync(fence, 0, 0);
+        if (result == GL32.GL_TIMEOUT_EXPIRED) {
+            // La GPU aún lee este segmento: esperar de verdad, y que se vea en las estadísticas
+            long start = System.nanoTime();
+            do {
+                result = GL32.glClientWaitSync(fence, GL32.GL_SYNC_FLUSH_COMMANDS_BIT, WAIT_TIMEOUT_NANOS);
+            } while (result == GL32.GL_TIMEOUT_EXPIRED);
+            totalStallNanos += System.nanoTime() - start;
+            frameStalls++;
+            totalStalls++;
+        }
+        if (result == GL32.GL_WAIT_FAILED) {
+            System.err.println("Error esperando la fence del segmento " + index);
+        }
+        GL32.glDeleteSync(fence);
+        fences[index] = 0;
+    }
+
+    public int getBufferId() {
+        return bufferId;
+    }
+
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    public long getSegmentBytes() {
+        return segmentBytes;
+    }
+
+    public long getLastFrameBytes() {
+        return lastFrameBytes;
+    }
+
+    public int getLastFrameStalls() {
+        return lastFrameStalls;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getTotalStalls() {
+        return totalStalls;
+    }
+
+    public double getTotalStallMillis() {
+        return totalStallNanos / 1_000_000.0;
+    }
+
+    public double getAverageBytesPerFrame() {
+        return frames == 0 ? 0.0 : (double) totalBytes / frames;
+    }
+
+    public void cleanup() {
+        for (int i = 0; i < segments; i++) {
+            if (fences[i] != 0) {
+                GL32.glDeleteSync(fences[i]);
+                fences[i] = 0;
+            }
+        }
+        state.bindBuffer(GL15.GL_ARRAY_BUFFER, bufferId);
+        if (persistent) {
+            GL15.glUnmapBuffer(GL15.GL_ARRAY_BUFFER);
+        }
+        state.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        GL15.glDeleteBuffers(bufferId);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %d x %d KB, %.1f KB/frame, parones=%d (%.2f ms)",
+                persistent ? "persistente" : "glMapBufferRange", segments, segmentBytes / 1024,
+                getAverageBytesPerFrame() / 1024.0, totalStalls, getTotalStallMillis());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,233 @@
+package org.printed.chat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ejecuta los {@link EntitySystem} de cada paso de simulación en un
+ * {@link ForkJoinPool}.
+ * <p>
+ * Los sistemas se agrupan en fases según el orden en que se añaden: uno va a
+ * la primera fase posterior a la de cualquier sistema anterior con el que
+ * entra en conflicto (escribe lo que el otro lee o escribe). Dentro de una fase
+ * los sistemas se ejecutan a la vez, y los que lo permiten se trocean en
+ * tramos de entidades. Las tareas se reutilizan entre pasos.
+ */
+public class SystemScheduler {
+
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    // Un sistema aplicado a un tramo [from, to) de entidades
+    @SuppressWarnings("serial")
+    private final class ChunkTask extends RecursiveAction {
+        int system;
+        int from;
+        int to;
+
+        @Override
+        protected void compute() {
+            runChunk(system, from, to);
+        }
+    }
+
+    // Lanza todas las tareas de una fase y espera a que terminen
+    @SuppressWarnings("serial")
+    private final class PhaseTask extends RecursiveAction {
+        @Override
+        protected void compute() {
+            for (int i = 1; i < taskCount; i++) {
+                tasks[i].fork();
+            }
+            tasks[0].invoke();
+            for (int i = 1; i < taskCount; i++) {
+                tasks[i].join();
+            }
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final List<EntitySystem> systems = new ArrayList<>();
+    private final PhaseTask phaseTask = new PhaseTask();
+
+    // Índices de sistema de cada fase; se recalculan al añadir sistemas
+    private int[][] phases;
+    private ChunkTask[] tasks = new ChunkTask[0];
+    private int taskCount = 0;
+
+    // Datos del paso en curso, leídos por las tareas
+    private EntityWorld currentWorld;
+    private float currentDeltaTime;
+
+    // Tiempo acumulado de cada sistema, sumando todos sus tramos
+    private AtomicLongArray systemNanos = new AtomicLongArray(0);
+    private long ticks = 0;
+    private long parallelPhases = 0;
+
+    public SystemScheduler() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public SystemScheduler(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de tramo debe ser positivo: " + chunkSize);
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    public void add(EntitySystem system) {
+        systems.add(system);
+        phases = null;
+        systemNanos = new AtomicLongArray(systems.size());
+    }
+
+    static boolean conflicts(EntitySystem a, EntitySystem b) {
+        return (a.writes() & (b.reads() | b.writes())) != 0 || (b.writes() & a.reads()) != 0;
+    }
+
+    private void buildPhases() {
+        int count = systems.size();
+        int[] phaseOf = new int[count];
+        int phaseCount = 0;
+        for (int i = 0; i < count; i++) {
+            int phase = 0;
+            for (int j = 0; j < i; j++) {
+                if (conflicts(systems.get(j), systems.get(i))) {
+                    phase = Math.max(phase, phaseOf[j] + 1);
+                }
+            }
+            phaseOf[i] = phase;
+            phaseCount = Math.max(phaseCount, phase + 1);
+        }
+
+        phases = new int[phaseCount][];
+        for (int p = 0; p < phaseCount; p++) {
+            int members = 0;
+            for (int i = 0; i < count; i++) {
+                if (phaseOf[i] == p) {
+                    members++;
+                }
+            }
+            phases[p] = new int[members];
+            members = 0;
+            for (int i = 0; i < count; i++) {
+                if (phaseOf[i] == p) {
+                    phases[p][members++] = i;
+                }
+            }
+        }
+    }
+
+    // Ejecuta un paso de simulación completo; vuelve cuando todos los sistemas han terminado
+    public void update(EntityWorld world, float deltaTime) {
+        if (phases == null) {
+            buildPhases();
+        }
+        currentWorld = world;
+        currentDeltaTime = deltaTime;
+
+        int size = world.size();
+        for (int[] phase : phases) {
+            // En mundos pequeños repartir cuesta más de lo que se gana
+            if (size <= chunkSize || pool.getParallelism() == 1) {
+                for (int system : phase) {
+                    runChunk(system, 0, size);
+                }
+                continue;
+            }
+
+            taskCount = 0;
+            for (int system : phase) {
+                if (systems.get(system).isChunked()) {
+                    for (int from = 0; from < size; from += chunkSize) {
+                        addTask(system, from, Math.min(size, from + chunkSize));
+                    }
+                } else {
+                    addTask(system, 0, size);
+                }
+            }
+            phaseTask.reinitialize();
+            pool.invoke(phaseTask);
+            parallelPhases++;
+        }
+
+        currentWorld = null;
+        ticks++;
+    }
+
+    private void addTask(int system, int from, int to) {
+        if (taskCount == tasks.length) {
+            tasks = Arrays.copyOf(tasks, Math.max(8, taskCount * 2));
+            for (int i = taskCount; i < tasks.length; i++) {
+                tasks[i] = new ChunkTask();
+            }
+        }
+        ChunkTask task = tasks[taskCount++];
+        task.reinitialize();
+        task.system = system;
+        task.from = from;
+        task.to = to;
+    }
+
+    private void runChunk(int system, int from, int to) {
+        long start = System.nanoTime();
+        systems.get(system).update(currentWorld, currentDeltaTime, from, to);
+        systemNanos.addAndGet(system, System.nanoTime() - start);
+    }
+
+    public int getPhaseCount() {
+        if (phases == null) {
+            buildPhases();
+        }
+        return phases.length;
+    }
+
+    public int getSystemCount() {
+        return systems.size();
+    }
+
+    public String getSystemName(int index) {
+        return systems.get(index).getName();
+    }
+
+    // Tiempo medio por paso de un sistema (suma de sus tramos, no tiempo de pared)
+    public double getSystemMillisPerTick(int index) {
+        return ticks == 0 ? 0.0 : systemNanos.get(index) / 1_000_000.0 / ticks;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getParallelPhases() {
+        return parallelPhases;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public void resetStats() {
+        for (int i = 0; i < systemNanos.length(); i++) {
+            systemNanos.set(i, 0);
+        }
+        ticks = 0;
+        parallelPhases = 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("hilos=%d fases=%d pasos=%d paralelas=%d", pool.getParallelism(),
+                getPhaseCount(), ticks, parallelPhases));
+        for (int i = 0; i < systems.size(); i++) {
+            sb.append(String.format(" %s=%.3f ms", systems.get(i).getName(), getSystemMillisPerTick(i)));
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
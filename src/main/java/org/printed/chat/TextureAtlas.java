@@ -0,0 +1,70 @@
+package org.printed.chat;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado del empaquetado: páginas RGBA y la región de cada imagen. Las
+ * páginas se guardan en memoria de CPU; {@link #upload()} crea las texturas GL.
+ */
+public class TextureAtlas {
+
+    private final int pageWidth;
+    private final int pageHeight;
+    private final List<ByteBuffer> pages;
+    private final Map<String, AtlasRegion> regions = new LinkedHashMap<>();
+    private int[] pageTextureIds;
+
+    public TextureAtlas(int pageWidth, int pageHeight, List<ByteBuffer> pages, Collection<AtlasRegion> regions) {
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+        this.pages = pages;
+        for (AtlasRegion region : regions) {
+            this.regions.put(region.getName(), region);
+        }
+    }
+
+    public AtlasRegion getRegion(String name) {
+        return regions.get(name);
+    }
+
+    public Collection<AtlasRegion> getRegions() {
+        return Collections.unmodifiableCollection(regions.values());
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    public ByteBuffer getPage(int index) {
+        return pages.get(index);
+    }
+
+    public int getPageWidth() {
+        return pageWidth;
+    }
+
+    public int getPageHeight() {
+        return pageHeight;
+    }
+
+    // Sube cada página como una textura; debe llamarse en el hilo de render
+    public int[] upload() {
+        if (pageTextureIds == null) {
+            pageTextureIds = new int[pages.size()];
+            for (int i = 0; i < pages.size(); i++) {
+                pageTextureIds[i] = TextureLoader.uploadTexture(
+                        new DecodedImage("atlas#" + i, pageWidth, pageHeight, pages.get(i), false));
+            }
+        }
+        return pageTextureIds;
+    }
+
+    public int getTextureId(AtlasRegion region) {
+        return pageTextureIds == null ? 0 : pageTextureIds[region.getPage()];
+    }
+}
\ No newline at end of file
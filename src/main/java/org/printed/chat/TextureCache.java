@@ -0,0 +1,248 @@
+package org.printed.chat;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Caché de texturas con contador de referencias y presupuesto de memoria.
+ * <p>
+ * Las texturas sin referencias siguen residentes hasta que el total supera el
+ * presupuesto; entonces se expulsan las usadas hace más tiempo (LRU). Los
+ * métodos son seguros desde cualquier hilo, pero los IDs expulsados sólo se
+ * borran en GL cuando el hilo de render llama a {@link #processEvictions}.
+ */
+public class TextureCache {
+
+    private static final class Entry {
+        final TextureHandle handle;
+        int refCount = 1;
+        int textureId = 0;
+        long bytes = 0;
+
+        Entry(TextureHandle handle) {
+            this.handle = handle;
+        }
+    }
+
+    // En orden de acceso: el primero es el menos usado recientemente
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ArrayDeque<Integer> pendingDeletes = new ArrayDeque<>();
+    private final long budgetBytes;
+
+    private long residentBytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public TextureCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    // Bytes de una textura RGBA de 8 bits, con su cadena de mipmaps si la tiene
+    public static long textureBytes(int width, int height, boolean mipmaps) {
+        long bytes = (long) width * height * 4;
+        while (mipmaps && (width > 1 || height > 1)) {
+            width = Math.max(1, width / 2);
+            height = Math.max(1, height / 2);
+            bytes += (long) width * height * 4;
+        }
+        return bytes;
+    }
+
+    /**
+     * Devuelve el handle y suma una referencia si la textura está en la caché;
+     * si no, devuelve null y el llamador debe cargarla e insertarla.
+     */
+    public synchronized TextureHandle acquire(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        entry.refCount++;
+        return entry.handle;
+    }
+
+    /**
+     * Inserta un handle nuevo con una referencia. Si otro hilo ya insertó la
+     * misma textura, devuelve el suyo (con una referencia más) en lugar del nuevo.
+     */
+    public synchronized TextureHandle putIfAbsent(String name, TextureHandle handle) {
+        Entry existing = entries.get(name);
+        if (existing != null) {
+            existing.refCount++;
+            return existing.handle;
+        }
+        entries.put(name, new Entry(handle));
+        return handle;
+    }
+
+    // Registra la textura GL ya subida y su tamaño; puede provocar expulsiones
+    public synchronized void setResident(String name, int textureId, int width, int height, boolean mipmaps) {
+        setResident(name, textureId, textureBytes(width, height, mipmaps));
+    }
+
+    // Igual, con el tamaño en VRAM ya calculado (texturas comprimidas)
+    public synchronized void setResident(String name, int textureId, long bytes) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            // La entrada desapareció mientras se cargaba: la textura sobra
+            pendingDeletes.add(textureId);
+            return;
+        }
+        if (entry.textureId != 0 && entry.textureId != textureId) {
+            // La entrada se volvió a cargar estando ya residente: la textura anterior sobra
+            pendingDeletes.add(entry.textureId);
+        }
+        residentBytes -= entry.bytes;
+        entry.textureId = textureId;
+        entry.bytes = bytes;
+        residentBytes += entry.bytes;
+        entry.handle.resolve(textureId);
+        evictIfNeeded();
+    }
+
+    /**
+     * Cambia la textura GL de una entrada ya subida (recarga en caliente) y
+     * devuelve la anterior, que el llamador borra cuando ningún frame en vuelo la
+     * use. Si la entrada no existe o aún no tenía textura devuelve 0 y la nueva
+     * se descarta: la carga pendiente ya leerá el fichero nuevo.
+     */
+    public synchronized int replaceTexture(String name, int textureId, long bytes) {
+        Entry entry = entries.get(name);
+        if (entry == null || entry.textureId == 0) {
+            pendingDeletes.add(textureId);
+            return 0;
+        }
+        int oldTextureId = entry.textureId;
+        residentBytes += bytes - entry.bytes;
+        entry.textureId = textureId;
+        entry.bytes = bytes;
+        entry.handle.resolve(textureId);
+        evictIfNeeded();
+        return oldTextureId;
+    }
+
+    public synchronized void release(TextureHandle handle) {
+        Entry entry = entries.get(handle.getName());
+        if (entry != null && entry.handle == handle) {
+            release(entry);
+        }
+    }
+
+    public synchronized void release(String name) {
+        Entry entry = entries.get(name);
+        if (entry != null) {
+            release(entry);
+        }
+    }
+
+    private void release(Entry entry) {
+        if (entry.refCount == 0) {
+            return;
+        }
+        entry.refCount--;
+        evictIfNeeded();
+    }
+
+    // Quita una entrada que no llegó a cargarse, para que el siguiente acquire() la reintente
+    public synchronized void remove(TextureHandle handle) {
+        Entry entry = entries.get(handle.getName());
+        if (entry != null && entry.handle == handle) {
+            entries.remove(handle.getName());
+            residentBytes -= entry.bytes;
+            if (entry.textureId != 0) {
+                pendingDeletes.add(entry.textureId);
+            }
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (residentBytes > budgetBytes && it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.refCount > 0 || entry.textureId == 0) {
+                continue;
+            }
+            it.remove();
+            residentBytes -= entry.bytes;
+            pendingDeletes.add(entry.textureId);
+            entry.handle.resolve(0);
+            evictions++;
+        }
+    }
+
+    // Borra en GL las texturas expulsadas y devuelve cuántas; debe llamarse desde el hilo de render
+    public int processEvictions(IntConsumer deleter) {
+        int deleted = 0;
+        while (true) {
+            Integer textureId;
+            synchronized (this) {
+                textureId = pendingDeletes.poll();
+            }
+            if (textureId == null) {
+                return deleted;
+            }
+            deleter.accept(textureId);
+            deleted++;
+        }
+    }
+
+    // Vacía la caché entera, tenga referencias o no (al cerrar el juego)
+    public void clear(IntConsumer deleter) {
+        synchronized (this) {
+            for (Entry entry : entries.values()) {
+                if (entry.textureId != 0) {
+                    pendingDeletes.add(entry.textureId);
+                    entry.handle.resolve(0);
+                }
+            }
+            entries.clear();
+            residentBytes = 0;
+        }
+        processEvictions(deleter);
+    }
+
+    public synchronized int getRefCount(String name) {
+        Entry entry = entries.get(name);
+        return entry == null ? 0 : entry.refCount;
+    }
+
+    public synchronized boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("texturas=%d residentes=%.1f/%.1f MB hits=%d misses=%d expulsiones=%d",
+                entries.size(), residentBytes / (1024.0 * 1024.0), budgetBytes / (1024.0 * 1024.0),
+                hits, misses, evictions);
+    }
+}
\ No newline at end of file
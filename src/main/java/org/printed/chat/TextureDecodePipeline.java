@@ -0,0 +1,130 @@
+package org.printed.chat;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lectura y decodificación de imágenes en un pool de hilos de tamaño fijo.
+ * No usa GL, así que se puede probar y medir sin contexto.
+ */
+public class TextureDecodePipeline {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final ImageDecoder decoder;
+    private final ExecutorService executor;
+
+    private final AtomicLong decodedImages = new AtomicLong();
+    private final AtomicLong failedImages = new AtomicLong();
+    private final AtomicLong decodedBytes = new AtomicLong();
+    private final AtomicLong decodeNanos = new AtomicLong();
+
+    public TextureDecodePipeline(ImageDecoder decoder) {
+        this(decoder, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    public TextureDecodePipeline(ImageDecoder decoder, int threads) {
+        this.decoder = decoder;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "texture-decode-" + threadCount.incrementAndGet());
+            // Hilos daemon para no impedir que la JVM termine si alguien olvida shutdown()
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<DecodedImage> submit(String name, Path path) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return decode(name, path);
+            } catch (IOException e) {
+                failedImages.incrementAndGet();
+                throw new RuntimeException(e);
+            }
+        }, executor);
+    }
+
+    private DecodedImage decode(String name, Path path) throws IOException {
+        long start = System.nanoTime();
+
+        ByteBuffer encoded = readFile(path);
+        try {
+            DecodedImage image = decoder.decode(name, encoded);
+            decodeNanos.addAndGet(System.nanoTime() - start);
+            decodedImages.incrementAndGet();
+            decodedBytes.addAndGet(image.getByteSize());
+            return image;
+        } finally {
+            MemoryUtil.memFree(encoded);
+        }
+    }
+
+    // Lee el fichero entero en memoria nativa; el llamador debe liberarla con MemoryUtil.memFree
+    public static ByteBuffer readFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = MemoryUtil.memAlloc((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                // Leer hasta completar el buffer
+            }
+            return buffer.flip();
+        }
+    }
+
+    public long getDecodedImages() {
+        return decodedImages.get();
+    }
+
+    public long getFailedImages() {
+        return failedImages.get();
+    }
+
+    public long getDecodedBytes() {
+        return decodedBytes.get();
+    }
+
+    // Tiempo total de trabajo de los hilos (lectura + decodificación)
+    public long getDecodeNanos() {
+        return decodeNanos.get();
+    }
+
+    public double getAverageDecodeMillis() {
+        long images = decodedImages.get();
+        return images == 0 ? 0.0 : decodeNanos.get() / 1_000_000.0 / images;
+    }
+
+    /**
+     * Descarta las decodificaciones en cola y espera a las que ya están en marcha,
+     * para que sus callbacks hayan terminado al volver. Devuelve false si alguna
+     * no acabó a tiempo.
+     */
+    public boolean shutdown() {
+        executor.shutdownNow();
+        try {
+            return executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("decoded=%d failed=%d avg=%.2f ms (%.1f MB)",
+                getDecodedImages(), getFailedImages(), getAverageDecodeMillis(), getDecodedBytes() / (1024.0 * 1024.0));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package org.printed.chat;
+
+/**
+ * Referencia estable a una textura. Mientras la textura real no está subida a
+ * GL devuelve la textura de reserva, así el llamador puede dibujar desde el
+ * primer frame.
+ */
+public class TextureHandle {
+
+    private final String name;
+    private final int placeholderId;
+    private volatile int textureId = 0;
+    private volatile boolean failed = false;
+
+    public TextureHandle(String name, int placeholderId) {
+        this.name = name;
+        this.placeholderId = placeholderId;
+    }
+
+    // Handle ya resuelto, útil sin contexto GL o para texturas creadas a mano
+    public static TextureHandle ready(String name, int textureId) {
+        TextureHandle handle = new TextureHandle(name, textureId);
+        handle.textureId = textureId;
+        return handle;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getTextureId() {
+        int id = textureId;
+        return id != 0 ? id : placeholderId;
+    }
+
+    public boolean isReady() {
+        return textureId != 0;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    void resolve(int textureId) {
+        this.textureId = textureId;
+    }
+
+    void fail() {
+        this.failed = true;
+    }
+}
\ No newline at end of file
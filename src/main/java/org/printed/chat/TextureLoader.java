@@ -1,45 +1,44 @@
 package org.printed.chat;
 
 import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.EXTTextureCompressionS3TC;
+import org.lwjgl.opengl.GL;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+import org.lwjgl.opengl.GL13;
 import org.lwjgl.opengl.GL30;
 import org.lwjgl.stb.STBImage;
+import org.lwjgl.system.MemoryUtil;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
-import java.util.Map;
+import java.security.CodeSource;
 
 public class TextureLoader {
 
-    private static Map<String, Integer> textureCache = new HashMap<>();
+    // Sin límite de memoria: las texturas cargadas por esta vía viven hasta cleanup()
+    private static final TextureCache textureCache = new TextureCache(Long.MAX_VALUE);
+
+    private static final Path assetRoot = findAssetRoot();
 
     public static int loadTexture(String fileName) {
         // Verificar si la textura ya está cargada
-        if (textureCache.containsKey(fileName)) {
-            return textureCache.get(fileName);
+        TextureHandle cached = textureCache.acquire(fileName);
+        if (cached != null) {
+            return cached.getTextureId();
         }
 
-        // Generar ID de textura
-        int textureId = GL11.glGenTextures();
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureId);
-
-        // Configurar parámetros de la textura
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
-
         // Cargar imagen
         IntBuffer width = BufferUtils.createIntBuffer(1);
         IntBuffer height = BufferUtils.createIntBuffer(1);
         IntBuffer channels = BufferUtils.createIntBuffer(1);
 
         // Obtener la ruta del archivo de imagen
-        Path path = Paths.get(System.getProperty("user.dir"), "src", "main", "resources", "textures", fileName);
-        String filePath = path.toString();
+        String filePath = resolvePath(fileName).toString();
 
         // Voltear la imagen verticalmente para que coincida con las coordenadas de OpenGL
         STBImage.stbi_set_flip_vertically_on_load(false);
@@ -52,25 +51,248 @@ public class TextureLoader {
             return -1;
         }
 
-        // Cargar datos de la imagen a la textura
-        GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA, width.get(0), height.get(0),
-                0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, image);
-        GL30.glGenerateMipmap(GL11.GL_TEXTURE_2D);
+        DecodedImage decoded = new DecodedImage(fileName, width.get(0), height.get(0), image, true);
+        int textureId = uploadTexture(decoded);
 
         // Liberar la memoria
-        STBImage.stbi_image_free(image);
+        decoded.free();
+
+        // Guardar en caché
+        TextureHandle handle = textureCache.putIfAbsent(fileName, new TextureHandle(fileName, 0));
+        textureCache.setResident(fileName, textureId, width.get(0), height.get(0), true);
+
+        return handle.getTextureId();
+    }
+
+    /**
+     * Carga varias imágenes del mismo tamaño como capas de una textura
+     * GL_TEXTURE_2D_ARRAY. Se guarda en la caché con el nombre de todas las
+     * capas unidas por '|', que es lo que hay que pasar a releaseTexture().
+     * Devuelve -1 si alguna capa falla o los tamaños no coinciden.
+     */
+    public static int loadTextureArray(String... fileNames) {
+        String key = String.join("|", fileNames);
+        TextureHandle cached = textureCache.acquire(key);
+        if (cached != null) {
+            return cached.getTextureId();
+        }
+
+        IntBuffer width = BufferUtils.createIntBuffer(1);
+        IntBuffer height = BufferUtils.createIntBuffer(1);
+        IntBuffer channels = BufferUtils.createIntBuffer(1);
+        STBImage.stbi_set_flip_vertically_on_load(false);
+
+        DecodedImage[] layers = new DecodedImage[fileNames.length];
+        try {
+            for (int i = 0; i < fileNames.length; i++) {
+                ByteBuffer image = STBImage.stbi_load(resolvePath(fileNames[i]).toString(), width, height, channels, 4);
+                if (image == null) {
+                    System.err.println("Error al cargar la capa " + fileNames[i] + ": " + STBImage.stbi_failure_reason());
+                    return -1;
+                }
+                layers[i] = new DecodedImage(fileNames[i], width.get(0), height.get(0), image, true);
+                if (layers[i].getWidth() != layers[0].getWidth() || layers[i].getHeight() != layers[0].getHeight()) {
+                    System.err.println("Las capas deben tener el mismo tamaño: " + fileNames[i]);
+                    return -1;
+                }
+            }
+
+            return createTextureArray(key, layers);
+        } finally {
+            for (DecodedImage layer : layers) {
+                if (layer != null) {
+                    layer.free();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sube capas ya decodificadas (o generadas) y las guarda en la caché con
+     * "key", igual que loadTextureArray(); se sueltan con releaseTexture(key).
+     */
+    public static int createTextureArray(String key, DecodedImage[] layers) {
+        int textureId = uploadTextureArray(layers);
+        // Para el presupuesto, las capas cuentan como una textura N veces más alta
+        TextureHandle handle = textureCache.putIfAbsent(key, new TextureHandle(key, 0));
+        textureCache.setResident(key, textureId, layers[0].getWidth(), layers[0].getHeight() * layers.length, true);
+        return handle.getTextureId();
+    }
+
+    // Sube imágenes del mismo tamaño como capas de una textura 2D array; debe llamarse en el hilo de render
+    public static int uploadTextureArray(DecodedImage[] layers) {
+        int width = layers[0].getWidth();
+        int height = layers[0].getHeight();
+
+        int textureId = GL11.glGenTextures();
+        GL11.glBindTexture(GL30.GL_TEXTURE_2D_ARRAY, textureId);
+        GL11.glTexParameteri(GL30.GL_TEXTURE_2D_ARRAY, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
+        GL11.glTexParameteri(GL30.GL_TEXTURE_2D_ARRAY, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
+        // Se generan mipmaps más abajo: el filtro de reducción tiene que usarlos
+        GL11.glTexParameteri(GL30.GL_TEXTURE_2D_ARRAY, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR_MIPMAP_LINEAR);
+        GL11.glTexParameteri(GL30.GL_TEXTURE_2D_ARRAY, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+
+        // Reservar todas las capas y copiar cada imagen en la suya
+        GL12.glTexImage3D(GL30.GL_TEXTURE_2D_ARRAY, 0, GL30.GL_RGBA8, width, height, layers.length,
+                0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, (ByteBuffer) null);
+        for (int i = 0; i < layers.length; i++) {
+            GL12.glTexSubImage3D(GL30.GL_TEXTURE_2D_ARRAY, 0, 0, 0, i, width, height, 1,
+                    GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, layers[i].getPixels());
+        }
+        GL30.glGenerateMipmap(GL30.GL_TEXTURE_2D_ARRAY);
+
+        GL11.glBindTexture(GL30.GL_TEXTURE_2D_ARRAY, 0);
+        return textureId;
+    }
+
+    /**
+     * Carpeta de recursos: la de -Dgame.assets si se indica, src/main/resources
+     * si se ejecuta desde el proyecto y, si no, "assets" junto al jar.
+     */
+    private static Path findAssetRoot() {
+        String configured = System.getProperty("game.assets");
+        if (configured != null) {
+            return Paths.get(configured).toAbsolutePath();
+        }
+        Path development = Paths.get(System.getProperty("user.dir"), "src", "main", "resources");
+        if (Files.isDirectory(development)) {
+            return development;
+        }
+        CodeSource source = TextureLoader.class.getProtectionDomain().getCodeSource();
+        if (source != null) {
+            try {
+                return Paths.get(source.getLocation().toURI()).toAbsolutePath().getParent().resolve("assets");
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                System.err.println("No se pudo ubicar el jar: " + e.getMessage());
+            }
+        }
+        return Paths.get(System.getProperty("user.dir"), "assets");
+    }
+
+    public static Path getAssetRoot() {
+        return assetRoot;
+    }
+
+    // Busca en textures/ y, si no está ahí, en la raíz de recursos
+    public static Path resolvePath(String fileName) {
+        Path texture = assetRoot.resolve("textures").resolve(fileName);
+        if (!fileName.isEmpty() && !Files.exists(texture)) {
+            Path loose = assetRoot.resolve(fileName);
+            if (Files.exists(loose)) {
+                return loose;
+            }
+        }
+        return texture;
+    }
+
+    // Crea la textura GL a partir de una imagen ya decodificada; debe llamarse en el hilo de render
+    public static int uploadTexture(DecodedImage image) {
+        // Generar ID de textura
+        int textureId = GL11.glGenTextures();
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureId);
+
+        // Configurar parámetros de la textura
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
+        // Usar los mipmaps que se generan tras subir la imagen
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR_MIPMAP_LINEAR);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+
+        // Cargar datos de la imagen a la textura
+        GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA, image.getWidth(), image.getHeight(),
+                0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, image.getPixels());
+        GL30.glGenerateMipmap(GL11.GL_TEXTURE_2D);
 
         // Desenlazar la textura
         GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
 
-        // Guardar en caché
-        textureCache.put(fileName, textureId);
+        return textureId;
+    }
+
+    /**
+     * Crea la textura GL desde una entrada de {@link AssetBundle}: los niveles se
+     * suben directamente desde el archivo mapeado. Si el paquete trae mipmaps se
+     * usan tal cual; si no, los genera GL. Las texturas BC1/BC3 se suben
+     * comprimidas si el contexto tiene S3TC y, si no, se descomprimen a RGBA
+     * nivel a nivel. Debe llamarse en el hilo de render.
+     */
+    public static int uploadTexture(AssetBundle.Texture texture) {
+        int textureId = GL11.glGenTextures();
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureId);
+
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
 
+        int format = texture.getFormat();
+        boolean compressed = format != BlockCompressor.RGBA && supportsFormat(format);
+        int levels = texture.getLevelCount();
+        for (int level = 0; level < levels; level++) {
+            int width = texture.getLevelWidth(level);
+            int height = texture.getLevelHeight(level);
+            if (compressed) {
+                GL13.glCompressedTexImage2D(GL11.GL_TEXTURE_2D, level, glFormat(format), width, height, 0,
+                        texture.getLevel(level));
+            } else if (format != BlockCompressor.RGBA) {
+                ByteBuffer pixels = MemoryUtil.memAlloc(width * height * 4);
+                try {
+                    BlockCompressor.decode(format, texture.getLevel(level), width, height, pixels);
+                    GL11.glTexImage2D(GL11.GL_TEXTURE_2D, level, GL11.GL_RGBA, width, height, 0, GL11.GL_RGBA,
+                            GL11.GL_UNSIGNED_BYTE, pixels.flip());
+                } finally {
+                    MemoryUtil.memFree(pixels);
+                }
+            } else {
+                GL11.glTexImage2D(GL11.GL_TEXTURE_2D, level, GL11.GL_RGBA, width, height, 0, GL11.GL_RGBA,
+                        GL11.GL_UNSIGNED_BYTE, texture.getLevel(level));
+            }
+        }
+        boolean mipmapped = true;
+        if (levels > 1) {
+            GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL12.GL_TEXTURE_MAX_LEVEL, levels - 1);
+        } else if (compressed) {
+            // glGenerateMipmap no admite datos S3TC: la textura se queda con un solo nivel
+            GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL12.GL_TEXTURE_MAX_LEVEL, 0);
+            mipmapped = false;
+        } else {
+            GL30.glGenerateMipmap(GL11.GL_TEXTURE_2D);
+        }
+        // Sin un filtro con mipmaps los niveles precalculados nunca se muestrean
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER,
+                mipmapped ? GL11.GL_LINEAR_MIPMAP_LINEAR : GL11.GL_LINEAR);
+
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
         return textureId;
     }
 
+    // Si el contexto actual puede guardar el formato de BlockCompressor sin descomprimirlo
+    public static boolean supportsFormat(int format) {
+        return format == BlockCompressor.RGBA || GL.getCapabilities().GL_EXT_texture_compression_s3tc;
+    }
+
+    // Bytes que ocupa en VRAM la textura una vez subida con uploadTexture()
+    public static long residentBytes(AssetBundle.Texture texture) {
+        if (texture.getFormat() != BlockCompressor.RGBA && supportsFormat(texture.getFormat())) {
+            return texture.getByteSize();
+        }
+        return TextureCache.textureBytes(texture.getWidth(), texture.getHeight(), true);
+    }
+
+    private static int glFormat(int format) {
+        return format == BlockCompressor.BC1 ? EXTTextureCompressionS3TC.GL_COMPRESSED_RGB_S3TC_DXT1_EXT
+                : EXTTextureCompressionS3TC.GL_COMPRESSED_RGBA_S3TC_DXT5_EXT;
+    }
+
+    // Suelta una referencia obtenida con loadTexture(); la textura sigue en caché hasta cleanup()
+    public static void releaseTexture(String fileName) {
+        textureCache.release(fileName);
+    }
+
+    public static TextureCache getCache() {
+        return textureCache;
+    }
+
     public static void cleanup() {
-        textureCache.values().forEach(GL11::glDeleteTextures);
-        textureCache.clear();
+        textureCache.clear(GL11::glDeleteTextures);
     }
 }
\ No newline at end of file
@@ -0,0 +1,246 @@
+package org.printed.chat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Mapa de tiles dividido en trozos (chunks) cuadrados de tamaño fijo. Cada
+ * tile es un ID de 16 bits; la fila 0 es la de abajo, como el eje y del mundo.
+ * <p>
+ * Los chunks se cargan al pedirlos. Si el mapa viene de un archivo, éste se
+ * proyecta en memoria y cada chunk se copia desde ahí cuando hace falta, así
+ * que abrir un mapa enorme es inmediato y la memoria ocupada depende de la
+ * zona que se mira, no del tamaño del mapa. Los chunks editados no se
+ * descargan hasta guardar.
+ * <p>
+ * Formato (little-endian): "TMAP", versión, ancho y alto en tiles, lado del
+ * chunk, tamaño del tile en unidades de mundo (float) y después los chunks en
+ * orden de filas, cada uno con lado x lado IDs de 16 bits. Como todos los
+ * chunks miden lo mismo, la posición de cada uno se calcula sin índice.
+ */
+public class TileMap implements Closeable {
+
+    private static final int MAGIC = 0x50414D54; // "TMAP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+
+    public static final class Chunk {
+        final int chunkX;
+        final int chunkY;
+        final short[] tiles;
+        boolean dirty = true;     // la geometría no refleja los tiles
+        boolean modified = false; // difiere del archivo
+        int geometry = -1;
+        int instanceCount = 0;
+        long lastVisibleFrame = 0;
+        boolean tracked = false;  // en la lista de TileMapRenderer
+
+        Chunk(int chunkX, int chunkY, int chunkSize) {
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            this.tiles = new short[chunkSize * chunkSize];
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final int chunkSize;
+    private final float tileSize;
+    private final int chunksX;
+    private final int chunksY;
+    private final Chunk[] chunks;
+    private int loadedChunks = 0;
+    private long chunkLoads = 0;
+
+    private final FileChannel channel;
+    private final ByteBuffer mapped;
+
+    private TileMap(int width, int height, int chunkSize, float tileSize, FileChannel channel, ByteBuffer mapped) {
+        if (width <= 0 || height <= 0 || chunkSize <= 0 || tileSize <= 0.0f) {
+            throw new IllegalArgumentException("Dimensiones de mapa no válidas: " + width + "x" + height
+                    + " chunk=" + chunkSize + " tile=" + tileSize);
+        }
+        this.width = width;
+        this.height = height;
+        this.chunkSize = chunkSize;
+        this.tileSize = tileSize;
+        this.chunksX = (width + chunkSize - 1) / chunkSize;
+        this.chunksY = (height + chunkSize - 1) / chunkSize;
+        this.chunks = new Chunk[chunksX * chunksY];
+        this.channel = channel;
+        this.mapped = mapped;
+    }
+
+    // Mapa vacío en memoria, sin archivo detrás
+    public static TileMap create(int width, int height, int chunkSize, float tileSize) {
+        return new TileMap(width, height, chunkSize, tileSize, null, null);
+    }
+
+    public static TileMap open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.capacity() < HEADER_BYTES || mapped.getInt(0) != MAGIC) {
+                throw new IOException("No es un mapa de tiles: " + path);
+            }
+            if (mapped.getInt(4) != VERSION) {
+                throw new IOException("Versión de mapa no soportada: " + mapped.getInt(4));
+            }
+            TileMap map = new TileMap(mapped.getInt(8), mapped.getInt(12), mapped.getInt(16),
+                    mapped.getFloat(20), channel, mapped);
+            long expected = HEADER_BYTES + (long) map.chunks.length * map.chunkBytes();
+            if (mapped.capacity() < expected) {
+                throw new IOException("Mapa truncado: " + path);
+            }
+            return map;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private int chunkBytes() {
+        return chunkSize * chunkSize * Short.BYTES;
+    }
+
+    // Devuelve el chunk, cargándolo si no estaba en memoria
+    public Chunk getChunk(int chunkX, int chunkY) {
+        int index = chunkY * chunksX + chunkX;
+        Chunk chunk = chunks[index];
+        if (chunk == null) {
+            chunk = new Chunk(chunkX, chunkY, chunkSize);
+            if (mapped != null) {
+                int offset = HEADER_BYTES + index * chunkBytes();
+                mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(offset)
+                        .asShortBuffer().get(chunk.tiles);
+            }
+            chunks[index] = chunk;
+            loadedChunks++;
+            chunkLoads++;
+        }
+        return chunk;
+    }
+
+    public boolean isLoaded(int chunkX, int chunkY) {
+        return chunks[chunkY * chunksX + chunkX] != null;
+    }
+
+    // Libera un chunk sin cambios; se volverá a leer del archivo si se pide otra vez
+    boolean unload(Chunk chunk) {
+        // Sin archivo detrás, o con cambios sin guardar, los tiles sólo existen aquí
+        if (mapped == null || chunk.modified) {
+            return false;
+        }
+        chunks[chunk.chunkY * chunksX + chunk.chunkX] = null;
+        loadedChunks--;
+        return true;
+    }
+
+    public int getTile(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return 0;
+        }
+        Chunk chunk = getChunk(x / chunkSize, y / chunkSize);
+        return chunk.tiles[(y % chunkSize) * chunkSize + x % chunkSize] & 0xFFFF;
+    }
+
+    public void setTile(int x, int y, int tile) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            throw new IllegalArgumentException("Tile fuera del mapa: " + x + ", " + y);
+        }
+        Chunk chunk = getChunk(x / chunkSize, y / chunkSize);
+        int index = (y % chunkSize) * chunkSize + x % chunkSize;
+        if (chunk.tiles[index] != (short) tile) {
+            chunk.tiles[index] = (short) tile;
+            chunk.dirty = true;
+            chunk.modified = true;
+        }
+    }
+
+    // Escribe el mapa completo; los chunks no cargados se copian del archivo original
+    public void save(Path path) throws IOException {
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(chunkSize).putFloat(tileSize);
+            header.flip();
+            writeFully(out, header);
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(chunkBytes()).order(ByteOrder.LITTLE_ENDIAN);
+            for (int index = 0; index < chunks.length; index++) {
+                buffer.clear();
+                Chunk chunk = chunks[index];
+                if (chunk != null) {
+                    buffer.asShortBuffer().put(chunk.tiles);
+                } else if (mapped != null) {
+                    ByteBuffer source = mapped.duplicate();
+                    source.position(HEADER_BYTES + index * chunkBytes()).limit(HEADER_BYTES + (index + 1) * chunkBytes());
+                    buffer.put(source);
+                } else {
+                    while (buffer.hasRemaining()) {
+                        buffer.put((byte) 0);
+                    }
+                }
+                buffer.position(0).limit(chunkBytes());
+                writeFully(out, buffer);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public float getTileSize() {
+        return tileSize;
+    }
+
+    public int getChunksX() {
+        return chunksX;
+    }
+
+    public int getChunksY() {
+        return chunksY;
+    }
+
+    public int getLoadedChunks() {
+        return loadedChunks;
+    }
+
+    public long getChunkLoads() {
+        return chunkLoads;
+    }
+
+    // Memoria ocupada por los tiles de los chunks cargados
+    public long getResidentBytes() {
+        return (long) loadedChunks * chunkBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,179 @@
+package org.printed.chat;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dibuja un {@link TileMap} con geometría estática por chunk: cada chunk
+ * visible tiene un buffer de instancias en el backend que sólo se reconstruye
+ * cuando cambian sus tiles. Los chunks que llevan un tiempo sin verse sueltan
+ * su geometría y, si no tienen cambios, también sus tiles.
+ * <p>
+ * El mapa empieza en el origen del mundo: el tile (0, 0) ocupa el cuadrado
+ * de (0, 0) a (tileSize, tileSize).
+ */
+public class TileMapRenderer {
+
+    // Frames que un chunk puede pasar sin verse antes de liberarlo
+    private static final int KEEP_FRAMES = 120;
+
+    private final TileMap map;
+    private final TileSet tileSet;
+    private final RenderBackend backend;
+    private final FloatBuffer scratch;
+    private final List<TileMap.Chunk> resident = new ArrayList<>();
+
+    private long frame = 0;
+    private int lastFrameVisibleChunks = 0;
+    private int lastFrameTiles = 0;
+    private long rebuilds = 0;
+    private long evictions = 0;
+
+    public TileMapRenderer(TileMap map, TileSet tileSet, RenderBackend backend) {
+        this.map = map;
+        this.tileSet = tileSet;
+        this.backend = backend;
+        int chunkSize = map.getChunkSize();
+        this.scratch = BufferUtils.createFloatBuffer(chunkSize * chunkSize * SpriteBatch.FLOATS_PER_SPRITE);
+    }
+
+    // Dibuja los chunks que se solapan con el rectángulo visible, en unidades de mundo
+    public void render(SpriteBatch batch, float minX, float minY, float maxX, float maxY) {
+        frame++;
+        float chunkWorldSize = map.getTileSize() * map.getChunkSize();
+        int cx0 = Math.max(0, (int) Math.floor(minX / chunkWorldSize));
+        int cy0 = Math.max(0, (int) Math.floor(minY / chunkWorldSize));
+        int cx1 = Math.min(map.getChunksX() - 1, (int) Math.floor(maxX / chunkWorldSize));
+        int cy1 = Math.min(map.getChunksY() - 1, (int) Math.floor(maxY / chunkWorldSize));
+
+        int visible = 0;
+        int tiles = 0;
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                TileMap.Chunk chunk = map.getChunk(cx, cy);
+                if (!chunk.tracked) {
+                    chunk.tracked = true;
+                    resident.add(chunk);
+                }
+                chunk.lastVisibleFrame = frame;
+                if (chunk.dirty) {
+                    rebuild(chunk);
+                }
+                if (chunk.instanceCount > 0) {
+                    batch.drawStatic(tileSet.getTextureId(), chunk.geometry, chunk.instanceCount);
+                    tiles += chunk.instanceCount;
+                }
+                visible++;
+            }
+        }
+        lastFrameVisibleChunks = visible;
+        lastFrameTiles = tiles;
+
+        evictStale();
+    }
+
+    private void rebuild(TileMap.Chunk chunk) {
+        int chunkSize = map.getChunkSize();
+        float tileSize = map.getTileSize();
+        float baseX = chunk.chunkX * chunkSize * tileSize + tileSize * 0.5f;
+        float baseY = chunk.chunkY * chunkSize * tileSize + tileSize * 0.5f;
+        short[] ids = chunk.tiles;
+
+        scratch.clear();
+        int count = 0;
+        for (int row = 0; row < chunkSize; row++) {
+            for (int column = 0; column < chunkSize; column++) {
+                int tile = ids[row * chunkSize + column] & 0xFFFF;
+                if (tile == 0 || tile > tileSet.getTileCount()) {
+                    continue;
+                }
+                scratch.put(baseX + column * tileSize).put(baseY + row * tileSize).put(tileSize).put(tileSize)
+                        .put(tileSet.getU0(tile)).put(tileSet.getV0(tile))
+                        .put(tileSet.getU1(tile)).put(tileSet.getV1(tile));
+                count++;
+            }
+        }
+        scratch.flip();
+
+        if (count == 0) {
+            // Chunk vacío: no hace falta buffer
+            if (chunk.geometry != -1) {
+                backend.deleteStaticInstances(chunk.geometry);
+                chunk.geometry = -1;
+            }
+        } else if (chunk.geometry == -1) {
+            chunk.geometry = backend.createStaticInstances(scratch, count);
+        } else {
+            backend.updateStaticInstances(chunk.geometry, scratch, count);
+        }
+        chunk.instanceCount = count;
+        chunk.dirty = false;
+        rebuilds++;
+    }
+
+    private void evictStale() {
+        for (int i = resident.size() - 1; i >= 0; i--) {
+            TileMap.Chunk chunk = resident.get(i);
+            if (frame - chunk.lastVisibleFrame <= KEEP_FRAMES) {
+                continue;
+            }
+            if (chunk.geometry != -1) {
+                backend.deleteStaticInstances(chunk.geometry);
+                chunk.geometry = -1;
+            }
+            chunk.dirty = true;
+            chunk.tracked = false;
+            map.unload(chunk);
+            // Quitar sin desplazar: el último ocupa su hueco
+            resident.set(i, resident.get(resident.size() - 1));
+            resident.remove(resident.size() - 1);
+            evictions++;
+        }
+    }
+
+    public void cleanup() {
+        for (TileMap.Chunk chunk : resident) {
+            if (chunk.geometry != -1) {
+                backend.deleteStaticInstances(chunk.geometry);
+                chunk.geometry = -1;
+            }
+            chunk.dirty = true;
+            chunk.tracked = false;
+        }
+        resident.clear();
+    }
+
+    public TileMap getMap() {
+        return map;
+    }
+
+    public int getLastFrameVisibleChunks() {
+        return lastFrameVisibleChunks;
+    }
+
+    public int getLastFrameTiles() {
+        return lastFrameTiles;
+    }
+
+    public int getResidentChunks() {
+        return resident.size();
+    }
+
+    public long getRebuilds() {
+        return rebuilds;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("chunks visibles=%d residentes=%d cargados=%d (%.1f KB) reconstrucciones=%d liberados=%d",
+                lastFrameVisibleChunks, resident.size(), map.getLoadedChunks(), map.getResidentBytes() / 1024.0,
+                rebuilds, evictions);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package org.printed.chat;
+
+import java.util.List;
+
+/**
+ * Rectángulos UV de cada tipo de tile dentro de una única textura (una
+ * rejilla o una página de atlas). El ID 0 es el tile vacío y no se dibuja.
+ */
+public class TileSet {
+
+    private final int textureId;
+    private final float[] uvs; // u0, v0, u1, v1 por ID; v0 es el borde superior
+
+    private TileSet(int textureId, float[] uvs) {
+        this.textureId = textureId;
+        this.uvs = uvs;
+    }
+
+    // Textura dividida en columnas x filas iguales; el ID 1 es la esquina superior izquierda
+    public static TileSet grid(int textureId, int columns, int rows) {
+        float[] uvs = new float[(columns * rows + 1) * 4];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int base = (1 + row * columns + column) * 4;
+                uvs[base] = (float) column / columns;
+                uvs[base + 1] = (float) row / rows;
+                uvs[base + 2] = (float) (column + 1) / columns;
+                uvs[base + 3] = (float) (row + 1) / rows;
+            }
+        }
+        return new TileSet(textureId, uvs);
+    }
+
+    // Regiones de una misma página del atlas; el ID de cada una es su posición en la lista más uno
+    public static TileSet fromAtlas(TextureAtlas atlas, List<String> regionNames) {
+        float[] uvs = new float[(regionNames.size() + 1) * 4];
+        int page = -1;
+        int textureId = 0;
+        for (int i = 0; i < regionNames.size(); i++) {
+            AtlasRegion region = atlas.getRegion(regionNames.get(i));
+            if (region == null) {
+                throw new IllegalArgumentException("No existe la región en el atlas: " + regionNames.get(i));
+            }
+            if (page == -1) {
+                page = region.getPage();
+                textureId = atlas.getTextureId(region);
+            } else if (region.getPage() != page) {
+                throw new IllegalArgumentException("Los tiles deben estar en la misma página del atlas: " + region.getName());
+            }
+            int base = (i + 1) * 4;
+            uvs[base] = region.getU0();
+            uvs[base + 1] = region.getV0();
+            uvs[base + 2] = region.getU1();
+            uvs[base + 3] = region.getV1();
+        }
+        return new TileSet(textureId, uvs);
+    }
+
+    public int getTextureId() {
+        return textureId;
+    }
+
+    public int getTileCount() {
+        return uvs.length / 4 - 1;
+    }
+
+    public float getU0(int tile) {
+        return uvs[tile * 4];
+    }
+
+    public float getV0(int tile) {
+        return uvs[tile * 4 + 1];
+    }
+
+    public float getU1(int tile) {
+        return uvs[tile * 4 + 2];
+    }
+
+    public float getV1(int tile) {
+        return uvs[tile * 4 + 3];
+    }
+}
\ No newline at end of file
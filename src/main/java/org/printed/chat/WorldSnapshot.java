@@ -0,0 +1,128 @@
+package org.printed.chat;
+
+import java.util.Arrays;
+
+/**
+ * Copia de lo que necesita el render de un {@link EntityWorld} al final de un
+ * paso de simulación: posiciones actual y anterior, tamaño, sprite, frame de
+ * animación y la cámara. Sólo se copian las entidades que pueden verse en algún momento
+ * entre el estado anterior y el actual; el resto se cuenta como descartado.
+ * Los arrays sólo crecen, así que copiar no reserva memoria en régimen estable.
+ */
+public class WorldSnapshot {
+
+    float[] posX = new float[0];
+    float[] posY = new float[0];
+    float[] prevX = new float[0];
+    float[] prevY = new float[0];
+    float[] width = new float[0];
+    float[] height = new float[0];
+    int[] sprite = new int[0];
+    int[] frame = new int[0];
+
+    private int size = 0;
+    private int culled = 0;
+    private long tick = 0;
+
+    // Cámara: centro y semiejes visibles, anterior y actual
+    private float viewX;
+    private float viewY;
+    private float viewHalfWidth = 1.0f;
+    private float viewHalfHeight = 1.0f;
+    private float previousViewX;
+    private float previousViewY;
+    private float previousViewHalfWidth = 1.0f;
+    private float previousViewHalfHeight = 1.0f;
+
+    void copyFrom(EntityWorld world, Camera2D camera, long tick) {
+        viewX = camera.getX();
+        viewY = camera.getY();
+        viewHalfWidth = camera.getHalfWidth() / camera.getZoom();
+        viewHalfHeight = camera.getHalfHeight() / camera.getZoom();
+        previousViewX = camera.getPreviousX();
+        previousViewY = camera.getPreviousY();
+        previousViewHalfWidth = camera.getHalfWidth() / camera.getPreviousZoom();
+        previousViewHalfHeight = camera.getHalfHeight() / camera.getPreviousZoom();
+
+        // Unión de los rectángulos visibles anterior y actual: cubre cualquier alpha
+        float minX = Math.min(viewX - viewHalfWidth, previousViewX - previousViewHalfWidth);
+        float maxX = Math.max(viewX + viewHalfWidth, previousViewX + previousViewHalfWidth);
+        float minY = Math.min(viewY - viewHalfHeight, previousViewY - previousViewHalfHeight);
+        float maxY = Math.max(viewY + viewHalfHeight, previousViewY + previousViewHalfHeight);
+
+        int n = world.size();
+        if (posX.length < n) {
+            int capacity = world.capacity();
+            posX = Arrays.copyOf(posX, capacity);
+            posY = Arrays.copyOf(posY, capacity);
+            prevX = Arrays.copyOf(prevX, capacity);
+            prevY = Arrays.copyOf(prevY, capacity);
+            width = Arrays.copyOf(width, capacity);
+            height = Arrays.copyOf(height, capacity);
+            sprite = Arrays.copyOf(sprite, capacity);
+            frame = Arrays.copyOf(frame, capacity);
+        }
+
+        float[] srcX = world.posX;
+        float[] srcY = world.posY;
+        float[] srcPrevX = world.prevX;
+        float[] srcPrevY = world.prevY;
+        float[] srcWidth = world.width;
+        float[] srcHeight = world.height;
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            float halfW = srcWidth[i] * 0.5f;
+            float halfH = srcHeight[i] * 0.5f;
+            float x = srcX[i];
+            float y = srcY[i];
+            float px = srcPrevX[i];
+            float py = srcPrevY[i];
+            if (Math.max(x, px) + halfW < minX || Math.min(x, px) - halfW > maxX
+                    || Math.max(y, py) + halfH < minY || Math.min(y, py) - halfH > maxY) {
+                continue;
+            }
+            posX[count] = x;
+            posY[count] = y;
+            prevX[count] = px;
+            prevY[count] = py;
+            width[count] = srcWidth[i];
+            height[count] = srcHeight[i];
+            sprite[count] = world.sprite[i];
+            frame[count] = world.frame[i];
+            count++;
+        }
+        this.size = count;
+        this.culled = n - count;
+        this.tick = tick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Entidades que ya se descartaron al copiar porque la cámara no llega a verlas
+    public int getCulled() {
+        return culled;
+    }
+
+    // Paso de simulación del que procede la copia
+    public long getTick() {
+        return tick;
+    }
+
+    public float getViewX(float alpha) {
+        return previousViewX + (viewX - previousViewX) * alpha;
+    }
+
+    public float getViewY(float alpha) {
+        return previousViewY + (viewY - previousViewY) * alpha;
+    }
+
+    public float getViewHalfWidth(float alpha) {
+        return previousViewHalfWidth + (viewHalfWidth - previousViewHalfWidth) * alpha;
+    }
+
+    public float getViewHalfHeight(float alpha) {
+        return previousViewHalfHeight + (viewHalfHeight - previousViewHalfHeight) * alpha;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,169 @@
+package org.printed.chat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncTextureLoaderTest {
+
+    private static final int PLACEHOLDER_ID = 1;
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private Path directory;
+    private final AtomicInteger nextTextureId = new AtomicInteger(100);
+    private final List<Integer> deleted = new ArrayList<>();
+    private final AtomicInteger freed = new AtomicInteger();
+    private AsyncTextureLoader loader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("textures");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (loader != null) {
+            loader.cleanup();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    // Las rutas absolutas se cargan tal cual; el contenido da igual porque el decodificador no lo mira
+    private String createFile(String fileName) throws IOException {
+        Path path = directory.resolve(fileName);
+        Files.write(path, new byte[]{1, 2, 3, 4});
+        return path.toString();
+    }
+
+    private DecodedImage image(String name) {
+        return new DecodedImage(name, 2, 2, ByteBuffer.allocate(16), false) {
+            @Override
+            public void free() {
+                freed.incrementAndGet();
+            }
+        };
+    }
+
+    private AsyncTextureLoader createLoader(ImageDecoder decoder) {
+        loader = new AsyncTextureLoader(new TextureDecodePipeline(decoder, 2), new TextureCache(Long.MAX_VALUE),
+                PLACEHOLDER_ID, image -> nextTextureId.getAndIncrement(), deleted::add);
+        return loader;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "tiempo de espera agotado");
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void placeholderUntilUploaded() throws Exception {
+        AsyncTextureLoader loader = createLoader((name, encoded) -> image(name));
+        String name = createFile("a.png");
+
+        TextureHandle handle = loader.load(name);
+        await(() -> loader.getPendingUploads() == 1);
+        assertFalse(handle.isReady());
+        assertEquals(PLACEHOLDER_ID, handle.getTextureId());
+
+        assertTrue(loader.processUploads(Long.MAX_VALUE));
+        assertTrue(handle.isReady());
+        assertEquals(100, handle.getTextureId());
+        assertEquals(1, freed.get(), "la imagen se libera tras subirla");
+
+        // Un segundo load() reutiliza el handle sin decodificar otra vez
+        TextureHandle again = loader.load(name);
+        assertSame(handle, again);
+        assertEquals(2, loader.getCache().getRefCount(name));
+        assertEquals(1, loader.getPipeline().getDecodedImages());
+    }
+
+    @Test
+    void zeroBudgetStillUploadsOne() throws Exception {
+        AsyncTextureLoader loader = createLoader((name, encoded) -> image(name));
+        TextureHandle first = loader.load(createFile("a.png"));
+        TextureHandle second = loader.load(createFile("b.png"));
+        await(() -> loader.getPendingUploads() == 2);
+
+        assertTrue(loader.processUploads(0));
+        assertEquals(1, loader.getLastFrameUploads());
+        assertTrue(first.isReady() != second.isReady());
+
+        assertTrue(loader.processUploads(0));
+        assertEquals(1, loader.getLastFrameUploads());
+        assertTrue(first.isReady() && second.isReady());
+
+        assertFalse(loader.processUploads(0));
+        assertEquals(0, loader.getLastFrameUploads());
+    }
+
+    @Test
+    void failedDecodeRemovesHandle() throws Exception {
+        AsyncTextureLoader loader = createLoader((name, encoded) -> {
+            throw new IOException("imagen corrupta");
+        });
+        String name = createFile("broken.png");
+
+        TextureHandle handle = loader.load(name);
+        await(() -> !loader.getCache().contains(name));
+        assertTrue(handle.isFailed());
+        assertEquals(PLACEHOLDER_ID, handle.getTextureId());
+        assertEquals(1, loader.getPipeline().getFailedImages());
+        assertEquals(0, loader.getPendingUploads());
+
+        // El siguiente load() lo vuelve a intentar con un handle nuevo
+        TextureHandle retry = loader.load(name);
+        assertNotSame(handle, retry);
+        await(() -> loader.getPipeline().getFailedImages() == 2);
+    }
+
+    @Test
+    void imagesDecodedAfterCleanupAreFreed() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AsyncTextureLoader loader = createLoader((name, encoded) -> {
+            started.countDown();
+            try {
+                // cleanup() interrumpe los hilos del pool después de cerrar el cargador
+                new CountDownLatch(1).await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Terminar la decodificación igualmente, como haría STB
+            }
+            return image(name);
+        });
+
+        TextureHandle handle = loader.load(createFile("slow.png"));
+        assertTrue(started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        loader.cleanup();
+        this.loader = null;
+
+        assertEquals(1, freed.get());
+        assertEquals(0, loader.getPendingUploads());
+        assertFalse(handle.isReady());
+        assertEquals(List.of(PLACEHOLDER_ID), deleted);
+    }
+}
\ No newline at end of file
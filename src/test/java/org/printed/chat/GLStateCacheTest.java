@@ -0,0 +1,133 @@
+package org.printed.chat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GLStateCacheTest {
+
+    private static final int PROGRAM = 3;
+    private static final int VAO = 4;
+    private static final int VBO = 5;
+
+    private RecordingGLDriver driver;
+    private GLStateCache state;
+    private final FloatBuffer instances = FloatBuffer.allocate(SpriteBatch.FLOATS_PER_SPRITE);
+
+    @BeforeEach
+    void setUp() {
+        driver = new RecordingGLDriver();
+        state = new GLStateCache(driver);
+    }
+
+    // Lo que hace el backend GL en cada lote: fija todo el estado y dibuja
+    private void drawBatch(int textureId) {
+        state.useProgram(PROGRAM);
+        state.bindVertexArray(VAO);
+        state.bindBuffer(GL15.GL_ARRAY_BUFFER, VBO);
+        state.enable(GL11.GL_BLEND);
+        state.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+        state.bindTexture2D(0, textureId);
+        state.bufferSubData(GL15.GL_ARRAY_BUFFER, 0, instances);
+        state.drawArraysInstanced(GL11.GL_TRIANGLE_STRIP, 0, 4, 1);
+    }
+
+    private static String bindTexture(int textureId) {
+        return "bindTexture " + GL11.GL_TEXTURE_2D + " " + textureId;
+    }
+
+    private static String upload() {
+        return "bufferSubData " + GL15.GL_ARRAY_BUFFER + " 0 " + SpriteBatch.FLOATS_PER_SPRITE;
+    }
+
+    private static String draw() {
+        return "drawArraysInstanced " + GL11.GL_TRIANGLE_STRIP + " 0 4 1";
+    }
+
+    @Test
+    void redundantChangesAreDropped() {
+        state.beginFrame();
+        drawBatch(10);
+        drawBatch(10);
+        drawBatch(11);
+        state.endFrame();
+
+        assertEquals(List.of(
+                "useProgram " + PROGRAM,
+                "bindVertexArray " + VAO,
+                "bindBuffer " + GL15.GL_ARRAY_BUFFER + " " + VBO,
+                "enable " + GL11.GL_BLEND,
+                "blendFunc " + GL11.GL_SRC_ALPHA + " " + GL11.GL_ONE_MINUS_SRC_ALPHA,
+                "activeTexture " + GL13.GL_TEXTURE0,
+                bindTexture(10),
+                upload(),
+                draw(),
+                upload(),
+                draw(),
+                bindTexture(11),
+                upload(),
+                draw()), driver.getCalls());
+
+        // 7 cambios de estado por lote: se envían 7 + 0 + 1
+        assertEquals(8, state.getLastFrameIssued());
+        assertEquals(13, state.getLastFrameSaved());
+    }
+
+    @Test
+    void blendChangesAreTracked() {
+        state.enable(GL11.GL_BLEND);
+        state.enable(GL11.GL_BLEND);
+        state.blendFunc(GL11.GL_ONE, GL11.GL_ONE);
+        state.blendFunc(GL11.GL_ONE, GL11.GL_ONE);
+        state.disable(GL11.GL_BLEND);
+        state.disable(GL11.GL_BLEND);
+        state.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE);
+
+        assertEquals(List.of(
+                "enable " + GL11.GL_BLEND,
+                "blendFunc " + GL11.GL_ONE + " " + GL11.GL_ONE,
+                "disable " + GL11.GL_BLEND,
+                "blendFunc " + GL11.GL_SRC_ALPHA + " " + GL11.GL_ONE), driver.getCalls());
+    }
+
+    @Test
+    void invalidateTexturesReissuesBinds() {
+        drawBatch(10);
+        driver.clear();
+
+        state.invalidateTextures();
+        drawBatch(10);
+
+        assertEquals(List.of(bindTexture(10), upload(), draw()), driver.getCalls());
+    }
+
+    @Test
+    void invalidateProgramReissuesUseProgram() {
+        drawBatch(10);
+        driver.clear();
+
+        state.invalidateProgram();
+        drawBatch(10);
+
+        assertEquals(List.of("useProgram " + PROGRAM, upload(), draw()), driver.getCalls());
+    }
+
+    @Test
+    void resetReissuesEverything() {
+        drawBatch(10);
+        int first = driver.getCalls().size();
+        driver.clear();
+
+        state.reset();
+        drawBatch(10);
+
+        assertEquals(first, driver.getCalls().size());
+    }
+}
\ No newline at end of file
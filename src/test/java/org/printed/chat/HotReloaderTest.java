@@ -0,0 +1,75 @@
+package org.printed.chat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HotReloaderTest {
+
+    private static final String VERTEX = "void main() { gl_Position = vec4(0.0); }";
+    private static final String FRAGMENT = "void main() { color = vec4(1.0); }";
+
+    private Path directory;
+    private ShaderLibrary shaders;
+    private HotReloader reloader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("shaders");
+        shaders = new ShaderLibrary(new RecordingShaderBackend(false), null);
+        shaders.get("sprite", VERTEX, FRAGMENT);
+        // Sin texturas: ni pool de decodificación ni cachés
+        reloader = new HotReloader(null, shaders, image -> 0, id -> { });
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        reloader.cleanup();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private void change(String fileName, String source) throws IOException {
+        Path path = directory.resolve(fileName);
+        Files.writeString(path, source);
+        reloader.onChanged(path, System.nanoTime());
+    }
+
+    @Test
+    void unchangedSourceIsNotAReload() throws IOException {
+        change("sprite.frag", FRAGMENT);
+        reloader.processReloads(Long.MAX_VALUE);
+
+        assertEquals(0, reloader.getShaderReloads());
+        assertEquals(1, reloader.getUnchanged());
+        assertEquals(0, reloader.getMaxLatencyNanos());
+        assertEquals(0.0, reloader.getAverageLatencyMillis());
+    }
+
+    @Test
+    void countsEachOutcome() throws IOException {
+        change("sprite.frag", FRAGMENT + "\n// cambio");
+        change("sprite.vert", "#error roto");
+        change("other.frag", FRAGMENT);
+        // Mismo cambio avisado dos veces
+        change("sprite.frag", FRAGMENT + "\n// cambio");
+        reloader.processReloads(Long.MAX_VALUE);
+
+        assertEquals(1, reloader.getShaderReloads());
+        assertEquals(1, reloader.getFailedShaders());
+        assertEquals(1, reloader.getIgnored());
+        assertEquals(1, reloader.getUnchanged());
+        assertEquals(FRAGMENT + "\n// cambio", shaders.getSource("sprite", false));
+    }
+}
\ No newline at end of file
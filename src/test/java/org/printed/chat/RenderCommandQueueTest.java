@@ -0,0 +1,220 @@
+package org.printed.chat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class RenderCommandQueueTest {
+
+    private static final int BATCH_CAPACITY = 4;
+    private static final int SHADER = RecordingRenderBackend.DEFAULT_SHADER;
+    private static final int OTHER_SHADER = 5;
+
+    private RenderCommandQueue queue;
+    private CommandRenderBackend commands;
+    private RecordingRenderBackend target;
+
+    @BeforeEach
+    void setUp() {
+        queue = new RenderCommandQueue(1, 16, BATCH_CAPACITY);
+        commands = new CommandRenderBackend(queue, SHADER);
+        target = new RecordingRenderBackend(true);
+    }
+
+    // "count" instancias cuyo x es first, first + 1, ... para poder seguirlas tras ordenar
+    private static FloatBuffer sprites(int first, int count) {
+        FloatBuffer data = FloatBuffer.allocate(count * SpriteBatch.FLOATS_PER_SPRITE);
+        for (int i = 0; i < count; i++) {
+            data.put(first + i).put(0).put(1).put(1).put(0).put(0).put(1).put(1);
+        }
+        return data.flip();
+    }
+
+    private void draw(int shaderId, int textureId, int first, int count) {
+        commands.drawInstances(shaderId, textureId, sprites(first, count), count);
+    }
+
+    private void executeFrame() {
+        commands.endFrame();
+        RenderCommandBuffer buffer = queue.poll();
+        assertNotNull(buffer);
+        queue.execute(buffer, target);
+        queue.release(buffer);
+    }
+
+    // Los x de cada instancia de una llamada, en orden
+    private static float[] xs(RecordingRenderBackend.DrawCall call) {
+        float[] xs = new float[call.instanceCount];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = call.instanceData[i * SpriteBatch.FLOATS_PER_SPRITE];
+        }
+        return xs;
+    }
+
+    private static void assertCall(RecordingRenderBackend.DrawCall call, int shaderId, int textureId, float... xs) {
+        assertEquals(shaderId, call.shaderId, "shader de " + call);
+        assertEquals(textureId, call.textureId, "textura de " + call);
+        assertArrayEquals(xs, xs(call));
+    }
+
+    @Test
+    void sortKeyIsLayerMajor() {
+        long low = RenderCommandBuffer.sortKey(0, 4095, (1 << 20) - 1, (1 << 24) - 1);
+        long high = RenderCommandBuffer.sortKey(1, 0, 0, 0);
+        assertEquals(0, RenderCommandBuffer.layerOf(low));
+        assertEquals(1, RenderCommandBuffer.layerOf(high));
+        assertEquals(-1, Long.signum(low - high));
+        assertEquals(200, RenderCommandBuffer.layerOf(RenderCommandBuffer.sortKey(200, 1, 1, 1)));
+    }
+
+    @Test
+    void sortIsStableForEqualKeys() {
+        RenderCommandBuffer buffer = new RenderCommandBuffer(4, 4);
+        long key = RenderCommandBuffer.sortKey(1, 2, 3, 0);
+        long earlier = RenderCommandBuffer.sortKey(0, 9, 9, 5);
+        for (int i = 0; i < 40; i++) {
+            buffer.addStatic(i % 2 == 0 ? key : earlier, -1, 0, 0, i, 1);
+        }
+        buffer.sort();
+        for (int position = 0; position < 40; position++) {
+            // Primero los impares (clave menor) y luego los pares, cada grupo en orden de llegada
+            int expected = position < 20 ? position * 2 + 1 : (position - 20) * 2;
+            assertEquals(expected, buffer.sortedCommand(position));
+        }
+    }
+
+    @Test
+    void layersDrawInOrderRegardlessOfArrival() {
+        commands.beginFrame();
+        commands.setLayer(2);
+        draw(SHADER, 10, 0, 1);
+        commands.setLayer(0);
+        draw(SHADER, 10, 1, 1);
+        commands.setLayer(1);
+        draw(SHADER, 10, 2, 1);
+        executeFrame();
+
+        // Con el mismo estado se juntan en una llamada, en orden de capa
+        List<RecordingRenderBackend.DrawCall> calls = target.getCalls();
+        assertEquals(1, calls.size());
+        assertCall(calls.get(0), SHADER, 10, 1, 2, 0);
+
+        target.clear();
+        commands.beginFrame();
+        commands.setLayer(1);
+        draw(SHADER, 10, 0, 1);
+        commands.setLayer(0);
+        draw(OTHER_SHADER, 11, 1, 1);
+        executeFrame();
+
+        // La capa manda sobre el shader y la textura
+        calls = target.getCalls();
+        assertEquals(2, calls.size());
+        assertCall(calls.get(0), OTHER_SHADER, 11, 1);
+        assertCall(calls.get(1), SHADER, 10, 0);
+    }
+
+    @Test
+    void groupsByShaderAndTextureWithinLayer() {
+        commands.beginFrame();
+        draw(OTHER_SHADER, 10, 0, 1);
+        draw(SHADER, 11, 1, 1);
+        draw(SHADER, 10, 2, 1);
+        draw(SHADER, 11, 3, 1);
+        draw(SHADER, 10, 4, 1);
+        commands.setLayer(1);
+        draw(SHADER, 10, 5, 1);
+        executeFrame();
+
+        List<RecordingRenderBackend.DrawCall> calls = target.getCalls();
+        assertEquals(4, calls.size());
+        assertCall(calls.get(0), SHADER, 10, 2, 4);
+        assertCall(calls.get(1), SHADER, 11, 1, 3);
+        assertCall(calls.get(2), OTHER_SHADER, 10, 0);
+        // La capa 1 va después aunque su estado sea el del primer lote
+        assertCall(calls.get(3), SHADER, 10, 5);
+        assertEquals(4, queue.getLastDraws());
+    }
+
+    @Test
+    void mergesUpToBatchCapacity() {
+        commands.beginFrame();
+        draw(SHADER, 10, 0, 2);
+        draw(SHADER, 10, 2, 1);
+        draw(SHADER, 10, 3, 1);
+        draw(SHADER, 10, 4, 3);
+        draw(SHADER, 10, 7, 1);
+        executeFrame();
+
+        List<RecordingRenderBackend.DrawCall> calls = target.getCalls();
+        assertEquals(2, calls.size());
+        assertCall(calls.get(0), SHADER, 10, 0, 1, 2, 3);
+        assertCall(calls.get(1), SHADER, 10, 4, 5, 6, 7);
+    }
+
+    @Test
+    void oversizeCommandGoesStraightThrough() {
+        commands.beginFrame();
+        draw(SHADER, 10, 0, 1);
+        draw(SHADER, 10, 1, 6);
+        draw(SHADER, 10, 7, 1);
+        executeFrame();
+
+        List<RecordingRenderBackend.DrawCall> calls = target.getCalls();
+        assertEquals(3, calls.size());
+        assertCall(calls.get(0), SHADER, 10, 0);
+        assertCall(calls.get(1), SHADER, 10, 1, 2, 3, 4, 5, 6);
+        assertCall(calls.get(2), SHADER, 10, 7);
+    }
+
+    @Test
+    void staticGeometryIsDeletedAfterTheDraws() {
+        commands.beginFrame();
+        int old = commands.createStaticInstances(sprites(0, 2), 2);
+        executeFrame();
+
+        // Se dibuja y se borra en el mismo frame, y se crea otra en su lugar
+        commands.beginFrame();
+        commands.drawStaticInstances(SHADER, 20, old, 2);
+        commands.deleteStaticInstances(old);
+        int replacement = commands.createStaticInstances(sprites(10, 1), 1);
+        commands.drawStaticInstances(SHADER, 21, replacement, 1);
+        executeFrame();
+
+        // El handle borrado no se reutiliza dentro del mismo frame
+        assertEquals(1, replacement);
+        List<RecordingRenderBackend.DrawCall> calls = target.getCalls();
+        assertEquals(2, calls.size());
+        assertCall(calls.get(0), SHADER, 20, 0, 1);
+        assertCall(calls.get(1), SHADER, 21, 10);
+        assertEquals(1, target.getLiveStaticBuffers());
+
+        // En el siguiente frame sí
+        commands.beginFrame();
+        assertEquals(old, commands.createStaticInstances(sprites(20, 1), 1));
+        executeFrame();
+        assertEquals(2, target.getLiveStaticBuffers());
+    }
+
+    @Test
+    void staticUpdateAppliesBeforeTheDraws() {
+        commands.beginFrame();
+        int handle = commands.createStaticInstances(sprites(0, 1), 1);
+        commands.drawStaticInstances(SHADER, 20, handle, 1);
+        executeFrame();
+        assertCall(target.getCalls().get(0), SHADER, 20, 0);
+
+        target.clear();
+        commands.beginFrame();
+        commands.drawStaticInstances(SHADER, 20, handle, 1);
+        commands.updateStaticInstances(handle, sprites(5, 1), 1);
+        executeFrame();
+        assertCall(target.getCalls().get(0), SHADER, 20, 5);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+package org.printed.chat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShaderLibraryTest {
+
+    private static final String VERTEX = "void main() { gl_Position = vec4(0.0); }";
+    private static final String FRAGMENT = "void main() { color = vec4(1.0); }";
+
+    private RecordingShaderBackend backend;
+    private ShaderLibrary library;
+
+    @BeforeEach
+    void setUp() {
+        backend = new RecordingShaderBackend(false);
+        library = new ShaderLibrary(backend, null);
+    }
+
+    private long count(String prefix) {
+        return backend.getCalls().stream().filter(call -> call.startsWith(prefix)).count();
+    }
+
+    @Test
+    void identicalSourcesCompileOnce() {
+        ShaderProgram first = library.get("sprite", VERTEX, FRAGMENT);
+        ShaderProgram second = library.get("sprite-copy", VERTEX, FRAGMENT);
+
+        assertSame(first, second);
+        assertEquals(List.of("compile sprite -> 1"), backend.getCalls());
+        assertEquals(1, library.getCompiledCount());
+        assertEquals(1, library.getDedupHits());
+
+        ShaderProgram other = library.get("tinted", VERTEX, FRAGMENT + " ");
+        assertNotSame(first, other);
+        assertEquals(2, count("compile "));
+    }
+
+    @Test
+    void brokenSourceFails() {
+        assertThrows(IllegalStateException.class, () -> library.get("broken", VERTEX, "#error roto"));
+        assertEquals(0, library.getCompiledCount());
+    }
+
+    @Test
+    void repeatedUniformValueIsSkipped() {
+        ShaderProgram program = library.get("sprite", VERTEX, FRAGMENT);
+        backend.clear();
+
+        program.setUniform1i("uTexture", 0);
+        program.setUniform1i("uTexture", 0);
+        program.setUniform4f("uTint", 1, 1, 1, 1);
+        program.setUniform4f("uTint", 1, 1, 1, 1);
+        assertEquals(List.of("getUniformLocation 1 uTexture", "uniform1i 0 0",
+                "getUniformLocation 1 uTint", "uniform4f 1 1.0 1.0 1.0 1.0"), backend.getCalls());
+        assertEquals(2, program.getUploads());
+        assertEquals(2, program.getSkippedUploads());
+
+        // Un valor distinto sí se sube, y tras invalidar se vuelve a subir el mismo
+        program.setUniform4f("uTint", 1, 0, 0, 1);
+        program.invalidateUniforms();
+        program.setUniform1i("uTexture", 0);
+        assertEquals(2, count("uniform4f "));
+        assertEquals(2, count("uniform1i "));
+    }
+
+    @Test
+    void uniformLocationsAreCached() {
+        ShaderProgram program = library.get("sprite", VERTEX, FRAGMENT);
+        backend.clear();
+
+        // Más nombres que la tabla inicial, para que también crezca
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 40; i++) {
+                assertEquals(i, program.getUniformLocation("u" + i));
+            }
+        }
+        assertEquals(40, count("getUniformLocation "));
+
+        // Los uniforms que no existen también se recuerdan y no se suben
+        RecordingShaderBackend missing = new RecordingShaderBackend(false) {
+            @Override
+            public int getUniformLocation(int programId, String name) {
+                super.getUniformLocation(programId, name);
+                return -1;
+            }
+        };
+        ShaderProgram unused = new ShaderProgram(missing, "unused", 1);
+        unused.setUniform1f("uMissing", 1.0f);
+        unused.setUniform1f("uMissing", 2.0f);
+        assertEquals(List.of("getUniformLocation 1 uMissing"), missing.getCalls());
+        assertEquals(0, unused.getUploads());
+    }
+
+    @Test
+    void reloadReportsWhatHappened() {
+        ShaderProgram program = library.get("sprite", VERTEX, FRAGMENT);
+        backend.clear();
+
+        assertEquals(ShaderLibrary.UNCHANGED, library.reload("sprite", null, FRAGMENT));
+        assertEquals(ShaderLibrary.UNKNOWN, library.reload("missing", VERTEX, FRAGMENT));
+        assertEquals(List.of(), backend.getCalls());
+
+        assertEquals(ShaderLibrary.FAILED, library.reload("sprite", null, "#error roto"));
+        assertEquals(1, program.getProgramId());
+        assertEquals(FRAGMENT, library.getSource("sprite", false));
+
+        String edited = FRAGMENT + "\n// cambio";
+        assertEquals(ShaderLibrary.RELOADED, library.reload("sprite", null, edited));
+        assertEquals(List.of("compile sprite -> error", "compile sprite -> 2", "deleteProgram 1"),
+                backend.getCalls());
+        assertEquals(2, program.getProgramId());
+        assertEquals(edited, library.getSource("sprite", false));
+        assertEquals(VERTEX, library.getSource("sprite", true));
+        assertEquals(1, library.getReloadedCount());
+        assertEquals(1, library.getFailedReloadCount());
+    }
+
+    @Test
+    void binaryCacheSkipsCompileOnNextStart() throws IOException {
+        Path dir = Files.createTempDirectory("shaders");
+        try {
+            RecordingShaderBackend firstRun = new RecordingShaderBackend(true);
+            new ShaderLibrary(firstRun, dir).get("sprite", VERTEX, FRAGMENT);
+            assertEquals(List.of("compile sprite -> 1"), firstRun.getCalls());
+
+            RecordingShaderBackend secondRun = new RecordingShaderBackend(true);
+            ShaderLibrary library = new ShaderLibrary(secondRun, dir);
+            library.get("sprite", VERTEX, FRAGMENT);
+            assertEquals(List.of("loadBinary -> 1"), secondRun.getCalls());
+            assertEquals(0, library.getCompiledCount());
+            assertEquals(1, library.getLoadedFromBinaryCount());
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,145 @@
+package org.printed.chat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SpriteBatchTest {
+
+    private static final int OTHER_SHADER = 7;
+
+    private RecordingRenderBackend backend;
+    private SpriteBatch batch;
+
+    @BeforeEach
+    void setUp() {
+        backend = new RecordingRenderBackend();
+        batch = new SpriteBatch(backend, 4);
+    }
+
+    private void assertCall(RecordingRenderBackend.DrawCall call, int shaderId, int textureId, int instances) {
+        assertEquals(shaderId, call.shaderId, "shader de " + call);
+        assertEquals(textureId, call.textureId, "textura de " + call);
+        assertEquals(instances, call.instanceCount, "instancias de " + call);
+    }
+
+    @Test
+    void sameStateIsOneDraw() {
+        batch.begin();
+        batch.draw(10, 0, 0, 1, 1);
+        batch.draw(10, 1, 0, 1, 1);
+        batch.draw(10, 2, 0, 1, 1);
+        batch.end();
+
+        List<RecordingRenderBackend.DrawCall> calls = backend.getCalls();
+        assertEquals(1, calls.size());
+        assertCall(calls.get(0), RecordingRenderBackend.DEFAULT_SHADER, 10, 3);
+        assertEquals(1, batch.getStats().getLastFrameFlushes());
+    }
+
+    @Test
+    void flushesOnTextureChange() {
+        batch.begin();
+        batch.draw(10, 0, 0, 1, 1);
+        batch.draw(10, 1, 0, 1, 1);
+        batch.draw(11, 2, 0, 1, 1);
+        batch.draw(10, 3, 0, 1, 1);
+        batch.end();
+
+        List<RecordingRenderBackend.DrawCall> calls = backend.getCalls();
+        assertEquals(3, calls.size());
+        assertCall(calls.get(0), RecordingRenderBackend.DEFAULT_SHADER, 10, 2);
+        assertCall(calls.get(1), RecordingRenderBackend.DEFAULT_SHADER, 11, 1);
+        assertCall(calls.get(2), RecordingRenderBackend.DEFAULT_SHADER, 10, 1);
+    }
+
+    @Test
+    void flushesOnShaderChange() {
+        batch.begin();
+        batch.draw(10, 0, 0, 1, 1);
+        batch.draw(OTHER_SHADER, 10, 1, 0, 1, 1, 0, 0, 1, 1);
+        batch.draw(OTHER_SHADER, 10, 2, 0, 1, 1, 0, 0, 1, 1);
+        batch.end();
+
+        List<RecordingRenderBackend.DrawCall> calls = backend.getCalls();
+        assertEquals(2, calls.size());
+        assertCall(calls.get(0), RecordingRenderBackend.DEFAULT_SHADER, 10, 1);
+        assertCall(calls.get(1), OTHER_SHADER, 10, 2);
+    }
+
+    @Test
+    void flushesWhenFull() {
+        batch.begin();
+        for (int i = 0; i < 9; i++) {
+            batch.draw(10, i, 0, 1, 1);
+        }
+        batch.end();
+
+        List<RecordingRenderBackend.DrawCall> calls = backend.getCalls();
+        assertEquals(3, calls.size());
+        assertCall(calls.get(0), RecordingRenderBackend.DEFAULT_SHADER, 10, 4);
+        assertCall(calls.get(1), RecordingRenderBackend.DEFAULT_SHADER, 10, 4);
+        assertCall(calls.get(2), RecordingRenderBackend.DEFAULT_SHADER, 10, 1);
+    }
+
+    @Test
+    void drawStaticFlushesPendingFirst() {
+        FloatBuffer data = FloatBuffer.allocate(2 * SpriteBatch.FLOATS_PER_SPRITE);
+        int handle = backend.createStaticInstances(data, 2);
+
+        batch.begin();
+        batch.draw(10, 0, 0, 1, 1);
+        batch.drawStatic(20, handle, 2);
+        batch.end();
+
+        List<RecordingRenderBackend.DrawCall> calls = backend.getCalls();
+        assertEquals(2, calls.size());
+        assertCall(calls.get(0), RecordingRenderBackend.DEFAULT_SHADER, 10, 1);
+        assertCall(calls.get(1), RecordingRenderBackend.DEFAULT_SHADER, 20, 2);
+    }
+
+    @Test
+    void drawInstancesFlushesPendingFirstAndSplitsByCapacity() {
+        FloatBuffer data = FloatBuffer.allocate(6 * SpriteBatch.FLOATS_PER_SPRITE);
+
+        batch.begin();
+        batch.draw(10, 0, 0, 1, 1);
+        batch.drawInstances(30, data, 6);
+        batch.end();
+
+        List<RecordingRenderBackend.DrawCall> calls = backend.getCalls();
+        assertEquals(3, calls.size());
+        assertCall(calls.get(0), RecordingRenderBackend.DEFAULT_SHADER, 10, 1);
+        assertCall(calls.get(1), RecordingRenderBackend.DEFAULT_SHADER, 30, 4);
+        assertCall(calls.get(2), RecordingRenderBackend.DEFAULT_SHADER, 30, 2);
+        // El buffer del llamador queda como estaba
+        assertEquals(0, data.position());
+        assertEquals(data.capacity(), data.limit());
+    }
+
+    @Test
+    void drawLayersFlushesPendingFirst() {
+        batch.begin();
+        batch.draw(10, 0, 0, 1, 1);
+        batch.drawLayers(40, 2, new float[]{0, 0, 0.5f, 0}, 0, 0, 2, 2);
+        batch.draw(10, 1, 0, 1, 1);
+        batch.end();
+
+        List<RecordingRenderBackend.DrawCall> calls = backend.getCalls();
+        assertEquals(3, calls.size());
+        assertCall(calls.get(0), RecordingRenderBackend.DEFAULT_SHADER, 10, 1);
+        assertCall(calls.get(1), RecordingRenderBackend.LAYERS_SHADER, 40, 1);
+        assertCall(calls.get(2), RecordingRenderBackend.DEFAULT_SHADER, 10, 1);
+    }
+
+    @Test
+    void drawOutsideBeginFails() {
+        assertThrows(IllegalStateException.class, () -> batch.draw(10, 0, 0, 1, 1));
+        assertThrows(IllegalStateException.class, () -> batch.end());
+    }
+}
\ No newline at end of file